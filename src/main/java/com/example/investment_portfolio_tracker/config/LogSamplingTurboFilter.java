@@ -0,0 +1,71 @@
+package com.example.investment_portfolio_tracker.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps one in every N log calls below WARN that carry the {@link #SAMPLED} marker, per logger,
+ * configured in {@code logback-spring.xml} as {@code <categories>logger=N,logger=N</categories>}.
+ * <p>
+ * Only per-request and per-tick detail is marked; unmarked calls from the same loggers, such as
+ * trades and admin changes, are never sampled. Turbo filters run before a logging event is
+ * created, so a dropped call costs a map lookup and a counter increment, with no event, argument
+ * formatting or queue slot. Warnings and errors are always kept.
+ */
+public class LogSamplingTurboFilter extends TurboFilter {
+
+    public static final Marker SAMPLED = MarkerFactory.getMarker("SAMPLED");
+
+    private final Map<String, Sampler> samplers = new HashMap<>();
+
+    public void setCategories(String categories) {
+        for (String category : categories.split(",")) {
+            String trimmed = category.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int separator = trimmed.lastIndexOf('=');
+            if (separator < 1) {
+                addError("Expected logger=N but got '" + trimmed + "'");
+                continue;
+            }
+            int every = Integer.parseInt(trimmed.substring(separator + 1).trim());
+            samplers.put(trimmed.substring(0, separator).trim(), new Sampler(Math.max(1, every)));
+        }
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (marker == null || !marker.contains(SAMPLED) || level == null || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        Sampler sampler = samplers.get(logger.getName());
+        // isXxxEnabled() checks (no format) and calls the level would drop anyway must not use up the sample
+        if (sampler == null || format == null || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        return sampler.next() ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private static final class Sampler {
+
+        private final int every;
+        private final AtomicLong calls = new AtomicLong();
+
+        private Sampler(int every) {
+            this.every = every;
+        }
+
+        boolean next() {
+            return every == 1 || calls.getAndIncrement() % every == 0;
+        }
+    }
+}
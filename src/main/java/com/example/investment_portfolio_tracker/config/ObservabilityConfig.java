@@ -0,0 +1,137 @@
+package com.example.investment_portfolio_tracker.config;
+
+import com.example.investment_portfolio_tracker.filter.SlowRequestSqlFilter;
+import com.example.investment_portfolio_tracker.service.StockService;
+import com.example.investment_portfolio_tracker.service.catalogue.StockCatalogue;
+import com.example.investment_portfolio_tracker.service.external.AlphaVantageService;
+import com.example.investment_portfolio_tracker.service.market.QuoteRevalidator;
+import com.example.investment_portfolio_tracker.service.marketdata.CircuitBreaker;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketDataRouter;
+import com.example.investment_portfolio_tracker.service.position.PortfolioResultCache;
+import com.example.investment_portfolio_tracker.util.CacheStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.tracing.Tracer;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Metrics and tracing that Spring Boot does not provide on its own.
+ * <p>
+ * Service methods are timed and traced through {@code @Observed} on the services themselves, and
+ * {@code @Scheduled} runs are observed by Spring as {@code tasks.scheduled.execution}. This adds
+ * per-request SQL statement counts with slow-request sampling, cache hit rates as
+ * {@code cache.gets}, market data circuit state and stale quotes served, and a local file
+ * exporter for spans.
+ */
+@Configuration
+public class ObservabilityConfig {
+
+    @Bean
+    static BeanPostProcessor sqlCapturePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof SqlCaptureDataSource)) {
+                    return new SqlCaptureDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SlowRequestSqlFilter> slowRequestSqlFilter(
+            MeterRegistry meterRegistry,
+            ObjectProvider<Tracer> tracer,
+            @Value("${observability.slow-requests.threshold-ms:1000}") long thresholdMillis,
+            @Value("${observability.slow-requests.sample-rate:0.1}") double sampleRate,
+            @Value("${observability.slow-requests.max-statements:50}") int maxStatements) {
+        FilterRegistrationBean<SlowRequestSqlFilter> registration = new FilterRegistrationBean<>(
+                new SlowRequestSqlFilter(meterRegistry, tracer.getIfAvailable(() -> Tracer.NOOP),
+                        Duration.ofMillis(thresholdMillis), sampleRate, maxStatements));
+        // Just inside the HTTP observation filter, so the request's span is current
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder cacheMetrics(StockService stockService, AlphaVantageService alphaVantageService,
+                                    StockCatalogue stockCatalogue, PortfolioResultCache portfolioResultCache) {
+        return registry -> {
+            bind(registry, "stocks", stockService.getCacheStats());
+            bind(registry, "alphavantage", alphaVantageService.getCacheStats());
+            bind(registry, "stock-catalogue", stockCatalogue.getStats());
+            bind(registry, "portfolio-results", portfolioResultCache.getStats());
+        };
+    }
+
+    @Bean
+    public MeterBinder marketDataMetrics(MarketDataRouter marketDataRouter, QuoteRevalidator quoteRevalidator) {
+        return registry -> {
+            marketDataRouter.getCircuitBreakers().forEach((provider, breaker) -> bind(registry, provider, breaker));
+            FunctionCounter.builder("market-data.stale.served", quoteRevalidator, QuoteRevalidator::getStaleServed)
+                    .description("Stale prices returned to users while the market data circuits were open")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.file.enabled", havingValue = "true", matchIfMissing = true)
+    public SpanExporter fileSpanExporter(
+            @Value("${tracing.file.path:${java.io.tmpdir}/portfolio-tracker/spans.jsonl}") String path,
+            @Value("${tracing.file.max-size:64MB}") DataSize maxSize,
+            ObjectMapper objectMapper) throws IOException {
+        return new FileSpanExporter(Path.of(path), maxSize.toBytes(), objectMapper);
+    }
+
+    // One gauge per state, 1 for the current one, so dashboards can graph and alert on each
+    private static void bind(MeterRegistry registry, String provider, CircuitBreaker breaker) {
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("market-data.circuit.state", breaker, b -> b.getState() == state ? 1 : 0)
+                    .description("Whether the provider's circuit is in this state")
+                    .tags("provider", provider, "state", state.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+        FunctionCounter.builder("market-data.circuit.transitions", breaker, CircuitBreaker::getTimesOpened)
+                .description("Circuit state changes")
+                .tags("provider", provider, "to", "open")
+                .register(registry);
+        FunctionCounter.builder("market-data.circuit.transitions", breaker, CircuitBreaker::getTimesClosed)
+                .description("Circuit state changes")
+                .tags("provider", provider, "to", "closed")
+                .register(registry);
+        FunctionCounter.builder("market-data.circuit.rejected", breaker, CircuitBreaker::getRejected)
+                .description("Calls turned away by an open circuit")
+                .tags("provider", provider)
+                .register(registry);
+    }
+
+    private static void bind(MeterRegistry registry, String cache, CacheStats stats) {
+        FunctionCounter.builder("cache.gets", stats, CacheStats::hits)
+                .description("Cache lookups")
+                .tags("cache", cache, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", stats, CacheStats::misses)
+                .description("Cache lookups")
+                .tags("cache", cache, "result", "miss")
+                .register(registry);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.investment_portfolio_tracker.config;
 
 import com.example.investment_portfolio_tracker.filter.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -36,8 +37,12 @@ public class SecurityConfig {
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
                         .requestMatchers("/api/v1/auth/**").permitAll()
                         .requestMatchers("/api/v1/public/**").permitAll()
-                        .requestMatchers("/actuator/**").permitAll()  // For monitoring
+                        .requestMatchers("/actuator/health/**", "/actuator/info").permitAll()  // For monitoring
+                        // Metrics carry SQL, cache and service timings; scrape with an admin token
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/error").permitAll()  // Allow error page
+                        // Mono results are written on an async dispatch; the request was authorized on the first one
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
@@ -0,0 +1,126 @@
+package com.example.investment_portfolio_tracker.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records the SQL issued on the current thread while a {@link Capture} is open, whether it comes
+ * from Hibernate or a {@code JdbcTemplate}.
+ * <p>
+ * Connections taken outside a capture are handed out untouched, so background work pays nothing.
+ * Inside one, every prepared or plain statement counts once, and the text of the first
+ * {@code maxStatements} is kept for slow-request samples.
+ */
+public class SqlCaptureDataSource extends DelegatingDataSource {
+
+    private static final ThreadLocal<Capture> CURRENT = new ThreadLocal<>();
+
+    public SqlCaptureDataSource(DataSource target) {
+        super(target);
+    }
+
+    /**
+     * Start capturing on this thread; the caller must {@link #end()} in a finally block
+     */
+    public static Capture begin(int maxStatements) {
+        Capture capture = new Capture(maxStatements);
+        CURRENT.set(capture);
+        return capture;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return capturing(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return capturing(super.getConnection(username, password));
+    }
+
+    private static Connection capturing(Connection connection) {
+        if (CURRENT.get() == null) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if ((name.equals("prepareStatement") || name.equals("prepareCall")) && args[0] instanceof String sql) {
+                        record(sql);
+                    }
+                    Object result = invoke(connection, method, args);
+                    // Plain statements carry their SQL on execute
+                    return name.equals("createStatement") ? capturing((Statement) result) : result;
+                });
+    }
+
+    private static Statement capturing(Statement statement) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if ((name.startsWith("execute") || name.equals("addBatch"))
+                            && args != null && args.length > 0 && args[0] instanceof String sql) {
+                        record(sql);
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void record(String sql) {
+        Capture capture = CURRENT.get();
+        if (capture != null) {
+            capture.add(sql);
+        }
+    }
+
+    /**
+     * Statements seen by one request
+     */
+    public static final class Capture {
+
+        private final int maxStatements;
+        private final List<String> statements = new ArrayList<>();
+        private int count;
+
+        private Capture(int maxStatements) {
+            this.maxStatements = maxStatements;
+        }
+
+        private void add(String sql) {
+            count++;
+            if (statements.size() < maxStatements) {
+                statements.add(sql);
+            }
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public List<String> getStatements() {
+            return Collections.unmodifiableList(statements);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.investment_portfolio_tracker.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Virtual-thread mode, on when {@code spring.threads.virtual.enabled} is set.
+ * <p>
+ * Spring Boot then runs Tomcat requests, {@code @Async} tasks and {@code @Scheduled} jobs on
+ * virtual threads. The one resource that does not grow with them is the connection pool, so the
+ * pool is put behind a {@link ConnectionGateDataSource} with one permit per pooled connection.
+ * With {@code cluster.enabled} one connection is left out of the gate for the cluster
+ * coordinator, which holds its lock session for as long as the node runs.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    static BeanPostProcessor connectionGatePostProcessor(Environment environment) {
+        return new ConnectionGatePostProcessor(environment.getProperty("cluster.enabled", Boolean.class, false) ? 1 : 0);
+    }
+
+    // Ordered, so it runs before ObservabilityConfig wraps the pool for SQL capture
+    private static class ConnectionGatePostProcessor implements BeanPostProcessor, Ordered {
+
+        private final int reserved;
+
+        ConnectionGatePostProcessor(int reserved) {
+            this.reserved = reserved;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource pool) {
+                int permits = Math.max(1, pool.getMaximumPoolSize() - reserved);
+                log.info("Virtual threads enabled; gating '{}' to {} concurrent connections ({} reserved)",
+                        beanName, permits, reserved);
+                return new ConnectionGateDataSource(pool, permits,
+                        Duration.ofMillis(pool.getConnectionTimeout()));
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.investment_portfolio_tracker.controller;
+
+import com.example.investment_portfolio_tracker.dto.PriceAlertDto;
+import com.example.investment_portfolio_tracker.model.PriceAlert;
+import com.example.investment_portfolio_tracker.model.User;
+import com.example.investment_portfolio_tracker.service.UserService;
+import com.example.investment_portfolio_tracker.service.alert.AlertNotification;
+import com.example.investment_portfolio_tracker.service.alert.AlertService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/v1/alerts")
+@RequiredArgsConstructor
+public class AlertController {
+
+    private final AlertService alertService;
+    private final UserService userService;
+
+    @GetMapping
+    public ResponseEntity<List<PriceAlertDto>> getUserAlerts(Authentication authentication) {
+        User user = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        List<PriceAlertDto> alerts = alertService.getUserAlerts(user.getId()).stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(alerts);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<PriceAlertDto> getAlertById(@PathVariable Long id, Authentication authentication) {
+        User user = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        PriceAlert alert = alertService.getAlert(id)
+                .orElseThrow(() -> new IllegalArgumentException("Alert not found"));
+
+        // Verify this alert belongs to the authenticated user
+        if (!alert.getUser().getId().equals(user.getId())) {
+            return ResponseEntity.status(403).build();
+        }
+
+        return ResponseEntity.ok(convertToDto(alert));
+    }
+
+    /**
+     * Alerts that have fired recently, newest first
+     */
+    @GetMapping("/notifications")
+    public ResponseEntity<List<AlertNotification>> getNotifications(Authentication authentication) {
+        User user = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        return ResponseEntity.ok(alertService.getRecentNotifications(user.getId()));
+    }
+
+    @PostMapping
+    public ResponseEntity<PriceAlertDto> createAlert(
+            @Valid @RequestBody PriceAlertDto alertDto,
+            Authentication authentication) {
+
+        User user = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        PriceAlert alert = alertService.createAlert(
+                user,
+                alertDto.getStockTicker(),
+                alertDto.getType(),
+                alertDto.getThreshold(),
+                alertDto.getNote()
+        );
+
+        return new ResponseEntity<>(convertToDto(alert), HttpStatus.CREATED);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<PriceAlertDto> updateAlert(
+            @PathVariable Long id,
+            @RequestBody PriceAlertDto alertDto,
+            Authentication authentication) {
+
+        User user = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        PriceAlert alert = alertService.getAlert(id)
+                .orElseThrow(() -> new IllegalArgumentException("Alert not found"));
+
+        // Verify this alert belongs to the authenticated user
+        if (!alert.getUser().getId().equals(user.getId())) {
+            return ResponseEntity.status(403).build();
+        }
+
+        PriceAlert updatedAlert = alertService.updateAlert(
+                id,
+                alertDto.getType(),
+                alertDto.getThreshold(),
+                alertDto.getStatus(),
+                alertDto.getNote()
+        );
+
+        return ResponseEntity.ok(convertToDto(updatedAlert));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteAlert(@PathVariable Long id, Authentication authentication) {
+        User user = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        PriceAlert alert = alertService.getAlert(id)
+                .orElseThrow(() -> new IllegalArgumentException("Alert not found"));
+
+        // Verify this alert belongs to the authenticated user
+        if (!alert.getUser().getId().equals(user.getId())) {
+            return ResponseEntity.status(403).build();
+        }
+
+        alertService.deleteAlert(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Helper method to convert PriceAlert to PriceAlertDto
+    private PriceAlertDto convertToDto(PriceAlert alert) {
+        return PriceAlertDto.builder()
+                .id(alert.getId())
+                .stockId(alert.getStock().getId())
+                .stockTicker(alert.getStock().getTicker())
+                .type(alert.getType())
+                .threshold(alert.getThreshold())
+                .status(alert.getStatus())
+                .note(alert.getNote())
+                .triggeredAt(alert.getTriggeredAt())
+                .triggeredPrice(alert.getTriggeredPrice())
+                .createdAt(alert.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.investment_portfolio_tracker.controller;
+
+import com.example.investment_portfolio_tracker.model.User;
+import com.example.investment_portfolio_tracker.model.UserRole;
+import com.example.investment_portfolio_tracker.service.UserService;
+import com.example.investment_portfolio_tracker.service.ingest.TickIngestionPipeline;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/ingest")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ingest.enabled", havingValue = "true")
+public class IngestController {
+
+    private final TickIngestionPipeline pipeline;
+    private final UserService userService;
+
+    // Admin endpoint for pipeline counters and per-stage latency percentiles
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats(Authentication authentication) {
+
+        // Check if the user is an admin
+        User currentUser = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        if (currentUser.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(403).build();
+        }
+
+        return ResponseEntity.ok(pipeline.getStats());
+    }
+}
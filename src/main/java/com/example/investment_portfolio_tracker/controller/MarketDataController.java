@@ -0,0 +1,45 @@
+package com.example.investment_portfolio_tracker.controller;
+
+import com.example.investment_portfolio_tracker.model.User;
+import com.example.investment_portfolio_tracker.model.UserRole;
+import com.example.investment_portfolio_tracker.service.UserService;
+import com.example.investment_portfolio_tracker.service.market.QuoteRevalidator;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketDataRouter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/market-data")
+@RequiredArgsConstructor
+public class MarketDataController {
+
+    private final MarketDataRouter marketDataRouter;
+    private final QuoteRevalidator quoteRevalidator;
+    private final UserService userService;
+
+    // Admin endpoint for per-provider health, latency, quota and circuit state, plus stale serving counters
+
+    @GetMapping("/providers")
+    public ResponseEntity<Map<String, Object>> getProviders(Authentication authentication) {
+
+        // Check if the user is an admin
+        User currentUser = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        if (currentUser.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(403).build();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("providers", marketDataRouter.getStats());
+        stats.put("revalidation", quoteRevalidator.getStats());
+        return ResponseEntity.ok(stats);
+    }
+}
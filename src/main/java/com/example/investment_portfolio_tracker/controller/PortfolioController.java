@@ -1,16 +1,31 @@
 package com.example.investment_portfolio_tracker.controller;
 
+import com.example.investment_portfolio_tracker.dto.PortfolioSnapshotDto;
 import com.example.investment_portfolio_tracker.dto.PositionDto;
+import com.example.investment_portfolio_tracker.dto.RealizedGainDto;
+import com.example.investment_portfolio_tracker.dto.ReturnsDto;
+import com.example.investment_portfolio_tracker.dto.TaxLotDto;
 import com.example.investment_portfolio_tracker.model.Position;
 import com.example.investment_portfolio_tracker.model.User;
+import com.example.investment_portfolio_tracker.model.UserRole;
 import com.example.investment_portfolio_tracker.service.PortfolioService;
+import com.example.investment_portfolio_tracker.service.PortfolioSnapshotService;
+import com.example.investment_portfolio_tracker.service.PositionReconciliationService;
+import com.example.investment_portfolio_tracker.service.ReturnsService;
+import com.example.investment_portfolio_tracker.service.TaxLotRebuildService;
+import com.example.investment_portfolio_tracker.service.TaxLotService;
 import com.example.investment_portfolio_tracker.service.UserService;
+import com.example.investment_portfolio_tracker.service.analytics.ReturnPeriod;
+import com.example.investment_portfolio_tracker.service.market.PriceBoard;
+import com.example.investment_portfolio_tracker.service.position.PortfolioResultCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,28 +38,20 @@ public class PortfolioController {
 
     private final PortfolioService portfolioService;
     private final UserService userService;
+    private final PriceBoard priceBoard;
+    private final PortfolioSnapshotService snapshotService;
+    private final ReturnsService returnsService;
+    private final TaxLotService taxLotService;
+    private final TaxLotRebuildService taxLotRebuildService;
+    private final PositionReconciliationService reconciliationService;
+    private final PortfolioResultCache resultCache;
 
     @GetMapping("/summary")
     public ResponseEntity<Map<String, Object>> getPortfolioSummary(Authentication authentication) {
         User user = userService.getUserByEmail(authentication.getName())
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
-        // Get performance metrics
-        Map<String, BigDecimal> metrics = portfolioService.calculatePerformanceMetrics(user.getId());
-
-        // Get portfolio value
-        BigDecimal portfolioValue = portfolioService.getPortfolioValue(user.getId());
-
-        // Get position count
-        List<Position> positions = portfolioService.getUserPositions(user.getId());
-
-        // Prepare summary map
-        Map<String, Object> summary = new HashMap<>();
-        summary.put("totalPositions", positions.size());
-        summary.put("totalValue", portfolioValue);
-        summary.putAll(metrics);
-
-        return ResponseEntity.ok(summary);
+        return ResponseEntity.ok(resultCache.get(user.getId(), "summary", () -> buildSummary(user.getId())));
     }
 
     @GetMapping("/performance")
@@ -52,7 +59,8 @@ public class PortfolioController {
         User user = userService.getUserByEmail(authentication.getName())
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
-        Map<String, BigDecimal> metrics = portfolioService.calculatePerformanceMetrics(user.getId());
+        Map<String, BigDecimal> metrics = resultCache.get(user.getId(), "performance",
+                () -> portfolioService.calculatePerformanceMetrics(user.getId()));
         return ResponseEntity.ok(metrics);
     }
 
@@ -77,7 +85,8 @@ public class PortfolioController {
         User user = userService.getUserByEmail(authentication.getName())
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
-        List<Map<String, Object>> monthlySummary = portfolioService.getMonthlyTransactionSummary(user.getId());
+        List<Map<String, Object>> monthlySummary = resultCache.get(user.getId(), "monthly-summary",
+                () -> portfolioService.getMonthlyTransactionSummary(user.getId()));
         return ResponseEntity.ok(monthlySummary);
     }
 
@@ -86,13 +95,177 @@ public class PortfolioController {
         User user = userService.getUserByEmail(authentication.getName())
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
-        Map<String, BigDecimal> sectorAllocation = portfolioService.getSectorAllocation(user.getId());
+        Map<String, BigDecimal> sectorAllocation = resultCache.get(user.getId(), "sector-allocation",
+                () -> portfolioService.getSectorAllocation(user.getId()));
         return ResponseEntity.ok(sectorAllocation);
     }
 
+    @GetMapping("/history")
+    public ResponseEntity<List<PortfolioSnapshotDto>> getPortfolioHistory(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            Authentication authentication) {
+
+        User user = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        // Default to the trailing year
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusYears(1);
+
+        List<PortfolioSnapshotDto> history = snapshotService.getHistory(user.getId(), start, end).stream()
+                .map(snapshot -> PortfolioSnapshotDto.builder()
+                        .date(snapshot.getSnapshotDate())
+                        .marketValue(snapshot.getMarketValue())
+                        .costBasis(snapshot.getCostBasis())
+                        .cashFlow(snapshot.getCashFlow())
+                        .build())
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(history);
+    }
+
+    @GetMapping("/returns")
+    public ResponseEntity<ReturnsDto> getReturns(
+            @RequestParam(defaultValue = "1Y") String period,
+            Authentication authentication) {
+
+        User user = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        return ReturnPeriod.fromCode(period)
+                .map(returnPeriod -> ResponseEntity.ok(returnsService.getReturns(user.getId(), returnPeriod)))
+                .orElse(ResponseEntity.badRequest().build());
+    }
+
+    @GetMapping("/tax-lots")
+    public ResponseEntity<List<TaxLotDto>> getOpenTaxLots(Authentication authentication) {
+        User user = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        List<TaxLotDto> lots = taxLotService.getOpenLots(user.getId()).stream()
+                .map(lot -> TaxLotDto.builder()
+                        .id(lot.getId())
+                        .stockId(lot.getStock().getId())
+                        .stockTicker(lot.getStock().getTicker())
+                        .buyTransactionId(lot.getBuyTransactionId())
+                        .acquiredAt(lot.getAcquiredAt())
+                        .originalQuantity(lot.getOriginalQuantity())
+                        .remainingQuantity(lot.getRemainingQuantity())
+                        .unitCost(lot.getUnitCost())
+                        .build())
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(lots);
+    }
+
+    @GetMapping("/realized-gains")
+    public ResponseEntity<List<RealizedGainDto>> getRealizedGains(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            Authentication authentication) {
+
+        User user = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        // Default to the current calendar year
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.withDayOfYear(1);
+
+        List<RealizedGainDto> gains = taxLotService.getRealizedGains(
+                        user.getId(), start.atStartOfDay(), end.plusDays(1).atStartOfDay().minusNanos(1)).stream()
+                .map(gain -> RealizedGainDto.builder()
+                        .stockId(gain.getStock().getId())
+                        .stockTicker(gain.getStock().getTicker())
+                        .sellTransactionId(gain.getSellTransactionId())
+                        .lotId(gain.getLot().getId())
+                        .quantity(gain.getQuantity())
+                        .proceeds(gain.getProceeds())
+                        .costBasis(gain.getCostBasis())
+                        .gain(gain.getGain())
+                        .acquiredAt(gain.getAcquiredAt())
+                        .soldAt(gain.getSoldAt())
+                        .build())
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(gains);
+    }
+
+    // Admin endpoint to replay every user's lots from the ledger; repair=true rewrites users that differ
+
+    @PostMapping("/admin/tax-lots/rebuild")
+    public ResponseEntity<TaxLotRebuildService.RebuildReport> rebuildTaxLots(
+            @RequestParam(defaultValue = "false") boolean repair,
+            Authentication authentication) {
+
+        // Check if the user is an admin
+        User currentUser = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        if (currentUser.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(403).build();
+        }
+
+        return ResponseEntity.ok(taxLotRebuildService.rebuildAll(repair));
+    }
+
+    // Admin endpoint to replay the ledger against positions; the diff is written as NDJSON to the returned file
+
+    @PostMapping("/admin/reconcile")
+    public ResponseEntity<PositionReconciliationService.ReconciliationReport> reconcilePositions(
+            @RequestParam(defaultValue = "false") boolean repair,
+            Authentication authentication) {
+
+        // Check if the user is an admin
+        User currentUser = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        if (currentUser.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(403).build();
+        }
+
+        return ResponseEntity.ok(reconciliationService.reconcile(repair));
+    }
+
+    // Admin endpoint to (re)run the end-of-day snapshot batch; completed chunks are skipped
+
+    @PostMapping("/admin/snapshots")
+    public ResponseEntity<PortfolioSnapshotService.BatchResult> runSnapshotBatch(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            Authentication authentication) {
+
+        // Check if the user is an admin
+        User currentUser = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        if (currentUser.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(403).build();
+        }
+
+        return ResponseEntity.ok(snapshotService.runEndOfDayBatch(date));
+    }
+
+    private Map<String, Object> buildSummary(Long userId) {
+        // Get performance metrics
+        Map<String, BigDecimal> metrics = portfolioService.calculatePerformanceMetrics(userId);
+
+        // Get portfolio value
+        BigDecimal portfolioValue = portfolioService.getPortfolioValue(userId);
+
+        // Get position count
+        List<Position> positions = portfolioService.getUserPositions(userId);
+
+        // Prepare summary map
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("totalPositions", positions.size());
+        summary.put("totalValue", portfolioValue);
+        summary.putAll(metrics);
+        return summary;
+    }
+
     // Helper method to convert Position to PositionDto (same as in PositionController)
     private PositionDto convertToDto(Position position) {
-        BigDecimal currentPrice = position.getStock().getCurrentPrice();
+        BigDecimal currentPrice = priceBoard.currentPrice(position.getStock());
         BigDecimal quantity = position.getQuantity();
         BigDecimal averageCost = position.getAverageCost();
 
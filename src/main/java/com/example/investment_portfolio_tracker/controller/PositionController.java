@@ -5,6 +5,8 @@ import com.example.investment_portfolio_tracker.model.Position;
 import com.example.investment_portfolio_tracker.model.User;
 import com.example.investment_portfolio_tracker.service.PortfolioService;
 import com.example.investment_portfolio_tracker.service.UserService;
+import com.example.investment_portfolio_tracker.service.market.PriceBoard;
+import com.example.investment_portfolio_tracker.service.position.PortfolioResultCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -22,6 +24,8 @@ public class PositionController {
 
     private final PortfolioService portfolioService;
     private final UserService userService;
+    private final PriceBoard priceBoard;
+    private final PortfolioResultCache resultCache;
 
     @GetMapping
     public ResponseEntity<List<PositionDto>> getUserPositions(Authentication authentication) {
@@ -98,13 +102,14 @@ public class PositionController {
         User user = userService.getUserByEmail(authentication.getName())
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
-        Map<String, BigDecimal> sectorAllocation = portfolioService.getSectorAllocation(user.getId());
+        Map<String, BigDecimal> sectorAllocation = resultCache.get(user.getId(), "sector-allocation",
+                () -> portfolioService.getSectorAllocation(user.getId()));
         return ResponseEntity.ok(sectorAllocation);
     }
 
     // Helper method to convert Position to PositionDto
     private PositionDto convertToDto(Position position) {
-        BigDecimal currentPrice = position.getStock().getCurrentPrice();
+        BigDecimal currentPrice = priceBoard.currentPrice(position.getStock());
         BigDecimal quantity = position.getQuantity();
         BigDecimal averageCost = position.getAverageCost();
 
@@ -0,0 +1,71 @@
+package com.example.investment_portfolio_tracker.controller;
+
+import com.example.investment_portfolio_tracker.dto.StockDto;
+import com.example.investment_portfolio_tracker.dto.external.AlphaVantageQuote;
+import com.example.investment_portfolio_tracker.model.Stock;
+import com.example.investment_portfolio_tracker.service.external.ReactiveAlphaVantageClient;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketDataException;
+import com.example.investment_portfolio_tracker.service.reactive.ReactiveReadService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+// Non-blocking twins of the high-fanout reads: the request thread is released while the
+// database or Alpha Vantage answers, and the response is written when the Mono completes
+@RestController
+@RequestMapping("/api/v1/reactive")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "reactive.enabled", havingValue = "true")
+public class ReactiveReadController {
+
+    private final ReactiveReadService reactiveReadService;
+    private final ReactiveAlphaVantageClient alphaVantageClient;
+
+    @GetMapping("/stocks/ticker/{ticker}")
+    public Mono<ResponseEntity<StockDto>> getStockByTicker(@PathVariable String ticker) {
+        return reactiveReadService.findStockByTicker(ticker)
+                .map(this::convertToDto)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // Live quote straight from Alpha Vantage (or its cache), without touching the database;
+    // 503 while the shared Alpha Vantage quota is spent or its circuit is open
+    @GetMapping("/stocks/ticker/{ticker}/quote")
+    public Mono<ResponseEntity<AlphaVantageQuote>> getQuote(@PathVariable String ticker) {
+        return alphaVantageClient.getQuote(ticker)
+                .map(ResponseEntity::ok)
+                .onErrorResume(MarketDataException.class,
+                        e -> Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build()));
+    }
+
+    @GetMapping("/positions/value")
+    public Mono<Map<String, BigDecimal>> getPortfolioValue(Authentication authentication) {
+        return reactiveReadService.getPortfolioValue(authentication.getName())
+                .map(value -> Map.of("totalValue", value));
+    }
+
+    private StockDto convertToDto(Stock stock) {
+        return StockDto.builder()
+                .id(stock.getId())
+                .ticker(stock.getTicker())
+                .name(stock.getName())
+                .exchange(stock.getExchange())
+                .sector(stock.getSector())
+                .industry(stock.getIndustry())
+                .currency(stock.getCurrency())
+                .currentPrice(stock.getCurrentPrice())
+                .lastUpdated(stock.getLastUpdated())
+                .build();
+    }
+}
@@ -1,15 +1,36 @@
 package com.example.investment_portfolio_tracker.controller;
 
+import com.example.investment_portfolio_tracker.dto.PriceHistoryDto;
+import com.example.investment_portfolio_tracker.dto.RefreshStatusDto;
 import com.example.investment_portfolio_tracker.dto.StockDto;
 import com.example.investment_portfolio_tracker.model.Stock;
+import com.example.investment_portfolio_tracker.model.User;
+import com.example.investment_portfolio_tracker.model.UserRole;
 import com.example.investment_portfolio_tracker.service.StockService;
+import com.example.investment_portfolio_tracker.service.UserService;
+import com.example.investment_portfolio_tracker.service.analytics.PriceHistoryCacheService;
+import com.example.investment_portfolio_tracker.service.analytics.PriceSeries;
+import com.example.investment_portfolio_tracker.service.analytics.SectorStatistics;
+import com.example.investment_portfolio_tracker.service.analytics.SectorStatisticsService;
+import com.example.investment_portfolio_tracker.service.catalogue.CataloguePage;
+import com.example.investment_portfolio_tracker.service.catalogue.StockCatalogue;
+import com.example.investment_portfolio_tracker.service.market.PriceRefreshService;
+import com.example.investment_portfolio_tracker.service.search.SymbolMatch;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -19,15 +40,49 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class StockController {
 
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_CATALOGUE_PAGE = 1000;
+
     private final StockService stockService;
+    private final PriceHistoryCacheService priceHistoryCacheService;
+    private final PriceRefreshService priceRefreshService;
+    private final StockCatalogue stockCatalogue;
+    private final SectorStatisticsService sectorStatisticsService;
+    private final UserService userService;
 
+    /**
+     * The stock catalogue in id order. With {@code limit} it is paged by keyset, the next page
+     * linked from a {@code Link} header; {@code fields} picks the properties returned. Responses
+     * carry a strong ETag, and a matching {@code If-None-Match} is answered 304 without rendering the page.
+     */
     @GetMapping
-    public ResponseEntity<List<StockDto>> getAllStocks() {
-        List<Stock> stocks = stockService.getAllStocks();
-        List<StockDto> stockDtos = stocks.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(stockDtos);
+    public ResponseEntity<byte[]> getAllStocks(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        List<String> selected = StockCatalogue.parseFields(fields);
+        Integer pageSize = limit != null ? Math.max(1, Math.min(limit, MAX_CATALOGUE_PAGE)) : null;
+
+        String etag = stockCatalogue.currentETag(selected);
+        if (matchesETag(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        CataloguePage page = stockCatalogue.getPage(after, pageSize, selected);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(page.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON);
+        if (page.nextCursor() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.nextCursor())
+                    .replaceQueryParam("limit", pageSize)
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.body());
     }
 
     @GetMapping("/{id}")
@@ -47,14 +102,24 @@ public class StockController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<StockDto>> searchStocks(@RequestParam String query) {
-        List<Stock> stocks = stockService.searchStocks(query);
+    public ResponseEntity<List<StockDto>> searchStocks(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "20") int limit) {
+        List<Stock> stocks = stockService.searchStocks(query, Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS)));
         List<StockDto> stockDtos = stocks.stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(stockDtos);
     }
 
+    // Ranked suggestions from memory; matches without an id can be added via /lookup/{ticker}
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<SymbolMatch>> autocomplete(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(stockService.autocomplete(query, Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS))));
+    }
+
     @GetMapping("/top")
     public ResponseEntity<List<StockDto>> getTopStocks(@RequestParam(defaultValue = "10") int limit) {
         List<Stock> stocks = stockService.getTopStocksByPrice(limit);
@@ -64,11 +129,72 @@ public class StockController {
         return ResponseEntity.ok(stockDtos);
     }
 
+    @GetMapping("/{id}/history")
+    public ResponseEntity<PriceHistoryDto> getPriceHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        // Default to the trailing year
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusYears(1);
+
+        PriceSeries series = priceHistoryCacheService.getSeries(id, start, end);
+        List<LocalDate> dates = new ArrayList<>(series.size());
+        List<BigDecimal> closes = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            dates.add(series.dateAt(i));
+            closes.add(series.priceAt(i));
+        }
+
+        return ResponseEntity.ok(PriceHistoryDto.builder()
+                .stockId(id)
+                .from(start)
+                .to(end)
+                .dates(dates)
+                .closes(closes)
+                .annualizedVolatility(priceHistoryCacheService.getAnnualizedVolatility(series))
+                .build());
+    }
+
     @GetMapping("/sectors/average-price")
     public ResponseEntity<Map<String, BigDecimal>> getAveragePriceBySector() {
         return ResponseEntity.ok(stockService.getAveragePriceBySector());
     }
 
+    /**
+     * Price and held market value figures per sector, or per industry with {@code by=industry}
+     */
+    @GetMapping("/sectors/statistics")
+    public ResponseEntity<List<SectorStatistics>> getSectorStatistics(
+            @RequestParam(defaultValue = "sector") String by) {
+        if (!sectorStatisticsService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return switch (by) {
+            case "sector" -> ResponseEntity.ok(sectorStatisticsService.getSectorStatistics());
+            case "industry" -> ResponseEntity.ok(sectorStatisticsService.getIndustryStatistics());
+            default -> ResponseEntity.badRequest().build();
+        };
+    }
+
+    // Admin endpoint to reload sector statistics from the database
+
+    @PostMapping("/sectors/statistics/rebuild")
+    public ResponseEntity<List<SectorStatistics>> rebuildSectorStatistics(Authentication authentication) {
+
+        // Check if the user is an admin
+        User currentUser = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        if (currentUser.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(403).build();
+        }
+
+        sectorStatisticsService.rebuild();
+        return ResponseEntity.ok(sectorStatisticsService.getSectorStatistics());
+    }
+
     @PostMapping
     public ResponseEntity<StockDto> createStock(@Valid @RequestBody StockDto stockDto) {
         Stock stock = stockService.createStock(
@@ -126,26 +252,50 @@ public class StockController {
         return ResponseEntity.ok().build();
     }
 
-    // New endpoints for Alpha Vantage integration
+    // Endpoints backed by the market data providers
 
     @PutMapping("/ticker/{ticker}/refresh")
     public ResponseEntity<StockDto> refreshStockPrice(@PathVariable String ticker) {
-        Stock refreshedStock = stockService.refreshStockPrice(ticker);
+        Stock refreshedStock = stockService.refreshStockPrice(ticker, true);
         return ResponseEntity.ok(convertToDto(refreshedStock));
     }
 
     @PutMapping("/refresh-all")
     public ResponseEntity<String> refreshAllStocks() {
+        // The async run rejects overlaps itself; this just tells the caller
+        if (stockService.isRefreshAllRunning()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Stock price update already in progress");
+        }
         stockService.refreshAllStockPrices();
         return ResponseEntity.ok("Stock price update initiated");
     }
 
+    // Refresh queue depth, API quota and price staleness percentiles
+    @GetMapping("/refresh/status")
+    public ResponseEntity<RefreshStatusDto> getRefreshStatus() {
+        return ResponseEntity.ok(priceRefreshService.getStatus());
+    }
+
     @PostMapping("/lookup/{ticker}")
-    public ResponseEntity<StockDto> addStockFromAlphaVantage(@PathVariable String ticker) {
-        Stock newStock = stockService.addNewStockFromAlphaVantage(ticker);
+    public ResponseEntity<StockDto> addStockFromMarketData(@PathVariable String ticker) {
+        Stock newStock = stockService.addNewStockFromMarketData(ticker);
         return new ResponseEntity<>(convertToDto(newStock), HttpStatus.CREATED);
     }
 
+    // If-None-Match may list several tags and uses weak comparison
+    private static boolean matchesETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // Helper method to convert Stock to StockDto
     private StockDto convertToDto(Stock stock) {
         return StockDto.builder()
@@ -158,6 +308,7 @@ public class StockController {
                 .currency(stock.getCurrency())
                 .currentPrice(stock.getCurrentPrice())
                 .lastUpdated(stock.getLastUpdated())
+                .stale(stock.isStale())
                 .build();
     }
 
@@ -0,0 +1,62 @@
+package com.example.investment_portfolio_tracker.controller;
+
+import com.example.investment_portfolio_tracker.model.Stock;
+import com.example.investment_portfolio_tracker.model.User;
+import com.example.investment_portfolio_tracker.service.StockService;
+import com.example.investment_portfolio_tracker.service.UserService;
+import com.example.investment_portfolio_tracker.service.stream.PriceStreamService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/v1/stream")
+@RequiredArgsConstructor
+public class StreamController {
+
+    private final PriceStreamService priceStreamService;
+    private final StockService stockService;
+    private final UserService userService;
+
+    /**
+     * Server-sent events: "price" for each subscribed ticker and "portfolio" for the caller's total value.
+     * Updates are coalesced, so a slow client sees the latest value rather than every tick.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(
+            @RequestParam(required = false) List<String> tickers,
+            @RequestParam(defaultValue = "false") boolean portfolio,
+            Authentication authentication) {
+
+        User user = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        Set<String> requested = new LinkedHashSet<>();
+        if (tickers != null) {
+            tickers.forEach(ticker -> requested.add(ticker.trim().toUpperCase()));
+        }
+        if ((requested.isEmpty() && !portfolio) || requested.size() > priceStreamService.getMaxTickers()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<Stock> stocks = new ArrayList<>(requested.size());
+        for (String ticker : requested) {
+            Optional<Stock> stock = stockService.getStockByTicker(ticker);
+            if (stock.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            stocks.add(stock.get());
+        }
+
+        return ResponseEntity.ok(priceStreamService.subscribe(user.getId(), stocks, portfolio));
+    }
+}
@@ -158,7 +158,8 @@ public class TransactionController {
                 transactionDto.getQuantity(),
                 transactionDto.getPrice(),
                 fee,
-                transactionDate
+                transactionDate,
+                transactionDto.getLotIds() != null ? transactionDto.getLotIds() : List.of()
         );
 
         return new ResponseEntity<>(convertToDto(transaction), HttpStatus.CREATED);
@@ -1,6 +1,7 @@
 package com.example.investment_portfolio_tracker.controller;
 
 import com.example.investment_portfolio_tracker.dto.UserDto;
+import com.example.investment_portfolio_tracker.model.CostBasisMethod;
 import com.example.investment_portfolio_tracker.model.User;
 import com.example.investment_portfolio_tracker.model.UserRole;
 import com.example.investment_portfolio_tracker.service.UserService;
@@ -60,6 +61,18 @@ public class UserController {
         return ResponseEntity.ok().build();
     }
 
+    @PutMapping("/cost-basis-method")
+    public ResponseEntity<UserDto> updateCostBasisMethod(
+            @RequestParam CostBasisMethod method,
+            Authentication authentication) {
+
+        User user = userService.getUserByEmail(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        User updatedUser = userService.updateCostBasisMethod(user.getId(), method);
+        return ResponseEntity.ok(convertToDto(updatedUser));
+    }
+
     // Admin endpoints - should be secured by role-based authorization
 
     @GetMapping("/admin/all")
@@ -151,6 +164,7 @@ public class UserController {
                 .lastName(user.getLastName())
                 .role(user.getRole())
                 .enabled(user.isEnabled())
+                .costBasisMethod(user.getCostBasisMethod())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.example.investment_portfolio_tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PortfolioSnapshotDto {
+    private LocalDate date;
+    private BigDecimal marketValue;
+    private BigDecimal costBasis;
+    private BigDecimal cashFlow;
+}
@@ -0,0 +1,44 @@
+package com.example.investment_portfolio_tracker.dto;
+
+import com.example.investment_portfolio_tracker.model.AlertStatus;
+import com.example.investment_portfolio_tracker.model.AlertType;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceAlertDto {
+    private Long id;
+    private Long stockId;
+
+    @NotBlank(message = "Stock ticker is required")
+    private String stockTicker;
+
+    @NotNull(message = "Alert type is required")
+    private AlertType type;
+
+    // A price for PRICE_* alerts, a percentage of average cost for POSITION_* alerts
+    @NotNull(message = "Threshold is required")
+    @DecimalMin(value = "0.0001", message = "Threshold must be greater than 0")
+    private BigDecimal threshold;
+
+    private AlertStatus status;
+
+    @Size(max = 255, message = "Note must be at most 255 characters")
+    private String note;
+
+    private LocalDateTime triggeredAt;
+    private BigDecimal triggeredPrice;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,23 @@
+package com.example.investment_portfolio_tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceHistoryDto {
+    private Long stockId;
+    private LocalDate from;
+    private LocalDate to;
+    private List<LocalDate> dates;
+    private List<BigDecimal> closes;
+    private Double annualizedVolatility;
+}
@@ -0,0 +1,20 @@
+package com.example.investment_portfolio_tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceUpdateDto {
+    private Long stockId;
+    private String ticker;
+    private BigDecimal price;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,26 @@
+package com.example.investment_portfolio_tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RealizedGainDto {
+    private Long stockId;
+    private String stockTicker;
+    private Long sellTransactionId;
+    private Long lotId;
+    private BigDecimal quantity;
+    private BigDecimal proceeds;
+    private BigDecimal costBasis;
+    private BigDecimal gain;
+    private LocalDateTime acquiredAt;
+    private LocalDateTime soldAt;
+}
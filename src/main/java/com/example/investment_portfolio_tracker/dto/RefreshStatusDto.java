@@ -0,0 +1,30 @@
+package com.example.investment_portfolio_tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshStatusDto {
+    private boolean marketOpen;
+    private int queueDepth;
+    private String nextTicker;
+    private long tokensAvailable;
+    private long callsUsedToday;
+    // This node's share of the daily quota
+    private int dailyLimit;
+    private int clusterNodes;
+    private long refreshed;
+    private long failed;
+    // Seconds since each stock's price was last updated: p50, p90, p99 and max
+    private Map<String, Long> stalenessSeconds;
+    private Map<String, Long> heldStalenessSeconds;
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,26 @@
+package com.example.investment_portfolio_tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReturnsDto {
+    private String period;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BigDecimal startValue;
+    private BigDecimal endValue;
+    private BigDecimal netCashFlow;
+    // Cumulative time-weighted return over the period, in percent
+    private BigDecimal timeWeightedReturn;
+    // Annualized money-weighted return (XIRR), in percent
+    private BigDecimal moneyWeightedReturn;
+}
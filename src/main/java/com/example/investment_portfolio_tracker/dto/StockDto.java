@@ -41,4 +41,7 @@ public class StockDto {
     private BigDecimal currentPrice;
 
     private LocalDateTime lastUpdated;
+
+    // True when currentPrice is the last known price because the providers were unavailable
+    private boolean stale;
 }
\ No newline at end of file
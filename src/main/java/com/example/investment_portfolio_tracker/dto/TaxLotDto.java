@@ -0,0 +1,24 @@
+package com.example.investment_portfolio_tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaxLotDto {
+    private Long id;
+    private Long stockId;
+    private String stockTicker;
+    private Long buyTransactionId;
+    private LocalDateTime acquiredAt;
+    private BigDecimal originalQuantity;
+    private BigDecimal remainingQuantity;
+    private BigDecimal unitCost;
+}
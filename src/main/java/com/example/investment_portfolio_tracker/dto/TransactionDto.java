@@ -10,6 +10,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @Builder
@@ -37,4 +38,7 @@ public class TransactionDto {
     private BigDecimal value;
     private BigDecimal totalCost;
     private LocalDateTime transactionDate;
+
+    // Optional on SELL: the lots to relieve, in order, instead of the user's cost basis method
+    private List<Long> lotIds;
 }
\ No newline at end of file
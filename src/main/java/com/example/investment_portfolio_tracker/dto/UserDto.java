@@ -1,5 +1,6 @@
 package com.example.investment_portfolio_tracker.dto;
 
+import com.example.investment_portfolio_tracker.model.CostBasisMethod;
 import com.example.investment_portfolio_tracker.model.UserRole;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
@@ -18,6 +19,7 @@ public class UserDto {
     private String lastName;
     private UserRole role;
     private boolean enabled;
+    private CostBasisMethod costBasisMethod;
 
     // Explicitly exclude sensitive information from serialization
     @JsonIgnore
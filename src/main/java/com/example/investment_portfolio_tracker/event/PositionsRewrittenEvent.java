@@ -0,0 +1,10 @@
+package com.example.investment_portfolio_tracker.event;
+
+/**
+ * Published when a user's positions are rewritten outside the trade path, by reconciliation or
+ * tax lot repair, so listeners that follow {@link TradeExecutedEvent} can reload the user.
+ */
+public record PositionsRewrittenEvent(
+        Long userId
+) {
+}
@@ -0,0 +1,13 @@
+package com.example.investment_portfolio_tracker.event;
+
+/**
+ * Published by StockService when it returned a stale price because the market data circuits were
+ * open. The stock should be refreshed again once a provider may accept calls. {@code callerWaiting}
+ * is true when the stale price went to a user rather than a background refresh.
+ */
+public record QuoteRevalidationRequestedEvent(
+        String ticker,
+        long retryAfterMillis,
+        boolean callerWaiting
+) {
+}
@@ -0,0 +1,13 @@
+package com.example.investment_portfolio_tracker.event;
+
+import java.util.Set;
+
+/**
+ * Published by ClusterCoordinator when the set of ticker shards this node owns changes, either
+ * because a node joined or left or because a shard lock was finally acquired or lost.
+ */
+public record ShardAssignmentChangedEvent(
+        Set<Integer> ownedShards,
+        int liveNodes
+) {
+}
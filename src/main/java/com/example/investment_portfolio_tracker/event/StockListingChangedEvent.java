@@ -0,0 +1,16 @@
+package com.example.investment_portfolio_tracker.event;
+
+/**
+ * Published by StockService when a stock is added, renamed, reclassified or deleted, so in-memory
+ * views of the stock list can follow. {@code removed} is true for deletions.
+ */
+public record StockListingChangedEvent(
+        Long stockId,
+        String ticker,
+        String name,
+        String exchange,
+        String sector,
+        String industry,
+        boolean removed
+) {
+}
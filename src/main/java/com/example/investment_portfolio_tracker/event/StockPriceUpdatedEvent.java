@@ -0,0 +1,25 @@
+package com.example.investment_portfolio_tracker.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Published by StockService whenever the current price of a stock is written.
+ * Listeners run synchronously inside the writing transaction. With clustering on, prices written
+ * by other nodes are republished here by ClusterPriceSync, outside any transaction.
+ * <p>
+ * Writers that persist price history themselves in bulk, such as the tick ingestion pipeline,
+ * set {@code historyRecorded} so the per-event history write is skipped.
+ */
+public record StockPriceUpdatedEvent(
+        Long stockId,
+        String ticker,
+        BigDecimal price,
+        LocalDateTime updatedAt,
+        boolean historyRecorded
+) {
+
+    public StockPriceUpdatedEvent(Long stockId, String ticker, BigDecimal price, LocalDateTime updatedAt) {
+        this(stockId, ticker, price, updatedAt, false);
+    }
+}
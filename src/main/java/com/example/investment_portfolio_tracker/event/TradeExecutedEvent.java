@@ -0,0 +1,23 @@
+package com.example.investment_portfolio_tracker.event;
+
+import com.example.investment_portfolio_tracker.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Published by PortfolioService after a BUY or SELL has been applied to a position.
+ * Listeners that maintain derived state should use {@code @TransactionalEventListener}
+ * so they only observe committed trades.
+ */
+public record TradeExecutedEvent(
+        Long userId,
+        Long stockId,
+        String ticker,
+        TransactionType transactionType,
+        BigDecimal quantity,
+        BigDecimal price,
+        BigDecimal fee,
+        LocalDateTime transactionDate
+) {
+}
@@ -18,6 +18,8 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+import static com.example.investment_portfolio_tracker.config.LogSamplingTurboFilter.SAMPLED;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -58,7 +60,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                             new WebAuthenticationDetailsSource().buildDetails(request)
                     );
                     SecurityContextHolder.getContext().setAuthentication(authToken);
-                    log.debug("Authenticated user: {}", userEmail);
+                    log.debug(SAMPLED, "Authenticated user: {}", userEmail);
                 }
             }
         } catch (Exception e) {
@@ -0,0 +1,83 @@
+package com.example.investment_portfolio_tracker.filter;
+
+import com.example.investment_portfolio_tracker.config.SqlCaptureDataSource;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the SQL statements each request issues ({@code http.server.requests.statements}, by
+ * method and URI pattern), and attaches the statements themselves to a sample of slow requests:
+ * as a tag on the request's span and in a warning log line.
+ * <p>
+ * Registered by {@code ObservabilityConfig} just inside the HTTP observation filter, so its
+ * captures include the statements run by authentication.
+ */
+@Slf4j
+public class SlowRequestSqlFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final Tracer tracer;
+    private final long slowNanos;
+    private final double sampleRate;
+    private final int maxStatements;
+
+    public SlowRequestSqlFilter(MeterRegistry meterRegistry, Tracer tracer, Duration slowThreshold,
+                                double sampleRate, int maxStatements) {
+        this.meterRegistry = meterRegistry;
+        this.tracer = tracer;
+        this.slowNanos = slowThreshold.toNanos();
+        this.sampleRate = sampleRate;
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlCaptureDataSource.Capture capture = SqlCaptureDataSource.begin(maxStatements);
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlCaptureDataSource.end();
+            long elapsed = System.nanoTime() - start;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            DistributionSummary.builder("http.server.requests.statements")
+                    .description("SQL statements issued per request")
+                    .baseUnit("statements")
+                    .tags("method", request.getMethod(), "uri", uri)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(capture.getCount());
+
+            if (elapsed >= slowNanos && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                sample(request.getMethod() + " " + uri, elapsed, capture);
+            }
+        }
+    }
+
+    private void sample(String request, long elapsedNanos, SqlCaptureDataSource.Capture capture) {
+        String statements = String.join(";\n", capture.getStatements());
+        Span span = tracer.currentSpan();
+        if (span != null) {
+            span.tag("db.statement.count", capture.getCount());
+            span.tag("db.statements", statements);
+        }
+        log.warn("Slow request {} took {} ms with {} SQL statements (first {} shown):\n{}", request,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), capture.getCount(), capture.getStatements().size(), statements);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.investment_portfolio_tracker.model;
+
+public enum AlertStatus {
+    ACTIVE,
+    // Fired once; updating the alert re-arms it
+    TRIGGERED,
+    DISABLED
+}
@@ -0,0 +1,23 @@
+package com.example.investment_portfolio_tracker.model;
+
+/**
+ * What a price alert watches. PRICE_* thresholds are prices; POSITION_* thresholds are a
+ * percentage move from the user's average cost in the stock.
+ */
+public enum AlertType {
+    PRICE_ABOVE,
+    PRICE_BELOW,
+    POSITION_LOSS,
+    POSITION_GAIN;
+
+    public boolean isPositionBased() {
+        return this == POSITION_LOSS || this == POSITION_GAIN;
+    }
+
+    /**
+     * True if the alert fires when the price rises to its trigger price, false if when it falls to it
+     */
+    public boolean isUpward() {
+        return this == PRICE_ABOVE || this == POSITION_GAIN;
+    }
+}
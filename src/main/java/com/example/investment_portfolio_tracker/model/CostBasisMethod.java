@@ -0,0 +1,13 @@
+package com.example.investment_portfolio_tracker.model;
+
+/**
+ * Order in which a SELL consumes open tax lots
+ */
+public enum CostBasisMethod {
+    FIFO,
+    LIFO,
+    // Highest unit cost first, which minimizes the realized gain
+    HIFO,
+    // Lots are named on each SELL
+    SPECIFIC_ID
+}
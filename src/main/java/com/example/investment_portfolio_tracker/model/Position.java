@@ -33,6 +33,9 @@ public class Position {
     @Column(name = "average_cost", nullable = false, precision = 19, scale = 4)
     private BigDecimal averageCost;
 
+    @Column(name = "realized_gain", nullable = false, precision = 19, scale = 4)
+    private BigDecimal realizedGain = BigDecimal.ZERO;
+
     @Column(name = "first_purchased", nullable = false)
     private LocalDateTime firstPurchased;
 
@@ -41,6 +41,10 @@ public class Stock {
     @Column(name = "last_updated", nullable = false)
     private LocalDateTime lastUpdated;
 
+    // Set when a refresh could not reach any market data provider and served the stored price
+    @Transient
+    private boolean stale;
+
     @OneToMany(mappedBy = "stock")
     private List<Position> positions = new ArrayList<>();
 
@@ -0,0 +1,50 @@
+package com.example.investment_portfolio_tracker.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "tax_lots")
+public class TaxLot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "stock_id", nullable = false)
+    private Stock stock;
+
+    @Column(name = "buy_transaction_id")
+    private Long buyTransactionId;
+
+    @Column(name = "acquired_at", nullable = false)
+    private LocalDateTime acquiredAt;
+
+    @Column(name = "original_quantity", nullable = false, precision = 19, scale = 6)
+    private BigDecimal originalQuantity;
+
+    @Column(name = "remaining_quantity", nullable = false, precision = 19, scale = 6)
+    private BigDecimal remainingQuantity;
+
+    @Column(name = "unit_cost", nullable = false, precision = 19, scale = 8)
+    private BigDecimal unitCost;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -38,6 +38,10 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private UserRole role;
 
+    @Column(name = "cost_basis_method", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private CostBasisMethod costBasisMethod = CostBasisMethod.FIFO;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
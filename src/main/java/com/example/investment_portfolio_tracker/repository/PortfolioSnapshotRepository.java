@@ -0,0 +1,25 @@
+package com.example.investment_portfolio_tracker.repository;
+
+import com.example.investment_portfolio_tracker.model.PortfolioSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PortfolioSnapshotRepository extends JpaRepository<PortfolioSnapshot, Long> {
+
+    @Query("SELECT s FROM PortfolioSnapshot s WHERE s.user.id = :userId AND s.snapshotDate BETWEEN :from AND :to ORDER BY s.snapshotDate")
+    List<PortfolioSnapshot> findByUserIdAndDateRange(
+            @Param("userId") Long userId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to
+    );
+
+    @Query("SELECT MIN(s.snapshotDate) FROM PortfolioSnapshot s WHERE s.user.id = :userId")
+    Optional<LocalDate> findFirstSnapshotDate(@Param("userId") Long userId);
+}
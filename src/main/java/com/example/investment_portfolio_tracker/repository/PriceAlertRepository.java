@@ -0,0 +1,25 @@
+package com.example.investment_portfolio_tracker.repository;
+
+import com.example.investment_portfolio_tracker.model.PriceAlert;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface PriceAlertRepository extends JpaRepository<PriceAlert, Long> {
+
+    @Query("SELECT a FROM PriceAlert a JOIN FETCH a.stock WHERE a.user.id = :userId ORDER BY a.createdAt DESC, a.id DESC")
+    List<PriceAlert> findByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT a FROM PriceAlert a JOIN FETCH a.stock WHERE a.status = 'ACTIVE'")
+    List<PriceAlert> findActive();
+
+    @Query("SELECT a FROM PriceAlert a JOIN FETCH a.stock WHERE a.user.id = :userId AND a.stock.id = :stockId " +
+            "AND a.status = 'ACTIVE' AND a.type IN ('POSITION_LOSS', 'POSITION_GAIN')")
+    List<PriceAlert> findActivePositionAlerts(@Param("userId") Long userId, @Param("stockId") Long stockId);
+
+    @Query("SELECT a FROM PriceAlert a JOIN FETCH a.stock WHERE a.user.id = :userId " +
+            "AND a.status = 'ACTIVE' AND a.type IN ('POSITION_LOSS', 'POSITION_GAIN')")
+    List<PriceAlert> findActivePositionAlertsByUserId(@Param("userId") Long userId);
+}
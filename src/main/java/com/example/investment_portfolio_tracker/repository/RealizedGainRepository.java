@@ -0,0 +1,19 @@
+package com.example.investment_portfolio_tracker.repository;
+
+import com.example.investment_portfolio_tracker.model.RealizedGain;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RealizedGainRepository extends JpaRepository<RealizedGain, Long> {
+
+    @Query("SELECT g FROM RealizedGain g JOIN FETCH g.stock WHERE g.user.id = :userId " +
+            "AND g.soldAt BETWEEN :startDate AND :endDate ORDER BY g.soldAt DESC, g.id")
+    List<RealizedGain> findByUserIdAndDateRange(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+}
@@ -0,0 +1,38 @@
+package com.example.investment_portfolio_tracker.repository;
+
+import com.example.investment_portfolio_tracker.model.StockPriceHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface StockPriceHistoryRepository extends JpaRepository<StockPriceHistory, Long> {
+
+    @Query("SELECT h FROM StockPriceHistory h WHERE h.stock.id = :stockId AND h.priceDate BETWEEN :from AND :to ORDER BY h.priceDate")
+    List<StockPriceHistory> findByStockIdAndDateRange(
+            @Param("stockId") Long stockId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to
+    );
+
+    /**
+     * Insert or overwrite the close for a stock on a given day
+     */
+    @Modifying
+    @Query(value = "INSERT INTO stock_price_history (stock_id, price_date, close_price, updated_at) " +
+            "VALUES (:stockId, :priceDate, :closePrice, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (stock_id, price_date) " +
+            "DO UPDATE SET close_price = EXCLUDED.close_price, updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    void upsertClose(
+            @Param("stockId") Long stockId,
+            @Param("priceDate") LocalDate priceDate,
+            @Param("closePrice") BigDecimal closePrice
+    );
+}
@@ -24,15 +24,20 @@ public interface StockRepository extends JpaRepository<Stock, Long> {
 
     List<Stock> findByIndustryIgnoreCase(String industry);
 
-    @Query("SELECT s FROM Stock s WHERE LOWER(s.ticker) LIKE LOWER (CONCAT('%', :query, '%')) OR LOWER(s.name) LIKE LOWER(CONCAT('%', :query, '%'))")
-    List<Stock> searchByTickerOrName(@Param("query") String query);
+    // Full scan; only used until the in-memory symbol index has loaded
+    @Query("SELECT s FROM Stock s WHERE LOWER(s.ticker) LIKE LOWER (CONCAT('%', :query, '%')) OR LOWER(s.name) LIKE LOWER(CONCAT('%', :query, '%')) ORDER BY s.ticker")
+    List<Stock> searchByTickerOrName(@Param("query") String query, Pageable pageable);
 
     @Query("SELECT s FROM Stock s WHERE s.currentPrice IS NOT NULL ORDER BY s.currentPrice DESC")
     List<Stock> findTopByPrice(Pageable pageable);
 
-    @Query("SELECT s FROM Stock s WHERE s.lastUpdated > :cutoffDate")
+    @Query("SELECT s FROM Stock s WHERE s.lastUpdated < :cutoffDate")
     List<Stock> findStocksNeedingUpdate(@Param("cutoffDate")LocalDateTime cutoffDate);
 
     @Query("SELECT AVG(s.currentPrice) FROM Stock s WHERE s.sector = :sector")
     BigDecimal getAveragePriceBySector(@Param("sector") String sector);
+
+    @Query("SELECT s.sector, AVG(s.currentPrice) FROM Stock s " +
+            "WHERE s.sector IS NOT NULL AND s.currentPrice IS NOT NULL GROUP BY s.sector")
+    List<Object[]> getAveragePriceBySectors();
 }
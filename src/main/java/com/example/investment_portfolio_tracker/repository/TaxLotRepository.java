@@ -0,0 +1,19 @@
+package com.example.investment_portfolio_tracker.repository;
+
+import com.example.investment_portfolio_tracker.model.TaxLot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface TaxLotRepository extends JpaRepository<TaxLot, Long> {
+
+    @Query("SELECT l FROM TaxLot l WHERE l.user.id = :userId AND l.stock.id = :stockId AND l.remainingQuantity > 0 " +
+            "ORDER BY l.acquiredAt, l.id")
+    List<TaxLot> findOpenLots(@Param("userId") Long userId, @Param("stockId") Long stockId);
+
+    @Query("SELECT l FROM TaxLot l JOIN FETCH l.stock WHERE l.user.id = :userId AND l.remainingQuantity > 0 " +
+            "ORDER BY l.stock.ticker, l.acquiredAt, l.id")
+    List<TaxLot> findOpenLotsByUserId(@Param("userId") Long userId);
+}
@@ -0,0 +1,41 @@
+package com.example.investment_portfolio_tracker.scheduler;
+
+import com.example.investment_portfolio_tracker.service.PortfolioSnapshotService;
+import com.example.investment_portfolio_tracker.service.cluster.ClusterCoordinator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PortfolioSnapshotScheduler {
+
+    private final PortfolioSnapshotService snapshotService;
+    private final ClusterCoordinator clusterCoordinator;
+
+    @Value("${market.timezone:America/New_York}")
+    private String marketTimezone;
+
+    // Run after the US market close, once closing prices have been refreshed
+    @Scheduled(cron = "${snapshots.cron:0 30 17 * * MON-FRI}", zone = "${market.timezone:America/New_York}")
+    public void snapshotPortfolios() {
+        // Only one node in a cluster takes the snapshots
+        if (!clusterCoordinator.isLeader("portfolio-snapshots")) {
+            return;
+        }
+        LocalDate date = LocalDate.now(ZoneId.of(marketTimezone));
+        log.info("Starting scheduled portfolio snapshot batch for {}", date);
+
+        try {
+            snapshotService.runEndOfDayBatch(date);
+        } catch (Exception e) {
+            log.error("Error during scheduled portfolio snapshot batch: {}", e.getMessage());
+        }
+    }
+}
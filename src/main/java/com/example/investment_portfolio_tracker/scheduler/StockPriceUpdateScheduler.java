@@ -1,6 +1,6 @@
 package com.example.investment_portfolio_tracker.scheduler;
 
-import com.example.investment_portfolio_tracker.service.StockService;
+import com.example.investment_portfolio_tracker.service.market.PriceRefreshService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.EnableScheduling;
@@ -13,18 +13,28 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class StockPriceUpdateScheduler {
 
-    private final StockService stockService;
+    private final PriceRefreshService priceRefreshService;
 
-    // Run every day at 1:00 AM
-    @Scheduled(cron = "0 0 1 * * *")
-    public void updateStockPrices() {
-        log.info("Starting scheduled stock price update");
+    // Re-rank every stock by staleness and holdings
+    @Scheduled(fixedDelayString = "${market-refresh.reprioritize-ms:60000}", initialDelay = 10000)
+    public void reprioritize() {
+        try {
+            priceRefreshService.reprioritize();
+        } catch (Exception e) {
+            log.error("Error rebuilding stock price refresh queue: {}", e.getMessage());
+        }
+    }
 
+    // Spend whatever API quota has accrued on the top of the queue
+    @Scheduled(fixedDelayString = "${market-refresh.drain-interval-ms:1000}", initialDelay = 15000)
+    public void updateStockPrices() {
         try {
-            stockService.refreshAllStockPrices();
-            log.info("Completed stock price update");
+            int refreshed = priceRefreshService.drain();
+            if (refreshed > 0) {
+                log.info("Refreshed {} stock prices", refreshed);
+            }
         } catch (Exception e) {
             log.error("Error during scheduled stock price update: {}", e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
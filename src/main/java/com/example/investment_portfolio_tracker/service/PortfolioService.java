@@ -1,13 +1,19 @@
 package com.example.investment_portfolio_tracker.service;
 
 
+import com.example.investment_portfolio_tracker.event.TradeExecutedEvent;
 import com.example.investment_portfolio_tracker.model.*;
 import com.example.investment_portfolio_tracker.repository.PositionRepository;
 import com.example.investment_portfolio_tracker.repository.StockRepository;
 import com.example.investment_portfolio_tracker.repository.TransactionRepository;
 import com.example.investment_portfolio_tracker.repository.UserRepository;
+import com.example.investment_portfolio_tracker.service.market.PriceBoard;
+import com.example.investment_portfolio_tracker.service.position.PositionIndexService;
+import com.example.investment_portfolio_tracker.util.AverageCost;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -20,17 +26,25 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
+import static com.example.investment_portfolio_tracker.config.LogSamplingTurboFilter.SAMPLED;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Observed(name = "portfolio.service")
 public class PortfolioService {
 
     private final UserRepository userRepository;
     private final StockRepository stockRepository;
     private final PositionRepository positionRepository;
     private final TransactionRepository transactionRepository;
+    private final TaxLotService taxLotService;
+    private final PriceBoard priceBoard;
+    private final PositionIndexService positionIndexService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Get all positions for a user
@@ -49,15 +63,21 @@ public class PortfolioService {
     }
 
     /**
-     * Get total portfolio value
+     * Get total portfolio value at board prices
      */
     @Transactional(readOnly = true)
     public BigDecimal getPortfolioValue(Long userId) {
-        Double value = positionRepository.getTotalPortfolioValue(userId);
-        if (value == null) {
-            return BigDecimal.ZERO;
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map<String, Object> holding : positionRepository.findHoldingsByUserId(userId)) {
+            BigDecimal price = priceBoard.getPrice((Long) holding.get("stockId"));
+            if (price == null) {
+                price = (BigDecimal) holding.get("price");
+            }
+            if (price != null) {
+                total = total.add(price.multiply((BigDecimal) holding.get("quantity")));
+            }
         }
-        return BigDecimal.valueOf(value);
+        return total;
     }
 
     /**
@@ -113,9 +133,7 @@ public class PortfolioService {
 
             // Calculate new average cost
             BigDecimal totalShares = position.getQuantity().add(quantity);
-            BigDecimal existingValue = position.getQuantity().multiply(position.getAverageCost());
-            BigDecimal newValue = quantity.multiply(price);
-            BigDecimal newAverageCost = existingValue.add(newValue).divide(totalShares, 4, RoundingMode.HALF_UP);
+            BigDecimal newAverageCost = AverageCost.afterBuy(position.getQuantity(), position.getAverageCost(), quantity, price);
 
             // Update position
             position.setQuantity(totalShares);
@@ -133,7 +151,7 @@ public class PortfolioService {
         }
 
         position = positionRepository.save(position);
-        log.info("Updated position for user {} and stock {}: {} shares at avg cost {}",
+        log.debug(SAMPLED, "Updated position for user {} and stock {}: {} shares at avg cost {}",
                 userId, ticker, position.getQuantity(), position.getAverageCost());
 
         // Create transaction record
@@ -148,17 +166,28 @@ public class PortfolioService {
         transaction.setTransactionDate(transactionDate);
 
         transaction = transactionRepository.save(transaction);
+        taxLotService.openLot(transaction);
         log.info("Created BUY transaction for user {} and stock {}: {} shares at {} for a total of {}",
                 userId, ticker, quantity, price, transaction.getValue());
 
+        publishTrade(transaction);
         return transaction;
     }
 
     /**
-     * Execute a SELL transaction
+     * Execute a SELL transaction, relieving lots under the user's cost basis method
      */
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public Transaction sellStock(Long userId, String ticker, BigDecimal quantity, BigDecimal price, BigDecimal fee, LocalDateTime transactionDate) {
+        return sellStock(userId, ticker, quantity, price, fee, transactionDate, List.of());
+    }
+
+    /**
+     * Execute a SELL transaction against specific lots, or under the user's cost basis method if none are given
+     */
+    @Transactional(isolation = Isolation.SERIALIZABLE)
+    public Transaction sellStock(Long userId, String ticker, BigDecimal quantity, BigDecimal price, BigDecimal fee,
+                                 LocalDateTime transactionDate, List<Long> lotIds) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
@@ -174,10 +203,14 @@ public class PortfolioService {
             throw new IllegalArgumentException("Insufficient shares to sell");
         }
 
+        // Pick the lots to relieve before anything is written
+        TaxLotService.SalePlan salePlan = taxLotService.planSale(user, stock, quantity, price, fee, lotIds);
+
         // Update position
         BigDecimal remainingShares = position.getQuantity().subtract(quantity);
         position.setQuantity(remainingShares);
         position.setLastTransaction(transactionDate);
+        position.setRealizedGain(position.getRealizedGain().add(salePlan.realizedGain()));
 
         // If completely sold, we could delete the position, but keeping it for history
         if (remainingShares.compareTo(BigDecimal.ZERO) == 0) {
@@ -186,7 +219,7 @@ public class PortfolioService {
         }
 
         position = positionRepository.save(position);
-        log.info("Updated position for user {} and stock {}: {} shares remaining", userId, ticker, remainingShares);
+        log.debug(SAMPLED, "Updated position for user {} and stock {}: {} shares remaining", userId, ticker, remainingShares);
 
         // Create transaction record
         Transaction transaction = new Transaction();
@@ -200,12 +233,26 @@ public class PortfolioService {
         transaction.setTransactionDate(transactionDate);
 
         transaction = transactionRepository.save(transaction);
+        taxLotService.applySale(salePlan, transaction);
         log.info("Created SELL transaction for user {} and stock {}: {} shares at {} for a total of {}",
                 userId, ticker, quantity, price, transaction.getValue());
 
+        publishTrade(transaction);
         return transaction;
     }
 
+    private void publishTrade(Transaction transaction) {
+        eventPublisher.publishEvent(new TradeExecutedEvent(
+                transaction.getUser().getId(),
+                transaction.getStock().getId(),
+                transaction.getStock().getTicker(),
+                transaction.getTransactionType(),
+                transaction.getQuantity(),
+                transaction.getPrice(),
+                transaction.getFee(),
+                transaction.getTransactionDate()));
+    }
+
     /**
      * Calculate portfolio performance metrics
      */
@@ -215,9 +262,12 @@ public class PortfolioService {
 
         BigDecimal totalValue = BigDecimal.ZERO;
         BigDecimal totalCost = BigDecimal.ZERO;
+        BigDecimal realizedGain = BigDecimal.ZERO;
 
         for (Position position : positions) {
-            BigDecimal currentValue = position.getCurrentValue();
+            // Maintained incrementally on every SELL from the lots it consumed
+            realizedGain = realizedGain.add(position.getRealizedGain());
+            BigDecimal currentValue = priceBoard.valueOf(position.getStock(), position.getQuantity());
             if (currentValue != null) {
                 totalValue = totalValue.add(currentValue);
                 totalCost = totalCost.add(position.getTotalCost());
@@ -255,7 +305,7 @@ public class PortfolioService {
         metrics.put("totalBuyFees", totalBuyFees);
         metrics.put("totalSellFees", totalSellFees);
         metrics.put("totalFees", totalBuyFees.add(totalSellFees));
-        metrics.put("realizedGain", totalSales.subtract(totalBuyFees).subtract(totalSellFees));
+        metrics.put("realizedGain", realizedGain);
 
         return metrics;
     }
@@ -265,45 +315,53 @@ public class PortfolioService {
      */
     @Transactional(readOnly = true)
     public Map<String, BigDecimal> getSectorAllocation(Long userId) {
-        List<Map<String, Object>> sectorValues = positionRepository.getSectorAllocation(userId);
+        Map<String, BigDecimal> sectorValues = new HashMap<>();
+        for (Position position : positionRepository.findOpenPositionsWithStock(userId)) {
+            String sector = position.getStock().getSector();
+            BigDecimal value = priceBoard.valueOf(position.getStock(), position.getQuantity());
+            if (sector != null && value != null) {
+                sectorValues.merge(sector, value, BigDecimal::add);
+            }
+        }
 
         // Calculate total value
-        BigDecimal totalValue = sectorValues.stream()
-                .map(map -> (Double) map.get("value"))
-                .map(BigDecimal::valueOf)
+        BigDecimal totalValue = sectorValues.values().stream()
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         // Calculate percentages
         Map<String, BigDecimal> result = new HashMap<>();
         if (totalValue.compareTo(BigDecimal.ZERO) > 0) {
-            for (Map<String, Object> entry : sectorValues) {
-                String sector = (String) entry.get("sector");
-                BigDecimal value = BigDecimal.valueOf((Double) entry.get("value"));
-                BigDecimal percentage = value.multiply(BigDecimal.valueOf(100))
-                        .divide(totalValue, 2, RoundingMode.HALF_UP);
-                result.put(sector, percentage);
-            }
+            sectorValues.forEach((sector, value) -> result.put(sector,
+                    value.multiply(BigDecimal.valueOf(100)).divide(totalValue, 2, RoundingMode.HALF_UP)));
         }
 
         return result;
     }
 
     /**
-     * Get largest positions by value
+     * Get largest positions by value, ranked in memory at board prices
      */
     @Transactional(readOnly = true)
     public List<Position> getLargestPositions(Long userId, int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        return positionRepository.findLargestPositionsByValue(userId, pageable);
+        return loadInOrder(positionIndexService.getLargestPositionIds(userId, limit));
     }
 
     /**
-     * Get positions with gains above a certain percentage
+     * Get positions with gains above a certain percentage, best first
      */
     @Transactional(readOnly = true)
     public List<Position> getPositionsWithGainAbove(Long userId, double gainPercentage) {
-        BigDecimal gainThreshold = BigDecimal.valueOf(gainPercentage / 100);
-        return positionRepository.findPositionsWithGainAbove(userId, gainThreshold);
+        return loadInOrder(positionIndexService.getPositionIdsWithGainAbove(userId, gainPercentage / 100));
+    }
+
+    // Ranked ids from the index, then just those rows
+    private List<Position> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Position> positions = new HashMap<>();
+        positionRepository.findAllWithStockByIdIn(ids).forEach(position -> positions.put(position.getId(), position));
+        return ids.stream().map(positions::get).filter(Objects::nonNull).toList();
     }
 
     /**
@@ -0,0 +1,208 @@
+package com.example.investment_portfolio_tracker.service;
+
+import com.example.investment_portfolio_tracker.model.PortfolioSnapshot;
+import com.example.investment_portfolio_tracker.repository.PortfolioSnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Writes one end-of-day NAV snapshot per user and serves snapshot history.
+ * <p>
+ * The batch splits the user id space into fixed id ranges of {@code chunkSize} ids and revalues
+ * the populated ones in parallel on a fork-join pool. Each chunk is aggregated with two set-based
+ * queries, written with a JDBC batch upsert, and marked complete in portfolio_snapshot_chunks in the
+ * same transaction together with the highest user id it covered. A re-run for the same date skips
+ * a chunk only while that record still covers every user now in its range, so users registered
+ * since are picked up and deletions never shift the boundaries.
+ */
+@Slf4j
+@Service
+public class PortfolioSnapshotService {
+
+    private static final String VALUATION_SQL =
+            "SELECT p.user_id, SUM(p.quantity * COALESCE(s.current_price, 0)) AS market_value, " +
+                    "SUM(p.quantity * p.average_cost) AS cost_basis " +
+                    "FROM positions p JOIN stocks s ON s.id = p.stock_id " +
+                    "WHERE p.user_id BETWEEN ? AND ? " +
+                    "GROUP BY p.user_id";
+
+    private static final String CASH_FLOW_SQL =
+            "SELECT user_id, SUM(CASE WHEN transaction_type = 'BUY' THEN quantity * price + fee " +
+                    "ELSE -(quantity * price - fee) END) AS cash_flow " +
+                    "FROM transactions " +
+                    "WHERE user_id BETWEEN ? AND ? AND transaction_date >= ? AND transaction_date < ? " +
+                    "GROUP BY user_id";
+
+    private static final String CHUNKS_SQL =
+            "SELECT (id - 1) / ? AS chunk, MAX(id) AS last_user_id, COUNT(*) AS users " +
+                    "FROM users GROUP BY chunk ORDER BY chunk";
+
+    private static final String COMPLETED_SQL =
+            "SELECT first_user_id, last_user_id FROM portfolio_snapshot_chunks WHERE snapshot_date = ?";
+
+    private static final String RECORD_CHUNK_SQL =
+            "INSERT INTO portfolio_snapshot_chunks (snapshot_date, first_user_id, last_user_id, users_written) " +
+                    "VALUES (?, ?, ?, ?) " +
+                    "ON CONFLICT (snapshot_date, first_user_id) DO UPDATE SET " +
+                    "last_user_id = EXCLUDED.last_user_id, users_written = EXCLUDED.users_written, " +
+                    "completed_at = CURRENT_TIMESTAMP";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO portfolio_snapshots (user_id, snapshot_date, market_value, cost_basis, cash_flow) " +
+                    "VALUES (?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (user_id, snapshot_date) DO UPDATE SET " +
+                    "market_value = EXCLUDED.market_value, cost_basis = EXCLUDED.cost_basis, cash_flow = EXCLUDED.cash_flow";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PortfolioSnapshotRepository snapshotRepository;
+    private final int chunkSize;
+    private final int parallelism;
+
+    public PortfolioSnapshotService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            PortfolioSnapshotRepository snapshotRepository,
+            @Value("${snapshots.chunk-size:1000}") int chunkSize,
+            @Value("${snapshots.parallelism:4}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotRepository = snapshotRepository;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Get snapshot history for a user between two dates, inclusive
+     */
+    @Transactional(readOnly = true)
+    public List<PortfolioSnapshot> getHistory(Long userId, LocalDate from, LocalDate to) {
+        return snapshotRepository.findByUserIdAndDateRange(userId, from, to);
+    }
+
+    /**
+     * Revalue every user's positions and write a snapshot for the given date.
+     * Safe to call again after a crash: completed chunks are skipped.
+     */
+    public BatchResult runEndOfDayBatch(LocalDate date) {
+        long started = System.nanoTime();
+
+        // Highest user id each completed chunk covered, by the first id of its range
+        Map<Long, Long> completed = new HashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(COMPLETED_SQL, Date.valueOf(date))) {
+            completed.put(number(row, "first_user_id"), number(row, "last_user_id"));
+        }
+
+        int users = 0;
+        int skipped = 0;
+        List<Callable<Integer>> pending = new ArrayList<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(CHUNKS_SQL, chunkSize)) {
+            long firstUserId = number(row, "chunk") * chunkSize + 1;
+            long lastUserId = firstUserId + chunkSize - 1;
+            long highestUserId = number(row, "last_user_id");
+            users += (int) number(row, "users");
+            Long covered = completed.get(firstUserId);
+            if (covered != null && covered >= highestUserId) {
+                skipped++;
+            } else {
+                pending.add(() -> processChunk(date, firstUserId, lastUserId, highestUserId));
+            }
+        }
+
+        log.info("Starting snapshot batch for {}: {} users, {} chunks pending, {} already completed",
+                date, users, pending.size(), skipped);
+
+        int written = 0;
+        int failedChunks = 0;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (Future<Integer> result : pool.invokeAll(pending)) {
+                try {
+                    written += result.get();
+                } catch (ExecutionException e) {
+                    // The chunk stays unrecorded, so the next run for this date retries it
+                    failedChunks++;
+                    log.error("Snapshot chunk failed for {}: {}", date, e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Snapshot batch for {} was interrupted", date);
+        } finally {
+            pool.shutdown();
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        log.info("Completed snapshot batch for {}: {} snapshots written, {} chunks failed in {} ms",
+                date, written, failedChunks, elapsed.toMillis());
+
+        return new BatchResult(date, users, pending.size(), skipped, failedChunks, written, elapsed);
+    }
+
+    /**
+     * Value one fixed range of user ids and write their snapshots in a single transaction
+     *
+     * @param highestUserId the highest user id in the range when the batch started, recorded as covered
+     */
+    private int processChunk(LocalDate date, long firstUserId, long lastUserId, long highestUserId) {
+        Map<Long, BigDecimal[]> rows = new HashMap<>();
+
+        jdbcTemplate.query(VALUATION_SQL, (RowCallbackHandler) rs -> {
+            rows.put(rs.getLong("user_id"), new BigDecimal[]{
+                    rs.getBigDecimal("market_value"), rs.getBigDecimal("cost_basis"), BigDecimal.ZERO});
+        }, firstUserId, lastUserId);
+
+        jdbcTemplate.query(CASH_FLOW_SQL, (RowCallbackHandler) rs -> {
+            BigDecimal[] row = rows.computeIfAbsent(rs.getLong("user_id"),
+                    id -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO});
+            row[2] = rs.getBigDecimal("cash_flow");
+        }, firstUserId, lastUserId,
+                Timestamp.valueOf(date.atStartOfDay()), Timestamp.valueOf(date.plusDays(1).atStartOfDay()));
+
+        List<Object[]> batch = new ArrayList<>(rows.size());
+        Date sqlDate = Date.valueOf(date);
+        rows.forEach((userId, row) -> batch.add(new Object[]{userId, sqlDate, row[0], row[1], row[2]}));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+            jdbcTemplate.update(RECORD_CHUNK_SQL, sqlDate, firstUserId, highestUserId, batch.size());
+        });
+
+        return batch.size();
+    }
+
+    private static long number(Map<String, Object> row, String column) {
+        return ((Number) row.get(column)).longValue();
+    }
+
+    public record BatchResult(
+            LocalDate date,
+            int users,
+            int chunksProcessed,
+            int chunksSkipped,
+            int chunksFailed,
+            int snapshotsWritten,
+            Duration elapsed
+    ) {
+    }
+}
@@ -0,0 +1,397 @@
+package com.example.investment_portfolio_tracker.service;
+
+import com.example.investment_portfolio_tracker.event.PositionsRewrittenEvent;
+import com.example.investment_portfolio_tracker.util.AverageCost;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Replays the transaction ledger with the same average-cost math as live trading and diffs the
+ * result against the positions table.
+ * <p>
+ * The user id space is split recursively on a fork-join pool. Each leaf streams its users'
+ * transactions ordered by (user, stock, date) through a server-side cursor and keeps only the
+ * running state of the current user and stock, so memory is bounded by the leaf size rather than
+ * the ledger. Differences are appended to an NDJSON report; in repair mode they are written back in
+ * batches with a compare-and-set update so positions touched by a concurrent trade are left alone.
+ */
+@Slf4j
+@Service
+public class PositionReconciliationService {
+
+    private static final int FETCH_SIZE = 5_000;
+    private static final DateTimeFormatter REPORT_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final String LEDGER_SQL =
+            "SELECT user_id, stock_id, transaction_type, quantity, price FROM transactions " +
+                    "WHERE user_id BETWEEN ? AND ? ORDER BY user_id, stock_id, transaction_date, id";
+
+    // Only applies if the position still holds what the leaf read, i.e. no trade landed in between
+    private static final String REPAIR_SQL =
+            "UPDATE positions SET quantity = ?, average_cost = ? " +
+                    "WHERE user_id = ? AND stock_id = ? AND quantity = ? AND average_cost = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final TransactionTemplate repairTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path reportDirectory;
+    private final int parallelism;
+    private final int leafUsers;
+    private final int repairBatchSize;
+
+    public PositionReconciliationService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${reconciliation.report-dir:${java.io.tmpdir}/portfolio-tracker/reconciliation}") String reportDirectory,
+            @Value("${reconciliation.parallelism:4}") int parallelism,
+            @Value("${reconciliation.leaf-users:500}") int leafUsers,
+            @Value("${reconciliation.repair-batch-size:500}") int repairBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Ledger and positions are read from one snapshot so a trade cannot appear in only one of them
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTemplate.setReadOnly(true);
+        this.repairTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.reportDirectory = Path.of(reportDirectory);
+        this.parallelism = parallelism;
+        this.leafUsers = leafUsers;
+        this.repairBatchSize = repairBatchSize;
+    }
+
+    /**
+     * Reconcile every user's positions against the ledger, optionally repairing differences
+     */
+    public ReconciliationReport reconcile(boolean repair) {
+        long started = System.nanoTime();
+        long[] userIds = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+
+        Path reportFile;
+        Counts counts;
+        try {
+            Files.createDirectories(reportDirectory);
+            reportFile = reportDirectory.resolve("reconciliation-" + LocalDateTime.now().format(REPORT_NAME) + ".ndjson");
+            try (ReportWriter report = new ReportWriter(Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8))) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    counts = pool.invoke(new ReconcileTask(userIds, 0, userIds.length, repair, report));
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write reconciliation report", e);
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        log.info("Reconciled {} users: {} transactions replayed, {} positions checked, {} differences, " +
+                        "{} repaired, {} skipped, {} ranges failed in {} ms; report at {}",
+                userIds.length, counts.transactions, counts.positions, counts.differences,
+                counts.repaired, counts.skipped, counts.failedRanges, elapsed.toMillis(), reportFile);
+
+        return new ReconciliationReport(reportFile.toString(), userIds.length, counts.transactions, counts.positions,
+                counts.differences, counts.repaired, counts.skipped, counts.failedRanges, elapsed);
+    }
+
+    /**
+     * Splits the sorted user ids in half until a range is small enough to reconcile directly
+     */
+    private final class ReconcileTask extends RecursiveTask<Counts> {
+        private final long[] userIds;
+        private final int from;
+        private final int to;
+        private final boolean repair;
+        private final ReportWriter report;
+
+        private ReconcileTask(long[] userIds, int from, int to, boolean repair, ReportWriter report) {
+            this.userIds = userIds;
+            this.from = from;
+            this.to = to;
+            this.repair = repair;
+            this.report = report;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (to - from <= leafUsers) {
+                return from < to ? reconcileRange(userIds[from], userIds[to - 1], repair, report) : new Counts();
+            }
+            int mid = (from + to) >>> 1;
+            ReconcileTask left = new ReconcileTask(userIds, from, mid, repair, report);
+            left.fork();
+            Counts right = new ReconcileTask(userIds, mid, to, repair, report).compute();
+            return right.add(left.join());
+        }
+    }
+
+    private Counts reconcileRange(long firstUserId, long lastUserId, boolean repair, ReportWriter report) {
+        Counts counts = new Counts();
+        try {
+            List<Difference> differences = snapshotTemplate.execute(status -> diffRange(firstUserId, lastUserId, counts));
+            for (Difference difference : differences) {
+                counts.differences++;
+                if (!repair || difference.kind() != DifferenceKind.MISMATCH) {
+                    report.write(difference, false);
+                }
+            }
+            if (repair) {
+                repairRange(differences, counts, report);
+            }
+        } catch (RuntimeException e) {
+            // Other ranges carry on; the report simply has no lines for this one
+            counts.failedRanges++;
+            log.error("Reconciliation failed for users {}-{}: {}", firstUserId, lastUserId, e.getMessage());
+        }
+        return counts;
+    }
+
+    private List<Difference> diffRange(long firstUserId, long lastUserId, Counts counts) {
+        Map<PositionKey, PositionState> positions = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT user_id, stock_id, quantity, average_cost FROM positions WHERE user_id BETWEEN ? AND ?",
+                (RowCallbackHandler) rs -> positions.put(
+                        new PositionKey(rs.getLong("user_id"), rs.getLong("stock_id")),
+                        new PositionState(rs.getBigDecimal("quantity"), rs.getBigDecimal("average_cost"))),
+                firstUserId, lastUserId);
+        counts.positions += positions.size();
+
+        List<Difference> differences = new ArrayList<>();
+        LedgerReplay replay = new LedgerReplay(positions, differences);
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(LEDGER_SQL);
+                    ps.setFetchSize(FETCH_SIZE);
+                    ps.setLong(1, firstUserId);
+                    ps.setLong(2, lastUserId);
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> {
+                    replay.apply(rs.getLong("user_id"), rs.getLong("stock_id"), rs.getString("transaction_type"),
+                            rs.getBigDecimal("quantity"), rs.getBigDecimal("price"));
+                    counts.transactions++;
+                });
+        replay.finish();
+
+        // Whatever the ledger never touched has no transactions behind it
+        positions.forEach((key, actual) -> differences.add(new Difference(
+                DifferenceKind.ORPHAN_POSITION, key.userId(), key.stockId(),
+                BigDecimal.ZERO, null, actual.quantity(), actual.averageCost())));
+        return differences;
+    }
+
+    private void repairRange(List<Difference> differences, Counts counts, ReportWriter report) {
+        List<Difference> mismatches = differences.stream()
+                .filter(difference -> difference.kind() == DifferenceKind.MISMATCH)
+                .toList();
+        List<Difference> repairable = mismatches.stream()
+                .filter(difference -> difference.expectedAverageCost() != null)
+                .toList();
+        // A ledger with sells but no buys has no cost to repair to
+        mismatches.stream()
+                .filter(difference -> difference.expectedAverageCost() == null)
+                .forEach(difference -> {
+                    counts.skipped++;
+                    report.write(difference, false);
+                });
+        mismatches = repairable;
+
+        for (int start = 0; start < mismatches.size(); start += repairBatchSize) {
+            List<Difference> batch = mismatches.subList(start, Math.min(start + repairBatchSize, mismatches.size()));
+            List<Object[]> args = batch.stream()
+                    .map(d -> new Object[]{d.expectedQuantity(), d.expectedAverageCost(), d.userId(), d.stockId(),
+                            d.actualQuantity(), d.actualAverageCost()})
+                    .toList();
+
+            int[] updated = repairTemplate.execute(status -> jdbcTemplate.batchUpdate(REPAIR_SQL, args));
+            for (int i = 0; i < batch.size(); i++) {
+                // Drivers may report SUCCESS_NO_INFO (-2) for batched statements; treat it as applied
+                boolean applied = updated == null || updated[i] != 0;
+                if (applied) {
+                    counts.repaired++;
+                    eventPublisher.publishEvent(new PositionsRewrittenEvent(batch.get(i).userId()));
+                } else {
+                    counts.skipped++;
+                }
+                report.write(batch.get(i), applied);
+            }
+        }
+    }
+
+    /**
+     * Running average-cost state for the (user, stock) currently being streamed
+     */
+    private static final class LedgerReplay {
+        private final Map<PositionKey, PositionState> positions;
+        private final List<Difference> differences;
+        private PositionKey current;
+        private BigDecimal quantity;
+        private BigDecimal averageCost;
+
+        private LedgerReplay(Map<PositionKey, PositionState> positions, List<Difference> differences) {
+            this.positions = positions;
+            this.differences = differences;
+        }
+
+        private void apply(long userId, long stockId, String type, BigDecimal tradeQuantity, BigDecimal price) {
+            if (current == null || current.userId() != userId || current.stockId() != stockId) {
+                finish();
+                current = new PositionKey(userId, stockId);
+                quantity = null;
+                averageCost = null;
+            }
+
+            if ("BUY".equals(type)) {
+                // Mirrors PortfolioService.buyStock: a new position starts at the trade price
+                averageCost = averageCost == null ? price : AverageCost.afterBuy(quantity, averageCost, tradeQuantity, price);
+                quantity = quantity == null ? tradeQuantity : quantity.add(tradeQuantity);
+            } else {
+                quantity = (quantity == null ? BigDecimal.ZERO : quantity).subtract(tradeQuantity);
+            }
+        }
+
+        private void finish() {
+            if (current == null) {
+                return;
+            }
+            PositionState actual = positions.remove(current);
+            if (actual == null) {
+                differences.add(new Difference(DifferenceKind.MISSING_POSITION, current.userId(), current.stockId(),
+                        quantity, averageCost, null, null));
+            } else if (!sameValue(quantity, actual.quantity()) || !sameValue(averageCost, actual.averageCost())) {
+                differences.add(new Difference(DifferenceKind.MISMATCH, current.userId(), current.stockId(),
+                        quantity, averageCost, actual.quantity(), actual.averageCost()));
+            }
+            current = null;
+        }
+
+        private static boolean sameValue(BigDecimal expected, BigDecimal actual) {
+            return expected == null ? actual == null : actual != null && expected.compareTo(actual) == 0;
+        }
+    }
+
+    /**
+     * Serializes report lines from concurrent leaves
+     */
+    private final class ReportWriter implements AutoCloseable {
+        private final BufferedWriter writer;
+
+        private ReportWriter(BufferedWriter writer) {
+            this.writer = writer;
+        }
+
+        private synchronized void write(Difference difference, boolean repaired) {
+            try {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("kind", difference.kind());
+                line.put("userId", difference.userId());
+                line.put("stockId", difference.stockId());
+                line.put("expectedQuantity", difference.expectedQuantity());
+                line.put("actualQuantity", difference.actualQuantity());
+                line.put("expectedAverageCost", difference.expectedAverageCost());
+                line.put("actualAverageCost", difference.actualAverageCost());
+                line.put("repaired", repaired);
+                writer.write(objectMapper.writeValueAsString(line));
+                writer.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    private static final class Counts {
+        private long transactions;
+        private long positions;
+        private long differences;
+        private long repaired;
+        private long skipped;
+        private long failedRanges;
+
+        private Counts add(Counts other) {
+            transactions += other.transactions;
+            positions += other.positions;
+            differences += other.differences;
+            repaired += other.repaired;
+            skipped += other.skipped;
+            failedRanges += other.failedRanges;
+            return this;
+        }
+    }
+
+    public enum DifferenceKind {
+        // Quantity or average cost differs from the replayed ledger
+        MISMATCH,
+        // The ledger has trades for a stock the user holds no position row for
+        MISSING_POSITION,
+        // A position row with no trades behind it
+        ORPHAN_POSITION
+    }
+
+    private record PositionKey(long userId, long stockId) {
+    }
+
+    private record PositionState(BigDecimal quantity, BigDecimal averageCost) {
+    }
+
+    private record Difference(
+            DifferenceKind kind,
+            long userId,
+            long stockId,
+            BigDecimal expectedQuantity,
+            BigDecimal expectedAverageCost,
+            BigDecimal actualQuantity,
+            BigDecimal actualAverageCost
+    ) {
+    }
+
+    public record ReconciliationReport(
+            String reportFile,
+            int users,
+            long transactionsReplayed,
+            long positionsChecked,
+            long differences,
+            long repaired,
+            long skippedConcurrentlyModified,
+            long failedRanges,
+            Duration elapsed
+    ) {
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.investment_portfolio_tracker.service;
+
+import com.example.investment_portfolio_tracker.dto.ReturnsDto;
+import com.example.investment_portfolio_tracker.event.TradeExecutedEvent;
+import com.example.investment_portfolio_tracker.model.PortfolioSnapshot;
+import com.example.investment_portfolio_tracker.model.Transaction;
+import com.example.investment_portfolio_tracker.model.TransactionType;
+import com.example.investment_portfolio_tracker.repository.PortfolioSnapshotRepository;
+import com.example.investment_portfolio_tracker.repository.TransactionRepository;
+import com.example.investment_portfolio_tracker.service.analytics.ReturnCalculator;
+import com.example.investment_portfolio_tracker.service.analytics.ReturnPeriod;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time-weighted and money-weighted returns from NAV snapshots and the transaction ledger.
+ * <p>
+ * Results are memoized per (user, period) and evicted when the user trades. Entries also expire
+ * after a short TTL because the final data point is valued at live prices.
+ */
+@Slf4j
+@Service
+public class ReturnsService {
+
+    private static final double DAYS_PER_YEAR = 365.0;
+
+    private final PortfolioSnapshotRepository snapshotRepository;
+    private final PortfolioService portfolioService;
+    private final TransactionRepository transactionRepository;
+    private final Duration cacheTtl;
+
+    private final Map<CacheKey, CachedReturns> cache = new ConcurrentHashMap<>();
+
+    public ReturnsService(
+            PortfolioSnapshotRepository snapshotRepository,
+            PortfolioService portfolioService,
+            TransactionRepository transactionRepository,
+            @Value("${returns.cache-ttl:PT5M}") Duration cacheTtl) {
+        this.snapshotRepository = snapshotRepository;
+        this.portfolioService = portfolioService;
+        this.transactionRepository = transactionRepository;
+        this.cacheTtl = cacheTtl;
+    }
+
+    /**
+     * Get time-weighted and money-weighted returns for a user over a look-back period
+     */
+    @Transactional(readOnly = true)
+    public ReturnsDto getReturns(Long userId, ReturnPeriod period) {
+        LocalDate today = LocalDate.now();
+        CacheKey key = new CacheKey(userId, period);
+
+        CachedReturns cached = cache.get(key);
+        if (cached != null && cached.asOf().equals(today)
+                && cached.computedAt().plus(cacheTtl).isAfter(Instant.now())) {
+            return cached.returns();
+        }
+
+        ReturnsDto returns = calculateReturns(userId, period, today);
+        cache.put(key, new CachedReturns(returns, today, Instant.now()));
+        return returns;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTradeExecuted(TradeExecutedEvent event) {
+        evict(event.userId());
+    }
+
+    public void evict(Long userId) {
+        for (ReturnPeriod period : ReturnPeriod.values()) {
+            cache.remove(new CacheKey(userId, period));
+        }
+    }
+
+    private ReturnsDto calculateReturns(Long userId, ReturnPeriod period, LocalDate today) {
+        LocalDate inception = snapshotRepository.findFirstSnapshotDate(userId).orElse(today);
+        LocalDate start = period.startDate(today, inception);
+        List<PortfolioSnapshot> snapshots = snapshotRepository.findByUserIdAndDateRange(userId, start, today);
+
+        // Value points: one per snapshot, plus a live point for today if the batch has not run yet
+        List<LocalDate> dates = new ArrayList<>();
+        List<Double> navs = new ArrayList<>();
+        for (PortfolioSnapshot snapshot : snapshots) {
+            dates.add(snapshot.getSnapshotDate());
+            navs.add(snapshot.getMarketValue().doubleValue());
+        }
+        if (dates.isEmpty() || dates.get(dates.size() - 1).isBefore(today)) {
+            dates.add(today);
+            navs.add(portfolioService.getPortfolioValue(userId).doubleValue());
+        }
+
+        int n = dates.size();
+        double[] values = new double[n];
+        double[] flows = new double[n];
+        long[] days = new long[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = navs.get(i);
+            days[i] = dates.get(i).toEpochDay();
+        }
+
+        // Attribute each trade to the first value point on or after its date; trades before the first point are part of its value
+        List<Transaction> transactions = transactionRepository.findByUserIdAndDateRange(
+                userId, dates.get(0).plusDays(1).atStartOfDay(), LocalDateTime.now().plusDays(1));
+        double netCashFlow = 0;
+        for (Transaction transaction : transactions) {
+            long day = transaction.getTransactionDate().toLocalDate().toEpochDay();
+            int index = firstIndexOnOrAfter(days, day);
+            double flow = cashFlow(transaction);
+            flows[index] += flow;
+            netCashFlow += flow;
+        }
+
+        Double twr = n > 1 ? ReturnCalculator.timeWeightedReturn(values, flows) : null;
+        Double mwr = n > 1 ? moneyWeightedReturn(values, flows, days) : null;
+
+        return ReturnsDto.builder()
+                .period(period.getCode())
+                .startDate(dates.get(0))
+                .endDate(dates.get(n - 1))
+                .startValue(money(values[0]))
+                .endValue(money(values[n - 1]))
+                .netCashFlow(money(netCashFlow))
+                .timeWeightedReturn(percent(twr))
+                .moneyWeightedReturn(percent(mwr))
+                .build();
+    }
+
+    private double moneyWeightedReturn(double[] values, double[] flows, long[] days) {
+        int n = values.length;
+        double[] amounts = new double[n];
+        double[] years = new double[n];
+
+        // From the investor's side: the opening value is paid in, contributions are paid in, the closing value is received
+        amounts[0] = -values[0];
+        for (int i = 1; i < n; i++) {
+            amounts[i] = -flows[i];
+            years[i] = (days[i] - days[0]) / DAYS_PER_YEAR;
+        }
+        amounts[n - 1] += values[n - 1];
+
+        return ReturnCalculator.xirr(amounts, years);
+    }
+
+    private static int firstIndexOnOrAfter(long[] days, long day) {
+        for (int i = 1; i < days.length; i++) {
+            if (days[i] >= day) {
+                return i;
+            }
+        }
+        return days.length - 1;
+    }
+
+    /**
+     * Money put into the portfolio by a trade: buys add cost plus fees, sells withdraw proceeds net of fees
+     */
+    private static double cashFlow(Transaction transaction) {
+        double value = transaction.getQuantity().multiply(transaction.getPrice()).doubleValue();
+        double fee = transaction.getFee() != null ? transaction.getFee().doubleValue() : 0.0;
+        return transaction.getTransactionType() == TransactionType.BUY ? value + fee : -(value - fee);
+    }
+
+    private static BigDecimal money(double value) {
+        return BigDecimal.valueOf(value).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal percent(Double fraction) {
+        if (fraction == null || fraction.isNaN() || fraction.isInfinite()) {
+            return null;
+        }
+        return BigDecimal.valueOf(fraction * 100).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private record CacheKey(Long userId, ReturnPeriod period) {
+    }
+
+    private record CachedReturns(ReturnsDto returns, LocalDate asOf, Instant computedAt) {
+    }
+}
@@ -1,35 +1,62 @@
 package com.example.investment_portfolio_tracker.service;
 
-import com.example.investment_portfolio_tracker.dto.external.AlphaVantageQuote;
+import com.example.investment_portfolio_tracker.event.QuoteRevalidationRequestedEvent;
+import com.example.investment_portfolio_tracker.event.StockListingChangedEvent;
+import com.example.investment_portfolio_tracker.event.StockPriceUpdatedEvent;
 import com.example.investment_portfolio_tracker.model.Stock;
 import com.example.investment_portfolio_tracker.repository.StockRepository;
-import com.example.investment_portfolio_tracker.service.external.AlphaVantageService;
+import com.example.investment_portfolio_tracker.service.analytics.SectorStatisticsService;
+import com.example.investment_portfolio_tracker.service.market.PriceBoard;
+import com.example.investment_portfolio_tracker.service.marketdata.CircuitOpenException;
+import com.example.investment_portfolio_tracker.service.marketdata.CompanyProfile;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketDataProvider;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketQuote;
+import com.example.investment_portfolio_tracker.service.search.StockSearchService;
+import com.example.investment_portfolio_tracker.service.search.SymbolMatch;
+import com.example.investment_portfolio_tracker.util.CacheStats;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
+import static com.example.investment_portfolio_tracker.config.LogSamplingTurboFilter.SAMPLED;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Observed(name = "stock.service")
 public class StockService {
 
     private final StockRepository stockRepository;
-    private final AlphaVantageService alphaVantageService;
+    private final MarketDataProvider marketDataProvider;
+    private final PriceBoard priceBoard;
+    private final StockSearchService stockSearchService;
+    private final SectorStatisticsService sectorStatisticsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     // Simple in-memory cache for frequently accessed stocks
     private final Map<String, Stock> stockCache = new ConcurrentHashMap<>();
+    private final CacheStats stockCacheStats = new CacheStats();
+    private final AtomicBoolean refreshAllRunning = new AtomicBoolean();
 
     @Transactional(readOnly = true)
     public List<Stock> getAllStocks() {
@@ -46,8 +73,10 @@ public class StockService {
         // Try to get from cache first
         Stock cachedStock = stockCache.get(ticker.toUpperCase());
         if (cachedStock != null) {
+            stockCacheStats.hit();
             return Optional.of(cachedStock);
         }
+        stockCacheStats.miss();
 
         // Get from database
         Optional<Stock> stockOpt = stockRepository.findByTickerIgnoreCase(ticker);
@@ -58,15 +87,42 @@ public class StockService {
         return stockOpt;
     }
 
+    /**
+     * Stocks matching a partial ticker or name, best match first
+     */
     @Transactional(readOnly = true)
-    public List<Stock> searchStocks(String query) {
-        return stockRepository.searchByTickerOrName(query);
+    public List<Stock> searchStocks(String query, int limit) {
+        if (!stockSearchService.isReady()) {
+            return stockRepository.searchByTickerOrName(query, PageRequest.of(0, limit));
+        }
+
+        // Rank from the index, then load just those rows
+        List<Long> ids = stockSearchService.search(query, limit).stream().map(SymbolMatch::id).toList();
+        Map<Long, Stock> stocks = stockRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Stock::getId, stock -> stock));
+        return ids.stream().map(stocks::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Search-as-you-type suggestions over tracked and untracked listed symbols, answered from
+     * memory without touching the database or the market data API
+     */
+    public List<SymbolMatch> autocomplete(String query, int limit) {
+        return stockSearchService.autocomplete(query, limit);
     }
 
     @Transactional(readOnly = true)
     public List<Stock> getTopStocksByPrice(int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        return stockRepository.findTopByPrice(pageable);
+        List<Long> ids = priceBoard.topStockIds(limit);
+        if (ids.isEmpty()) {
+            Pageable pageable = PageRequest.of(0, limit);
+            return stockRepository.findTopByPrice(pageable);
+        }
+
+        // Rank from the board, then load just those rows
+        Map<Long, Stock> stocks = stockRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Stock::getId, stock -> stock));
+        return ids.stream().map(stocks::get).filter(Objects::nonNull).toList();
     }
 
     @Transactional(readOnly = true)
@@ -75,18 +131,18 @@ public class StockService {
         return stockRepository.findStocksNeedingUpdate(cutoffDate);
     }
 
+    /**
+     * Average current price per sector, from the in-memory statistics once they are loaded
+     */
     @Transactional(readOnly = true)
     public Map<String, BigDecimal> getAveragePriceBySector() {
-        return stockRepository.findAll().stream()
-                .filter(s -> s.getSector() != null && s.getCurrentPrice() != null)
-                .collect(Collectors.groupingBy(
-                        Stock::getSector,
-                        Collectors.averagingDouble(s -> s.getCurrentPrice().doubleValue())
-                ))
-                .entrySet().stream()
+        if (sectorStatisticsService.isReady()) {
+            return sectorStatisticsService.getAveragePriceBySector();
+        }
+        return stockRepository.getAveragePriceBySectors().stream()
                 .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        e -> BigDecimal.valueOf(e.getValue())
+                        row -> (String) row[0],
+                        row -> BigDecimal.valueOf(((Number) row[1]).doubleValue())
                 ));
     }
 
@@ -108,6 +164,7 @@ public class StockService {
 
         // Add to cache
         stockCache.put(ticker.toUpperCase(), savedStock);
+        publishListingChange(savedStock, false);
 
         return savedStock;
     }
@@ -128,6 +185,7 @@ public class StockService {
 
         // Update cache
         stockCache.put(stock.getTicker(), updatedStock);
+        publishListingChange(updatedStock, false);
 
         return updatedStock;
     }
@@ -141,10 +199,11 @@ public class StockService {
         stock.setLastUpdated(LocalDateTime.now());
 
         Stock updatedStock = stockRepository.save(stock);
-        log.info("Updated price for {}: {}", stock.getTicker(), price);
+        log.debug(SAMPLED, "Updated price for {}: {}", stock.getTicker(), price);
 
         // Update cache
         stockCache.put(stock.getTicker(), updatedStock);
+        publishPriceUpdate(updatedStock);
     }
 
     @Transactional
@@ -156,10 +215,11 @@ public class StockService {
         stock.setLastUpdated(LocalDateTime.now());
 
         Stock updatedStock = stockRepository.save(stock);
-        log.info("Updated price for {}: {}", ticker, price);
+        log.debug(SAMPLED, "Updated price for {}: {}", ticker, price);
 
         // Update cache
         stockCache.put(ticker.toUpperCase(), updatedStock);
+        publishPriceUpdate(updatedStock);
     }
 
     @Transactional
@@ -171,6 +231,8 @@ public class StockService {
         stockCache.remove(stock.getTicker());
 
         stockRepository.deleteById(id);
+        priceBoard.remove(id);
+        publishListingChange(stock, true);
         log.info("Deleted stock: {}", stock.getTicker());
     }
 
@@ -189,6 +251,7 @@ public class StockService {
 
                 // Update cache
                 stockCache.put(current.getTicker(), updatedStock);
+                publishPriceUpdate(updatedStock);
             }
         }
         log.info("Batch updated prices for {} stocks", stocks.size());
@@ -203,53 +266,111 @@ public class StockService {
     }
 
     /**
-     * Refresh stock price using Alpha Vantage API
+     * Drop one cached stock whose row was written outside this service, such as by tick ingestion
+     */
+    public void evictCached(String ticker) {
+        stockCache.remove(ticker.toUpperCase());
+    }
+
+    public CacheStats getCacheStats() {
+        return stockCacheStats;
+    }
+
+    /**
+     * Refresh stock price from the market data providers
      */
     @Transactional
     public Stock refreshStockPrice(String ticker) {
+        return refreshStockPrice(ticker, false);
+    }
+
+    /**
+     * Refresh stock price from the market data providers. While their circuits are open the
+     * stored price is returned marked stale and a background revalidation is requested.
+     *
+     * @param urgent true when a user is waiting on the answer, which may race two providers
+     */
+    @Transactional
+    public Stock refreshStockPrice(String ticker, boolean urgent) {
         Stock stock = stockRepository.findByTickerIgnoreCase(ticker)
                 .orElseThrow(() -> new IllegalArgumentException("Stock not found: " + ticker));
 
         try {
-            AlphaVantageQuote quote = alphaVantageService.getQuote(ticker);
-            stock.setCurrentPrice(quote.getPrice());
+            MarketQuote quote = urgent
+                    ? marketDataProvider.getQuoteFastest(ticker)
+                    : marketDataProvider.getQuote(ticker);
+            stock.setCurrentPrice(quote.price());
+            stock.setLastUpdated(LocalDateTime.now());
 
             Stock updatedStock = stockRepository.save(stock);
-            log.info("Refreshed price for {} from Alpha Vantage: {}", ticker, quote.getPrice());
+            log.debug(SAMPLED, "Refreshed price for {} from {}: {}", ticker, quote.provider(), quote.price());
 
             // Update cache
             stockCache.put(ticker.toUpperCase(), updatedStock);
+            publishPriceUpdate(updatedStock);
 
             return updatedStock;
+        } catch (CircuitOpenException e) {
+            if (stock.getCurrentPrice() == null) {
+                throw new RuntimeException("Unable to refresh stock price", e);
+            }
+            log.warn("Serving stale price for {}: {}", ticker, e.getMessage());
+            stock.setStale(true);
+            eventPublisher.publishEvent(new QuoteRevalidationRequestedEvent(stock.getTicker(), e.getRetryAfterMillis(), urgent));
+            return stock;
         } catch (Exception e) {
-            log.error("Failed to refresh price for {} from Alpha Vantage: {}", ticker, e.getMessage());
-            throw new RuntimeException("Unable to refresh stock price from Alpha Vantage", e);
+            log.error("Failed to refresh price for {}: {}", ticker, e.getMessage());
+            throw new RuntimeException("Unable to refresh stock price", e);
         }
     }
 
+    public boolean isRefreshAllRunning() {
+        return refreshAllRunning.get();
+    }
+
     /**
-     * Refresh all stock prices using Alpha Vantage API (respects rate limits)
+     * Refresh all stock prices from the market data providers (respects rate limits).
+     * Runs on the async executor, since the rate-limit pauses would otherwise hold a request thread for minutes.
+     * Each price is committed on its own, so no connection is held across the pauses, and a run
+     * started while another is in progress completes exceptionally without doing anything.
      */
-    @Transactional
-    public List<Stock> refreshAllStockPrices() {
+    @Async
+    public CompletableFuture<List<Stock>> refreshAllStockPrices() {
+        if (!refreshAllRunning.compareAndSet(false, true)) {
+            log.info("Refresh of all stocks already in progress");
+            return CompletableFuture.failedFuture(new IllegalStateException("Refresh of all stocks already in progress"));
+        }
+        try {
+            return CompletableFuture.completedFuture(refreshAll());
+        } finally {
+            refreshAllRunning.set(false);
+        }
+    }
+
+    private List<Stock> refreshAll() {
         List<Stock> stocks = stockRepository.findAll();
         List<Stock> updatedStocks = new ArrayList<>();
 
-        log.info("Starting refresh for {} stocks from Alpha Vantage", stocks.size());
+        log.info("Starting refresh for {} stocks", stocks.size());
 
         for (int i = 0; i < stocks.size(); i++) {
             Stock stock = stocks.get(i);
 
             try {
-                AlphaVantageQuote quote = alphaVantageService.getQuote(stock.getTicker());
-                stock.setCurrentPrice(quote.getPrice());
-                Stock updatedStock = stockRepository.save(stock);
+                MarketQuote quote = marketDataProvider.getQuote(stock.getTicker());
+                Stock updatedStock = transactionTemplate.execute(status -> {
+                    stock.setCurrentPrice(quote.price());
+                    stock.setLastUpdated(LocalDateTime.now());
+                    Stock saved = stockRepository.save(stock);
+                    publishPriceUpdate(saved);
+                    return saved;
+                });
                 updatedStocks.add(updatedStock);
 
                 // Update cache
                 stockCache.put(stock.getTicker().toUpperCase(), updatedStock);
 
-                log.info("Refreshed price for {} from Alpha Vantage: {}", stock.getTicker(), quote.getPrice());
+                log.debug(SAMPLED, "Refreshed price for {} from {}: {}", stock.getTicker(), quote.provider(), quote.price());
 
                 // Respect API rate limits (5 calls per minute for free tier)
                 if ((i + 1) % 5 == 0 && i < stocks.size() - 1) {
@@ -262,19 +383,19 @@ public class StockService {
                     }
                 }
             } catch (Exception e) {
-                log.error("Failed to refresh price for {} from Alpha Vantage: {}", stock.getTicker(), e.getMessage());
+                log.error("Failed to refresh price for {}: {}", stock.getTicker(), e.getMessage());
             }
         }
 
-        log.info("Completed refresh for {} stocks from Alpha Vantage", updatedStocks.size());
+        log.info("Completed refresh for {} stocks", updatedStocks.size());
         return updatedStocks;
     }
 
     /**
-     * Add a new stock by fetching details from Alpha Vantage
+     * Add a new stock by fetching details from the market data providers
      */
     @Transactional
-    public Stock addNewStockFromAlphaVantage(String ticker) {
+    public Stock addNewStockFromMarketData(String ticker) {
         // Check if stock already exists
         Optional<Stock> existingStock = stockRepository.findByTickerIgnoreCase(ticker);
         if (existingStock.isPresent()) {
@@ -283,32 +404,54 @@ public class StockService {
 
         try {
             // Fetch quote for price
-            AlphaVantageQuote quote = alphaVantageService.getQuote(ticker);
+            MarketQuote quote = marketDataProvider.getQuote(ticker);
 
-            // Fetch company overview for other details
-            Map<String, Object> overview = alphaVantageService.getCompanyOverview(ticker);
+            // Fetch company profile for other details
+            CompanyProfile profile = marketDataProvider.getCompanyProfile(ticker)
+                    .orElse(new CompanyProfile(null, null, null, null, null));
 
             // Create new stock
             Stock newStock = new Stock();
             newStock.setTicker(ticker.toUpperCase());
-            newStock.setName((String) overview.getOrDefault("Name", ticker.toUpperCase()));
-            newStock.setExchange((String) overview.getOrDefault("Exchange", "Unknown"));
-            newStock.setSector((String) overview.getOrDefault("Sector", "Unknown"));
-            newStock.setIndustry((String) overview.getOrDefault("Industry", "Unknown"));
-            newStock.setCurrency((String) overview.getOrDefault("Currency", "USD"));
-            newStock.setCurrentPrice(quote.getPrice());
+            newStock.setName(Objects.requireNonNullElse(profile.name(), ticker.toUpperCase()));
+            newStock.setExchange(Objects.requireNonNullElse(profile.exchange(), "Unknown"));
+            newStock.setSector(Objects.requireNonNullElse(profile.sector(), "Unknown"));
+            newStock.setIndustry(Objects.requireNonNullElse(profile.industry(), "Unknown"));
+            newStock.setCurrency(Objects.requireNonNullElse(profile.currency(), "USD"));
+            newStock.setCurrentPrice(quote.price());
             newStock.setLastUpdated(LocalDateTime.now());
 
             Stock savedStock = stockRepository.save(newStock);
-            log.info("Added new stock from Alpha Vantage: {}", ticker);
+            log.info("Added new stock from {}: {}", quote.provider(), ticker);
 
             // Add to cache
             stockCache.put(ticker.toUpperCase(), savedStock);
+            publishListingChange(savedStock, false);
+            publishPriceUpdate(savedStock);
 
             return savedStock;
         } catch (Exception e) {
-            log.error("Failed to add new stock {} from Alpha Vantage: {}", ticker, e.getMessage());
-            throw new RuntimeException("Unable to add stock from Alpha Vantage", e);
+            log.error("Failed to add new stock {}: {}", ticker, e.getMessage());
+            throw new RuntimeException("Unable to add stock from market data", e);
+        }
+    }
+
+    /**
+     * Notify listeners (price history, caches) that a stock's current price was written
+     */
+    private void publishPriceUpdate(Stock stock) {
+        if (stock.getCurrentPrice() == null) {
+            return;
         }
+        eventPublisher.publishEvent(new StockPriceUpdatedEvent(
+                stock.getId(), stock.getTicker(), stock.getCurrentPrice(), LocalDateTime.now()));
+    }
+
+    /**
+     * Notify listeners (search index, sector statistics) that a stock was added, changed or deleted
+     */
+    private void publishListingChange(Stock stock, boolean removed) {
+        eventPublisher.publishEvent(new StockListingChangedEvent(stock.getId(), stock.getTicker(),
+                stock.getName(), stock.getExchange(), stock.getSector(), stock.getIndustry(), removed));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,391 @@
+package com.example.investment_portfolio_tracker.service;
+
+import com.example.investment_portfolio_tracker.event.PositionsRewrittenEvent;
+import com.example.investment_portfolio_tracker.model.CostBasisMethod;
+import com.example.investment_portfolio_tracker.model.TaxLot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Recomputes every user's tax lots and realized gains from the transaction ledger and checks them
+ * against what was maintained incrementally.
+ * <p>
+ * Users are replayed in parallel. A SELL that already has realized gain rows is replayed against the
+ * same lots, so specific-ID choices and earlier method changes are preserved; SELLs without any,
+ * such as those made before lots existed, fall back to the user's current method. In repair mode a
+ * user whose state differs is rewritten in the same serializable transaction the replay read from.
+ */
+@Slf4j
+@Service
+public class TaxLotRebuildService {
+
+    private static final int FETCH_SIZE = 1_000;
+    private static final int MAX_REPORTED_MISMATCHES = 100;
+
+    private static final String INSERT_LOT_SQL =
+            "INSERT INTO tax_lots (user_id, stock_id, buy_transaction_id, acquired_at, original_quantity, " +
+                    "remaining_quantity, unit_cost) VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING id";
+
+    private static final String INSERT_GAIN_SQL =
+            "INSERT INTO realized_gains (user_id, stock_id, sell_transaction_id, lot_id, quantity, proceeds, " +
+                    "cost_basis, gain, acquired_at, sold_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate verifyTemplate;
+    private final TransactionTemplate repairTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int parallelism;
+
+    public TaxLotRebuildService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${tax-lots.rebuild-parallelism:4}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.verifyTemplate = new TransactionTemplate(transactionManager);
+        this.verifyTemplate.setReadOnly(true);
+        this.repairTemplate = new TransactionTemplate(transactionManager);
+        this.repairTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        this.eventPublisher = eventPublisher;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Replay and verify every user; with repair set, rewrite the lots and gains of users that differ
+     */
+    public RebuildReport rebuildAll(boolean repair) {
+        long started = System.nanoTime();
+        List<Long> userIds = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+
+        List<Callable<UserResult>> tasks = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            TransactionTemplate template = repair ? repairTemplate : verifyTemplate;
+            tasks.add(() -> template.execute(status -> rebuildUser(userId, repair)));
+        }
+
+        int mismatched = 0;
+        int repaired = 0;
+        int failed = 0;
+        List<String> mismatches = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (Future<UserResult> future : pool.invokeAll(tasks)) {
+                try {
+                    UserResult result = future.get();
+                    if (!result.mismatches().isEmpty()) {
+                        mismatched++;
+                        for (String mismatch : result.mismatches()) {
+                            if (mismatches.size() < MAX_REPORTED_MISMATCHES) {
+                                mismatches.add(mismatch);
+                            }
+                        }
+                    }
+                    if (result.repaired()) {
+                        repaired++;
+                    }
+                } catch (ExecutionException e) {
+                    // Typically a serialization failure from a concurrent trade; the next run retries the user
+                    failed++;
+                    log.error("Tax lot rebuild failed for a user: {}", e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Tax lot rebuild was interrupted");
+        } finally {
+            pool.shutdown();
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        log.info("Tax lot rebuild checked {} users: {} mismatched, {} repaired, {} failed in {} ms",
+                userIds.size(), mismatched, repaired, failed, elapsed.toMillis());
+
+        return new RebuildReport(userIds.size(), mismatched, repaired, failed, mismatches, elapsed);
+    }
+
+    private UserResult rebuildUser(long userId, boolean repair) {
+        CostBasisMethod method = CostBasisMethod.valueOf(jdbcTemplate.queryForObject(
+                "SELECT cost_basis_method FROM users WHERE id = ?", String.class, userId));
+
+        Map<Long, StockReplay> replay = replay(userId, method, loadRecordedAllocations(userId));
+        List<String> mismatches = verify(userId, replay);
+
+        boolean replayable = replay.values().stream().allMatch(stock -> stock.error == null);
+        if (repair && replayable && !mismatches.isEmpty()) {
+            write(userId, replay);
+            return new UserResult(mismatches, true);
+        }
+        return new UserResult(mismatches, false);
+    }
+
+    /**
+     * Lots each previously recorded SELL consumed, keyed by SELL transaction id
+     */
+    private Map<Long, List<RecordedAllocation>> loadRecordedAllocations(long userId) {
+        Map<Long, List<RecordedAllocation>> recorded = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT g.sell_transaction_id, l.buy_transaction_id, g.quantity FROM realized_gains g " +
+                        "JOIN tax_lots l ON l.id = g.lot_id WHERE g.user_id = ? ORDER BY g.id",
+                (RowCallbackHandler) rs -> recorded
+                        .computeIfAbsent(rs.getLong("sell_transaction_id"), id -> new ArrayList<>())
+                        .add(new RecordedAllocation(
+                                (Long) rs.getObject("buy_transaction_id"), rs.getBigDecimal("quantity"))),
+                userId);
+        return recorded;
+    }
+
+    private Map<Long, StockReplay> replay(long userId, CostBasisMethod method,
+                                          Map<Long, List<RecordedAllocation>> recorded) {
+        // Without recorded choices there is nothing to identify specifically, so fall back to FIFO
+        CostBasisMethod fallback = method == CostBasisMethod.SPECIFIC_ID ? CostBasisMethod.FIFO : method;
+        Map<Long, StockReplay> stocks = new LinkedHashMap<>();
+
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            "SELECT id, stock_id, transaction_type, quantity, price, fee, transaction_date " +
+                                    "FROM transactions WHERE user_id = ? ORDER BY stock_id, transaction_date, id");
+                    ps.setFetchSize(FETCH_SIZE);
+                    ps.setLong(1, userId);
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> {
+                    StockReplay stock = stocks.computeIfAbsent(rs.getLong("stock_id"), StockReplay::new);
+                    if (stock.error != null) {
+                        return;
+                    }
+                    long transactionId = rs.getLong("id");
+                    BigDecimal quantity = rs.getBigDecimal("quantity");
+                    BigDecimal price = rs.getBigDecimal("price");
+                    BigDecimal fee = rs.getBigDecimal("fee");
+                    LocalDateTime date = rs.getTimestamp("transaction_date").toLocalDateTime();
+
+                    if ("BUY".equals(rs.getString("transaction_type"))) {
+                        stock.buy(transactionId, quantity, price, fee, date);
+                    } else {
+                        stock.sell(transactionId, quantity, price, fee, date, recorded.get(transactionId), fallback);
+                    }
+                });
+
+        return stocks;
+    }
+
+    private List<String> verify(long userId, Map<Long, StockReplay> replay) {
+        List<String> mismatches = new ArrayList<>();
+        replay.values().stream()
+                .filter(stock -> stock.error != null)
+                .forEach(stock -> mismatches.add(describe(userId, stock.stockId, stock.error)));
+
+        jdbcTemplate.query(
+                "SELECT stock_id, quantity, realized_gain FROM positions WHERE user_id = ?",
+                (RowCallbackHandler) rs -> {
+                    long stockId = rs.getLong("stock_id");
+                    StockReplay stock = replay.get(stockId);
+                    BigDecimal quantity = rs.getBigDecimal("quantity");
+                    BigDecimal realized = rs.getBigDecimal("realized_gain");
+                    BigDecimal expectedQuantity = stock != null ? stock.openQuantity() : BigDecimal.ZERO;
+                    BigDecimal expectedRealized = stock != null ? stock.realized : BigDecimal.ZERO;
+
+                    if (quantity.compareTo(expectedQuantity) != 0) {
+                        mismatches.add(describe(userId, stockId,
+                                "position quantity " + quantity + " but ledger leaves " + expectedQuantity));
+                    }
+                    if (realized.compareTo(expectedRealized) != 0) {
+                        mismatches.add(describe(userId, stockId,
+                                "realized gain " + realized + " but ledger gives " + expectedRealized));
+                    }
+                },
+                userId);
+
+        Map<LotKey, BigDecimal> stored = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT stock_id, buy_transaction_id, remaining_quantity FROM tax_lots " +
+                        "WHERE user_id = ? AND remaining_quantity > 0",
+                (RowCallbackHandler) rs -> stored.merge(
+                        new LotKey(rs.getLong("stock_id"), (Long) rs.getObject("buy_transaction_id")),
+                        rs.getBigDecimal("remaining_quantity"), BigDecimal::add),
+                userId);
+
+        Map<LotKey, BigDecimal> expected = new HashMap<>();
+        for (StockReplay stock : replay.values()) {
+            for (TaxLot lot : stock.lots) {
+                if (lot.getRemainingQuantity().signum() > 0) {
+                    expected.put(new LotKey(stock.stockId, lot.getBuyTransactionId()), lot.getRemainingQuantity());
+                }
+            }
+        }
+
+        for (Map.Entry<LotKey, BigDecimal> entry : stored.entrySet()) {
+            BigDecimal want = expected.get(entry.getKey());
+            if (want == null || want.compareTo(entry.getValue()) != 0) {
+                mismatches.add(describe(userId, entry.getKey().stockId(), "lot for buy " + entry.getKey().buyTransactionId()
+                        + " has " + entry.getValue() + " open but ledger gives " + (want != null ? want : BigDecimal.ZERO)));
+            }
+        }
+        for (Map.Entry<LotKey, BigDecimal> entry : expected.entrySet()) {
+            if (!stored.containsKey(entry.getKey())) {
+                mismatches.add(describe(userId, entry.getKey().stockId(), "missing open lot for buy "
+                        + entry.getKey().buyTransactionId() + " with " + entry.getValue()));
+            }
+        }
+
+        return mismatches;
+    }
+
+    private void write(long userId, Map<Long, StockReplay> replay) {
+        jdbcTemplate.update("DELETE FROM realized_gains WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM tax_lots WHERE user_id = ?", userId);
+
+        List<Object[]> gains = new ArrayList<>();
+        List<Object[]> positions = new ArrayList<>();
+        for (StockReplay stock : replay.values()) {
+            for (TaxLot lot : stock.lots) {
+                lot.setId(jdbcTemplate.queryForObject(INSERT_LOT_SQL, Long.class,
+                        userId, stock.stockId, lot.getBuyTransactionId(), Timestamp.valueOf(lot.getAcquiredAt()),
+                        lot.getOriginalQuantity(), lot.getRemainingQuantity(), lot.getUnitCost()));
+            }
+            for (ReplayedGain gain : stock.gains) {
+                TaxLotService.LotSale sale = gain.sale();
+                gains.add(new Object[]{userId, stock.stockId, gain.sellTransactionId(), sale.lot().getId(),
+                        sale.quantity(), sale.proceeds(), sale.costBasis(), sale.gain(),
+                        Timestamp.valueOf(sale.lot().getAcquiredAt()), Timestamp.valueOf(gain.soldAt())});
+            }
+            positions.add(new Object[]{stock.realized, userId, stock.stockId});
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_GAIN_SQL, gains);
+        jdbcTemplate.batchUpdate("UPDATE positions SET realized_gain = ? WHERE user_id = ? AND stock_id = ?", positions);
+        eventPublisher.publishEvent(new PositionsRewrittenEvent(userId));
+        log.info("Rewrote tax lots for user {}: {} stocks, {} realized gain rows", userId, replay.size(), gains.size());
+    }
+
+    private static String describe(long userId, long stockId, String problem) {
+        return "user " + userId + " stock " + stockId + ": " + problem;
+    }
+
+    /**
+     * In-memory lot state for one user and stock while the ledger is replayed
+     */
+    private static final class StockReplay {
+        private final long stockId;
+        private final List<TaxLot> lots = new ArrayList<>();
+        private final Map<Long, TaxLot> lotsByBuy = new HashMap<>();
+        private final List<ReplayedGain> gains = new ArrayList<>();
+        private BigDecimal realized = BigDecimal.ZERO;
+        private String error;
+
+        private StockReplay(long stockId) {
+            this.stockId = stockId;
+        }
+
+        private void buy(long transactionId, BigDecimal quantity, BigDecimal price, BigDecimal fee, LocalDateTime date) {
+            TaxLot lot = new TaxLot();
+            lot.setBuyTransactionId(transactionId);
+            lot.setAcquiredAt(date);
+            lot.setOriginalQuantity(quantity);
+            lot.setRemainingQuantity(quantity);
+            lot.setUnitCost(TaxLotService.unitCost(quantity, price, fee));
+            lots.add(lot);
+            lotsByBuy.put(transactionId, lot);
+        }
+
+        private void sell(long transactionId, BigDecimal quantity, BigDecimal price, BigDecimal fee, LocalDateTime date,
+                          List<RecordedAllocation> recorded, CostBasisMethod fallback) {
+            List<TaxLotService.LotAllocation> allocations = fromRecorded(quantity, recorded);
+            if (allocations == null) {
+                List<TaxLot> open = lots.stream().filter(lot -> lot.getRemainingQuantity().signum() > 0).toList();
+                try {
+                    allocations = TaxLotService.allocate(open, quantity, fallback);
+                } catch (IllegalArgumentException e) {
+                    error = "SELL " + transactionId + " of " + quantity + " exceeds the shares bought before it";
+                    return;
+                }
+            }
+
+            TaxLotService.SalePlan plan = TaxLotService.priceSale(allocations, quantity, price, fee);
+            for (TaxLotService.LotSale sale : plan.lots()) {
+                sale.lot().setRemainingQuantity(sale.lot().getRemainingQuantity().subtract(sale.quantity()));
+                gains.add(new ReplayedGain(transactionId, date, sale));
+            }
+            realized = realized.add(plan.realizedGain());
+        }
+
+        /**
+         * Reuse the lots a SELL originally consumed, or null if they no longer line up with the ledger
+         */
+        private List<TaxLotService.LotAllocation> fromRecorded(BigDecimal quantity, List<RecordedAllocation> recorded) {
+            if (recorded == null) {
+                return null;
+            }
+            Map<Long, BigDecimal> taken = new LinkedHashMap<>();
+            BigDecimal total = BigDecimal.ZERO;
+            for (RecordedAllocation allocation : recorded) {
+                if (allocation.buyTransactionId() == null || !lotsByBuy.containsKey(allocation.buyTransactionId())) {
+                    return null;
+                }
+                taken.merge(allocation.buyTransactionId(), allocation.quantity(), BigDecimal::add);
+                total = total.add(allocation.quantity());
+            }
+            if (total.compareTo(quantity) != 0) {
+                return null;
+            }
+            List<TaxLotService.LotAllocation> allocations = new ArrayList<>(taken.size());
+            for (Map.Entry<Long, BigDecimal> entry : taken.entrySet()) {
+                TaxLot lot = lotsByBuy.get(entry.getKey());
+                if (lot.getRemainingQuantity().compareTo(entry.getValue()) < 0) {
+                    return null;
+                }
+                allocations.add(new TaxLotService.LotAllocation(lot, entry.getValue()));
+            }
+            return allocations;
+        }
+
+        private BigDecimal openQuantity() {
+            return lots.stream().map(TaxLot::getRemainingQuantity).reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+    }
+
+    private record RecordedAllocation(Long buyTransactionId, BigDecimal quantity) {
+    }
+
+    private record ReplayedGain(long sellTransactionId, LocalDateTime soldAt, TaxLotService.LotSale sale) {
+    }
+
+    private record LotKey(long stockId, Long buyTransactionId) {
+    }
+
+    private record UserResult(List<String> mismatches, boolean repaired) {
+    }
+
+    public record RebuildReport(
+            int users,
+            int usersMismatched,
+            int usersRepaired,
+            int usersFailed,
+            List<String> mismatches,
+            Duration elapsed
+    ) {
+    }
+}
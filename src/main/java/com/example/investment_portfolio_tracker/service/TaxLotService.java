@@ -0,0 +1,209 @@
+package com.example.investment_portfolio_tracker.service;
+
+import com.example.investment_portfolio_tracker.model.*;
+import com.example.investment_portfolio_tracker.repository.RealizedGainRepository;
+import com.example.investment_portfolio_tracker.repository.TaxLotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains tax lots as trades happen: every BUY opens a lot and every SELL draws lots down under the
+ * user's cost basis method, recording one realized gain row per lot consumed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaxLotService {
+
+    private static final int UNIT_COST_SCALE = 8;
+    private static final int MONEY_SCALE = 4;
+
+    private final TaxLotRepository taxLotRepository;
+    private final RealizedGainRepository realizedGainRepository;
+
+    /**
+     * Open a lot for a BUY transaction; the fee is capitalized into the unit cost
+     */
+    @Transactional
+    public TaxLot openLot(Transaction buy) {
+        TaxLot lot = new TaxLot();
+        lot.setUser(buy.getUser());
+        lot.setStock(buy.getStock());
+        lot.setBuyTransactionId(buy.getId());
+        lot.setAcquiredAt(buy.getTransactionDate());
+        lot.setOriginalQuantity(buy.getQuantity());
+        lot.setRemainingQuantity(buy.getQuantity());
+        lot.setUnitCost(unitCost(buy.getQuantity(), buy.getPrice(), buy.getFee()));
+        return taxLotRepository.save(lot);
+    }
+
+    /**
+     * Work out which lots a SELL consumes and the gain it realizes, without changing anything.
+     * Naming lots always selects them specifically, whatever the user's default method.
+     */
+    @Transactional(readOnly = true)
+    public SalePlan planSale(User user, Stock stock, BigDecimal quantity, BigDecimal price, BigDecimal fee,
+                             List<Long> lotIds) {
+        List<TaxLot> openLots = taxLotRepository.findOpenLots(user.getId(), stock.getId());
+        boolean specific = lotIds != null && !lotIds.isEmpty();
+        CostBasisMethod method = specific ? CostBasisMethod.SPECIFIC_ID : user.getCostBasisMethod();
+
+        List<TaxLot> candidates = openLots;
+        if (method == CostBasisMethod.SPECIFIC_ID) {
+            if (!specific) {
+                throw new IllegalArgumentException("Lot ids are required for specific identification");
+            }
+            Map<Long, TaxLot> byId = openLots.stream().collect(Collectors.toMap(TaxLot::getId, Function.identity()));
+            candidates = new ArrayList<>(lotIds.size());
+            for (Long lotId : lotIds) {
+                TaxLot lot = byId.get(lotId);
+                if (lot == null) {
+                    throw new IllegalArgumentException("Lot " + lotId + " is not an open lot for " + stock.getTicker());
+                }
+                candidates.add(lot);
+            }
+        }
+
+        return priceSale(allocate(candidates, quantity, method), quantity, price, fee);
+    }
+
+    /**
+     * Draw down the planned lots and record the realized gains against the saved SELL transaction
+     */
+    @Transactional
+    public void applySale(SalePlan plan, Transaction sell) {
+        List<RealizedGain> gains = new ArrayList<>(plan.lots().size());
+        for (LotSale sale : plan.lots()) {
+            TaxLot lot = sale.lot();
+            lot.setRemainingQuantity(lot.getRemainingQuantity().subtract(sale.quantity()));
+
+            RealizedGain gain = new RealizedGain();
+            gain.setUser(sell.getUser());
+            gain.setStock(sell.getStock());
+            gain.setSellTransactionId(sell.getId());
+            gain.setLot(lot);
+            gain.setQuantity(sale.quantity());
+            gain.setProceeds(sale.proceeds());
+            gain.setCostBasis(sale.costBasis());
+            gain.setGain(sale.gain());
+            gain.setAcquiredAt(lot.getAcquiredAt());
+            gain.setSoldAt(sell.getTransactionDate());
+            gains.add(gain);
+        }
+
+        taxLotRepository.saveAll(plan.lots().stream().map(LotSale::lot).toList());
+        realizedGainRepository.saveAll(gains);
+        log.info("Realized {} on SELL transaction {} across {} lots", plan.realizedGain(), sell.getId(), gains.size());
+    }
+
+    /**
+     * Get the open lots for a user across all stocks
+     */
+    @Transactional(readOnly = true)
+    public List<TaxLot> getOpenLots(Long userId) {
+        return taxLotRepository.findOpenLotsByUserId(userId);
+    }
+
+    /**
+     * Get realized gains for a user between two dates, inclusive
+     */
+    @Transactional(readOnly = true)
+    public List<RealizedGain> getRealizedGains(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        return realizedGainRepository.findByUserIdAndDateRange(userId, startDate, endDate);
+    }
+
+    /**
+     * Consume lots in method order until the quantity is covered. For SPECIFIC_ID the lots are
+     * taken in the order given.
+     */
+    static List<LotAllocation> allocate(List<TaxLot> lots, BigDecimal quantity, CostBasisMethod method) {
+        List<TaxLot> ordered = new ArrayList<>(lots);
+        Comparator<TaxLot> byAcquired = Comparator.comparing(TaxLot::getAcquiredAt);
+        switch (method) {
+            case FIFO -> ordered.sort(byAcquired);
+            case LIFO -> ordered.sort(byAcquired.reversed());
+            case HIFO -> ordered.sort(Comparator.comparing(TaxLot::getUnitCost).reversed().thenComparing(byAcquired));
+            case SPECIFIC_ID -> {
+            }
+        }
+
+        List<LotAllocation> allocations = new ArrayList<>();
+        BigDecimal outstanding = quantity;
+        for (TaxLot lot : ordered) {
+            if (outstanding.signum() <= 0) {
+                break;
+            }
+            BigDecimal available = lot.getRemainingQuantity();
+            if (available.signum() <= 0) {
+                continue;
+            }
+            BigDecimal taken = available.min(outstanding);
+            allocations.add(new LotAllocation(lot, taken));
+            outstanding = outstanding.subtract(taken);
+        }
+
+        if (outstanding.signum() > 0) {
+            throw new IllegalArgumentException("Insufficient open lots to cover sale of " + quantity + " shares");
+        }
+        return allocations;
+    }
+
+    /**
+     * Split proceeds and the SELL fee across the allocations pro rata by quantity
+     */
+    static SalePlan priceSale(List<LotAllocation> allocations, BigDecimal quantity, BigDecimal price, BigDecimal fee) {
+        BigDecimal totalFee = fee != null ? fee : BigDecimal.ZERO;
+        BigDecimal feeRemaining = totalFee;
+        BigDecimal realized = BigDecimal.ZERO;
+        List<LotSale> sales = new ArrayList<>(allocations.size());
+
+        for (int i = 0; i < allocations.size(); i++) {
+            LotAllocation allocation = allocations.get(i);
+            // The last lot absorbs the rounding remainder so the fee shares add up exactly
+            BigDecimal feeShare = i == allocations.size() - 1
+                    ? feeRemaining
+                    : totalFee.multiply(allocation.quantity()).divide(quantity, MONEY_SCALE, RoundingMode.HALF_UP);
+            feeRemaining = feeRemaining.subtract(feeShare);
+
+            BigDecimal proceeds = allocation.quantity().multiply(price).subtract(feeShare)
+                    .setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+            BigDecimal costBasis = allocation.quantity().multiply(allocation.lot().getUnitCost())
+                    .setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+            BigDecimal gain = proceeds.subtract(costBasis);
+
+            sales.add(new LotSale(allocation.lot(), allocation.quantity(), proceeds, costBasis, gain));
+            realized = realized.add(gain);
+        }
+
+        return new SalePlan(sales, realized);
+    }
+
+    static BigDecimal unitCost(BigDecimal quantity, BigDecimal price, BigDecimal fee) {
+        BigDecimal cost = quantity.multiply(price);
+        if (fee != null) {
+            cost = cost.add(fee);
+        }
+        return cost.divide(quantity, UNIT_COST_SCALE, RoundingMode.HALF_UP);
+    }
+
+    public record LotAllocation(TaxLot lot, BigDecimal quantity) {
+    }
+
+    public record LotSale(TaxLot lot, BigDecimal quantity, BigDecimal proceeds, BigDecimal costBasis, BigDecimal gain) {
+    }
+
+    public record SalePlan(List<LotSale> lots, BigDecimal realizedGain) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.investment_portfolio_tracker.service;
 
+import com.example.investment_portfolio_tracker.model.CostBasisMethod;
 import com.example.investment_portfolio_tracker.model.User;
 import com.example.investment_portfolio_tracker.model.UserRole;
 import com.example.investment_portfolio_tracker.repository.UserRepository;
@@ -83,6 +84,17 @@ public class UserService {
         log.info("Updated password for user: {}", user.getEmail());
     }
 
+    @Transactional
+    public User updateCostBasisMethod(Long id, CostBasisMethod costBasisMethod) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        user.setCostBasisMethod(costBasisMethod);
+        User updatedUser = userRepository.save(user);
+        log.info("Updated cost basis method for user: {} to {}", user.getEmail(), costBasisMethod);
+        return updatedUser;
+    }
+
     @Transactional
     public void deleteUser(Long id) {
         User user = userRepository.findById(id)
@@ -0,0 +1,192 @@
+package com.example.investment_portfolio_tracker.service.alert;
+
+import com.example.investment_portfolio_tracker.event.PositionsRewrittenEvent;
+import com.example.investment_portfolio_tracker.event.StockPriceUpdatedEvent;
+import com.example.investment_portfolio_tracker.event.TradeExecutedEvent;
+import com.example.investment_portfolio_tracker.model.AlertStatus;
+import com.example.investment_portfolio_tracker.model.AlertType;
+import com.example.investment_portfolio_tracker.model.Position;
+import com.example.investment_portfolio_tracker.model.PriceAlert;
+import com.example.investment_portfolio_tracker.repository.PositionRepository;
+import com.example.investment_portfolio_tracker.repository.PriceAlertRepository;
+import com.example.investment_portfolio_tracker.util.FixedPoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates armed alerts against every committed price write.
+ * <p>
+ * Each armed alert is reduced to a trigger price in an {@link AlertIndex}, so a tick costs a seek
+ * plus the alerts it actually crosses. Position alerts are re-priced from the user's average cost
+ * whenever they trade the stock, and sleep while the position is closed. A fired alert is marked
+ * TRIGGERED with a compare-and-set update before any notifier sees it, so it is delivered once.
+ */
+@Slf4j
+@Service
+public class AlertEngine {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private static final String MARK_TRIGGERED_SQL =
+            "UPDATE price_alerts SET status = 'TRIGGERED', triggered_at = ?, triggered_price = ?, " +
+                    "updated_at = CURRENT_TIMESTAMP WHERE id = ? AND status = 'ACTIVE'";
+
+    private final PriceAlertRepository alertRepository;
+    private final PositionRepository positionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<AlertNotifier> notifiers;
+
+    private final AlertIndex index = new AlertIndex();
+    private final Map<Long, ArmedAlert> armed = new ConcurrentHashMap<>();
+
+    public AlertEngine(
+            PriceAlertRepository alertRepository,
+            PositionRepository positionRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            List<AlertNotifier> notifiers) {
+        this.alertRepository = alertRepository;
+        this.positionRepository = positionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // Runs after the price write has committed, so it needs a transaction of its own
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.notifiers = notifiers;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<PriceAlert> active = alertRepository.findActive();
+        active.forEach(this::arm);
+        log.info("Armed {} of {} active alerts", index.size(), active.size());
+    }
+
+    /**
+     * Arm, re-price or disarm an alert to match its saved state
+     */
+    public void arm(PriceAlert alert) {
+        if (alert.getStatus() != AlertStatus.ACTIVE) {
+            disarm(alert.getId());
+            return;
+        }
+        Long userId = alert.getUser().getId();
+        Long stockId = alert.getStock().getId();
+        BigDecimal triggerPrice = alert.getThreshold();
+        if (alert.getType().isPositionBased()) {
+            Optional<Position> position = positionRepository.findByUserIdAndStockId(userId, stockId)
+                    .filter(p -> p.getQuantity().signum() > 0);
+            if (position.isEmpty()) {
+                // Dormant until the user opens a position again
+                disarm(alert.getId());
+                return;
+            }
+            triggerPrice = positionTriggerPrice(alert.getType(), position.get().getAverageCost(), alert.getThreshold());
+        }
+
+        armed.put(alert.getId(), new ArmedAlert(alert.getType(), alert.getThreshold(), triggerPrice));
+        index.add(stockId, alert.getId(), userId, FixedPoint.toFixed(triggerPrice), alert.getType().isUpward());
+    }
+
+    public void disarm(Long alertId) {
+        index.remove(alertId);
+        armed.remove(alertId);
+    }
+
+    public boolean isArmed(Long alertId) {
+        return index.contains(alertId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPriceUpdated(StockPriceUpdatedEvent event) {
+        if (event.price() == null) {
+            return;
+        }
+        List<AlertIndex.Threshold> crossed = index.crossed(event.stockId(), FixedPoint.toFixed(event.price()));
+        if (crossed.isEmpty()) {
+            return;
+        }
+
+        Timestamp triggeredAt = Timestamp.valueOf(event.updatedAt());
+        List<Object[]> rows = new ArrayList<>(crossed.size());
+        for (AlertIndex.Threshold threshold : crossed) {
+            rows.add(new Object[]{triggeredAt, event.price(), threshold.alertId()});
+        }
+        int[] updated;
+        try {
+            updated = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(MARK_TRIGGERED_SQL, rows));
+        } catch (RuntimeException e) {
+            // Put them back so the next tick retries rather than losing the alerts
+            log.error("Failed to mark {} alerts triggered for {}: {}", crossed.size(), event.ticker(), e.getMessage());
+            for (AlertIndex.Threshold threshold : crossed) {
+                ArmedAlert alert = armed.get(threshold.alertId());
+                if (alert != null) {
+                    index.add(event.stockId(), threshold.alertId(), threshold.userId(), threshold.price(), alert.type().isUpward());
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i < crossed.size(); i++) {
+            AlertIndex.Threshold threshold = crossed.get(i);
+            ArmedAlert alert = armed.remove(threshold.alertId());
+            // Zero rows means it was deleted, disabled or already fired elsewhere
+            if (alert == null || updated == null || updated[i] == 0) {
+                continue;
+            }
+            deliver(new AlertNotification(threshold.alertId(), threshold.userId(), event.stockId(), event.ticker(),
+                    alert.type(), alert.threshold(), alert.triggerPrice(), event.price(), event.updatedAt()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTradeExecuted(TradeExecutedEvent event) {
+        // Average cost or quantity may have changed, which moves position alert trigger prices
+        alertRepository.findActivePositionAlerts(event.userId(), event.stockId()).forEach(this::arm);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsRewritten(PositionsRewrittenEvent event) {
+        // Reconciliation or lot repair may have moved any of the user's quantities and average costs
+        alertRepository.findActivePositionAlertsByUserId(event.userId()).forEach(this::arm);
+    }
+
+    /**
+     * Price at which a position alert fires: average cost moved down (loss) or up (gain) by the percentage
+     */
+    static BigDecimal positionTriggerPrice(AlertType type, BigDecimal averageCost, BigDecimal percent) {
+        BigDecimal move = type == AlertType.POSITION_LOSS ? percent.negate() : percent;
+        return averageCost.multiply(HUNDRED.add(move)).divide(HUNDRED, FixedPoint.SCALE, RoundingMode.HALF_UP);
+    }
+
+    private void deliver(AlertNotification notification) {
+        for (AlertNotifier notifier : notifiers) {
+            try {
+                notifier.notify(notification);
+            } catch (RuntimeException e) {
+                log.error("Notifier {} failed for alert {}: {}",
+                        notifier.getClass().getSimpleName(), notification.alertId(), e.getMessage());
+            }
+        }
+    }
+
+    private record ArmedAlert(AlertType type, BigDecimal threshold, BigDecimal triggerPrice) {
+    }
+}
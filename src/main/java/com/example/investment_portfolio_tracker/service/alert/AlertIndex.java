@@ -0,0 +1,109 @@
+package com.example.investment_portfolio_tracker.service.alert;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Armed alert thresholds per stock, kept in two skip lists so a price tick only touches the
+ * alerts it crosses.
+ * <p>
+ * Upward thresholds are ordered lowest first, so every threshold at or below the new price is a
+ * prefix of the set; downward thresholds are ordered highest first, so every threshold at or
+ * above the new price is a prefix. Evaluating a tick is one O(log n) seek plus O(k) for the k
+ * alerts that fire. Each threshold is removed as it fires, and removal from a concurrent skip list
+ * succeeds for exactly one caller, so concurrent ticks never fire an alert twice.
+ */
+public class AlertIndex {
+
+    private static final Comparator<Threshold> ASCENDING =
+            Comparator.comparingLong(Threshold::price).thenComparingLong(Threshold::alertId);
+    private static final Comparator<Threshold> DESCENDING =
+            Comparator.comparingLong(Threshold::price).reversed().thenComparingLong(Threshold::alertId);
+
+    private final Map<Long, StockThresholds> byStock = new ConcurrentHashMap<>();
+    private final Map<Long, Placement> byAlert = new ConcurrentHashMap<>();
+
+    /**
+     * Arm an alert, replacing any earlier threshold it had
+     *
+     * @param price trigger price in fixed point
+     * @param upward true to fire when the price rises to the trigger, false when it falls to it
+     */
+    public void add(long stockId, long alertId, long userId, long price, boolean upward) {
+        remove(alertId);
+        Threshold threshold = new Threshold(price, alertId, userId);
+        StockThresholds thresholds = byStock.computeIfAbsent(stockId, id -> new StockThresholds());
+        byAlert.put(alertId, new Placement(stockId, threshold, upward));
+        (upward ? thresholds.upward : thresholds.downward).add(threshold);
+    }
+
+    /**
+     * Disarm an alert
+     *
+     * @return true if it was armed
+     */
+    public boolean remove(long alertId) {
+        Placement placement = byAlert.remove(alertId);
+        if (placement == null) {
+            return false;
+        }
+        StockThresholds thresholds = byStock.get(placement.stockId());
+        if (thresholds != null) {
+            (placement.upward() ? thresholds.upward : thresholds.downward).remove(placement.threshold());
+        }
+        return true;
+    }
+
+    /**
+     * Remove and return every threshold the price has reached
+     */
+    public List<Threshold> crossed(long stockId, long price) {
+        StockThresholds thresholds = byStock.get(stockId);
+        if (thresholds == null) {
+            return List.of();
+        }
+        List<Threshold> fired = new ArrayList<>();
+        // Long.MAX_VALUE as the id bound makes the prefix include every alert exactly at the price
+        drain(thresholds.upward.headSet(new Threshold(price, Long.MAX_VALUE, 0), true), fired);
+        drain(thresholds.downward.headSet(new Threshold(price, Long.MAX_VALUE, 0), true), fired);
+        return fired;
+    }
+
+    public boolean contains(long alertId) {
+        return byAlert.containsKey(alertId);
+    }
+
+    public int size() {
+        return byAlert.size();
+    }
+
+    private void drain(NavigableSet<Threshold> reached, List<Threshold> fired) {
+        Iterator<Threshold> iterator = reached.iterator();
+        while (iterator.hasNext()) {
+            Threshold threshold = iterator.next();
+            if (reached.remove(threshold)) {
+                // Leave the placement alone if the alert was re-armed with a new threshold meanwhile
+                byAlert.computeIfPresent(threshold.alertId(),
+                        (id, placement) -> placement.threshold() == threshold ? null : placement);
+                fired.add(threshold);
+            }
+        }
+    }
+
+    public record Threshold(long price, long alertId, long userId) {
+    }
+
+    private record Placement(long stockId, Threshold threshold, boolean upward) {
+    }
+
+    private static final class StockThresholds {
+        private final ConcurrentSkipListSet<Threshold> upward = new ConcurrentSkipListSet<>(ASCENDING);
+        private final ConcurrentSkipListSet<Threshold> downward = new ConcurrentSkipListSet<>(DESCENDING);
+    }
+}
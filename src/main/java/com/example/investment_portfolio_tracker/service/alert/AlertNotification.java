@@ -0,0 +1,22 @@
+package com.example.investment_portfolio_tracker.service.alert;
+
+import com.example.investment_portfolio_tracker.model.AlertType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A fired alert, as handed to every {@link AlertNotifier}
+ */
+public record AlertNotification(
+        Long alertId,
+        Long userId,
+        Long stockId,
+        String ticker,
+        AlertType type,
+        BigDecimal threshold,
+        BigDecimal triggerPrice,
+        BigDecimal price,
+        LocalDateTime triggeredAt
+) {
+}
@@ -0,0 +1,10 @@
+package com.example.investment_portfolio_tracker.service.alert;
+
+/**
+ * Delivery channel for fired alerts. Every notifier bean receives every notification; an
+ * implementation must not block for long, since it runs on the thread that wrote the price.
+ */
+public interface AlertNotifier {
+
+    void notify(AlertNotification notification);
+}
@@ -0,0 +1,120 @@
+package com.example.investment_portfolio_tracker.service.alert;
+
+import com.example.investment_portfolio_tracker.model.AlertStatus;
+import com.example.investment_portfolio_tracker.model.AlertType;
+import com.example.investment_portfolio_tracker.model.PriceAlert;
+import com.example.investment_portfolio_tracker.model.Stock;
+import com.example.investment_portfolio_tracker.model.User;
+import com.example.investment_portfolio_tracker.repository.PriceAlertRepository;
+import com.example.investment_portfolio_tracker.repository.StockRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AlertService {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final PriceAlertRepository alertRepository;
+    private final StockRepository stockRepository;
+    private final AlertEngine alertEngine;
+    private final InMemoryAlertNotifier inMemoryNotifier;
+
+    /**
+     * Get all alerts for a user, newest first
+     */
+    @Transactional(readOnly = true)
+    public List<PriceAlert> getUserAlerts(Long userId) {
+        return alertRepository.findByUserId(userId);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<PriceAlert> getAlert(Long alertId) {
+        return alertRepository.findById(alertId);
+    }
+
+    /**
+     * Create an alert and arm it straight away
+     */
+    @Transactional
+    public PriceAlert createAlert(User user, String ticker, AlertType type, BigDecimal threshold, String note) {
+        Stock stock = stockRepository.findByTickerIgnoreCase(ticker)
+                .orElseThrow(() -> new IllegalArgumentException("Stock not found: " + ticker));
+        validateThreshold(type, threshold);
+
+        PriceAlert alert = new PriceAlert();
+        alert.setUser(user);
+        alert.setStock(stock);
+        alert.setType(type);
+        alert.setThreshold(threshold);
+        alert.setNote(note);
+        alert.setStatus(AlertStatus.ACTIVE);
+
+        PriceAlert savedAlert = alertRepository.save(alert);
+        alertEngine.arm(savedAlert);
+        log.info("Created {} alert {} on {} at {}", type, savedAlert.getId(), stock.getTicker(), threshold);
+        return savedAlert;
+    }
+
+    /**
+     * Change an alert's condition or status. Setting it ACTIVE again re-arms a triggered alert.
+     */
+    @Transactional
+    public PriceAlert updateAlert(Long alertId, AlertType type, BigDecimal threshold, AlertStatus status, String note) {
+        PriceAlert alert = alertRepository.findById(alertId)
+                .orElseThrow(() -> new IllegalArgumentException("Alert not found"));
+
+        AlertType newType = type != null ? type : alert.getType();
+        BigDecimal newThreshold = threshold != null ? threshold : alert.getThreshold();
+        validateThreshold(newType, newThreshold);
+        alert.setType(newType);
+        alert.setThreshold(newThreshold);
+        if (note != null) {
+            alert.setNote(note);
+        }
+        if (status != null && status != alert.getStatus()) {
+            if (status == AlertStatus.TRIGGERED) {
+                throw new IllegalArgumentException("Alerts can only be triggered by the price");
+            }
+            alert.setStatus(status);
+            if (status == AlertStatus.ACTIVE) {
+                alert.setTriggeredAt(null);
+                alert.setTriggeredPrice(null);
+            }
+        }
+
+        PriceAlert updatedAlert = alertRepository.save(alert);
+        alertEngine.arm(updatedAlert);
+        return updatedAlert;
+    }
+
+    @Transactional
+    public void deleteAlert(Long alertId) {
+        alertRepository.deleteById(alertId);
+        alertEngine.disarm(alertId);
+    }
+
+    /**
+     * Recently fired alerts for a user, newest first
+     */
+    public List<AlertNotification> getRecentNotifications(Long userId) {
+        return inMemoryNotifier.getRecent(userId);
+    }
+
+    private void validateThreshold(AlertType type, BigDecimal threshold) {
+        if (threshold == null || threshold.signum() <= 0) {
+            throw new IllegalArgumentException("Threshold must be greater than 0");
+        }
+        if (type == AlertType.POSITION_LOSS && threshold.compareTo(HUNDRED) >= 0) {
+            throw new IllegalArgumentException("A position loss threshold must be below 100%");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.investment_portfolio_tracker.service.alert;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-in delivery channel: logs each alert and keeps the most recent ones per user so clients
+ * can poll for them until a real push channel (email, webhook) is plugged in.
+ */
+@Slf4j
+@Component
+public class InMemoryAlertNotifier implements AlertNotifier {
+
+    private final int retained;
+    private final Map<Long, Deque<AlertNotification>> recent = new ConcurrentHashMap<>();
+
+    public InMemoryAlertNotifier(@Value("${alerts.notifications.retained:100}") int retained) {
+        this.retained = retained;
+    }
+
+    @Override
+    public void notify(AlertNotification notification) {
+        log.info("Alert {} for user {}: {} {} {} at {}", notification.alertId(), notification.userId(),
+                notification.ticker(), notification.type(), notification.threshold(), notification.price());
+        Deque<AlertNotification> notifications = recent.computeIfAbsent(notification.userId(), id -> new ArrayDeque<>());
+        synchronized (notifications) {
+            notifications.addFirst(notification);
+            while (notifications.size() > retained) {
+                notifications.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Most recent notifications for a user, newest first
+     */
+    public List<AlertNotification> getRecent(Long userId) {
+        Deque<AlertNotification> notifications = recent.get(userId);
+        if (notifications == null) {
+            return List.of();
+        }
+        synchronized (notifications) {
+            return new ArrayList<>(notifications);
+        }
+    }
+}
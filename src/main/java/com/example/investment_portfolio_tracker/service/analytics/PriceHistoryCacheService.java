@@ -0,0 +1,189 @@
+package com.example.investment_portfolio_tracker.service.analytics;
+
+import com.example.investment_portfolio_tracker.util.FixedPoint;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Serves daily close history for analytics out of a memory-mapped {@link PriceHistoryColumnStore}.
+ * The store is synced incrementally from stock_price_history using the updated_at column as a watermark.
+ */
+@Slf4j
+@Service
+public class PriceHistoryCacheService {
+
+    private static final String WATERMARK_FILE = "sync.watermark";
+    private static final int FETCH_SIZE = 10_000;
+    private static final int TRADING_DAYS_PER_YEAR = 252;
+
+    // Rows are re-read with some overlap so late-committing writes are never skipped; upserts are idempotent
+    private static final long OVERLAP_MINUTES = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PriceHistoryColumnStore store;
+    private final Path watermarkFile;
+    private volatile LocalDateTime watermark;
+
+    public PriceHistoryCacheService(
+            JdbcTemplate jdbcTemplate,
+            @Value("${analytics.price-cache.dir:${java.io.tmpdir}/portfolio-tracker/price-cache}") String directory)
+            throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.store = new PriceHistoryColumnStore(Path.of(directory));
+        this.watermarkFile = Path.of(directory).resolve(WATERMARK_FILE);
+        this.watermark = readWatermark();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        sync();
+    }
+
+    /**
+     * Pull every history row written since the last sync into the column store
+     */
+    @Scheduled(fixedDelayString = "${analytics.price-cache.sync-interval-ms:300000}",
+            initialDelayString = "${analytics.price-cache.sync-interval-ms:300000}")
+    @Transactional(readOnly = true)
+    public synchronized int sync() {
+        LocalDateTime since = watermark.minusMinutes(OVERLAP_MINUTES);
+        Set<Long> needsRebuild = new HashSet<>();
+        LocalDateTime[] newest = {watermark};
+        int[] rows = {0};
+
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            "SELECT stock_id, price_date, close_price, updated_at FROM stock_price_history " +
+                                    "WHERE updated_at > ? ORDER BY stock_id, price_date");
+                    ps.setFetchSize(FETCH_SIZE);
+                    ps.setTimestamp(1, Timestamp.valueOf(since));
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> {
+                    long stockId = rs.getLong("stock_id");
+                    long epochDay = rs.getDate("price_date").toLocalDate().toEpochDay();
+                    long price = FixedPoint.toFixed(rs.getBigDecimal("close_price"));
+                    if (!store.upsert(stockId, epochDay, price)) {
+                        needsRebuild.add(stockId);
+                    }
+                    LocalDateTime updatedAt = rs.getTimestamp("updated_at").toLocalDateTime();
+                    if (updatedAt.isAfter(newest[0])) {
+                        newest[0] = updatedAt;
+                    }
+                    rows[0]++;
+                });
+
+        needsRebuild.forEach(this::rebuildStock);
+        store.flush();
+
+        watermark = newest[0];
+        writeWatermark(watermark);
+
+        if (rows[0] > 0) {
+            log.info("Synced {} price history rows into column store ({} stocks rebuilt)", rows[0], needsRebuild.size());
+        }
+        return rows[0];
+    }
+
+    /**
+     * Reload the full history of one stock, used when a backfilled day lands before the last cached day
+     */
+    @Transactional(readOnly = true)
+    public void rebuildStock(long stockId) {
+        Integer rowCount = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM stock_price_history WHERE stock_id = ?", Integer.class, stockId);
+        int capacity = rowCount == null ? 0 : rowCount;
+        long[] days = new long[capacity];
+        long[] prices = new long[capacity];
+        int[] n = {0};
+
+        jdbcTemplate.query(
+                "SELECT price_date, close_price FROM stock_price_history WHERE stock_id = ? ORDER BY price_date",
+                (RowCallbackHandler) rs -> {
+                    // Rows inserted between the count and this query are picked up by the next sync
+                    if (n[0] < capacity) {
+                        days[n[0]] = rs.getDate("price_date").toLocalDate().toEpochDay();
+                        prices[n[0]] = FixedPoint.toFixed(rs.getBigDecimal("close_price"));
+                        n[0]++;
+                    }
+                },
+                stockId);
+
+        store.replace(stockId, days, prices, n[0]);
+    }
+
+    /**
+     * Daily closes for a stock between two dates, inclusive
+     */
+    public PriceSeries getSeries(Long stockId, LocalDate from, LocalDate to) {
+        return store.read(stockId, from.toEpochDay(), to.toEpochDay());
+    }
+
+    /**
+     * Annualized volatility of daily log returns, or null if there is no pair of consecutive
+     * positive closes. Returns into or out of a non-positive close are skipped.
+     */
+    public Double getAnnualizedVolatility(PriceSeries series) {
+        long[] prices = series.prices();
+        int returns = 0;
+        double sum = 0;
+        double sumSquares = 0;
+        for (int i = 1; i < prices.length; i++) {
+            // A zero or negative close is bad data; its log return would be infinite or NaN
+            if (prices[i] <= 0 || prices[i - 1] <= 0) {
+                continue;
+            }
+            double r = Math.log((double) prices[i] / prices[i - 1]);
+            sum += r;
+            sumSquares += r * r;
+            returns++;
+        }
+        if (returns < 1) {
+            return null;
+        }
+        double mean = sum / returns;
+        double variance = returns > 1 ? (sumSquares - returns * mean * mean) / (returns - 1) : 0;
+        return Math.sqrt(Math.max(variance, 0) * TRADING_DAYS_PER_YEAR);
+    }
+
+    @PreDestroy
+    public void close() {
+        store.close();
+    }
+
+    private LocalDateTime readWatermark() throws IOException {
+        if (!Files.exists(watermarkFile)) {
+            return LocalDateTime.of(1970, 1, 1, 0, 0);
+        }
+        return LocalDateTime.parse(Files.readString(watermarkFile, StandardCharsets.UTF_8).trim());
+    }
+
+    private void writeWatermark(LocalDateTime value) {
+        try {
+            Files.writeString(watermarkFile, value.toString(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Could not persist price cache watermark: {}", e.getMessage());
+        }
+    }
+}
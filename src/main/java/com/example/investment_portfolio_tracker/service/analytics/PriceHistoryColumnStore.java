@@ -0,0 +1,326 @@
+package com.example.investment_portfolio_tracker.service.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memory-mapped, columnar store of daily closes.
+ * <p>
+ * Each stock gets one file named {@code <stockId>.col} laid out as
+ * {@code [header][epoch days: capacity x long][fixed-point closes: capacity x long]}.
+ * Days are strictly increasing within a file, so range lookups are binary searches over
+ * the mapping and range reads are bulk copies straight from the page cache into primitive arrays.
+ * <p>
+ * Writes to a stock are serialized; reads never lock. Each column publishes its mapping and row
+ * count together as one immutable view, replaced after a row is appended or the file is remapped,
+ * so a reader works from a single snapshot and always sees a consistent prefix.
+ */
+@Slf4j
+public class PriceHistoryColumnStore implements Closeable {
+
+    private static final int MAGIC = 0x50484353;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+    private static final int INITIAL_CAPACITY = 512;
+    private static final String SUFFIX = ".col";
+
+    private final Path directory;
+    private final Map<Long, Column> columns = new ConcurrentHashMap<>();
+
+    public PriceHistoryColumnStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long stockId = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+                columns.put(stockId, Column.open(file));
+            }
+        }
+        log.info("Opened price history column store at {} with {} stocks", directory, columns.size());
+    }
+
+    public Set<Long> stockIds() {
+        return columns.keySet();
+    }
+
+    public int size(long stockId) {
+        Column column = columns.get(stockId);
+        return column == null ? 0 : column.view.count();
+    }
+
+    /**
+     * Write a close for the given day. The last day may be overwritten and any existing day
+     * may be corrected in place; returns false if the day is a gap before the last stored day,
+     * in which case the caller must rebuild the stock with {@link #replace}.
+     */
+    public boolean upsert(long stockId, long epochDay, long price) {
+        return columns.computeIfAbsent(stockId, this::createColumn).upsert(epochDay, price);
+    }
+
+    /**
+     * Replace the full history of a stock. Days must be sorted ascending without duplicates.
+     */
+    public void replace(long stockId, long[] epochDays, long[] prices, int length) {
+        columns.computeIfAbsent(stockId, this::createColumn).replace(epochDays, prices, length);
+    }
+
+    /**
+     * Read all closes with {@code fromDay <= day <= toDay}
+     */
+    public PriceSeries read(long stockId, long fromDay, long toDay) {
+        Column column = columns.get(stockId);
+        if (column == null) {
+            return new PriceSeries(stockId, new long[0], new long[0]);
+        }
+        return column.read(stockId, fromDay, toDay);
+    }
+
+    /**
+     * Copy closes with {@code fromDay <= day <= toDay} into caller-owned arrays, without allocating.
+     * Returns the number of rows copied, bounded by the shorter of the two arrays.
+     */
+    public int readInto(long stockId, long fromDay, long toDay, long[] epochDaysOut, long[] pricesOut) {
+        Column column = columns.get(stockId);
+        if (column == null) {
+            return 0;
+        }
+        return column.readInto(fromDay, toDay, epochDaysOut, pricesOut);
+    }
+
+    public void remove(long stockId) {
+        Column column = columns.remove(stockId);
+        if (column != null) {
+            try {
+                Files.deleteIfExists(column.file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Force all dirty pages to disk
+     */
+    public void flush() {
+        columns.values().forEach(column -> column.view.buffer().force());
+    }
+
+    @Override
+    public void close() {
+        flush();
+        columns.clear();
+    }
+
+    private Column createColumn(long stockId) {
+        try {
+            return Column.create(directory.resolve(stockId + SUFFIX), INITIAL_CAPACITY);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long bytesFor(int capacity) {
+        return HEADER_BYTES + 16L * capacity;
+    }
+
+    private static final class Column {
+
+        private final Path file;
+        private volatile View view;
+
+        private Column(Path file) {
+            this.file = file;
+        }
+
+        static Column open(Path file) throws IOException {
+            Column column = new Column(file);
+            column.map();
+            return column;
+        }
+
+        static Column create(Path file, int capacity) throws IOException {
+            writeFile(file, new long[0], new long[0], 0, capacity);
+            return open(file);
+        }
+
+        synchronized boolean upsert(long epochDay, long price) {
+            View v = view;
+            int n = v.count();
+            if (n > 0) {
+                long lastDay = v.days().get(n - 1);
+                if (epochDay == lastDay) {
+                    v.prices().put(n - 1, price);
+                    return true;
+                }
+                if (epochDay < lastDay) {
+                    int index = lowerBound(v.days(), n, epochDay);
+                    if (v.days().get(index) != epochDay) {
+                        return false;
+                    }
+                    v.prices().put(index, price);
+                    return true;
+                }
+            }
+
+            if (n == v.capacity()) {
+                grow(v, v.capacity() * 2);
+                v = view;
+            }
+            v.days().put(n, epochDay);
+            v.prices().put(n, price);
+            v.buffer().putInt(COUNT_OFFSET, n + 1);
+            view = v.withCount(n + 1);
+            return true;
+        }
+
+        synchronized void replace(long[] newDays, long[] newPrices, int length) {
+            // Never shrink: corrected histories grow back, and each regrow is a full rewrite and remap
+            int newCapacity = Math.max(INITIAL_CAPACITY, view.capacity());
+            while (newCapacity < length) {
+                newCapacity *= 2;
+            }
+            rewrite(newDays, newPrices, length, newCapacity);
+        }
+
+        PriceSeries read(long stockId, long fromDay, long toDay) {
+            View v = view;
+            int n = v.count();
+            LongBuffer d = v.days();
+            LongBuffer p = v.prices();
+
+            int from = lowerBound(d, n, fromDay);
+            int to = toDay == Long.MAX_VALUE ? n : lowerBound(d, n, toDay + 1);
+            int length = Math.max(0, to - from);
+
+            long[] dayValues = new long[length];
+            long[] priceValues = new long[length];
+            d.get(from, dayValues, 0, length);
+            p.get(from, priceValues, 0, length);
+            return new PriceSeries(stockId, dayValues, priceValues);
+        }
+
+        int readInto(long fromDay, long toDay, long[] daysOut, long[] pricesOut) {
+            View v = view;
+            int n = v.count();
+            LongBuffer d = v.days();
+            LongBuffer p = v.prices();
+
+            int from = lowerBound(d, n, fromDay);
+            int to = toDay == Long.MAX_VALUE ? n : lowerBound(d, n, toDay + 1);
+            int length = Math.min(Math.max(0, to - from), Math.min(daysOut.length, pricesOut.length));
+
+            d.get(from, daysOut, 0, length);
+            p.get(from, pricesOut, 0, length);
+            return length;
+        }
+
+        private void grow(View v, int newCapacity) {
+            int n = v.count();
+            long[] dayValues = new long[n];
+            long[] priceValues = new long[n];
+            v.days().get(0, dayValues, 0, n);
+            v.prices().get(0, priceValues, 0, n);
+            rewrite(dayValues, priceValues, n, newCapacity);
+        }
+
+        private void rewrite(long[] dayValues, long[] priceValues, int length, int newCapacity) {
+            try {
+                Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+                writeFile(tmp, dayValues, priceValues, length, newCapacity);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                map();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to rewrite price column " + file, e);
+            }
+        }
+
+        private void map() throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+                if (mapped.getInt(0) != MAGIC) {
+                    throw new IOException("Not a price history column file: " + file);
+                }
+                int mappedCapacity = mapped.getInt(CAPACITY_OFFSET);
+                int mappedCount = mapped.getInt(COUNT_OFFSET);
+
+                this.view = new View(mapped,
+                        mapped.slice(HEADER_BYTES, mappedCapacity * 8).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer(),
+                        mapped.slice(HEADER_BYTES + mappedCapacity * 8, mappedCapacity * 8)
+                                .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer(),
+                        mappedCount);
+            }
+        }
+
+        private static void writeFile(Path target, long[] dayValues, long[] priceValues, int length, int capacity)
+                throws IOException {
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytesFor(capacity));
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+                mapped.putInt(0, MAGIC);
+                mapped.putInt(4, FORMAT_VERSION);
+                mapped.putInt(CAPACITY_OFFSET, capacity);
+                mapped.putInt(COUNT_OFFSET, length);
+
+                mapped.slice(HEADER_BYTES, capacity * 8).order(ByteOrder.LITTLE_ENDIAN)
+                        .asLongBuffer().put(0, dayValues, 0, length);
+                mapped.slice(HEADER_BYTES + capacity * 8, capacity * 8).order(ByteOrder.LITTLE_ENDIAN)
+                        .asLongBuffer().put(0, priceValues, 0, length);
+                mapped.force();
+            }
+        }
+
+        /**
+         * One mapping of the file and the rows published in it. Rows past {@code count} may be
+         * written in place before a view with the larger count replaces this one.
+         */
+        private record View(MappedByteBuffer buffer, LongBuffer days, LongBuffer prices, int count) {
+
+            int capacity() {
+                return days.capacity();
+            }
+
+            View withCount(int newCount) {
+                return new View(buffer, days, prices, newCount);
+            }
+        }
+
+        /**
+         * Index of the first day {@code >= key}, or {@code n} if there is none
+         */
+        private static int lowerBound(LongBuffer d, int n, long key) {
+            int lo = 0;
+            int hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (d.get(mid) < key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
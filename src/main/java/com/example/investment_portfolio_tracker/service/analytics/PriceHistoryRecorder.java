@@ -0,0 +1,25 @@
+package com.example.investment_portfolio_tracker.service.analytics;
+
+import com.example.investment_portfolio_tracker.event.StockPriceUpdatedEvent;
+import com.example.investment_portfolio_tracker.repository.StockPriceHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps stock_price_history in step with price writes: the latest price of the day is its close.
+ */
+@Component
+@RequiredArgsConstructor
+public class PriceHistoryRecorder {
+
+    private final StockPriceHistoryRepository priceHistoryRepository;
+
+    @EventListener
+    public void onPriceUpdated(StockPriceUpdatedEvent event) {
+        if (event.price() == null || event.historyRecorded()) {
+            return;
+        }
+        priceHistoryRepository.upsertClose(event.stockId(), event.updatedAt().toLocalDate(), event.price());
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.investment_portfolio_tracker.service.analytics;
+
+import com.example.investment_portfolio_tracker.util.FixedPoint;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A contiguous run of daily closes for one stock, as parallel primitive arrays.
+ * Days are epoch days; prices are fixed-point longs (see {@link FixedPoint}).
+ */
+public record PriceSeries(long stockId, long[] epochDays, long[] prices) {
+
+    public int size() {
+        return epochDays.length;
+    }
+
+    public boolean isEmpty() {
+        return epochDays.length == 0;
+    }
+
+    public LocalDate dateAt(int index) {
+        return LocalDate.ofEpochDay(epochDays[index]);
+    }
+
+    public BigDecimal priceAt(int index) {
+        return FixedPoint.toDecimal(prices[index]);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.investment_portfolio_tracker.service.analytics;
+
+/**
+ * Time-weighted and money-weighted return math over primitive arrays.
+ */
+public final class ReturnCalculator {
+
+    private static final int MAX_NEWTON_ITERATIONS = 50;
+    private static final int MAX_BISECTION_ITERATIONS = 200;
+    private static final double TOLERANCE = 1e-10;
+    private static final double MIN_RATE = -0.999999;
+    private static final double MAX_RATE = 1e6;
+
+    private ReturnCalculator() {
+    }
+
+    /**
+     * Chain-linked time-weighted return.
+     * <p>
+     * {@code values[i]} is the portfolio value at the end of period i and {@code cashFlows[i]} is the
+     * net amount added during period i (negative for withdrawals). Each sub-period return is
+     * {@code (values[i] - cashFlows[i]) / values[i - 1] - 1}; periods that start with no capital are skipped.
+     *
+     * @return the cumulative return as a fraction, e.g. 0.05 for +5%
+     */
+    public static double timeWeightedReturn(double[] values, double[] cashFlows) {
+        double growth = 1.0;
+        for (int i = 1; i < values.length; i++) {
+            double startValue = values[i - 1];
+            if (startValue <= 0) {
+                continue;
+            }
+            growth *= (values[i] - cashFlows[i]) / startValue;
+        }
+        return growth - 1.0;
+    }
+
+    /**
+     * Annualized internal rate of return for irregular cash flows (XIRR).
+     * <p>
+     * Solves {@code sum(amounts[i] / (1 + r)^years[i]) = 0} with Newton's method, falling back to
+     * bisection over a bracketed root when Newton diverges or leaves the valid domain.
+     *
+     * @param amounts cash flows from the investor's perspective (contributions negative, proceeds positive)
+     * @param years   time of each flow in years from the first flow
+     * @return the rate as a fraction, or NaN if the flows do not change sign
+     */
+    public static double xirr(double[] amounts, double[] years) {
+        boolean hasPositive = false;
+        boolean hasNegative = false;
+        for (double amount : amounts) {
+            hasPositive |= amount > 0;
+            hasNegative |= amount < 0;
+        }
+        if (!hasPositive || !hasNegative) {
+            return Double.NaN;
+        }
+
+        double rate = 0.1;
+        for (int i = 0; i < MAX_NEWTON_ITERATIONS; i++) {
+            double value = npv(amounts, years, rate);
+            double derivative = npvDerivative(amounts, years, rate);
+            if (derivative == 0 || Double.isNaN(derivative)) {
+                break;
+            }
+            double next = rate - value / derivative;
+            if (next <= MIN_RATE || next > MAX_RATE || Double.isNaN(next)) {
+                break;
+            }
+            if (Math.abs(next - rate) < TOLERANCE) {
+                return next;
+            }
+            rate = next;
+        }
+
+        return bisect(amounts, years);
+    }
+
+    static double npv(double[] amounts, double[] years, double rate) {
+        double base = 1.0 + rate;
+        double total = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            total += amounts[i] / Math.pow(base, years[i]);
+        }
+        return total;
+    }
+
+    private static double npvDerivative(double[] amounts, double[] years, double rate) {
+        double base = 1.0 + rate;
+        double total = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            total -= years[i] * amounts[i] / Math.pow(base, years[i] + 1);
+        }
+        return total;
+    }
+
+    private static double bisect(double[] amounts, double[] years) {
+        double low = MIN_RATE;
+        double high = 1.0;
+        double lowValue = npv(amounts, years, low);
+        double highValue = npv(amounts, years, high);
+
+        // Widen the upper bound until the root is bracketed
+        while (Math.signum(lowValue) == Math.signum(highValue) && high < MAX_RATE) {
+            high *= 10;
+            highValue = npv(amounts, years, high);
+        }
+        if (Math.signum(lowValue) == Math.signum(highValue)) {
+            return Double.NaN;
+        }
+
+        for (int i = 0; i < MAX_BISECTION_ITERATIONS; i++) {
+            double mid = (low + high) / 2;
+            double midValue = npv(amounts, years, mid);
+            if (Math.abs(midValue) < TOLERANCE || (high - low) / 2 < TOLERANCE) {
+                return mid;
+            }
+            if (Math.signum(midValue) == Math.signum(lowValue)) {
+                low = mid;
+                lowValue = midValue;
+            } else {
+                high = mid;
+            }
+        }
+        return (low + high) / 2;
+    }
+}
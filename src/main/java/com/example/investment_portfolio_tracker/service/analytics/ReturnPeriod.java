@@ -0,0 +1,44 @@
+package com.example.investment_portfolio_tracker.service.analytics;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Look-back windows supported by the returns endpoint
+ */
+public enum ReturnPeriod {
+    ONE_MONTH("1M"),
+    YEAR_TO_DATE("YTD"),
+    ONE_YEAR("1Y"),
+    ALL("ALL");
+
+    private final String code;
+
+    ReturnPeriod(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public static Optional<ReturnPeriod> fromCode(String code) {
+        return Arrays.stream(values())
+                .filter(period -> period.code.equalsIgnoreCase(code))
+                .findFirst();
+    }
+
+    /**
+     * First day of the window ending today, never earlier than the portfolio's inception
+     */
+    public LocalDate startDate(LocalDate today, LocalDate inception) {
+        LocalDate start = switch (this) {
+            case ONE_MONTH -> today.minusMonths(1);
+            case YEAR_TO_DATE -> today.withDayOfYear(1);
+            case ONE_YEAR -> today.minusYears(1);
+            case ALL -> inception;
+        };
+        return start.isBefore(inception) ? inception : start;
+    }
+}
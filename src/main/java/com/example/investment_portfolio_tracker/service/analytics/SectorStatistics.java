@@ -0,0 +1,26 @@
+package com.example.investment_portfolio_tracker.service.analytics;
+
+import java.math.BigDecimal;
+
+/**
+ * Price and holdings figures for one sector or industry.
+ *
+ * @param stocks               priced stocks in the group
+ * @param positions            open positions in those stocks, across all users
+ * @param heldValue            market value of those positions
+ * @param valueWeight          the group's share of the market value held across all groups
+ * @param valueWeightedPrice   average price weighted by held market value, or null when nothing is held
+ */
+public record SectorStatistics(
+        String name,
+        int stocks,
+        BigDecimal priceSum,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        BigDecimal averagePrice,
+        long positions,
+        BigDecimal heldValue,
+        BigDecimal valueWeight,
+        BigDecimal valueWeightedPrice
+) {
+}
@@ -0,0 +1,330 @@
+package com.example.investment_portfolio_tracker.service.analytics;
+
+import com.example.investment_portfolio_tracker.event.PositionsRewrittenEvent;
+import com.example.investment_portfolio_tracker.event.StockListingChangedEvent;
+import com.example.investment_portfolio_tracker.event.StockPriceUpdatedEvent;
+import com.example.investment_portfolio_tracker.event.TradeExecutedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Per-sector and per-industry price statistics, kept in memory and updated as prices, listings
+ * and positions change, so reads cost one pass over the groups rather than a scan of the stocks.
+ * <p>
+ * Every update sets a stock's absolute state (its classification, its price, or its open
+ * positions re-read after a committed trade or position rewrite) rather than applying a delta, so an update may be
+ * applied twice without harm. That is what lets {@link #rebuild()} load a fresh copy from the
+ * database while events keep arriving: updates seen during the load are replayed onto the new
+ * copy before it replaces the old one.
+ */
+@Slf4j
+@Service
+public class SectorStatisticsService {
+
+    private static final int FETCH_SIZE = 10_000;
+    private static final int PRICE_SCALE = 4;
+    private static final int WEIGHT_SCALE = 6;
+
+    private static final String LOAD_SQL = "SELECT s.id, s.sector, s.industry, s.current_price, " +
+            "COUNT(p.id) AS positions, COALESCE(SUM(p.quantity), 0) AS held " +
+            "FROM stocks s LEFT JOIN positions p ON p.stock_id = s.id AND p.quantity > 0 " +
+            "GROUP BY s.id, s.sector, s.industry, s.current_price";
+    private static final String HOLDINGS_SQL = "SELECT COUNT(*) AS positions, COALESCE(SUM(quantity), 0) AS held " +
+            "FROM positions WHERE stock_id = ? AND quantity > 0";
+    private static final String USER_STOCKS_SQL = "SELECT DISTINCT stock_id FROM positions WHERE user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Object rebuildLock = new Object();
+
+    // Guarded by this
+    private Statistics statistics = new Statistics();
+    private List<Consumer<Statistics>> replay;
+
+    private volatile boolean ready;
+
+    public SectorStatisticsService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPriceUpdated(StockPriceUpdatedEvent event) {
+        apply(statistics -> statistics.setPrice(event.stockId(), event.price()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(StockListingChangedEvent event) {
+        if (event.removed()) {
+            apply(statistics -> statistics.remove(event.stockId()));
+        } else {
+            apply(statistics -> statistics.setListing(event.stockId(), event.sector(), event.industry()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTradeExecuted(TradeExecutedEvent event) {
+        reloadHoldings(event.stockId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsRewritten(PositionsRewrittenEvent event) {
+        // Rewrites update position rows in place, so the user's rows name every stock that may have moved
+        for (Long stockId : jdbcTemplate.queryForList(USER_STOCKS_SQL, Long.class, event.userId())) {
+            reloadHoldings(stockId);
+        }
+    }
+
+    /**
+     * Reload everything from the database, for startup and to recover from drift
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long started = System.nanoTime();
+            synchronized (this) {
+                replay = new ArrayList<>();
+            }
+            Statistics loaded = new Statistics();
+            try {
+                jdbcTemplate.query(
+                        con -> {
+                            PreparedStatement ps = con.prepareStatement(LOAD_SQL);
+                            ps.setFetchSize(FETCH_SIZE);
+                            return ps;
+                        },
+                        (RowCallbackHandler) rs -> loaded.load(rs.getLong("id"), rs.getString("sector"),
+                                rs.getString("industry"), rs.getBigDecimal("current_price"),
+                                rs.getLong("positions"), rs.getBigDecimal("held")));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    replay = null;
+                }
+                throw e;
+            }
+            int replayed;
+            synchronized (this) {
+                replayed = replay.size();
+                replay.forEach(update -> update.accept(loaded));
+                replay = null;
+                statistics = loaded;
+            }
+            ready = true;
+            log.info("Built sector statistics over {} stocks in {} ms ({} updates replayed)",
+                    loaded.stocks.size(), Duration.ofNanos(System.nanoTime() - started).toMillis(), replayed);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized List<SectorStatistics> getSectorStatistics() {
+        return statistics.snapshot(statistics.sectors);
+    }
+
+    public synchronized List<SectorStatistics> getIndustryStatistics() {
+        return statistics.snapshot(statistics.industries);
+    }
+
+    public Map<String, BigDecimal> getAveragePriceBySector() {
+        Map<String, BigDecimal> averages = new LinkedHashMap<>();
+        getSectorStatistics().forEach(sector -> averages.put(sector.name(), sector.averagePrice()));
+        return averages;
+    }
+
+    private void reloadHoldings(Long stockId) {
+        Holdings holdings = jdbcTemplate.queryForObject(HOLDINGS_SQL,
+                (rs, rowNum) -> new Holdings(rs.getLong("positions"), rs.getBigDecimal("held")),
+                stockId);
+        if (holdings != null) {
+            apply(statistics -> statistics.setHoldings(stockId, holdings.positions(), holdings.quantity()));
+        }
+    }
+
+    private synchronized void apply(Consumer<Statistics> update) {
+        update.accept(statistics);
+        if (replay != null) {
+            replay.add(update);
+        }
+    }
+
+    private record Holdings(long positions, BigDecimal quantity) {
+    }
+
+    private static final class StockState {
+        String sector;
+        String industry;
+        BigDecimal price;
+        long positions;
+        BigDecimal held = BigDecimal.ZERO;
+
+        BigDecimal value() {
+            return price.multiply(held);
+        }
+    }
+
+    private static final class Statistics {
+        final Map<Long, StockState> stocks = new HashMap<>();
+        final Map<String, Group> sectors = new HashMap<>();
+        final Map<String, Group> industries = new HashMap<>();
+        BigDecimal heldValue = BigDecimal.ZERO;
+
+        void load(long id, String sector, String industry, BigDecimal price, long positions, BigDecimal held) {
+            StockState stock = new StockState();
+            stock.sector = sector;
+            stock.industry = industry;
+            stock.price = price;
+            stock.positions = positions;
+            stock.held = held;
+            stocks.put(id, stock);
+            attach(stock);
+        }
+
+        void setPrice(Long id, BigDecimal price) {
+            update(id, stock -> stock.price = price);
+        }
+
+        void setListing(Long id, String sector, String industry) {
+            update(id, stock -> {
+                stock.sector = sector;
+                stock.industry = industry;
+            });
+        }
+
+        void setHoldings(Long id, long positions, BigDecimal held) {
+            update(id, stock -> {
+                stock.positions = positions;
+                stock.held = held;
+            });
+        }
+
+        void remove(Long id) {
+            StockState stock = stocks.remove(id);
+            if (stock != null) {
+                detach(stock);
+            }
+        }
+
+        List<SectorStatistics> snapshot(Map<String, Group> groups) {
+            List<SectorStatistics> result = new ArrayList<>(groups.size());
+            groups.values().forEach(group -> result.add(group.snapshot(heldValue)));
+            result.sort(Comparator.comparing(SectorStatistics::name));
+            return result;
+        }
+
+        private void update(Long id, Consumer<StockState> change) {
+            StockState stock = stocks.computeIfAbsent(id, key -> new StockState());
+            detach(stock);
+            change.accept(stock);
+            attach(stock);
+        }
+
+        // Unpriced stocks are tracked but counted nowhere
+        private void attach(StockState stock) {
+            if (stock.price == null) {
+                return;
+            }
+            if (stock.sector != null) {
+                sectors.computeIfAbsent(stock.sector, Group::new).add(stock);
+            }
+            if (stock.industry != null) {
+                industries.computeIfAbsent(stock.industry, Group::new).add(stock);
+            }
+            heldValue = heldValue.add(stock.value());
+        }
+
+        private void detach(StockState stock) {
+            if (stock.price == null) {
+                return;
+            }
+            if (stock.sector != null) {
+                detach(sectors, stock.sector, stock);
+            }
+            if (stock.industry != null) {
+                detach(industries, stock.industry, stock);
+            }
+            heldValue = heldValue.subtract(stock.value());
+        }
+
+        private static void detach(Map<String, Group> groups, String name, StockState stock) {
+            Group group = groups.get(name);
+            group.remove(stock);
+            if (group.stocks == 0) {
+                groups.remove(name);
+            }
+        }
+    }
+
+    private static final class Group {
+        final String name;
+        // Price -> number of stocks at that price, so min and max survive removals
+        final TreeMap<BigDecimal, Integer> prices = new TreeMap<>();
+        int stocks;
+        long positions;
+        BigDecimal priceSum = BigDecimal.ZERO;
+        BigDecimal heldValue = BigDecimal.ZERO;
+        BigDecimal valueWeightedPriceSum = BigDecimal.ZERO;
+
+        Group(String name) {
+            this.name = name;
+        }
+
+        void add(StockState stock) {
+            BigDecimal value = stock.value();
+            prices.merge(stock.price, 1, Integer::sum);
+            stocks++;
+            positions += stock.positions;
+            priceSum = priceSum.add(stock.price);
+            heldValue = heldValue.add(value);
+            valueWeightedPriceSum = valueWeightedPriceSum.add(stock.price.multiply(value));
+        }
+
+        void remove(StockState stock) {
+            BigDecimal value = stock.value();
+            prices.computeIfPresent(stock.price, (price, count) -> count == 1 ? null : count - 1);
+            stocks--;
+            positions -= stock.positions;
+            priceSum = priceSum.subtract(stock.price);
+            heldValue = heldValue.subtract(value);
+            valueWeightedPriceSum = valueWeightedPriceSum.subtract(stock.price.multiply(value));
+        }
+
+        SectorStatistics snapshot(BigDecimal totalHeldValue) {
+            boolean held = heldValue.signum() > 0;
+            return new SectorStatistics(
+                    name,
+                    stocks,
+                    priceSum,
+                    prices.firstKey(),
+                    prices.lastKey(),
+                    priceSum.divide(BigDecimal.valueOf(stocks), PRICE_SCALE, RoundingMode.HALF_UP),
+                    positions,
+                    heldValue.setScale(PRICE_SCALE, RoundingMode.HALF_UP),
+                    totalHeldValue.signum() > 0
+                            ? heldValue.divide(totalHeldValue, WEIGHT_SCALE, RoundingMode.HALF_UP)
+                            : BigDecimal.ZERO,
+                    held ? valueWeightedPriceSum.divide(heldValue, PRICE_SCALE, RoundingMode.HALF_UP) : null);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.investment_portfolio_tracker.service.catalogue;
+
+/**
+ * A rendered catalogue page: the JSON array as bytes, its ETag, and the cursor for the next page
+ * (null on the last page)
+ */
+public record CataloguePage(
+        byte[] body,
+        String etag,
+        Long nextCursor
+) {
+}
@@ -0,0 +1,189 @@
+package com.example.investment_portfolio_tracker.service.catalogue;
+
+import com.example.investment_portfolio_tracker.util.CacheStats;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read side of the stock catalogue: keyset-paginated, field-selectable JSON pages with strong
+ * ETags.
+ * <p>
+ * Two versions in {@code stock_catalogue_versions} stand in for the catalogue's state. Triggers
+ * on the stocks table move the listing version when a stock is added, renamed or deleted and the
+ * price version when a price is written, in the writing transaction, so writes from other nodes
+ * and from plain SQL count too. A client that never asks for price fields keeps its ETag through
+ * the trading day. The ETag is derived from the versions alone, which lets an unchanged page be
+ * confirmed with a single-row lookup instead of rendering it. Rendered pages are kept as
+ * serialized bytes, bounded by total size, and reused until a version they depend on moves.
+ */
+@Service
+public class StockCatalogue {
+
+    // Selectable fields, in the order they are written
+    private static final List<String> FIELD_ORDER = List.of(
+            "id", "ticker", "name", "exchange", "sector", "industry", "currency", "currentPrice", "lastUpdated");
+    private static final Set<String> FIELDS = Set.copyOf(FIELD_ORDER);
+    private static final Set<String> PRICE_FIELDS = Set.of("currentPrice", "lastUpdated");
+
+    private static final String VERSIONS_SQL =
+            "SELECT listing_version, price_version FROM stock_catalogue_versions WHERE id = 1";
+    private static final String PAGE_SQL = "SELECT id, ticker, name, exchange, sector, industry, currency, " +
+            "current_price, last_updated FROM stocks WHERE id > ? ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final long maxCachedBytes;
+
+    // Access-ordered, so the least recently served page is evicted first
+    private final LinkedHashMap<PageKey, CataloguePage> pages = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+    private final CacheStats stats = new CacheStats();
+
+    public StockCatalogue(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                          @Value("${stock-catalogue.cache-size:32MB}") DataSize cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.maxCachedBytes = cacheSize.toBytes();
+    }
+
+    /**
+     * The fields a request selects, in output order; all of them when none are given
+     *
+     * @throws IllegalArgumentException for an unknown field
+     */
+    public static List<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return FIELD_ORDER;
+        }
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String trimmed = field.trim();
+            if (!FIELDS.contains(trimmed)) {
+                throw new IllegalArgumentException("Unknown field: " + trimmed);
+            }
+            requested.add(trimmed);
+        }
+        return FIELD_ORDER.stream().filter(requested::contains).toList();
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    /**
+     * The ETag the page would be served with right now, from the stored versions alone
+     */
+    public String currentETag(List<String> fields) {
+        return etag(fields);
+    }
+
+    /**
+     * One page of stocks in id order
+     *
+     * @param after the last id of the previous page, or null for the first page
+     * @param limit page size, or null for everything after {@code after}
+     */
+    public CataloguePage getPage(Long after, Integer limit, List<String> fields) {
+        PageKey key = new PageKey(after != null ? after : 0L, limit, fields);
+        // Read the versions before the rows, so a write racing the query can only make the page newer
+        String etag = etag(fields);
+
+        synchronized (pages) {
+            CataloguePage cached = pages.get(key);
+            if (cached != null && cached.etag().equals(etag)) {
+                stats.hit();
+                return cached;
+            }
+        }
+        stats.miss();
+
+        CataloguePage page = render(key, etag);
+        synchronized (pages) {
+            CataloguePage replaced = pages.put(key, page);
+            cachedBytes += page.body().length - (replaced != null ? replaced.body().length : 0);
+            var eldest = pages.entrySet().iterator();
+            while (cachedBytes > maxCachedBytes && eldest.hasNext()) {
+                cachedBytes -= eldest.next().getValue().body().length;
+                eldest.remove();
+            }
+        }
+        return page;
+    }
+
+    private CataloguePage render(PageKey key, String etag) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        long[] lastId = {key.after()};
+        boolean[] hasMore = {false};
+        String sql = key.limit() != null ? PAGE_SQL + " LIMIT ?" : PAGE_SQL;
+        Object[] args = key.limit() != null ? new Object[]{key.after(), key.limit() + 1} : new Object[]{key.after()};
+
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            if (key.limit() != null && rows.size() == key.limit()) {
+                // The extra row only tells us there is a next page
+                hasMore[0] = true;
+                return;
+            }
+            rows.add(toRow(rs, key.fields()));
+            lastId[0] = rs.getLong("id");
+        }, args);
+
+        try {
+            return new CataloguePage(objectMapper.writeValueAsBytes(rows), etag, hasMore[0] ? lastId[0] : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize stock catalogue page", e);
+        }
+    }
+
+    private static Map<String, Object> toRow(ResultSet rs, List<String> fields) throws SQLException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String field : fields) {
+            switch (field) {
+                case "id" -> row.put(field, rs.getLong("id"));
+                case "ticker" -> row.put(field, rs.getString("ticker"));
+                case "name" -> row.put(field, rs.getString("name"));
+                case "exchange" -> row.put(field, rs.getString("exchange"));
+                case "sector" -> row.put(field, rs.getString("sector"));
+                case "industry" -> row.put(field, rs.getString("industry"));
+                case "currency" -> row.put(field, rs.getString("currency"));
+                case "currentPrice" -> row.put(field, rs.getBigDecimal("current_price"));
+                case "lastUpdated" -> {
+                    Timestamp updated = rs.getTimestamp("last_updated");
+                    row.put(field, updated != null ? updated.toLocalDateTime() : null);
+                }
+                default -> throw new IllegalArgumentException("Unknown field: " + field);
+            }
+        }
+        return row;
+    }
+
+    private String etag(List<String> fields) {
+        Map<String, Object> versions = jdbcTemplate.queryForMap(VERSIONS_SQL);
+        String version = versions.get("listing_version").toString();
+        if (dependsOnPrices(fields)) {
+            version += "-" + versions.get("price_version");
+        }
+        return "\"" + version + "\"";
+    }
+
+    private static boolean dependsOnPrices(List<String> fields) {
+        return fields.stream().anyMatch(PRICE_FIELDS::contains);
+    }
+
+    private record PageKey(long after, Integer limit, List<String> fields) {
+    }
+}
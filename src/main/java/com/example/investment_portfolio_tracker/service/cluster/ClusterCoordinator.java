@@ -0,0 +1,326 @@
+package com.example.investment_portfolio_tracker.service.cluster;
+
+import com.example.investment_portfolio_tracker.config.ConnectionGateDataSource;
+import com.example.investment_portfolio_tracker.event.ShardAssignmentChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coordinates instances sharing one Postgres database using session-level advisory locks.
+ * <p>
+ * Each node holds one pooled connection for its whole life and takes three kinds of lock on it:
+ * a member slot (its identity), one lock per ticker shard it works on, and one per singleton job
+ * it leads. Postgres drops all of them the moment the session ends, so a dead node's shards and
+ * jobs become free without any heartbeat table or expiry sweep.
+ * <p>
+ * Shards are spread over the live member slots by rendezvous hashing, so a node joining or
+ * leaving only moves the shards it gains or loses. A node only counts a shard as owned once it
+ * holds the shard's lock, so two nodes with momentarily different views of the membership never
+ * work the same shard.
+ * <p>
+ * With {@code cluster.enabled=false} (the default) this node owns every shard and leads every job.
+ */
+@Slf4j
+@Service
+public class ClusterCoordinator {
+
+    // First key of each two-key advisory lock; the second key is the slot, shard or job id
+    static final int MEMBER_LOCKS = 0x50540001;
+    static final int SHARD_LOCKS = 0x50540002;
+    static final int JOB_LOCKS = 0x50540003;
+
+    private static final String MEMBERS_SQL =
+            "SELECT objid FROM pg_locks WHERE locktype = 'advisory' AND classid = ?::oid AND objsubid = 2 " +
+                    "AND granted AND database = (SELECT oid FROM pg_database WHERE datname = current_database())";
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_lock(?, ?)";
+    private static final String TRY_LOCK_ALL_SQL =
+            "SELECT s FROM unnest(?::int[]) AS s WHERE pg_try_advisory_lock(?, s)";
+    private static final String UNLOCK_ALL_SQL =
+            "SELECT pg_advisory_unlock(?, s) FROM unnest(?::int[]) AS s";
+
+    private final DataSource dataSource;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int shardCount;
+    private final int maxNodes;
+
+    // Guarded by this: every lock lives on this one session
+    private Connection connection;
+    private volatile int slot = -1;
+    private volatile List<Integer> liveSlots = List.of();
+    private volatile Set<Integer> ownedShards = Set.of();
+    private final Set<String> leaderships = ConcurrentHashMap.newKeySet();
+
+    public ClusterCoordinator(
+            DataSource dataSource,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${cluster.enabled:false}") boolean enabled,
+            @Value("${cluster.shards:256}") int shardCount,
+            @Value("${cluster.max-nodes:64}") int maxNodes) {
+        this.dataSource = dataSource;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.shardCount = shardCount;
+        this.maxNodes = maxNodes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void join() {
+        rebalance();
+    }
+
+    /**
+     * Re-read the membership and take or release shard locks to match it
+     */
+    @Scheduled(fixedDelayString = "${cluster.rebalance-ms:5000}", initialDelayString = "${cluster.rebalance-ms:5000}")
+    public synchronized void rebalance() {
+        if (!enabled) {
+            return;
+        }
+        Set<Integer> previous = ownedShards;
+        try {
+            if (connection == null) {
+                connect();
+            }
+            List<Integer> live = readMembers();
+            Set<Integer> target = assignedShards(slot, live, shardCount);
+
+            Set<Integer> released = new HashSet<>(previous);
+            released.removeAll(target);
+            Set<Integer> wanted = new HashSet<>(target);
+            wanted.removeAll(previous);
+
+            Set<Integer> owned = new HashSet<>(previous);
+            if (!released.isEmpty()) {
+                unlockShards(released);
+                owned.removeAll(released);
+            }
+            if (!wanted.isEmpty()) {
+                // Shards still held by their previous owner are retried on the next pass
+                owned.addAll(lockShards(wanted));
+            }
+            liveSlots = live;
+            ownedShards = Set.copyOf(owned);
+        } catch (SQLException e) {
+            log.warn("Lost cluster coordination connection, dropping all shards and leaderships: {}", e.getMessage());
+            disconnect();
+        }
+
+        if (!ownedShards.equals(previous)) {
+            log.info("Node {} now owns {} of {} shards across {} live nodes",
+                    slot, ownedShards.size(), shardCount, liveSlots.size());
+            eventPublisher.publishEvent(new ShardAssignmentChangedEvent(ownedShards, getLiveNodeCount()));
+        }
+    }
+
+    /**
+     * True if this node should refresh the given ticker
+     */
+    public boolean ownsTicker(String ticker) {
+        return !enabled || ownedShards.contains(shardOf(ticker, shardCount));
+    }
+
+    /**
+     * True if this node runs the given singleton job. Leadership is sticky: once taken it is held
+     * until this node leaves the cluster.
+     */
+    public boolean isLeader(String job) {
+        if (!enabled || leaderships.contains(job)) {
+            return true;
+        }
+        synchronized (this) {
+            if (connection == null) {
+                return false;
+            }
+            try (PreparedStatement statement = connection.prepareStatement(TRY_LOCK_SQL)) {
+                statement.setInt(1, JOB_LOCKS);
+                statement.setInt(2, job.hashCode());
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (rs.next() && rs.getBoolean(1)) {
+                        leaderships.add(job);
+                        log.info("Node {} is now leader for {}", slot, job);
+                        return true;
+                    }
+                }
+            } catch (SQLException e) {
+                log.warn("Leader election for {} failed: {}", job, e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    public int getLiveNodeCount() {
+        return enabled ? Math.max(1, liveSlots.size()) : 1;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", enabled);
+        status.put("slot", slot);
+        status.put("liveNodes", getLiveNodeCount());
+        status.put("shards", shardCount);
+        status.put("ownedShards", enabled ? ownedShards.size() : shardCount);
+        status.put("leaderships", Set.copyOf(leaderships));
+        return status;
+    }
+
+    /**
+     * Closing the session releases every lock this node holds, handing its shards to the others
+     */
+    @PreDestroy
+    public synchronized void leave() {
+        if (connection != null) {
+            log.info("Node {} leaving the cluster", slot);
+        }
+        disconnect();
+    }
+
+    /**
+     * Shard of a ticker; stable across nodes and restarts
+     */
+    public static int shardOf(String ticker, int shardCount) {
+        return Math.floorMod((int) mix(ticker.toUpperCase().hashCode()), shardCount);
+    }
+
+    /**
+     * Shards the given slot should own: those where it has the highest rendezvous score among the
+     * live slots
+     */
+    static Set<Integer> assignedShards(int slot, Collection<Integer> liveSlots, int shardCount) {
+        Set<Integer> shards = new HashSet<>();
+        if (!liveSlots.contains(slot)) {
+            return shards;
+        }
+        for (int shard = 0; shard < shardCount; shard++) {
+            int owner = -1;
+            long best = Long.MIN_VALUE;
+            for (int candidate : liveSlots) {
+                long score = mix(((long) shard << 32) | candidate);
+                if (owner < 0 || score > best) {
+                    best = score;
+                    owner = candidate;
+                }
+            }
+            if (owner == slot) {
+                shards.add(shard);
+            }
+        }
+        return shards;
+    }
+
+    private void connect() throws SQLException {
+        connection = lockSource().getConnection();
+        connection.setAutoCommit(true);
+        for (int candidate = 0; candidate < maxNodes; candidate++) {
+            try (PreparedStatement statement = connection.prepareStatement(TRY_LOCK_SQL)) {
+                statement.setInt(1, MEMBER_LOCKS);
+                statement.setInt(2, candidate);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (rs.next() && rs.getBoolean(1)) {
+                        slot = candidate;
+                        log.info("Joined the cluster as node {}", slot);
+                        return;
+                    }
+                }
+            }
+        }
+        throw new SQLException("All " + maxNodes + " cluster member slots are taken");
+    }
+
+    // The lock session is held for good, so it goes around the virtual-thread connection gate,
+    // which VirtualThreadConfig sizes one short of the pool to leave this connection free
+    private DataSource lockSource() throws SQLException {
+        if (dataSource.isWrapperFor(ConnectionGateDataSource.class)) {
+            return dataSource.unwrap(ConnectionGateDataSource.class).getTargetDataSource();
+        }
+        return dataSource;
+    }
+
+    private void disconnect() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.debug("Error closing cluster coordination connection: {}", e.getMessage());
+            }
+        }
+        connection = null;
+        slot = -1;
+        liveSlots = List.of();
+        ownedShards = Set.of();
+        leaderships.clear();
+    }
+
+    private List<Integer> readMembers() throws SQLException {
+        List<Integer> members = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(MEMBERS_SQL)) {
+            statement.setInt(1, MEMBER_LOCKS);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    members.add((int) rs.getLong(1));
+                }
+            }
+        }
+        members.sort(null);
+        return members;
+    }
+
+    private Set<Integer> lockShards(Set<Integer> shards) throws SQLException {
+        Set<Integer> locked = new HashSet<>();
+        Array array = connection.createArrayOf("int4", shards.toArray());
+        try (PreparedStatement statement = connection.prepareStatement(TRY_LOCK_ALL_SQL)) {
+            statement.setArray(1, array);
+            statement.setInt(2, SHARD_LOCKS);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    locked.add(rs.getInt(1));
+                }
+            }
+        } finally {
+            array.free();
+        }
+        return locked;
+    }
+
+    private void unlockShards(Set<Integer> shards) throws SQLException {
+        Array array = connection.createArrayOf("int4", shards.toArray());
+        try (PreparedStatement statement = connection.prepareStatement(UNLOCK_ALL_SQL)) {
+            statement.setInt(1, SHARD_LOCKS);
+            statement.setArray(2, array);
+            statement.executeQuery().close();
+        } finally {
+            array.free();
+        }
+    }
+
+    // Murmur3 finalizer: spreads nearby inputs over the whole range
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
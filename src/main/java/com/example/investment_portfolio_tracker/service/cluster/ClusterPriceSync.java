@@ -0,0 +1,114 @@
+package com.example.investment_portfolio_tracker.service.cluster;
+
+import com.example.investment_portfolio_tracker.event.StockPriceUpdatedEvent;
+import com.example.investment_portfolio_tracker.service.StockService;
+import com.example.investment_portfolio_tracker.service.market.PriceBoard;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings prices written by other nodes into this one.
+ * <p>
+ * With sharding on, each node refreshes only the tickers it owns, and everything derived in memory
+ * from prices (the price board, streams, alerts, analytics) only hears this node's own
+ * {@link StockPriceUpdatedEvent}s. This polls the stocks table for rows whose {@code last_updated}
+ * moved since the last pass and republishes those the price board has not seen yet as local
+ * events, so the listeners treat them like any other committed write. Each pass re-reads a short
+ * overlap before the newest time seen, because {@code last_updated} is stamped before commit and
+ * by each writer's own clock.
+ * <p>
+ * Does nothing with {@code cluster.enabled=false}: every price write then happens in this process.
+ */
+@Slf4j
+@Service
+public class ClusterPriceSync {
+
+    private static final int FETCH_SIZE = 10_000;
+    private static final String CHANGED_SQL =
+            "SELECT id, ticker, current_price, last_updated FROM stocks " +
+                    "WHERE last_updated > ? AND current_price IS NOT NULL ORDER BY last_updated";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PriceBoard priceBoard;
+    private final StockService stockService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final Duration overlap;
+
+    // Newest last_updated seen; only touched by the scheduler thread
+    private LocalDateTime watermark;
+
+    public ClusterPriceSync(
+            JdbcTemplate jdbcTemplate,
+            PriceBoard priceBoard,
+            StockService stockService,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${cluster.enabled:false}") boolean enabled,
+            @Value("${cluster.price-sync-overlap-ms:5000}") long overlapMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.priceBoard = priceBoard;
+        this.stockService = stockService;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.overlap = Duration.ofMillis(overlapMs);
+        // The board is filled from the table at startup, so older rows are already on it
+        this.watermark = LocalDateTime.now();
+    }
+
+    /**
+     * Republish price writes committed elsewhere since the last pass. Returns how many were new here.
+     */
+    @Scheduled(fixedDelayString = "${cluster.price-sync-ms:2000}", initialDelayString = "${cluster.price-sync-ms:2000}")
+    public int sync() {
+        if (!enabled) {
+            return 0;
+        }
+        List<StockPriceUpdatedEvent> changed = new ArrayList<>();
+        LocalDateTime[] newest = {watermark};
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(CHANGED_SQL);
+                    ps.setFetchSize(FETCH_SIZE);
+                    ps.setTimestamp(1, Timestamp.valueOf(watermark.minus(overlap)));
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> {
+                    long stockId = rs.getLong("id");
+                    BigDecimal price = rs.getBigDecimal("current_price");
+                    LocalDateTime updatedAt = rs.getTimestamp("last_updated").toLocalDateTime();
+                    if (updatedAt.isAfter(newest[0])) {
+                        newest[0] = updatedAt;
+                    }
+                    // Writes made here, and ones already relayed, are on the board at this time or later
+                    LocalDateTime seen = priceBoard.getUpdatedAt(stockId);
+                    if (seen == null || seen.isBefore(updatedAt.truncatedTo(ChronoUnit.MILLIS))) {
+                        changed.add(new StockPriceUpdatedEvent(stockId, rs.getString("ticker"), price, updatedAt, true));
+                    }
+                });
+        watermark = newest[0];
+
+        // History was recorded by the node that wrote the price
+        for (StockPriceUpdatedEvent event : changed) {
+            stockService.evictCached(event.ticker());
+            eventPublisher.publishEvent(event);
+        }
+        if (!changed.isEmpty()) {
+            log.debug("Relayed {} price writes from other nodes", changed.size());
+        }
+        return changed.size();
+    }
+}
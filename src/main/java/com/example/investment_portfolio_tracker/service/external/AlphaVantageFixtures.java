@@ -0,0 +1,46 @@
+package com.example.investment_portfolio_tracker.service.external;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Layout of recorded Alpha Vantage responses on disk: one JSON body per file at
+ * {@code <dir>/<FUNCTION>/<parameter>.json}. Written by {@link AlphaVantageService} when
+ * {@code alphavantage.record-dir} is set and read back by the replay stub used in tests and benchmarks.
+ */
+public final class AlphaVantageFixtures {
+
+    private AlphaVantageFixtures() {
+    }
+
+    public static Path path(Path directory, String function, String parameter) {
+        return directory.resolve(function).resolve(fileName(parameter) + ".json");
+    }
+
+    /**
+     * The recorded body, or null if nothing was recorded for this call
+     */
+    public static byte[] read(Path directory, String function, String parameter) throws IOException {
+        Path file = path(directory, function, parameter);
+        return Files.isRegularFile(file) ? Files.readAllBytes(file) : null;
+    }
+
+    /**
+     * Write via a temporary file so a concurrent reader never sees half a fixture
+     */
+    public static void write(Path directory, String function, String parameter, byte[] body) throws IOException {
+        Path file = path(directory, function, parameter);
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        Files.write(temp, body);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Tickers like BRK.B are kept as-is; anything that could escape the directory is not
+    private static String fileName(String parameter) {
+        String name = parameter.replaceAll("[^A-Za-z0-9._-]", "_");
+        return name.startsWith(".") ? "_" + name.substring(1) : name;
+    }
+}
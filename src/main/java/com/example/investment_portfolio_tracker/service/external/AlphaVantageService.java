@@ -1,53 +1,149 @@
 package com.example.investment_portfolio_tracker.service.external;
 
 import com.example.investment_portfolio_tracker.dto.external.AlphaVantageQuote;
+import com.example.investment_portfolio_tracker.util.CacheStats;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.function.Predicate;
 
 @Service
 @Slf4j
+@Observed(name = "alphavantage.client")
 public class AlphaVantageService {
 
+    private static final TypeReference<Map<String, Object>> RESPONSE_TYPE = new TypeReference<>() {
+    };
+    static final String QUOTE_QUERY = "/query?function=GLOBAL_QUOTE&symbol={symbol}&apikey={apiKey}";
+    private static final Predicate<Map<String, Object>> VALID_QUOTE =
+            r -> r.get("Global Quote") instanceof Map<?, ?> quote && !quote.isEmpty();
+
     private final RestTemplate restTemplate;
+    private final String baseUrl;
     private final String apiKey;
+    private final ObjectMapper objectMapper;
+    // Upstream responses survive restarts so a deploy doesn't re-spend the API quota
+    private final DiskResponseCache responseCache;
+    private final Duration quoteTtl;
+    private final Duration overviewTtl;
+    private final Duration searchTtl;
+    // When set, every good upstream response is also written out as a replay fixture
+    private final Path recordDirectory;
 
     public AlphaVantageService(
-            @Value("${alphavantage.api-key}") String apiKey) {
+            @Value("${alphavantage.base-url:https://www.alphavantage.co}") String baseUrl,
+            @Value("${alphavantage.api-key}") String apiKey,
+            ObjectMapper objectMapper,
+            @Value("${alphavantage.cache.dir:${app.data-dir:${user.home}/.portfolio-tracker}/alphavantage}") String cacheDirectory,
+            @Value("${alphavantage.cache.max-size:64MB}") DataSize cacheMaxSize,
+            @Value("${alphavantage.cache.ttl.global-quote:PT30S}") Duration quoteTtl,
+            @Value("${alphavantage.cache.ttl.overview:P7D}") Duration overviewTtl,
+            @Value("${alphavantage.cache.ttl.symbol-search:PT12H}") Duration searchTtl,
+            @Value("${alphavantage.record-dir:}") String recordDirectory) throws IOException {
         this.restTemplate = new RestTemplate();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
         this.apiKey = apiKey;
+        this.objectMapper = objectMapper;
+        this.responseCache = openResponseCache(Path.of(cacheDirectory), cacheMaxSize.toBytes());
+        this.quoteTtl = quoteTtl;
+        this.overviewTtl = overviewTtl;
+        this.searchTtl = searchTtl;
+        this.recordDirectory = recordDirectory.isBlank() ? null : Path.of(recordDirectory);
+        if (this.recordDirectory != null) {
+            log.info("Recording Alpha Vantage responses to {}", this.recordDirectory);
+        }
     }
 
-    public AlphaVantageQuote getQuote(String ticker) {
-        String url = "https://www.alphavantage.co/query?function=GLOBAL_QUOTE&symbol={symbol}&apikey={apiKey}";
+    @PreDestroy
+    public void close() throws IOException {
+        responseCache.close();
+    }
 
+    private static DiskResponseCache openResponseCache(Path directory, long maxBytes) throws IOException {
         try {
-            Map<String, Object> response = restTemplate.getForObject(
-                    url,
-                    Map.class,
-                    ticker,
-                    apiKey
-            );
-
-            if (response == null || !response.containsKey("Global Quote")) {
-                log.error("Invalid response from Alpha Vantage for ticker {}: {}", ticker, response);
-                throw new RuntimeException("Invalid response from Alpha Vantage");
+            return new DiskResponseCache(directory, maxBytes);
+        } catch (DiskResponseCache.LockedException e) {
+            // Another instance on this host owns the shared directory; use a private one rather than share the log
+            log.warn("{}; caching responses in a directory of this instance's own", e.getMessage());
+        }
+        // The data directory outlives restarts, so take over one left by an earlier instance before making another
+        try (DirectoryStream<Path> previous = Files.newDirectoryStream(directory, "instance-*")) {
+            for (Path candidate : previous) {
+                try {
+                    DiskResponseCache cache = new DiskResponseCache(candidate, maxBytes);
+                    log.info("Caching Alpha Vantage responses in {}", candidate);
+                    return cache;
+                } catch (DiskResponseCache.LockedException e) {
+                    // Still in use
+                }
             }
+        }
+        Path own = Files.createTempDirectory(directory, "instance-");
+        log.info("Caching Alpha Vantage responses in {}", own);
+        return new DiskResponseCache(own, maxBytes);
+    }
 
-            @SuppressWarnings("unchecked")
-            Map<String, String> quoteData = (Map<String, String>) response.get("Global Quote");
-            return mapToQuote(quoteData);
+    public AlphaVantageQuote getQuote(String ticker) {
+        String url = baseUrl + QUOTE_QUERY;
+
+        try {
+            Map<String, Object> response = fetch("GLOBAL_QUOTE", ticker.toUpperCase(), url, quoteTtl, VALID_QUOTE);
+            return parseQuote(ticker, response);
         } catch (Exception e) {
             log.error("Error fetching stock quote for {}: {}", ticker, e.getMessage());
             throw new RuntimeException("Failed to fetch stock data", e);
         }
     }
 
+    /**
+     * Cached GLOBAL_QUOTE response for an upper-case symbol, or null; shared with {@link ReactiveAlphaVantageClient}
+     */
+    Map<String, Object> cachedQuote(String symbol) throws IOException {
+        return cached("GLOBAL_QUOTE:" + symbol);
+    }
+
+    void storeQuote(String symbol, Map<String, Object> response) throws IOException {
+        store("GLOBAL_QUOTE", symbol, response, quoteTtl, VALID_QUOTE);
+    }
+
+    AlphaVantageQuote parseQuote(String ticker, Map<String, Object> response) {
+        if (response == null || !response.containsKey("Global Quote")) {
+            log.error("Invalid response from Alpha Vantage for ticker {}: {}", ticker, response);
+            throw new RuntimeException("Invalid response from Alpha Vantage");
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> quoteData = (Map<String, String>) response.get("Global Quote");
+        return mapToQuote(quoteData);
+    }
+
+    public CacheStats getCacheStats() {
+        return responseCache.getStats();
+    }
+
+    String getBaseUrl() {
+        return baseUrl;
+    }
+
+    String getApiKey() {
+        return apiKey;
+    }
+
     private AlphaVantageQuote mapToQuote(Map<String, String> quoteData) {
         AlphaVantageQuote quote = new AlphaVantageQuote();
         quote.setSymbol(quoteData.get("01. symbol"));
@@ -72,10 +168,11 @@ public class AlphaVantageService {
 
     // Method to search for stocks by keyword
     public Map<String, Object> searchStocks(String keywords) {
-        String url = "https://www.alphavantage.co/query?function=SYMBOL_SEARCH&keywords={keywords}&apikey={apiKey}";
+        String url = baseUrl + "/query?function=SYMBOL_SEARCH&keywords={keywords}&apikey={apiKey}";
 
         try {
-            return restTemplate.getForObject(url, Map.class, keywords, apiKey);
+            return fetch("SYMBOL_SEARCH", keywords.trim().toLowerCase(), url, searchTtl,
+                    r -> r.containsKey("bestMatches"));
         } catch (Exception e) {
             log.error("Error searching for stocks with keywords {}: {}", keywords, e.getMessage());
             throw new RuntimeException("Failed to search stocks", e);
@@ -84,13 +181,62 @@ public class AlphaVantageService {
 
     // Optional: Method to get company overview (sector, industry, etc.)
     public Map<String, Object> getCompanyOverview(String ticker) {
-        String url = "https://www.alphavantage.co/query?function=OVERVIEW&symbol={symbol}&apikey={apiKey}";
+        String url = baseUrl + "/query?function=OVERVIEW&symbol={symbol}&apikey={apiKey}";
 
         try {
-            return restTemplate.getForObject(url, Map.class, ticker, apiKey);
+            return fetch("OVERVIEW", ticker.toUpperCase(), url, overviewTtl, r -> r.containsKey("Symbol"));
         } catch (Exception e) {
             log.error("Error fetching company overview for {}: {}", ticker, e.getMessage());
             throw new RuntimeException("Failed to fetch company data", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Serve a response from the disk cache or fetch it and cache it. Only responses that pass
+     * {@code valid} are cached, so rate-limit notes and error messages are always retried. A zero
+     * TTL turns caching off for that function.
+     */
+    private Map<String, Object> fetch(String function, String parameter, String url, Duration ttl,
+                                      Predicate<Map<String, Object>> valid) throws IOException {
+        Map<String, Object> cached = cached(function + ":" + parameter);
+        if (cached != null) {
+            return cached;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> response = restTemplate.getForObject(url, Map.class, parameter, apiKey);
+        store(function, parameter, response, ttl, valid);
+        return response;
+    }
+
+    private Map<String, Object> cached(String key) throws IOException {
+        byte[] cached = responseCache.get(key);
+        if (cached == null) {
+            return null;
+        }
+        log.debug("Alpha Vantage cache hit for {}", key);
+        return objectMapper.readValue(cached, RESPONSE_TYPE);
+    }
+
+    private void store(String function, String parameter, Map<String, Object> response, Duration ttl,
+                       Predicate<Map<String, Object>> valid) throws IOException {
+        if (response == null || !valid.test(response)) {
+            return;
+        }
+        byte[] body = objectMapper.writeValueAsBytes(response);
+        if (!ttl.isZero() && !ttl.isNegative()) {
+            responseCache.put(function + ":" + parameter, body, ttl);
+        }
+        if (recordDirectory != null) {
+            record(function, parameter, body);
+        }
+    }
+
+    private void record(String function, String parameter, byte[] body) {
+        try {
+            AlphaVantageFixtures.write(recordDirectory, function, parameter, body);
+        } catch (IOException e) {
+            log.warn("Failed to record {} response for {}: {}", function, parameter, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.investment_portfolio_tracker.service.external;
+
+import com.example.investment_portfolio_tracker.util.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * Durable, size-bounded cache of upstream responses kept in a single append-only log file.
+ * <p>
+ * Each record is {@code [magic][stored at][expires at][key length][value length][key][value][crc32]}.
+ * Only the key index lives on the heap; values are read back from the file on a hit. Opening the
+ * cache maps the log once and scans it front to back, the last record for a key winning, so
+ * warm-up costs one sequential read. A torn record at the tail (a crash mid-append) fails its
+ * checksum and is truncated away.
+ * <p>
+ * When the log outgrows {@code maxBytes} it is compacted into a new file holding only live
+ * entries, newest first, up to half the limit, then swapped in atomically.
+ * <p>
+ * One cache owns its directory: an exclusive lock on {@code responses.lock} is held from open to
+ * close, and a second opener, in this process or another, gets a {@link LockedException}.
+ */
+@Slf4j
+public class DiskResponseCache implements Closeable {
+
+    private static final int MAGIC = 0x41565243;
+    private static final int HEADER_BYTES = 28;
+    private static final int TRAILER_BYTES = 4;
+    private static final String LOG_FILE = "responses.log";
+    private static final String COMPACT_FILE = "responses.log.compact";
+    private static final String LOCK_FILE = "responses.lock";
+
+    private final Path file;
+    private final long maxBytes;
+    private final LongSupplier clock;
+    private final Map<String, Slot> index = new ConcurrentHashMap<>();
+    private final CacheStats stats = new CacheStats();
+    // Reads share the channel; appends and compaction swap it
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final FileChannel lockChannel;
+    private final FileLock ownership;
+
+    private FileChannel channel;
+    private long end;
+
+    public DiskResponseCache(Path directory, long maxBytes) throws IOException {
+        this(directory, maxBytes, System::currentTimeMillis);
+    }
+
+    public DiskResponseCache(Path directory, long maxBytes, LongSupplier clock) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve(LOG_FILE);
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+
+        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.ownership = tryLock(lockChannel);
+        if (ownership == null) {
+            lockChannel.close();
+            throw new LockedException(directory);
+        }
+
+        long started = System.nanoTime();
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.end = load();
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+        log.info("Loaded {} cached upstream responses from {} in {} ms",
+                index.size(), file, Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    /**
+     * The cached value, or null if absent or expired
+     */
+    public byte[] get(String key) {
+        lock.readLock().lock();
+        try {
+            // Looked up under the lock so compaction cannot move the value underneath us
+            Slot slot = index.get(key);
+            if (slot == null) {
+                stats.miss();
+                return null;
+            }
+            if (slot.expiresAt <= clock.getAsLong()) {
+                index.remove(key, slot);
+                stats.miss();
+                return null;
+            }
+            stats.hit();
+            ByteBuffer buffer = ByteBuffer.allocate(slot.valueLength);
+            return readFully(channel, buffer, slot.valueOffset) ? buffer.array() : null;
+        } catch (IOException e) {
+            log.warn("Failed to read cached response {}: {}", key, e.getMessage());
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Append a value and make it durable before returning
+     */
+    public void put(String key, byte[] value, Duration ttl) {
+        long now = clock.getAsLong();
+        lock.writeLock().lock();
+        try {
+            Slot slot = append(channel, end, key, value, now, now + ttl.toMillis());
+            channel.force(false);
+            end += recordLength(slot.keyLength, value.length);
+            index.put(key, slot);
+            if (end > maxBytes) {
+                compact();
+            }
+        } catch (IOException e) {
+            // A failed write only costs a future upstream call
+            log.warn("Failed to cache response {}: {}", key, e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    public long fileSize() {
+        lock.readLock().lock();
+        try {
+            return end;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            channel.close();
+        } finally {
+            // Closing the channel releases the directory lock
+            lockChannel.close();
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long load() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return 0;
+        }
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        long now = clock.getAsLong();
+        int position = 0;
+        while (position + HEADER_BYTES + TRAILER_BYTES <= size) {
+            map.position(position);
+            if (map.getInt() != MAGIC) {
+                break;
+            }
+            long storedAt = map.getLong();
+            long expiresAt = map.getLong();
+            int keyLength = map.getInt();
+            int valueLength = map.getInt();
+            long length = recordLength(keyLength, valueLength);
+            if (keyLength < 0 || valueLength < 0 || position + length > size) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(map.slice(position + 4, HEADER_BYTES - 4 + keyLength + valueLength));
+            map.position(position + HEADER_BYTES + keyLength + valueLength);
+            if ((int) crc.getValue() != map.getInt()) {
+                break;
+            }
+
+            byte[] keyBytes = new byte[keyLength];
+            map.get(position + HEADER_BYTES, keyBytes);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            if (expiresAt > now) {
+                index.put(key, new Slot(position + HEADER_BYTES + keyLength, keyLength, valueLength, storedAt, expiresAt));
+            } else {
+                index.remove(key);
+            }
+            position += (int) length;
+        }
+
+        if (position < size) {
+            log.warn("Truncating {} bytes of torn or corrupt records from {}", size - position, file);
+            channel.truncate(position);
+        }
+        return position;
+    }
+
+    /**
+     * Rewrite the log with only live entries, newest first, until half the size limit
+     */
+    private void compact() throws IOException {
+        long now = clock.getAsLong();
+        List<Map.Entry<String, Slot>> live = new ArrayList<>();
+        for (Map.Entry<String, Slot> entry : index.entrySet()) {
+            if (entry.getValue().expiresAt > now) {
+                live.add(entry);
+            }
+        }
+        live.sort(Comparator.comparingLong((Map.Entry<String, Slot> entry) -> entry.getValue().storedAt).reversed());
+
+        Path compacted = file.resolveSibling(COMPACT_FILE);
+        Map<String, Slot> kept = new ConcurrentHashMap<>();
+        long position = 0;
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Map.Entry<String, Slot> entry : live) {
+                Slot slot = entry.getValue();
+                long length = recordLength(slot.keyLength, slot.valueLength);
+                if (position + length > maxBytes / 2) {
+                    break;
+                }
+                ByteBuffer value = ByteBuffer.allocate(slot.valueLength);
+                if (!readFully(channel, value, slot.valueOffset)) {
+                    continue;
+                }
+                kept.put(entry.getKey(), append(out, position, entry.getKey(), value.array(), slot.storedAt, slot.expiresAt));
+                position += length;
+            }
+            out.force(true);
+        }
+
+        FileChannel previous = channel;
+        try {
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // Whatever is at the live path now, old log or compacted one, stays usable
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            previous.close();
+        }
+        log.info("Compacted response cache from {} to {} bytes, keeping {} of {} entries",
+                end, position, kept.size(), index.size());
+        index.keySet().retainAll(kept.keySet());
+        index.putAll(kept);
+        end = position;
+    }
+
+    private static FileLock tryLock(FileChannel lockChannel) throws IOException {
+        try {
+            return lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another cache in this JVM
+            return null;
+        }
+    }
+
+    private static boolean readFully(FileChannel source, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = source.read(buffer, position);
+            if (read < 0) {
+                return false;
+            }
+            position += read;
+        }
+        return true;
+    }
+
+    private static Slot append(FileChannel target, long position, String key, byte[] value,
+                               long storedAt, long expiresAt) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate((int) recordLength(keyBytes.length, value.length));
+        record.putInt(MAGIC)
+                .putLong(storedAt)
+                .putLong(expiresAt)
+                .putInt(keyBytes.length)
+                .putInt(value.length)
+                .put(keyBytes)
+                .put(value);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, record.position() - 4);
+        record.putInt((int) crc.getValue());
+        record.flip();
+
+        long offset = position;
+        while (record.hasRemaining()) {
+            offset += target.write(record, offset);
+        }
+        return new Slot(position + HEADER_BYTES + keyBytes.length, keyBytes.length, value.length, storedAt, expiresAt);
+    }
+
+    private static long recordLength(int keyLength, int valueLength) {
+        return (long) HEADER_BYTES + keyLength + valueLength + TRAILER_BYTES;
+    }
+
+    /**
+     * Thrown when another open cache already owns the directory
+     */
+    public static class LockedException extends IOException {
+
+        public LockedException(Path directory) {
+            super("Response cache directory " + directory + " is in use by another instance");
+        }
+    }
+
+    private record Slot(long valueOffset, int keyLength, int valueLength, long storedAt, long expiresAt) {
+    }
+}
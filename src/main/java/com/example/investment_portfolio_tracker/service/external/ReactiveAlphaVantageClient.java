@@ -0,0 +1,103 @@
+package com.example.investment_portfolio_tracker.service.external;
+
+import com.example.investment_portfolio_tracker.dto.external.AlphaVantageQuote;
+import com.example.investment_portfolio_tracker.service.marketdata.AlphaVantageMarketDataProvider;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketDataException;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketDataRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.Map;
+
+/**
+ * Non-blocking Alpha Vantage quote client for the reactive read path.
+ * <p>
+ * Shares the disk cache, replay recording and parsing of {@link AlphaVantageService}, so both
+ * paths spend the API quota once per quote TTL. A cache miss takes a call from the
+ * {@link MarketDataRouter}'s Alpha Vantage quota and circuit breaker before going upstream, and
+ * fails at once when neither allows it. Upstream calls wait on a bounded connection pool rather
+ * than a thread; cache reads and writes, which are blocking file I/O, are moved off the event loop.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "reactive.enabled", havingValue = "true")
+public class ReactiveAlphaVantageClient {
+
+    private static final ParameterizedTypeReference<Map<String, Object>> RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final AlphaVantageService alphaVantageService;
+    private final MarketDataRouter marketDataRouter;
+    private final ConnectionProvider connections;
+    private final WebClient webClient;
+
+    public ReactiveAlphaVantageClient(AlphaVantageService alphaVantageService, MarketDataRouter marketDataRouter,
+                                      @Value("${reactive.alphavantage.max-connections:500}") int maxConnections) {
+        this.alphaVantageService = alphaVantageService;
+        this.marketDataRouter = marketDataRouter;
+        this.connections = ConnectionProvider.builder("alphavantage")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        this.webClient = WebClient.builder()
+                .baseUrl(alphaVantageService.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .build();
+    }
+
+    @PreDestroy
+    public void close() {
+        connections.dispose();
+    }
+
+    public Mono<AlphaVantageQuote> getQuote(String ticker) {
+        String symbol = ticker.toUpperCase();
+        return Mono.fromCallable(() -> alphaVantageService.cachedQuote(symbol))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(response -> alphaVantageService.parseQuote(ticker, response))
+                .switchIfEmpty(Mono.defer(() -> fetchQuote(ticker, symbol)))
+                .onErrorMap(e -> !(e instanceof MarketDataException), e -> {
+                    log.error("Error fetching stock quote for {}: {}", ticker, e.getMessage());
+                    return new RuntimeException("Failed to fetch stock data", e);
+                });
+    }
+
+    private Mono<AlphaVantageQuote> fetchQuote(String ticker, String symbol) {
+        MarketDataRouter.ProviderCall call;
+        try {
+            call = marketDataRouter.acquire(AlphaVantageMarketDataProvider.NAME);
+        } catch (MarketDataException e) {
+            return Mono.error(e);
+        }
+        return webClient.get()
+                .uri(AlphaVantageService.QUOTE_QUERY, symbol, alphaVantageService.getApiKey())
+                .retrieve()
+                .bodyToMono(RESPONSE_TYPE)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Empty response from Alpha Vantage")))
+                .publishOn(Schedulers.boundedElastic())
+                // Judged like a routed call: an answer without a usable quote is a failure
+                .map(response -> {
+                    AlphaVantageQuote quote = alphaVantageService.parseQuote(ticker, response);
+                    try {
+                        alphaVantageService.storeQuote(symbol, response);
+                    } catch (Exception e) {
+                        log.warn("Failed to cache quote for {}: {}", symbol, e.getMessage());
+                    }
+                    return quote;
+                })
+                .doOnSuccess(quote -> call.succeeded())
+                .doOnError(e -> call.failed())
+                .doOnCancel(call::cancelled);
+    }
+}
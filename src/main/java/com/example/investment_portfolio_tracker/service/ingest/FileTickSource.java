@@ -0,0 +1,120 @@
+package com.example.investment_portfolio_tracker.service.ingest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tails a feed file and publishes each appended line, like {@code tail -F}.
+ * If the file shrinks (truncated or rotated in place) reading restarts from the top.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${ingest.enabled:false}' == 'true' and '${ingest.file.path:}' != ''")
+public class FileTickSource {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TickIngestionPipeline pipeline;
+    private final Path path;
+    private final boolean fromStart;
+    private final long pollIntervalMs;
+
+    private volatile boolean running;
+    private Thread tailer;
+
+    public FileTickSource(
+            TickIngestionPipeline pipeline,
+            @Value("${ingest.file.path}") String path,
+            @Value("${ingest.file.from-start:false}") boolean fromStart,
+            @Value("${ingest.file.poll-interval-ms:50}") long pollIntervalMs) {
+        this.pipeline = pipeline;
+        this.path = Path.of(path);
+        this.fromStart = fromStart;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        tailer = new Thread(this::tail, "tick-file-tailer");
+        tailer.setDaemon(true);
+        tailer.start();
+        log.info("Tailing tick feed file {}", path);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        tailer.interrupt();
+        tailer.join(1_000);
+    }
+
+    private void tail() {
+        long position = -1;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        StringBuilder partial = new StringBuilder();
+
+        while (running) {
+            try {
+                if (!Files.exists(path)) {
+                    Thread.sleep(pollIntervalMs);
+                    continue;
+                }
+                try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+                    long length = file.length();
+                    if (position < 0) {
+                        position = fromStart ? 0 : length;
+                    } else if (length < position) {
+                        log.info("Tick feed file {} was truncated, reading from the start", path);
+                        position = 0;
+                        partial.setLength(0);
+                    }
+
+                    file.seek(position);
+                    int read;
+                    while (running && (read = file.read(buffer)) > 0) {
+                        position += read;
+                        if (!publishLines(new String(buffer, 0, read, StandardCharsets.US_ASCII), partial)) {
+                            return;
+                        }
+                    }
+                }
+                Thread.sleep(pollIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.warn("Failed to read tick feed file {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Publish every complete line in the chunk, keeping any trailing partial line for the next read
+     */
+    private boolean publishLines(String chunk, StringBuilder partial) {
+        int start = 0;
+        int newline;
+        while ((newline = chunk.indexOf('\n', start)) >= 0) {
+            partial.append(chunk, start, newline);
+            String line = partial.toString();
+            partial.setLength(0);
+            start = newline + 1;
+            if (!line.isBlank() && !pipeline.publish(line)) {
+                return false;
+            }
+        }
+        partial.append(chunk, start, chunk.length());
+        return true;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.investment_portfolio_tracker.service.ingest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accepts newline-delimited ticks from local feed handlers over TCP.
+ * Each connection gets its own reader thread; a full ring blocks the reader, which pushes back on
+ * the sender through the socket buffer.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = {"ingest.enabled", "ingest.socket.enabled"}, havingValue = "true")
+public class SocketTickSource {
+
+    private final TickIngestionPipeline pipeline;
+    private final String host;
+    private final int port;
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+    private ServerSocket serverSocket;
+
+    public SocketTickSource(
+            TickIngestionPipeline pipeline,
+            @Value("${ingest.socket.host:127.0.0.1}") String host,
+            @Value("${ingest.socket.port:9099}") int port) {
+        this.pipeline = pipeline;
+        this.host = host;
+        this.port = port;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getByName(host));
+        Thread acceptor = new Thread(this::acceptLoop, "tick-socket-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Listening for ticks on {}:{}", host, serverSocket.getLocalPort());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        serverSocket.close();
+        for (Socket client : clients) {
+            client.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                clients.add(client);
+                Thread reader = new Thread(() -> read(client), "tick-socket-" + client.getPort());
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("Failed to accept tick feed connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void read(Socket client) {
+        log.info("Tick feed connected from {}", client.getRemoteSocketAddress());
+        try (client; BufferedReader reader = new BufferedReader(
+                new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && !pipeline.publish(line)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Tick feed {} closed: {}", client.getRemoteSocketAddress(), e.getMessage());
+        } finally {
+            clients.remove(client);
+        }
+        log.info("Tick feed from {} disconnected", client.getRemoteSocketAddress());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.investment_portfolio_tracker.service.ingest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in price feed for load testing the ingestion pipeline. Writes random-walk ticks for a set
+ * of tickers at a fixed rate to the socket source or appends them to a file for the file tailer.
+ * It has no dependencies, so it runs straight from the compiled classes:
+ * <pre>
+ * java -cp target/classes com.example.investment_portfolio_tracker.service.ingest.TickFeedGenerator \
+ *     --socket localhost:9099 --rate 5000 --seconds 60 AAPL MSFT GOOGL
+ * java -cp target/classes ...TickFeedGenerator --file /tmp/ticks.csv --rate 2000 AAPL MSFT
+ * </pre>
+ */
+public final class TickFeedGenerator {
+
+    private static final double VOLATILITY = 0.0005;
+    private static final long MIN_SLEEP_NANOS = 2_000_000L;
+
+    private TickFeedGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String socket = null;
+        String file = null;
+        int rate = 1_000;
+        long seconds = 60;
+        int first = 0;
+        while (first < args.length && args[first].startsWith("--")) {
+            switch (args[first]) {
+                case "--socket" -> socket = args[++first];
+                case "--file" -> file = args[++first];
+                case "--rate" -> rate = Integer.parseInt(args[++first]);
+                case "--seconds" -> seconds = Long.parseLong(args[++first]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[first]);
+            }
+            first++;
+        }
+        if ((socket == null) == (file == null) || first >= args.length) {
+            System.err.println("Usage: TickFeedGenerator (--socket host:port | --file path) "
+                    + "[--rate ticksPerSecond] [--seconds duration] TICKER...");
+            System.exit(2);
+        }
+
+        String[] tickers = new String[args.length - first];
+        double[] prices = new double[tickers.length];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < tickers.length; i++) {
+            tickers[i] = args[first + i].toUpperCase(Locale.ROOT);
+            prices[i] = 50 + random.nextDouble(450);
+        }
+
+        try (Socket connection = socket != null ? connect(socket) : null;
+             Writer writer = new BufferedWriter(connection != null
+                     ? new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.US_ASCII)
+                     : Files.newBufferedWriter(Path.of(file), StandardCharsets.US_ASCII,
+                     StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            run(writer, tickers, prices, rate, seconds);
+        }
+    }
+
+    private static void run(Writer writer, String[] tickers, double[] prices, int rate, long seconds)
+            throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.SECONDS.toNanos(seconds);
+        long next = started;
+        long sent = 0;
+        long reportAt = started + TimeUnit.SECONDS.toNanos(1);
+
+        while (System.nanoTime() < deadline) {
+            int i = random.nextInt(tickers.length);
+            prices[i] = Math.max(0.01, prices[i] * (1 + random.nextGaussian() * VOLATILITY));
+            writer.write(String.format(Locale.ROOT, "%s,%.4f,%d\n", tickers[i], prices[i], System.currentTimeMillis()));
+            sent++;
+
+            next += intervalNanos;
+            long now = System.nanoTime();
+            if (now >= reportAt) {
+                writer.flush();
+                System.out.printf("%d ticks sent, %.0f/s%n", sent, sent / ((now - started) / 1e9));
+                reportAt += TimeUnit.SECONDS.toNanos(1);
+            }
+            // Sleep only when well ahead of schedule; sub-millisecond sleeps would cap the rate
+            long wait = next - now;
+            if (wait > MIN_SLEEP_NANOS) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+        writer.flush();
+        System.out.printf("Done: %d ticks in %d s%n", sent, seconds);
+    }
+
+    private static Socket connect(String address) throws IOException {
+        int colon = address.lastIndexOf(':');
+        return new Socket(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+    }
+}
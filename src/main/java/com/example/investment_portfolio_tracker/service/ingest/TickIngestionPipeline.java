@@ -0,0 +1,393 @@
+package com.example.investment_portfolio_tracker.service.ingest;
+
+import com.example.investment_portfolio_tracker.event.StockListingChangedEvent;
+import com.example.investment_portfolio_tracker.event.StockPriceUpdatedEvent;
+import com.example.investment_portfolio_tracker.service.StockService;
+import com.example.investment_portfolio_tracker.service.market.PriceBoard;
+import com.example.investment_portfolio_tracker.util.FixedPoint;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ingests streaming price ticks through a ring buffer and a fixed chain of stages:
+ * parse, validate, conflate per stock, update the {@link PriceBoard}, and batch-persist.
+ * <p>
+ * Producers (socket and file sources) only append raw lines to the ring. A single consumer thread
+ * runs the first four stages, so per-stock state needs no locking. Conflated ticks are handed to
+ * a persister thread that writes them to stocks and stock_price_history in one transaction; while a
+ * flush is in flight newer ticks keep conflating, so a slow database sheds intermediate prices
+ * rather than backing up the feed. A failed flush is handed back to the consumer and merged under
+ * any newer ticks for the next flush.
+ * <p>
+ * Only rows the database actually moved forward are recorded in history and announced; a tick
+ * older than the stored price (written meanwhile through the API, say) changes nothing downstream.
+ * <p>
+ * Tickers are resolved to stock ids from a map loaded at startup and kept current from
+ * {@link StockListingChangedEvent}s. A ticker missing from it is looked up once and, if still
+ * unknown, not looked up again until {@code ingest.unknown-ticker-ttl-ms} has passed, so a feed
+ * full of symbols we do not track does not cost a query per tick.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "ingest.enabled", havingValue = "true")
+public class TickIngestionPipeline {
+
+    public enum Stage { PARSE, VALIDATE, CONFLATE, BOARD, PERSIST, END_TO_END }
+
+    private static final int DRAIN_BATCH = 1_024;
+    private static final long IDLE_PARK_NANOS = 100_000L;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final int SHUTDOWN_FLUSH_ATTEMPTS = 3;
+    private static final int MAX_UNKNOWN_TICKERS = 10_000;
+
+    private static final String FIND_STOCK_SQL = "SELECT id FROM stocks WHERE UPPER(ticker) = ?";
+
+    private static final String UPDATE_STOCK_SQL =
+            "UPDATE stocks SET current_price = ?, last_updated = ? WHERE id = ? AND last_updated <= ?";
+    private static final String UPSERT_CLOSE_SQL =
+            "INSERT INTO stock_price_history (stock_id, price_date, close_price, updated_at) " +
+                    "VALUES (?, ?, ?, ?) " +
+                    "ON CONFLICT (stock_id, price_date) " +
+                    "DO UPDATE SET close_price = EXCLUDED.close_price, updated_at = EXCLUDED.updated_at " +
+                    "WHERE stock_price_history.updated_at <= EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PriceBoard priceBoard;
+    private final StockService stockService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TickRingBuffer ring;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long maxSkewMillis;
+    private final long unknownTickerTtlNanos;
+
+    private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong persistFailures = new AtomicLong();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final AtomicReference<Map<Long, PendingTick>> failedFlush = new AtomicReference<>();
+    // Read by the consumer, kept current by listing changes
+    private final Map<String, Long> stockIds = new ConcurrentHashMap<>();
+    // Ticker to the nanoTime after which it may be looked up again
+    private final Map<String, Long> unknownTickers = new ConcurrentHashMap<>();
+
+    // Consumer thread state
+    private final Map<Long, Long> lastAccepted = new HashMap<>();
+    private final Map<Long, PendingTick> batch = new LinkedHashMap<>();
+    private Map<Long, PendingTick> dirty = new LinkedHashMap<>();
+    private long lastFlushNanos = System.nanoTime();
+
+    private Thread consumer;
+    private ExecutorService persister;
+
+    public TickIngestionPipeline(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            PriceBoard priceBoard,
+            StockService stockService,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${ingest.ring-size:65536}") int ringSize,
+            @Value("${ingest.batch-size:1000}") int batchSize,
+            @Value("${ingest.flush-interval-ms:250}") long flushIntervalMs,
+            @Value("${ingest.max-skew-ms:5000}") long maxSkewMillis,
+            @Value("${ingest.unknown-ticker-ttl-ms:60000}") long unknownTickerTtlMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.priceBoard = priceBoard;
+        this.stockService = stockService;
+        this.eventPublisher = eventPublisher;
+        this.ring = new TickRingBuffer(ringSize);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.maxSkewMillis = maxSkewMillis;
+        this.unknownTickerTtlNanos = TimeUnit.MILLISECONDS.toNanos(unknownTickerTtlMs);
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        jdbcTemplate.query("SELECT id, ticker FROM stocks",
+                (RowCallbackHandler) rs -> stockIds.put(rs.getString("ticker").toUpperCase(), rs.getLong("id")));
+        running.set(true);
+        persister = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "tick-persist"));
+        consumer = daemon(this::consume, "tick-ingest");
+        consumer.start();
+        log.info("Tick ingestion started: ring of {} slots, {} known tickers", ring.getCapacity(), stockIds.size());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running.set(false);
+        if (consumer != null) {
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        if (persister != null) {
+            persister.shutdown();
+            persister.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        log.info("Tick ingestion stopped: {}", getStats());
+    }
+
+    /**
+     * Append a raw feed line, waiting while the ring is full so producers feel backpressure
+     *
+     * @return false if the pipeline stopped before the line was accepted
+     */
+    public boolean publish(String line) {
+        received.incrementAndGet();
+        return ring.publish(line, System.nanoTime(), running::get);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(StockListingChangedEvent event) {
+        // Drop the old ticker of a renamed or deleted stock
+        stockIds.values().removeIf(id -> id.equals(event.stockId()));
+        if (!event.removed()) {
+            String ticker = event.ticker().toUpperCase();
+            stockIds.put(ticker, event.stockId());
+            unknownTickers.remove(ticker);
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("received", received.get());
+        stats.put("rejected", rejected.get());
+        stats.put("conflated", conflated.get());
+        stats.put("persisted", persisted.get());
+        stats.put("persistFailures", persistFailures.get());
+        stats.put("ringBacklog", ring.size());
+        Map<String, Object> stages = new LinkedHashMap<>();
+        histograms.forEach((stage, histogram) -> stages.put(stage.name(), histogram.summary()));
+        stats.put("stages", stages);
+        return stats;
+    }
+
+    private void consume() {
+        while (running.get() || ring.size() > 0) {
+            int drained = ring.drain(this::onTick, DRAIN_BATCH);
+            if (!batch.isEmpty()) {
+                applyToBoard();
+            }
+            maybeFlush(false);
+            if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        // Wait out any flush in flight so the last conflated prices are not lost on shutdown
+        int attempts = 0;
+        while (flushing.get() || !dirty.isEmpty() || failedFlush.get() != null) {
+            if (failedFlush.get() != null && ++attempts > SHUTDOWN_FLUSH_ATTEMPTS) {
+                log.warn("Dropping {} unpersisted ticks at shutdown", failedFlush.get().size() + dirty.size());
+                return;
+            }
+            maybeFlush(true);
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    private void onTick(String line, long receivedNanos) {
+        long started = System.nanoTime();
+        TickParser.Tick tick = TickParser.parse(line, System.currentTimeMillis());
+        long parsed = System.nanoTime();
+        histograms.get(Stage.PARSE).record(parsed - started);
+        if (tick == null) {
+            rejected.incrementAndGet();
+            return;
+        }
+
+        Long stockId = resolve(tick.ticker());
+        boolean valid = stockId != null && isValid(stockId, tick);
+        long validated = System.nanoTime();
+        histograms.get(Stage.VALIDATE).record(validated - parsed);
+        if (!valid) {
+            rejected.incrementAndGet();
+            return;
+        }
+
+        lastAccepted.put(stockId, tick.epochMillis());
+        if (batch.put(stockId, new PendingTick(stockId, tick, receivedNanos)) != null) {
+            conflated.incrementAndGet();
+        }
+        histograms.get(Stage.CONFLATE).record(System.nanoTime() - validated);
+    }
+
+    private boolean isValid(Long stockId, TickParser.Tick tick) {
+        if (tick.price() <= 0) {
+            return false;
+        }
+        if (tick.epochMillis() > System.currentTimeMillis() + maxSkewMillis) {
+            return false;
+        }
+        // Out-of-order ticks are dropped; equal timestamps are accepted and the later line wins
+        Long previous = lastAccepted.get(stockId);
+        return previous == null || tick.epochMillis() >= previous;
+    }
+
+    Long resolve(String ticker) {
+        Long stockId = stockIds.get(ticker);
+        if (stockId != null) {
+            return stockId;
+        }
+        long now = System.nanoTime();
+        Long retryAt = unknownTickers.get(ticker);
+        if (retryAt != null && now - retryAt < 0) {
+            return null;
+        }
+        // Stocks added on another node, or by a listing change we missed
+        List<Long> ids = jdbcTemplate.queryForList(FIND_STOCK_SQL, Long.class, ticker);
+        if (ids.isEmpty()) {
+            if (unknownTickers.size() >= MAX_UNKNOWN_TICKERS) {
+                unknownTickers.clear();
+            }
+            unknownTickers.put(ticker, now + unknownTickerTtlNanos);
+            return null;
+        }
+        unknownTickers.remove(ticker);
+        stockIds.put(ticker, ids.get(0));
+        return ids.get(0);
+    }
+
+    private void applyToBoard() {
+        long started = System.nanoTime();
+        for (PendingTick pending : batch.values()) {
+            priceBoard.update(pending.stockId(), pending.tick().price(), pending.tick().epochMillis());
+        }
+        long applied = System.nanoTime();
+        histograms.get(Stage.BOARD).record(applied - started);
+
+        LatencyHistogram endToEnd = histograms.get(Stage.END_TO_END);
+        for (PendingTick pending : batch.values()) {
+            endToEnd.record(applied - pending.receivedNanos());
+            if (dirty.put(pending.stockId(), pending) != null) {
+                conflated.incrementAndGet();
+            }
+        }
+        batch.clear();
+    }
+
+    private void maybeFlush(boolean force) {
+        Map<Long, PendingTick> failed = failedFlush.getAndSet(null);
+        if (failed != null) {
+            // Ticks that arrived since the failed flush are newer and win
+            failed.forEach(dirty::putIfAbsent);
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        boolean due = force || dirty.size() >= batchSize || now - lastFlushNanos >= flushIntervalNanos;
+        if (!due || !flushing.compareAndSet(false, true)) {
+            return;
+        }
+        Map<Long, PendingTick> flush = dirty;
+        dirty = new LinkedHashMap<>();
+        lastFlushNanos = now;
+        persister.execute(() -> persist(flush));
+    }
+
+    void persist(Map<Long, PendingTick> ticks) {
+        long started = System.nanoTime();
+        try {
+            List<PendingTick> pending = new ArrayList<>(ticks.values());
+            List<Object[]> stockRows = new ArrayList<>(pending.size());
+            for (PendingTick tick : pending) {
+                Timestamp timestamp = Timestamp.valueOf(tick.time());
+                stockRows.add(new Object[]{tick.price(), timestamp, tick.stockId(), timestamp});
+            }
+            List<PendingTick> applied = transactionTemplate.execute(status -> {
+                int[] counts = jdbcTemplate.batchUpdate(UPDATE_STOCK_SQL, stockRows);
+                List<PendingTick> moved = new ArrayList<>(pending.size());
+                List<Object[]> historyRows = new ArrayList<>(pending.size());
+                for (int i = 0; i < counts.length; i++) {
+                    // Zero rows means the stored price is newer than this tick
+                    if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                        PendingTick tick = pending.get(i);
+                        moved.add(tick);
+                        historyRows.add(new Object[]{tick.stockId(), Date.valueOf(tick.time().toLocalDate()),
+                                tick.price(), Timestamp.valueOf(tick.time())});
+                    }
+                }
+                if (!historyRows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPSERT_CLOSE_SQL, historyRows);
+                }
+                return moved;
+            });
+            persisted.addAndGet(applied.size());
+            histograms.get(Stage.PERSIST).record(System.nanoTime() - started);
+
+            // Streams, alerts and the stock cache follow committed prices; history is already written
+            for (PendingTick tick : applied) {
+                stockService.evictCached(tick.tick().ticker());
+                eventPublisher.publishEvent(new StockPriceUpdatedEvent(
+                        tick.stockId(), tick.tick().ticker(), tick.price(), tick.time(), true));
+            }
+        } catch (Exception e) {
+            persistFailures.incrementAndGet();
+            log.error("Failed to persist {} ticks, retrying with the next flush: {}", ticks.size(), e.getMessage());
+            failedFlush.set(ticks);
+        } finally {
+            flushing.set(false);
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    record PendingTick(Long stockId, TickParser.Tick tick, long receivedNanos) {
+
+        BigDecimal price() {
+            return FixedPoint.toDecimal(tick.price());
+        }
+
+        LocalDateTime time() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(tick.epochMillis()), ZONE);
+        }
+    }
+}
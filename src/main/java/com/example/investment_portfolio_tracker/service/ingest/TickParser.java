@@ -0,0 +1,121 @@
+package com.example.investment_portfolio_tracker.service.ingest;
+
+import com.example.investment_portfolio_tracker.util.FixedPoint;
+
+/**
+ * Parses feed lines of the form {@code TICKER,PRICE[,EPOCH_MILLIS]}.
+ * <p>
+ * The price is read straight into a {@link FixedPoint} long so the hot path never builds a
+ * BigDecimal; more than {@link FixedPoint#SCALE} decimal places is rejected rather than rounded.
+ */
+public final class TickParser {
+
+    private static final int MAX_TICKER_LENGTH = 20;
+    private static final long OVERFLOW_GUARD = Long.MAX_VALUE / 10;
+
+    private TickParser() {
+    }
+
+    /**
+     * @param defaultMillis timestamp to use when the line does not carry one
+     * @return the parsed tick, or null if the line is malformed
+     */
+    public static Tick parse(String line, long defaultMillis) {
+        if (line == null) {
+            return null;
+        }
+        int end = line.length();
+        while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+
+        int firstComma = line.indexOf(',');
+        if (firstComma <= 0 || firstComma > MAX_TICKER_LENGTH || firstComma >= end) {
+            return null;
+        }
+        int secondComma = line.indexOf(',', firstComma + 1);
+        if (secondComma >= end) {
+            secondComma = -1;
+        }
+
+        String ticker = line.substring(0, firstComma).trim().toUpperCase();
+        if (ticker.isEmpty()) {
+            return null;
+        }
+        long price = parseFixed(line, firstComma + 1, secondComma < 0 ? end : secondComma);
+        if (price < 0) {
+            return null;
+        }
+        long millis = defaultMillis;
+        if (secondComma >= 0) {
+            millis = parseLong(line, secondComma + 1, end);
+            if (millis < 0) {
+                return null;
+            }
+        }
+        return new Tick(ticker, price, millis);
+    }
+
+    /**
+     * Non-negative decimal with at most SCALE places, as a fixed-point long; -1 if malformed
+     */
+    static long parseFixed(CharSequence text, int from, int to) {
+        long value = 0;
+        int decimals = -1;
+        boolean digits = false;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                if (decimals >= 0) {
+                    return -1;
+                }
+                decimals = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (decimals >= FixedPoint.SCALE || value > OVERFLOW_GUARD) {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+                digits = true;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else if (c != ' ') {
+                return -1;
+            }
+        }
+        if (!digits) {
+            return -1;
+        }
+        for (int i = Math.max(decimals, 0); i < FixedPoint.SCALE; i++) {
+            if (value > OVERFLOW_GUARD) {
+                return -1;
+            }
+            value *= 10;
+        }
+        return value;
+    }
+
+    private static long parseLong(CharSequence text, int from, int to) {
+        long value = 0;
+        boolean digits = false;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (value > OVERFLOW_GUARD) {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+                digits = true;
+            } else if (c != ' ') {
+                return -1;
+            }
+        }
+        return digits ? value : -1;
+    }
+
+    /**
+     * A parsed tick with its price in fixed point and its time in epoch millis
+     */
+    public record Tick(String ticker, long price, long epochMillis) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.investment_portfolio_tracker.service.ingest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded multi-producer, single-consumer ring of raw feed lines.
+ * <p>
+ * Slots are preallocated and reused. Each slot carries a sequence number: a producer may claim
+ * position {@code p} once the slot's sequence equals {@code p}, and publishes it by setting the
+ * sequence to {@code p + 1}; the consumer releases it for the next lap by setting it to
+ * {@code p + capacity}. Producers never take a lock and the consumer never writes the claim cursor.
+ */
+public class TickRingBuffer {
+
+    private static final long BACKOFF_NANOS = 1_000L;
+
+    private final int capacity;
+    private final int mask;
+    private final TickEvent[] events;
+    private final AtomicLongArray sequences;
+    private final AtomicLong claimed = new AtomicLong();
+
+    // Written only by the consumer thread; volatile so size() can be read from elsewhere
+    private volatile long consumed;
+
+    public TickRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.events = new TickEvent[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            events[i] = new TickEvent();
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Publish a line if there is room
+     *
+     * @return false if the ring is full
+     */
+    public boolean tryPublish(String line, long receivedNanos) {
+        long position;
+        int index;
+        while (true) {
+            position = claimed.get();
+            index = (int) (position & mask);
+            long lag = sequences.get(index) - position;
+            if (lag == 0) {
+                if (claimed.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (lag < 0) {
+                return false;
+            }
+        }
+
+        TickEvent event = events[index];
+        event.line = line;
+        event.receivedNanos = receivedNanos;
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Publish a line, waiting for the consumer while the ring is full
+     *
+     * @return false if {@code running} turned false before there was room
+     */
+    public boolean publish(String line, long receivedNanos, BooleanSupplier running) {
+        while (!tryPublish(line, receivedNanos)) {
+            if (!running.getAsBoolean()) {
+                return false;
+            }
+            LockSupport.parkNanos(BACKOFF_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * Hand up to {@code max} published events to the handler in order. Consumer thread only.
+     *
+     * @return the number of events consumed
+     */
+    public int drain(TickHandler handler, int max) {
+        int count = 0;
+        while (count < max) {
+            int index = (int) (consumed & mask);
+            if (sequences.get(index) != consumed + 1) {
+                break;
+            }
+            TickEvent event = events[index];
+            handler.onTick(event.line, event.receivedNanos);
+            event.line = null;
+            sequences.set(index, consumed + capacity);
+            consumed++;
+            count++;
+        }
+        return count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Approximate number of claimed but unconsumed slots
+     */
+    public long size() {
+        return Math.max(0, claimed.get() - consumed);
+    }
+
+    @FunctionalInterface
+    public interface TickHandler {
+        void onTick(String line, long receivedNanos);
+    }
+
+    private static final class TickEvent {
+        private String line;
+        private long receivedNanos;
+    }
+}
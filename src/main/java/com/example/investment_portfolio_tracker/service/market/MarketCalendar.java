@@ -0,0 +1,72 @@
+package com.example.investment_portfolio_tracker.service.market;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Trading hours of the exchange whose prices we refresh: a session in the exchange's own time
+ * zone on configured weekdays, minus listed holidays. A grace period after the close lets the
+ * closing prints be picked up.
+ */
+@Component
+public class MarketCalendar {
+
+    private final ZoneId zone;
+    private final LocalTime open;
+    private final LocalTime close;
+    private final int graceMinutes;
+    private final Set<DayOfWeek> tradingDays;
+    private final Set<LocalDate> holidays;
+
+    public MarketCalendar(
+            @Value("${market.timezone:America/New_York}") String zone,
+            @Value("${market.calendar.open:09:30}") String open,
+            @Value("${market.calendar.close:16:00}") String close,
+            @Value("${market.calendar.grace-minutes:15}") int graceMinutes,
+            @Value("${market.calendar.trading-days:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY}") List<String> tradingDays,
+            @Value("${market.calendar.holidays:}") List<String> holidays) {
+        this.zone = ZoneId.of(zone);
+        this.open = LocalTime.parse(open);
+        this.close = LocalTime.parse(close);
+        this.graceMinutes = graceMinutes;
+        this.tradingDays = tradingDays.stream()
+                .filter(day -> !day.isBlank())
+                .map(day -> DayOfWeek.valueOf(day.trim().toUpperCase()))
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(DayOfWeek.class)));
+        this.holidays = holidays.stream()
+                .filter(day -> !day.isBlank())
+                .map(day -> LocalDate.parse(day.trim()))
+                .collect(Collectors.toSet());
+    }
+
+    public boolean isTradingDay(LocalDate date) {
+        return tradingDays.contains(date.getDayOfWeek()) && !holidays.contains(date);
+    }
+
+    /**
+     * True during the session, including the grace period after the close
+     */
+    public boolean isOpen(Instant instant) {
+        ZonedDateTime local = instant.atZone(zone);
+        if (!isTradingDay(local.toLocalDate())) {
+            return false;
+        }
+        LocalTime time = local.toLocalTime();
+        return !time.isBefore(open) && time.isBefore(close.plusMinutes(graceMinutes));
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.investment_portfolio_tracker.service.market;
+
+import com.example.investment_portfolio_tracker.event.StockPriceUpdatedEvent;
+import com.example.investment_portfolio_tracker.model.Stock;
+import com.example.investment_portfolio_tracker.util.FixedPoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide board of current prices, one dense slot per stock.
+ * <p>
+ * Prices are held as {@link FixedPoint} longs in an {@link AtomicLongArray} with a parallel array of
+ * update times, so a read is a single volatile load and a write is a single volatile store. The
+ * stock id to slot map is only written the first time a stock is seen. The board follows committed
+ * price writes and is filled from the stocks table at startup; callers fall back to the entity
+ * price for any stock it does not hold.
+ */
+@Slf4j
+@Service
+public class PriceBoard {
+
+    private static final long NO_PRICE = Long.MIN_VALUE;
+    private static final long NO_STOCK = -1L;
+    private static final int FETCH_SIZE = 10_000;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int capacity;
+    private final AtomicLongArray prices;
+    private final AtomicLongArray updatedAt;
+    private final AtomicLongArray stockIds;
+    private final Map<Long, Integer> slots = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final AtomicBoolean overflowLogged = new AtomicBoolean();
+
+    public PriceBoard(JdbcTemplate jdbcTemplate, @Value("${price-board.capacity:65536}") int capacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.capacity = capacity;
+        this.prices = new AtomicLongArray(capacity);
+        this.updatedAt = new AtomicLongArray(capacity);
+        this.stockIds = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            prices.set(i, NO_PRICE);
+            stockIds.set(i, NO_STOCK);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        int[] loaded = {0};
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            "SELECT id, current_price, last_updated FROM stocks WHERE current_price IS NOT NULL ORDER BY id");
+                    ps.setFetchSize(FETCH_SIZE);
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> {
+                    Timestamp lastUpdated = rs.getTimestamp("last_updated");
+                    if (update(rs.getLong("id"), rs.getBigDecimal("current_price"),
+                            lastUpdated != null ? lastUpdated.toLocalDateTime() : LocalDateTime.now())) {
+                        loaded[0]++;
+                    }
+                });
+        log.info("Price board warmed with {} prices ({} slots)", loaded[0], capacity);
+    }
+
+    // Ahead of other listeners, so any that read the board on this event see the new price
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPriceUpdated(StockPriceUpdatedEvent event) {
+        update(event.stockId(), event.price(), event.updatedAt());
+    }
+
+    /**
+     * Record a stock's current price. Returns false if the price is missing, older than the one
+     * already held, or the board is full.
+     */
+    public boolean update(long stockId, BigDecimal price, LocalDateTime time) {
+        if (price == null) {
+            return false;
+        }
+        return update(stockId, FixedPoint.toFixed(price), time.atZone(ZONE).toInstant().toEpochMilli());
+    }
+
+    /**
+     * Record a fixed-point price stamped with epoch millis, for feeds that never build a BigDecimal
+     */
+    public boolean update(long stockId, long fixedPrice, long epochMillis) {
+        int slot = slotFor(stockId);
+        if (slot < 0) {
+            return false;
+        }
+        // Best effort against late writers; concurrent writers of the same stock are last-writer-wins
+        if (prices.get(slot) != NO_PRICE && updatedAt.get(slot) > epochMillis) {
+            return false;
+        }
+        // The price is stored first so a reader that sees the new time also sees the new price
+        prices.set(slot, fixedPrice);
+        updatedAt.set(slot, epochMillis);
+        return true;
+    }
+
+    /**
+     * The board price as a fixed-point long, or {@link Long#MIN_VALUE} if the stock has none
+     */
+    public long getFixed(long stockId) {
+        Integer slot = slots.get(stockId);
+        return slot != null ? prices.get(slot) : NO_PRICE;
+    }
+
+    /**
+     * The board price, or null if the stock has none
+     */
+    public BigDecimal getPrice(long stockId) {
+        long fixed = getFixed(stockId);
+        return fixed != NO_PRICE ? FixedPoint.toDecimal(fixed) : null;
+    }
+
+    /**
+     * The board price for a stock, falling back to the entity's own price
+     */
+    public BigDecimal currentPrice(Stock stock) {
+        if (stock.getId() != null) {
+            BigDecimal price = getPrice(stock.getId());
+            if (price != null) {
+                return price;
+            }
+        }
+        return stock.getCurrentPrice();
+    }
+
+    /**
+     * Market value of a quantity at the board price, or null if the stock has no price at all
+     */
+    public BigDecimal valueOf(Stock stock, BigDecimal quantity) {
+        BigDecimal price = currentPrice(stock);
+        return price != null ? price.multiply(quantity) : null;
+    }
+
+    public LocalDateTime getUpdatedAt(long stockId) {
+        Integer slot = slots.get(stockId);
+        if (slot == null || prices.get(slot) == NO_PRICE) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(updatedAt.get(slot)), ZONE);
+    }
+
+    /**
+     * Ids of the highest-priced stocks on the board, most expensive first
+     */
+    public List<Long> topStockIds(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        // Min-heap of slots by price, so the cheapest of the current top is evicted first
+        PriorityQueue<long[]> heap = new PriorityQueue<>(limit + 1, (a, b) -> Long.compare(a[1], b[1]));
+        int used = Math.min(nextSlot.get(), capacity);
+        for (int slot = 0; slot < used; slot++) {
+            long stockId = stockIds.get(slot);
+            long price = prices.get(slot);
+            if (stockId == NO_STOCK || price == NO_PRICE) {
+                continue;
+            }
+            heap.offer(new long[]{stockId, price});
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ids.add(heap.poll()[0]);
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    /**
+     * Clear a deleted stock's price; its slot stays reserved
+     */
+    public void remove(long stockId) {
+        Integer slot = slots.get(stockId);
+        if (slot != null) {
+            prices.set(slot, NO_PRICE);
+        }
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    private int slotFor(long stockId) {
+        Integer slot = slots.get(stockId);
+        if (slot != null) {
+            return slot;
+        }
+        slot = slots.computeIfAbsent(stockId, id -> {
+            int assigned = nextSlot.getAndIncrement();
+            if (assigned >= capacity) {
+                return -1;
+            }
+            stockIds.set(assigned, id);
+            return assigned;
+        });
+        if (slot < 0) {
+            slots.remove(stockId, -1);
+            if (overflowLogged.compareAndSet(false, true)) {
+                log.warn("Price board is full at {} stocks; raise price-board.capacity", capacity);
+            }
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.investment_portfolio_tracker.service.market;
+
+import com.example.investment_portfolio_tracker.dto.RefreshStatusDto;
+import com.example.investment_portfolio_tracker.event.ShardAssignmentChangedEvent;
+import com.example.investment_portfolio_tracker.model.Stock;
+import com.example.investment_portfolio_tracker.repository.PositionRepository;
+import com.example.investment_portfolio_tracker.repository.StockRepository;
+import com.example.investment_portfolio_tracker.service.StockService;
+import com.example.investment_portfolio_tracker.service.cluster.ClusterCoordinator;
+import com.example.investment_portfolio_tracker.util.TokenBucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spends the market data API quota on the prices that matter most.
+ * <p>
+ * Every stock gets a priority from how stale its price is, weighted up by how many users hold it
+ * and the market value they hold; stocks nobody holds are weighted down heavily so they only get
+ * refreshed once everything held is reasonably fresh. The queue is rebuilt periodically and
+ * drained continuously, one call per token from a per-minute bucket and under a daily cap, and
+ * only while the exchange is open. The daily cap is {@code market-refresh.calls-per-day} less the
+ * calls set aside for symbol search backfill, since both spend the same key.
+ * <p>
+ * In a cluster each node only queues the tickers in the shards it owns, and the quota is split
+ * evenly between the live nodes since they share one API key.
+ */
+@Slf4j
+@Service
+public class PriceRefreshService {
+
+    private static final Comparator<RefreshTask> BY_PRIORITY =
+            Comparator.comparingDouble(RefreshTask::priority).reversed();
+    // Age given to stocks that have never been priced, so they sort ahead of anything merely stale
+    private static final long NEVER_PRICED = TimeUnit.DAYS.toSeconds(3650);
+
+    private final StockRepository stockRepository;
+    private final PositionRepository positionRepository;
+    private final StockService stockService;
+    private final PriceBoard priceBoard;
+    private final MarketCalendar marketCalendar;
+    private final ClusterCoordinator clusterCoordinator;
+    private final TokenBucket perMinute;
+    private final int dailyLimit;
+    private final double unheldWeight;
+    private final Clock clock;
+    private final Timer quotaWait;
+
+    private final PriorityBlockingQueue<RefreshTask> queue = new PriorityBlockingQueue<>(64, BY_PRIORITY);
+    private final AtomicLong refreshed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong usedToday = new AtomicLong();
+    private volatile LocalDate quotaDate;
+    private volatile StalenessSnapshot staleness = StalenessSnapshot.EMPTY;
+    // When the head of the queue was first turned away by the per-minute bucket, or -1; drain() is never concurrent
+    private long throttledSince = -1;
+
+    public PriceRefreshService(
+            StockRepository stockRepository,
+            PositionRepository positionRepository,
+            StockService stockService,
+            PriceBoard priceBoard,
+            MarketCalendar marketCalendar,
+            ClusterCoordinator clusterCoordinator,
+            @Value("${market-refresh.calls-per-minute:5}") int callsPerMinute,
+            @Value("${market-refresh.calls-per-day:25}") int dailyLimit,
+            @Value("${symbol-universe.backfill.calls-per-day:5}") int backfillPerDay,
+            @Value("${market-refresh.unheld-weight:0.05}") double unheldWeight,
+            MeterRegistry meterRegistry) {
+        this(stockRepository, positionRepository, stockService, priceBoard, marketCalendar, clusterCoordinator,
+                new TokenBucket(callsPerMinute, TimeUnit.MINUTES.toNanos(1)), Math.max(0, dailyLimit - backfillPerDay),
+                unheldWeight,
+                Clock.systemDefaultZone(), meterRegistry);
+    }
+
+    PriceRefreshService(StockRepository stockRepository, PositionRepository positionRepository, StockService stockService,
+                        PriceBoard priceBoard, MarketCalendar marketCalendar, ClusterCoordinator clusterCoordinator,
+                        TokenBucket perMinute, int dailyLimit, double unheldWeight, Clock clock, MeterRegistry meterRegistry) {
+        this.stockRepository = stockRepository;
+        this.positionRepository = positionRepository;
+        this.stockService = stockService;
+        this.priceBoard = priceBoard;
+        this.marketCalendar = marketCalendar;
+        this.clusterCoordinator = clusterCoordinator;
+        this.perMinute = perMinute;
+        this.dailyLimit = dailyLimit;
+        this.unheldWeight = unheldWeight;
+        this.clock = clock;
+        this.quotaWait = Timer.builder("market-refresh.quota.wait")
+                .description("Time a due refresh was held back by the per-minute quota")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.quotaDate = LocalDate.now(clock.withZone(marketCalendar.getZone()));
+    }
+
+    /**
+     * Recompute every stock's priority and replace the queue
+     */
+    @Transactional(readOnly = true)
+    public int reprioritize() {
+        Map<Long, Holding> holdings = new HashMap<>();
+        for (Map<String, Object> row : positionRepository.getHoldingsByStock()) {
+            holdings.put((Long) row.get("stockId"),
+                    new Holding(((Number) row.get("holders")).longValue(), (BigDecimal) row.get("quantity")));
+        }
+
+        Instant now = clock.instant();
+        List<RefreshTask> tasks = new ArrayList<>();
+        List<Long> allAges = new ArrayList<>();
+        List<Long> heldAges = new ArrayList<>();
+        for (Stock stock : stockRepository.findAll()) {
+            if (!clusterCoordinator.ownsTicker(stock.getTicker())) {
+                continue;
+            }
+            long ageSeconds = ageSeconds(stock, now);
+            Holding holding = holdings.get(stock.getId());
+            if (ageSeconds != NEVER_PRICED) {
+                allAges.add(ageSeconds);
+                if (holding != null) {
+                    heldAges.add(ageSeconds);
+                }
+            }
+            tasks.add(new RefreshTask(stock.getId(), stock.getTicker(), priority(stock, holding, ageSeconds), ageSeconds));
+        }
+
+        queue.clear();
+        queue.addAll(tasks);
+        staleness = new StalenessSnapshot(percentiles(allAges), percentiles(heldAges), now);
+        log.debug("Refresh queue rebuilt with {} stocks ({} held)", tasks.size(), heldAges.size());
+        return tasks.size();
+    }
+
+    /**
+     * Refresh the highest-priority stocks while the market is open and quota remains
+     *
+     * @return the number of stocks refreshed
+     */
+    public int drain() {
+        if (!marketCalendar.isOpen(clock.instant())) {
+            return 0;
+        }
+        // Each call costs one token per live node, so together the nodes stay within one key's quota
+        int nodes = clusterCoordinator.getLiveNodeCount();
+        int count = 0;
+        while (hasDailyQuota(nodes)) {
+            RefreshTask task = queue.poll();
+            if (task == null) {
+                break;
+            }
+            if (!clusterCoordinator.ownsTicker(task.ticker())) {
+                // Shard moved to another node since the queue was built
+                continue;
+            }
+            if (!perMinute.tryAcquire(nodes)) {
+                queue.add(task);
+                if (throttledSince < 0) {
+                    throttledSince = clock.millis();
+                }
+                break;
+            }
+            if (throttledSince >= 0) {
+                quotaWait.record(clock.millis() - throttledSince, TimeUnit.MILLISECONDS);
+                throttledSince = -1;
+            }
+            usedToday.incrementAndGet();
+            try {
+                if (stockService.refreshStockPrice(task.ticker()).isStale()) {
+                    // Circuits are open; the revalidator retries it and so will the next rebuild
+                    failed.incrementAndGet();
+                    continue;
+                }
+                refreshed.incrementAndGet();
+                count++;
+            } catch (RuntimeException e) {
+                // Picked up again on the next rebuild
+                failed.incrementAndGet();
+                log.warn("Scheduled refresh of {} failed: {}", task.ticker(), e.getMessage());
+            }
+        }
+        return count;
+    }
+
+    @EventListener
+    public void onShardsChanged(ShardAssignmentChangedEvent event) {
+        reprioritize();
+    }
+
+    public RefreshStatusDto getStatus() {
+        StalenessSnapshot snapshot = staleness;
+        RefreshTask next = queue.peek();
+        return RefreshStatusDto.builder()
+                .marketOpen(marketCalendar.isOpen(clock.instant()))
+                .queueDepth(queue.size())
+                .nextTicker(next != null ? next.ticker() : null)
+                .tokensAvailable(perMinute.available())
+                .callsUsedToday(usedToday.get())
+                .dailyLimit(dailyLimit / clusterCoordinator.getLiveNodeCount())
+                .clusterNodes(clusterCoordinator.getLiveNodeCount())
+                .refreshed(refreshed.get())
+                .failed(failed.get())
+                .stalenessSeconds(snapshot.all())
+                .heldStalenessSeconds(snapshot.held())
+                .computedAt(snapshot.computedAt() != null
+                        ? LocalDateTime.ofInstant(snapshot.computedAt(), ZoneId.systemDefault()) : null)
+                .build();
+    }
+
+    /**
+     * Staleness in minutes, scaled by holder count and held market value (log-damped so one whale
+     * cannot starve everything else), and by {@code unheldWeight} for stocks nobody holds
+     */
+    double priority(Stock stock, Holding holding, long ageSeconds) {
+        double staleMinutes = ageSeconds / 60.0;
+        if (holding == null) {
+            return staleMinutes * unheldWeight;
+        }
+        BigDecimal price = priceBoard.currentPrice(stock);
+        double marketValue = price != null ? price.multiply(holding.quantity()).doubleValue() : 0;
+        return staleMinutes * (1 + Math.log1p(holding.holders())) * (1 + Math.log10(1 + marketValue));
+    }
+
+    private long ageSeconds(Stock stock, Instant now) {
+        LocalDateTime updated = stock.getLastUpdated();
+        // The board may have a newer price from the streaming feed than the row we just read
+        if (stock.getId() != null) {
+            LocalDateTime boardUpdated = priceBoard.getUpdatedAt(stock.getId());
+            if (boardUpdated != null && (updated == null || boardUpdated.isAfter(updated))) {
+                updated = boardUpdated;
+            }
+        }
+        if (updated == null || stock.getCurrentPrice() == null) {
+            return NEVER_PRICED;
+        }
+        return Math.max(0, Duration.between(updated.atZone(ZoneId.systemDefault()).toInstant(), now).getSeconds());
+    }
+
+    private boolean hasDailyQuota(int nodes) {
+        LocalDate today = LocalDate.now(clock.withZone(marketCalendar.getZone()));
+        if (!today.equals(quotaDate)) {
+            quotaDate = today;
+            usedToday.set(0);
+        }
+        return usedToday.get() < dailyLimit / nodes;
+    }
+
+    /**
+     * p50, p90, p99 and max of the given ages
+     */
+    static Map<String, Long> percentiles(List<Long> ages) {
+        Map<String, Long> result = new HashMap<>();
+        if (ages.isEmpty()) {
+            return result;
+        }
+        long[] sorted = ages.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        result.put("p50", sorted[rank(sorted.length, 0.50)]);
+        result.put("p90", sorted[rank(sorted.length, 0.90)]);
+        result.put("p99", sorted[rank(sorted.length, 0.99)]);
+        result.put("max", sorted[sorted.length - 1]);
+        return result;
+    }
+
+    private static int rank(int size, double quantile) {
+        return Math.min(size - 1, Math.max(0, (int) Math.ceil(quantile * size) - 1));
+    }
+
+    record Holding(long holders, BigDecimal quantity) {
+    }
+
+    record RefreshTask(Long stockId, String ticker, double priority, long ageSeconds) {
+    }
+
+    private record StalenessSnapshot(Map<String, Long> all, Map<String, Long> held, Instant computedAt) {
+        static final StalenessSnapshot EMPTY = new StalenessSnapshot(Map.of(), Map.of(), null);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.investment_portfolio_tracker.service.market;
+
+import com.example.investment_portfolio_tracker.event.QuoteRevalidationRequestedEvent;
+import com.example.investment_portfolio_tracker.model.Stock;
+import com.example.investment_portfolio_tracker.service.StockService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Re-fetches prices that were served stale, once the market data circuits may let calls through.
+ * <p>
+ * Each ticker has at most one revalidation pending. If the circuits are still open when it runs,
+ * the refresh serves stale again and asks for another revalidation, so a ticker keeps being retried
+ * about once per open period until a provider answers.
+ */
+@Slf4j
+@Service
+public class QuoteRevalidator {
+
+    private final StockService stockService;
+    private final long minDelayMs;
+    private final ScheduledExecutorService executor;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicLong staleServed = new AtomicLong();
+    private final AtomicLong revalidated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public QuoteRevalidator(
+            StockService stockService,
+            @Value("${market-data.revalidation.min-delay-ms:1000}") long minDelayMs) {
+        this.stockService = stockService;
+        this.minDelayMs = minDelayMs;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "quote-revalidator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRevalidationRequested(QuoteRevalidationRequestedEvent event) {
+        // Scheduled refreshes and our own retries also come back stale; only count what a user got
+        if (event.callerWaiting()) {
+            staleServed.incrementAndGet();
+        }
+        String ticker = event.ticker().toUpperCase();
+        if (!pending.add(ticker)) {
+            return;
+        }
+        // Jitter so a burst of stale tickers doesn't hit the half-open probe all at once
+        long delay = Math.max(event.retryAfterMillis(), minDelayMs) + ThreadLocalRandom.current().nextLong(minDelayMs + 1);
+        executor.schedule(() -> revalidate(ticker), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stale prices returned to users since startup
+     */
+    public long getStaleServed() {
+        return staleServed.get();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("staleServed", staleServed.get());
+        stats.put("pending", pending.size());
+        stats.put("revalidated", revalidated.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+
+    private void revalidate(String ticker) {
+        // Cleared first so a refresh that is still stale can schedule the next attempt
+        pending.remove(ticker);
+        try {
+            Stock stock = stockService.refreshStockPrice(ticker);
+            if (!stock.isStale()) {
+                revalidated.incrementAndGet();
+                log.info("Revalidated stale price for {}", ticker);
+            }
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.warn("Revalidation of {} failed: {}", ticker, e.getMessage());
+        }
+    }
+}
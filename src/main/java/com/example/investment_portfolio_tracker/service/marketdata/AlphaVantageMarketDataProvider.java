@@ -0,0 +1,54 @@
+package com.example.investment_portfolio_tracker.service.marketdata;
+
+import com.example.investment_portfolio_tracker.dto.external.AlphaVantageQuote;
+import com.example.investment_portfolio_tracker.service.external.AlphaVantageService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+@RequiredArgsConstructor
+public class AlphaVantageMarketDataProvider implements MarketDataProvider {
+
+    public static final String NAME = "alphavantage";
+
+    private final AlphaVantageService alphaVantageService;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public MarketQuote getQuote(String ticker) {
+        try {
+            AlphaVantageQuote quote = alphaVantageService.getQuote(ticker);
+            return new MarketQuote(quote.getSymbol(), quote.getPrice(), quote.getPreviousClose(),
+                    quote.getVolume(), quote.getTimestamp(), NAME);
+        } catch (RuntimeException e) {
+            throw new MarketDataException("Alpha Vantage quote failed for " + ticker, e);
+        }
+    }
+
+    @Override
+    public Optional<CompanyProfile> getCompanyProfile(String ticker) {
+        Map<String, Object> overview;
+        try {
+            overview = alphaVantageService.getCompanyOverview(ticker);
+        } catch (RuntimeException e) {
+            throw new MarketDataException("Alpha Vantage overview failed for " + ticker, e);
+        }
+        // Unknown symbols come back as an empty object
+        if (overview == null || !overview.containsKey("Symbol")) {
+            return Optional.empty();
+        }
+        return Optional.of(new CompanyProfile(
+                (String) overview.get("Name"),
+                (String) overview.get("Exchange"),
+                (String) overview.get("Sector"),
+                (String) overview.get("Industry"),
+                (String) overview.get("Currency")));
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.investment_portfolio_tracker.service.marketdata;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker around one upstream.
+ * <p>
+ * CLOSED records the outcome of the last {@code windowSize} calls and opens once at least
+ * {@code minCalls} have been seen and the failure rate reaches the threshold. OPEN rejects every
+ * call until {@code openDuration} has passed, then goes HALF_OPEN and lets {@code halfOpenProbes}
+ * calls through: one success closes the circuit with a fresh window, one failure opens it again.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    public record Config(int windowSize, int minCalls, double failureRateThreshold, Duration openDuration,
+                         int halfOpenProbes) {
+    }
+
+    private final String name;
+    private final Config config;
+    private final LongSupplier nanoClock;
+
+    // All guarded by this
+    private final boolean[] window;
+    private int next;
+    private int recorded;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesInFlight;
+    private long timesOpened;
+    private long timesClosed;
+    private long rejected;
+
+    public CircuitBreaker(String name, Config config) {
+        this(name, config, System::nanoTime);
+    }
+
+    public CircuitBreaker(String name, Config config, LongSupplier nanoClock) {
+        if (config.windowSize() < 1 || config.minCalls() < 1 || config.halfOpenProbes() < 1) {
+            throw new IllegalArgumentException("Circuit breaker window, minimum calls and probes must be positive");
+        }
+        this.name = name;
+        this.config = config;
+        this.nanoClock = nanoClock;
+        this.window = new boolean[config.windowSize()];
+    }
+
+    /**
+     * Ask to make a call. Every permitted call must be followed by exactly one of
+     * {@link #onSuccess}, {@link #onFailure} or {@link #release}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < config.openDuration().toNanos()) {
+                rejected++;
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= config.halfOpenProbes()) {
+                rejected++;
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            probesInFlight--;
+            clearWindow();
+            transition(State.CLOSED);
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            probesInFlight--;
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= config.minCalls() && failureRate() >= config.failureRateThreshold()) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * Give back a permit whose call was abandoned without an outcome
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+
+    public synchronized long getTimesClosed() {
+        return timesClosed;
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Time until an open circuit will let a probe through; zero otherwise
+     */
+    public synchronized long millisUntilRetry() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        long remaining = config.openDuration().toNanos() - (nanoClock.getAsLong() - openedAt);
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(remaining));
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state);
+        stats.put("failureRate", recorded == 0 ? 0.0 : Math.round(failureRate() * 1000) / 1000.0);
+        stats.put("timesOpened", timesOpened);
+        stats.put("timesClosed", timesClosed);
+        stats.put("rejected", rejected);
+        return stats;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private double failureRate() {
+        return (double) failures / recorded;
+    }
+
+    private void open() {
+        openedAt = nanoClock.getAsLong();
+        probesInFlight = 0;
+        transition(State.OPEN);
+    }
+
+    private void clearWindow() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+
+    private void transition(State to) {
+        if (state == to) {
+            return;
+        }
+        if (to == State.OPEN) {
+            timesOpened++;
+            log.warn("Circuit for {} opened ({} of last {} calls failed)", name, failures, recorded);
+        } else if (to == State.CLOSED) {
+            timesClosed++;
+            log.info("Circuit for {} closed", name);
+        } else {
+            log.info("Circuit for {} half-open, probing", name);
+        }
+        state = to;
+    }
+}
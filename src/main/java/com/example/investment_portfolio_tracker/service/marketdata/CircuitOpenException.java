@@ -0,0 +1,19 @@
+package com.example.investment_portfolio_tracker.service.marketdata;
+
+/**
+ * No provider could be asked because their circuits are open. Callers holding a previous value
+ * can serve it stale and try again after {@link #getRetryAfterMillis()}.
+ */
+public class CircuitOpenException extends MarketDataException {
+
+    private final long retryAfterMillis;
+
+    public CircuitOpenException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.investment_portfolio_tracker.service.marketdata;
+
+/**
+ * Descriptive company data used when a stock is first added
+ */
+public record CompanyProfile(
+        String name,
+        String exchange,
+        String sector,
+        String industry,
+        String currency
+) {
+}
@@ -0,0 +1,177 @@
+package com.example.investment_portfolio_tracker.service.marketdata;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Serves prices from local CSV files, either as a static last-price table or replayed in time.
+ * <p>
+ * The price file has rows of {@code timestamp,ticker,price[,volume]}, the timestamp being epoch
+ * millis or an ISO local date-time. With a replay speed of 0 every quote is the ticker's last
+ * row; otherwise the recording is played back from its first row at the given speed and each
+ * quote is the last row at or before the replay clock. The optional profile file has rows of
+ * {@code ticker,name,exchange,sector,industry,currency}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "market-data.csv.enabled", havingValue = "true")
+public class CsvReplayMarketDataProvider implements MarketDataProvider {
+
+    public static final String NAME = "csv";
+
+    private final Map<String, Series> series = new HashMap<>();
+    private final Map<String, CompanyProfile> profiles = new HashMap<>();
+    private final double replaySpeed;
+    private final Clock clock;
+    private final long startedAt;
+    private long firstTick = Long.MAX_VALUE;
+
+    public CsvReplayMarketDataProvider(
+            @Value("${market-data.csv.prices}") String pricesFile,
+            @Value("${market-data.csv.profiles:}") String profilesFile,
+            @Value("${market-data.csv.replay-speed:0}") double replaySpeed) throws IOException {
+        this(Path.of(pricesFile), profilesFile.isBlank() ? null : Path.of(profilesFile), replaySpeed, Clock.systemDefaultZone());
+    }
+
+    CsvReplayMarketDataProvider(Path pricesFile, Path profilesFile, double replaySpeed, Clock clock) throws IOException {
+        this.replaySpeed = replaySpeed;
+        this.clock = clock;
+        this.startedAt = clock.millis();
+        loadPrices(pricesFile);
+        if (profilesFile != null) {
+            loadProfiles(profilesFile);
+        }
+        log.info("Loaded CSV market data for {} tickers ({} profiles), replay speed {}",
+                series.size(), profiles.size(), replaySpeed);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public MarketQuote getQuote(String ticker) {
+        Series data = series.get(ticker.toUpperCase());
+        if (data == null) {
+            throw new MarketDataException("No CSV prices for " + ticker);
+        }
+        long at = replaySpeed > 0
+                ? firstTick + (long) ((clock.millis() - startedAt) * replaySpeed)
+                : Long.MAX_VALUE;
+        int i = data.indexAtOrBefore(at);
+        if (i < 0) {
+            throw new MarketDataException("Replay has not reached the first price for " + ticker);
+        }
+        return new MarketQuote(ticker.toUpperCase(), data.prices[i], i > 0 ? data.prices[i - 1] : null,
+                data.volumes[i], LocalDateTime.ofInstant(Instant.ofEpochMilli(data.times[i]), ZoneId.systemDefault()), NAME);
+    }
+
+    @Override
+    public Optional<CompanyProfile> getCompanyProfile(String ticker) {
+        return Optional.ofNullable(profiles.get(ticker.toUpperCase()));
+    }
+
+    private void loadPrices(Path file) throws IOException {
+        Map<String, List<String[]>> rows = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length < 3 || !isNumeric(fields[2].trim())) {
+                    // Header or malformed row
+                    continue;
+                }
+                rows.computeIfAbsent(fields[1].trim().toUpperCase(), t -> new ArrayList<>()).add(fields);
+            }
+        }
+        for (Map.Entry<String, List<String[]>> entry : rows.entrySet()) {
+            Series data = Series.of(entry.getValue());
+            series.put(entry.getKey(), data);
+            firstTick = Math.min(firstTick, data.times[0]);
+        }
+    }
+
+    private void loadProfiles(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            boolean header = true;
+            while ((line = reader.readLine()) != null) {
+                if (header) {
+                    header = false;
+                    continue;
+                }
+                String[] f = line.split(",", -1);
+                if (f.length >= 6) {
+                    profiles.put(f[0].trim().toUpperCase(),
+                            new CompanyProfile(f[1].trim(), f[2].trim(), f[3].trim(), f[4].trim(), f[5].trim()));
+                }
+            }
+        }
+    }
+
+    private static long parseTime(String value) {
+        String trimmed = value.trim();
+        if (trimmed.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(trimmed);
+        }
+        return LocalDateTime.parse(trimmed).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static boolean isNumeric(String value) {
+        try {
+            new BigDecimal(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private record Series(long[] times, BigDecimal[] prices, long[] volumes) {
+
+        static Series of(List<String[]> rows) {
+            rows.sort((a, b) -> Long.compare(parseTime(a[0]), parseTime(b[0])));
+            int n = rows.size();
+            long[] times = new long[n];
+            BigDecimal[] prices = new BigDecimal[n];
+            long[] volumes = new long[n];
+            for (int i = 0; i < n; i++) {
+                String[] row = rows.get(i);
+                times[i] = parseTime(row[0]);
+                prices[i] = new BigDecimal(row[2].trim());
+                volumes[i] = row.length > 3 ? Long.parseLong(row[3].trim()) : 0;
+            }
+            return new Series(times, prices, volumes);
+        }
+
+        int indexAtOrBefore(long time) {
+            int i = Arrays.binarySearch(times, time);
+            if (i >= 0) {
+                // Several rows may share a timestamp; take the last of them
+                while (i + 1 < times.length && times[i + 1] == time) {
+                    i++;
+                }
+                return i;
+            }
+            return -i - 2;
+        }
+    }
+}
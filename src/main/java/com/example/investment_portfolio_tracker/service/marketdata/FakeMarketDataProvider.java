@@ -0,0 +1,79 @@
+package com.example.investment_portfolio_tracker.service.marketdata;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Synthetic provider for benchmarks and load tests: random-walk prices with configurable
+ * latency, jitter and failure rate. Never enable it in production.
+ */
+@Component
+@ConditionalOnProperty(name = "market-data.fake.enabled", havingValue = "true")
+public class FakeMarketDataProvider implements MarketDataProvider {
+
+    private final String name;
+    private final long latencyMicros;
+    private final long jitterMicros;
+    private final double errorRate;
+    private final Map<String, BigDecimal> prices = new ConcurrentHashMap<>();
+
+    public FakeMarketDataProvider(
+            @Value("${market-data.fake.name:fake}") String name,
+            @Value("${market-data.fake.latency-ms:50}") double latencyMs,
+            @Value("${market-data.fake.jitter-ms:25}") double jitterMs,
+            @Value("${market-data.fake.error-rate:0.0}") double errorRate) {
+        this.name = name;
+        this.latencyMicros = (long) (latencyMs * 1000);
+        this.jitterMicros = (long) (jitterMs * 1000);
+        this.errorRate = errorRate;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public MarketQuote getQuote(String ticker) {
+        simulateCall(ticker);
+        String symbol = ticker.toUpperCase();
+        BigDecimal previous = prices.getOrDefault(symbol, BigDecimal.valueOf(100));
+        // +/- 1% step, never below a cent
+        double step = 1 + (ThreadLocalRandom.current().nextDouble() - 0.5) * 0.02;
+        BigDecimal price = previous.multiply(BigDecimal.valueOf(step)).setScale(4, RoundingMode.HALF_UP)
+                .max(new BigDecimal("0.01"));
+        prices.put(symbol, price);
+        return new MarketQuote(symbol, price, previous, 0, LocalDateTime.now(), name);
+    }
+
+    @Override
+    public Optional<CompanyProfile> getCompanyProfile(String ticker) {
+        simulateCall(ticker);
+        return Optional.of(new CompanyProfile(ticker.toUpperCase() + " Corp", "FAKE", "Unknown", "Unknown", "USD"));
+    }
+
+    private void simulateCall(String ticker) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyMicros + (jitterMicros > 0 ? random.nextLong(jitterMicros + 1) : 0);
+        if (delay > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(delay));
+        }
+        if (Thread.interrupted()) {
+            throw new MarketDataException("Fake call for " + ticker + " was cancelled");
+        }
+        if (random.nextDouble() < errorRate) {
+            throw new MarketDataException("Injected failure for " + ticker);
+        }
+    }
+}
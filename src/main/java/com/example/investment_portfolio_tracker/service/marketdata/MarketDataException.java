@@ -0,0 +1,15 @@
+package com.example.investment_portfolio_tracker.service.marketdata;
+
+/**
+ * A provider could not answer: upstream error, invalid response or exhausted quota
+ */
+public class MarketDataException extends RuntimeException {
+
+    public MarketDataException(String message) {
+        super(message);
+    }
+
+    public MarketDataException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
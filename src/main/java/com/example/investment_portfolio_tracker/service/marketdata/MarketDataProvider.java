@@ -0,0 +1,37 @@
+package com.example.investment_portfolio_tracker.service.marketdata;
+
+import java.util.Optional;
+
+/**
+ * Source of prices and company data. Inject the interface to get the {@link MarketDataRouter},
+ * which fronts every configured provider.
+ */
+public interface MarketDataProvider {
+
+    /**
+     * Short name used in configuration and logs, e.g. {@code alphavantage}
+     */
+    String getName();
+
+    /**
+     * Latest quote for a ticker
+     *
+     * @throws MarketDataException if no valid quote could be obtained
+     */
+    MarketQuote getQuote(String ticker);
+
+    /**
+     * Latest quote for a latency-critical single-ticker read. Implementations may spend extra
+     * quota to answer sooner.
+     */
+    default MarketQuote getQuoteFastest(String ticker) {
+        return getQuote(ticker);
+    }
+
+    /**
+     * Company details, or empty if this provider has none for the ticker
+     *
+     * @throws MarketDataException if the provider failed
+     */
+    Optional<CompanyProfile> getCompanyProfile(String ticker);
+}
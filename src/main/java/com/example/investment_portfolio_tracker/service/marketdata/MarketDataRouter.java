@@ -0,0 +1,467 @@
+package com.example.investment_portfolio_tracker.service.marketdata;
+
+import com.example.investment_portfolio_tracker.util.TokenBucket;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Fronts every configured {@link MarketDataProvider} and is what gets injected wherever the
+ * interface is asked for.
+ * <p>
+ * Providers are tried in the configured order. Each may have its own per-minute quota; a
+ * provider out of quota is skipped rather than waited for. Each sits behind its own
+ * {@link CircuitBreaker}, so a provider that keeps failing is not called at all until a half-open
+ * probe succeeds. Each also keeps a moving success rate and latency, and one whose success rate
+ * drops below {@code market-data.min-health} is moved behind the healthy ones. An invalid answer
+ * or exception fails over to the next provider. When every provider that could have answered was
+ * skipped by an open circuit the caller gets a {@link CircuitOpenException}, so it can serve what
+ * it already has instead.
+ * <p>
+ * With racing enabled, {@link #getQuoteFastest} asks the top two providers at once and returns the
+ * first valid quote, at the cost of spending quota on both.
+ */
+@Slf4j
+@Primary
+@Service
+public class MarketDataRouter implements MarketDataProvider {
+
+    public static final String NAME = "router";
+
+    // Weight of the newest call in the moving success rate and latency
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final List<ProviderState> providers;
+    private final boolean raceEnabled;
+    private final long raceTimeoutMs;
+    private final double minHealth;
+    private final ExecutorService raceExecutor;
+
+    public MarketDataRouter(
+            List<MarketDataProvider> providers,
+            Environment environment,
+            @Value("${market-data.providers:alphavantage}") List<String> order,
+            @Value("${market-data.race.enabled:false}") boolean raceEnabled,
+            @Value("${market-data.race.timeout-ms:5000}") long raceTimeoutMs,
+            @Value("${market-data.min-health:0.5}") double minHealth,
+            @Value("${market-data.breaker.window:20}") int breakerWindow,
+            @Value("${market-data.breaker.min-calls:5}") int breakerMinCalls,
+            @Value("${market-data.breaker.failure-rate:0.5}") double breakerFailureRate,
+            @Value("${market-data.breaker.open-duration:PT1M}") Duration breakerOpenDuration,
+            @Value("${market-data.breaker.half-open-probes:1}") int breakerHalfOpenProbes) {
+        this(ordered(providers, order), quotas(order, environment),
+                new CircuitBreaker.Config(breakerWindow, breakerMinCalls, breakerFailureRate, breakerOpenDuration,
+                        breakerHalfOpenProbes),
+                raceEnabled, raceTimeoutMs, minHealth);
+    }
+
+    public MarketDataRouter(List<MarketDataProvider> providers, Map<String, TokenBucket> quotas,
+                            CircuitBreaker.Config breakerConfig, boolean raceEnabled, long raceTimeoutMs,
+                            double minHealth) {
+        this.providers = providers.stream()
+                .map(provider -> new ProviderState(provider, quotas.get(provider.getName()),
+                        new CircuitBreaker(provider.getName(), breakerConfig)))
+                .toList();
+        this.raceEnabled = raceEnabled;
+        this.raceTimeoutMs = raceTimeoutMs;
+        this.minHealth = minHealth;
+        AtomicInteger threads = new AtomicInteger();
+        this.raceExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "market-data-race-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (this.providers.isEmpty()) {
+            log.warn("No market data providers configured; every quote will fail");
+        } else {
+            log.info("Market data providers in order: {}", this.providers.stream().map(s -> s.provider.getName()).toList());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        raceExecutor.shutdownNow();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public MarketQuote getQuote(String ticker) {
+        return firstValid(ticker, candidates(), List.of(), new ArrayList<>(), false);
+    }
+
+    @Override
+    public MarketQuote getQuoteFastest(String ticker) {
+        if (!raceEnabled) {
+            return getQuote(ticker);
+        }
+        List<ProviderState> ordered = candidates();
+        List<ProviderState> racers = new ArrayList<>(2);
+        boolean circuitOpen = false;
+        for (ProviderState state : ordered) {
+            if (racers.size() == 2) {
+                break;
+            }
+            Permit permit = state.acquire();
+            if (permit == Permit.GRANTED) {
+                racers.add(state);
+            }
+            circuitOpen |= permit == Permit.CIRCUIT_OPEN;
+        }
+        List<Throwable> errors = new ArrayList<>();
+        if (racers.isEmpty()) {
+            return firstValid(ticker, ordered, racers, errors, circuitOpen);
+        }
+
+        CompletableFuture<MarketQuote> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(racers.size());
+        List<Future<?>> calls = new ArrayList<>(racers.size());
+        for (ProviderState racer : racers) {
+            calls.add(raceExecutor.submit(() -> {
+                long started = System.nanoTime();
+                try {
+                    MarketQuote quote = validQuote(racer.provider, ticker);
+                    racer.record(true, System.nanoTime() - started);
+                    winner.complete(quote);
+                } catch (RuntimeException e) {
+                    // A loser cut short by the winner didn't fail
+                    if (winner.isDone()) {
+                        racer.breaker.release();
+                    } else {
+                        racer.record(false, System.nanoTime() - started);
+                    }
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                    if (pending.decrementAndGet() == 0) {
+                        winner.completeExceptionally(e);
+                    }
+                }
+            }));
+        }
+
+        try {
+            return winner.get(raceTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Race for {} produced no quote, failing over: {}", ticker, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MarketDataException("Interrupted while fetching a quote for " + ticker, e);
+        } finally {
+            calls.forEach(call -> call.cancel(true));
+        }
+        List<Throwable> snapshot;
+        synchronized (errors) {
+            snapshot = new ArrayList<>(errors);
+        }
+        return firstValid(ticker, ordered, racers, snapshot, circuitOpen);
+    }
+
+    @Override
+    public Optional<CompanyProfile> getCompanyProfile(String ticker) {
+        List<Throwable> errors = new ArrayList<>();
+        boolean answered = false;
+        boolean circuitOpen = false;
+        for (ProviderState state : candidates()) {
+            Permit permit = state.acquire();
+            circuitOpen |= permit == Permit.CIRCUIT_OPEN;
+            if (permit != Permit.GRANTED) {
+                continue;
+            }
+            Optional<CompanyProfile> profile = call(state, provider -> provider.getCompanyProfile(ticker), errors);
+            if (profile != null) {
+                answered = true;
+                if (profile.isPresent()) {
+                    return profile;
+                }
+            }
+        }
+        if (!answered && (circuitOpen || !errors.isEmpty())) {
+            throw failure("company profile", ticker, errors, circuitOpen);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Reserve one call to a provider for a caller that makes the call over its own transport, such
+     * as the reactive quote client, so it spends the same quota and trips the same circuit as
+     * routed calls. Never waits; report how the call went on the returned handle.
+     *
+     * @throws CircuitOpenException if the provider's circuit is open
+     * @throws MarketDataException  if the provider is out of quota or not configured
+     */
+    public ProviderCall acquire(String providerName) {
+        for (ProviderState state : providers) {
+            if (!state.provider.getName().equals(providerName)) {
+                continue;
+            }
+            return switch (state.acquire()) {
+                case GRANTED -> new ProviderCall(state);
+                case CIRCUIT_OPEN -> throw new CircuitOpenException(
+                        "Circuit for " + providerName + " is open", state.breaker.millisUntilRetry());
+                case THROTTLED -> throw new MarketDataException(providerName + " has no quota left");
+            };
+        }
+        throw new MarketDataException(providerName + " is not a configured market data provider");
+    }
+
+    /**
+     * Each provider's circuit breaker by provider name, in configured order
+     */
+    public Map<String, CircuitBreaker> getCircuitBreakers() {
+        Map<String, CircuitBreaker> breakers = new LinkedHashMap<>();
+        for (ProviderState state : providers) {
+            breakers.put(state.provider.getName(), state.breaker);
+        }
+        return breakers;
+    }
+
+    /**
+     * Per-provider counters, health and remaining quota
+     */
+    public List<Map<String, Object>> getStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (ProviderState state : providers) {
+            stats.add(state.stats(minHealth));
+        }
+        return stats;
+    }
+
+    private MarketQuote firstValid(String ticker, List<ProviderState> ordered, Collection<ProviderState> skip,
+                                   List<Throwable> errors, boolean circuitOpen) {
+        for (ProviderState state : ordered) {
+            if (skip.contains(state)) {
+                continue;
+            }
+            Permit permit = state.acquire();
+            circuitOpen |= permit == Permit.CIRCUIT_OPEN;
+            if (permit != Permit.GRANTED) {
+                continue;
+            }
+            MarketQuote quote = call(state, provider -> validQuote(provider, ticker), errors);
+            if (quote != null) {
+                return quote;
+            }
+        }
+        throw failure("quote", ticker, errors, circuitOpen);
+    }
+
+    /**
+     * Healthy providers in configured order, then the rest
+     */
+    private List<ProviderState> candidates() {
+        List<ProviderState> preferred = new ArrayList<>(providers.size());
+        List<ProviderState> demoted = new ArrayList<>();
+        for (ProviderState state : providers) {
+            if (state.health() >= minHealth) {
+                preferred.add(state);
+            } else {
+                demoted.add(state);
+            }
+        }
+        preferred.addAll(demoted);
+        return preferred;
+    }
+
+    private static <T> T call(ProviderState state, Function<MarketDataProvider, T> request, List<Throwable> errors) {
+        long started = System.nanoTime();
+        try {
+            T result = request.apply(state.provider);
+            state.record(true, System.nanoTime() - started);
+            return result;
+        } catch (RuntimeException e) {
+            state.record(false, System.nanoTime() - started);
+            log.warn("Market data provider {} failed: {}", state.provider.getName(), e.getMessage());
+            errors.add(e);
+            return null;
+        }
+    }
+
+    private static MarketQuote validQuote(MarketDataProvider provider, String ticker) {
+        MarketQuote quote = provider.getQuote(ticker);
+        if (quote == null || !quote.isValid()) {
+            throw new MarketDataException(provider.getName() + " returned no usable price for " + ticker);
+        }
+        return quote;
+    }
+
+    private MarketDataException failure(String what, String ticker, List<Throwable> errors, boolean circuitOpen) {
+        MarketDataException exception;
+        if (circuitOpen) {
+            long retryAfter = providers.stream()
+                    .filter(state -> state.breaker.getState() == CircuitBreaker.State.OPEN)
+                    .mapToLong(state -> state.breaker.millisUntilRetry())
+                    .min().orElse(0);
+            exception = new CircuitOpenException("Market data circuits are open; no " + what + " for " + ticker, retryAfter);
+        } else {
+            exception = new MarketDataException(errors.isEmpty()
+                ? "No market data provider has quota left for a " + what + " of " + ticker
+                    : "Every market data provider failed to supply a " + what + " for " + ticker);
+        }
+        errors.forEach(exception::addSuppressed);
+        return exception;
+    }
+
+    private static List<MarketDataProvider> ordered(List<MarketDataProvider> providers, List<String> order) {
+        Map<String, MarketDataProvider> byName = new HashMap<>();
+        for (MarketDataProvider provider : providers) {
+            // Spring hands us every implementation, this router included
+            if (!(provider instanceof MarketDataRouter)) {
+                byName.put(provider.getName(), provider);
+            }
+        }
+        List<MarketDataProvider> result = new ArrayList<>();
+        for (String name : order) {
+            MarketDataProvider provider = byName.remove(name.trim());
+            if (provider != null) {
+                result.add(provider);
+            }
+        }
+        if (!byName.isEmpty()) {
+            log.warn("Market data providers {} are not listed in market-data.providers and will not be used", byName.keySet());
+        }
+        return result;
+    }
+
+    private static Map<String, TokenBucket> quotas(List<String> order, Environment environment) {
+        Map<String, TokenBucket> quotas = new HashMap<>();
+        for (String name : order) {
+            Integer perMinute = environment.getProperty("market-data." + name.trim() + ".calls-per-minute", Integer.class);
+            if (perMinute != null && perMinute > 0) {
+                quotas.put(name.trim(), new TokenBucket(perMinute, TimeUnit.MINUTES.toNanos(1)));
+            }
+        }
+        return quotas;
+    }
+
+    /**
+     * One granted call from {@link #acquire}. Exactly one of the outcomes counts; later ones are ignored.
+     */
+    public static final class ProviderCall {
+
+        private final ProviderState state;
+        private final long started = System.nanoTime();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private ProviderCall(ProviderState state) {
+            this.state = state;
+        }
+
+        public void succeeded() {
+            if (finished.compareAndSet(false, true)) {
+                state.record(true, System.nanoTime() - started);
+            }
+        }
+
+        public void failed() {
+            if (finished.compareAndSet(false, true)) {
+                state.record(false, System.nanoTime() - started);
+            }
+        }
+
+        // The caller gave up before an answer; frees a half-open probe without judging the provider
+        public void cancelled() {
+            if (finished.compareAndSet(false, true)) {
+                state.breaker.release();
+            }
+        }
+    }
+
+    private enum Permit {
+        GRANTED, CIRCUIT_OPEN, THROTTLED
+    }
+
+    private static final class ProviderState {
+
+        private final MarketDataProvider provider;
+        private final TokenBucket quota;
+        private final CircuitBreaker breaker;
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong throttled = new AtomicLong();
+
+        // Guarded by this
+        private double successRate = 1.0;
+        private double latencyMs;
+
+        private ProviderState(MarketDataProvider provider, TokenBucket quota, CircuitBreaker breaker) {
+            this.provider = provider;
+            this.quota = quota;
+            this.breaker = breaker;
+        }
+
+        /**
+         * Circuit first so an open circuit doesn't burn quota
+         */
+        Permit acquire() {
+            if (!breaker.tryAcquire()) {
+                return Permit.CIRCUIT_OPEN;
+            }
+            if (quota == null || quota.tryAcquire()) {
+                return Permit.GRANTED;
+            }
+            breaker.release();
+            throttled.incrementAndGet();
+            return Permit.THROTTLED;
+        }
+
+        synchronized void record(boolean success, long nanos) {
+            if (success) {
+                breaker.onSuccess();
+            } else {
+                breaker.onFailure();
+            }
+            calls.incrementAndGet();
+            if (!success) {
+                failures.incrementAndGet();
+            }
+            successRate += EWMA_ALPHA * ((success ? 1.0 : 0.0) - successRate);
+            double ms = nanos / 1_000_000.0;
+            latencyMs = calls.get() == 1 ? ms : latencyMs + EWMA_ALPHA * (ms - latencyMs);
+        }
+
+        synchronized double health() {
+            return successRate;
+        }
+
+        synchronized Map<String, Object> stats(double minHealth) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("name", provider.getName());
+            stats.put("healthy", successRate >= minHealth);
+            stats.put("successRate", Math.round(successRate * 1000) / 1000.0);
+            stats.put("latencyMs", Math.round(latencyMs * 10) / 10.0);
+            stats.put("calls", calls.get());
+            stats.put("failures", failures.get());
+            stats.put("throttled", throttled.get());
+            stats.put("tokensAvailable", quota != null ? quota.available() : null);
+            stats.put("circuit", breaker.stats());
+            return stats;
+        }
+    }
+}
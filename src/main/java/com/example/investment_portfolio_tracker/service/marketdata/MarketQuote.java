@@ -0,0 +1,26 @@
+package com.example.investment_portfolio_tracker.service.marketdata;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A provider-neutral price quote
+ *
+ * @param provider name of the provider that answered
+ */
+public record MarketQuote(
+        String ticker,
+        BigDecimal price,
+        BigDecimal previousClose,
+        long volume,
+        LocalDateTime timestamp,
+        String provider
+) {
+
+    /**
+     * True if the quote carries a usable price
+     */
+    public boolean isValid() {
+        return price != null && price.signum() > 0;
+    }
+}
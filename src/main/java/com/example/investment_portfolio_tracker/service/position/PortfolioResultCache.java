@@ -0,0 +1,66 @@
+package com.example.investment_portfolio_tracker.service.position;
+
+import com.example.investment_portfolio_tracker.util.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Computed portfolio figures per (user, endpoint), reused for as long as the user's
+ * {@link PortfolioVersion} stands still.
+ * <p>
+ * The version is read before the figures are computed, so a change that races the computation
+ * leaves the entry stale and the next read recomputes it. At most {@code maxEntries} results are
+ * kept and the least recently read is dropped first. Cached values are shared between requests
+ * and must not be modified by callers.
+ */
+@Service
+public class PortfolioResultCache {
+
+    private final PortfolioVersionService versions;
+    private final Map<Key, Entry> entries;
+    private final CacheStats stats = new CacheStats();
+
+    public PortfolioResultCache(PortfolioVersionService versions,
+                                @Value("${portfolio-cache.max-entries:50000}") int maxEntries) {
+        this.versions = versions;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(long userId, String endpoint, Supplier<T> compute) {
+        Key key = new Key(userId, endpoint);
+        PortfolioVersion version = versions.currentVersion(userId);
+        synchronized (entries) {
+            Entry cached = entries.get(key);
+            if (cached != null && cached.version().equals(version)) {
+                stats.hit();
+                return (T) cached.value();
+            }
+        }
+        stats.miss();
+        T value = compute.get();
+        synchronized (entries) {
+            entries.put(key, new Entry(version, value));
+        }
+        return value;
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    private record Key(long userId, String endpoint) {
+    }
+
+    private record Entry(PortfolioVersion version, Object value) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.investment_portfolio_tracker.service.position;
+
+/**
+ * A user's portfolio version; two reads are equal only if nothing behind the user's figures moved
+ * between them.
+ *
+ * @param epoch  unique to one read of the user's held stocks
+ * @param prices sum of the price counters of those stocks
+ */
+public record PortfolioVersion(long epoch, long prices) {
+}
@@ -0,0 +1,119 @@
+package com.example.investment_portfolio_tracker.service.position;
+
+import com.example.investment_portfolio_tracker.event.PositionsRewrittenEvent;
+import com.example.investment_portfolio_tracker.event.StockListingChangedEvent;
+import com.example.investment_portfolio_tracker.event.StockPriceUpdatedEvent;
+import com.example.investment_portfolio_tracker.event.TradeExecutedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A per-user version that moves whenever anything behind the user's portfolio figures may have
+ * changed: a trade or repair of their positions, or a price or listing change in a stock they hold.
+ * <p>
+ * Price updates only bump a counter for the stock, so a tick costs the same however many users
+ * hold it. A user's version is derived when read: an epoch taken when their held stocks were last
+ * read, which every trade or repair discards, plus the sum of those stocks' counters. Counters
+ * only grow and the held set is fixed within an epoch, so the sum moves exactly when one of the
+ * user's stocks does.
+ */
+@Service
+public class PortfolioVersionService {
+
+    private static final String HOLDINGS_SQL = "SELECT stock_id FROM positions WHERE user_id = ? AND quantity > 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxUsers;
+    private final AtomicLong epochs = new AtomicLong();
+    private final AtomicLong changes = new AtomicLong();
+    private final Map<Long, AtomicLong> stockVersions = new ConcurrentHashMap<>();
+
+    // Access-ordered, so the least recently read user is forgotten first
+    private final LinkedHashMap<Long, Holdings> users = new LinkedHashMap<>(256, 0.75f, true);
+
+    public PortfolioVersionService(JdbcTemplate jdbcTemplate,
+                                   @Value("${portfolio-cache.max-entries:50000}") int maxUsers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxUsers = maxUsers;
+    }
+
+    public PortfolioVersion currentVersion(long userId) {
+        Holdings holdings;
+        synchronized (users) {
+            holdings = users.get(userId);
+        }
+        if (holdings == null) {
+            holdings = loadHoldings(userId);
+        }
+        long prices = 0;
+        for (AtomicLong counter : holdings.counters()) {
+            prices += counter.get();
+        }
+        return new PortfolioVersion(holdings.epoch(), prices);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPriceUpdated(StockPriceUpdatedEvent event) {
+        bumpStock(event.stockId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(StockListingChangedEvent event) {
+        bumpStock(event.stockId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTradeExecuted(TradeExecutedEvent event) {
+        forget(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsRewritten(PositionsRewrittenEvent event) {
+        forget(event.userId());
+    }
+
+    private Holdings loadHoldings(long userId) {
+        // A trade that lands while we read may be missing from the held stocks, so keep the read only if none did
+        long changesBefore = changes.get();
+        Holdings holdings = new Holdings(epochs.incrementAndGet(),
+                jdbcTemplate.queryForList(HOLDINGS_SQL, Long.class, userId).stream()
+                        .map(stockId -> stockVersions.computeIfAbsent(stockId, id -> new AtomicLong()))
+                        .toArray(AtomicLong[]::new));
+        synchronized (users) {
+            if (changes.get() == changesBefore) {
+                users.put(userId, holdings);
+                var eldest = users.entrySet().iterator();
+                while (users.size() > maxUsers && eldest.hasNext()) {
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        return holdings;
+    }
+
+    private void bumpStock(long stockId) {
+        AtomicLong counter = stockVersions.get(stockId);
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+    }
+
+    private void forget(long userId) {
+        synchronized (users) {
+            changes.incrementAndGet();
+            users.remove(userId);
+        }
+    }
+
+    private record Holdings(long epoch, AtomicLong[] counters) {
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.investment_portfolio_tracker.service.position;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Each loaded user's open positions, kept in two ordered sets: by market value for top-K reads
+ * and by unrealized return for threshold reads.
+ * <p>
+ * A price tick re-ranks only the books that hold the stock, one O(log n) remove and insert per
+ * set, so reads never sort: the K largest positions are the first K of one set and the positions
+ * above a return threshold are a prefix of the other. Each book is guarded by its own monitor.
+ * Books are loaded on first use and, past {@code maxUsers}, the least recently read ones are
+ * dropped to be loaded again when next asked for.
+ */
+public class PositionIndex {
+
+    private static final Comparator<Rank> BY_VALUE = Comparator.comparingDouble(Rank::value).reversed()
+            .thenComparingLong(Rank::positionId);
+    private static final Comparator<Rank> BY_RETURN = Comparator.comparingDouble(Rank::gain).reversed()
+            .thenComparingLong(Rank::positionId);
+
+    private final Map<Long, Book> books = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Book>> holders = new ConcurrentHashMap<>();
+    private final Object evictionLock = new Object();
+    private final int maxUsers;
+
+    public PositionIndex(int maxUsers) {
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * Load a user's book unless it is already loaded. The loader runs under the book's monitor,
+     * so concurrent first reads load once and updates for the user wait for it.
+     */
+    public void load(long userId, Supplier<List<Holding>> loader) {
+        while (true) {
+            Book book = books.get(userId);
+            if (book == null) {
+                evictIfFull();
+                book = books.computeIfAbsent(userId, id -> new Book());
+            }
+            book.lastUsed = System.nanoTime();
+            synchronized (book) {
+                // Evicted between lookup and lock: start again with a fresh book
+                if (book.dropped) {
+                    continue;
+                }
+                if (!book.loaded) {
+                    loader.get().forEach(book::put);
+                    book.loaded = true;
+                }
+                return;
+            }
+        }
+    }
+
+    public boolean isLoaded(long userId) {
+        Book book = books.get(userId);
+        return book != null && book.loaded;
+    }
+
+    /**
+     * Replace one holding of a loaded user with a fresh read; absent users are left to load later
+     *
+     * @param reader returns the holding, or null if the user no longer holds the stock
+     */
+    public void update(long userId, long stockId, Supplier<Holding> reader) {
+        Book book = books.get(userId);
+        if (book == null) {
+            return;
+        }
+        synchronized (book) {
+            if (!book.loaded || book.dropped) {
+                return;
+            }
+            Holding holding = reader.get();
+            if (holding == null || !(holding.quantity() > 0)) {
+                book.remove(stockId);
+            } else {
+                book.put(holding);
+            }
+        }
+    }
+
+    /**
+     * Re-rank every loaded position in the stock at its new price
+     */
+    public void updatePrice(long stockId, double price) {
+        Set<Book> holding = holders.get(stockId);
+        if (holding == null) {
+            return;
+        }
+        for (Book book : holding) {
+            synchronized (book) {
+                book.reprice(stockId, price);
+            }
+        }
+    }
+
+    public void removeStock(long stockId) {
+        Set<Book> holding = holders.remove(stockId);
+        if (holding == null) {
+            return;
+        }
+        for (Book book : holding) {
+            synchronized (book) {
+                book.remove(stockId);
+            }
+        }
+    }
+
+    /**
+     * Drop a user's book, to be loaded again on next use
+     */
+    public void unload(long userId) {
+        Book book = books.remove(userId);
+        if (book == null) {
+            return;
+        }
+        synchronized (book) {
+            book.dropped = true;
+            for (Long stockId : new ArrayList<>(book.positions.keySet())) {
+                book.remove(stockId);
+            }
+        }
+    }
+
+    /**
+     * Position ids of a loaded user's largest positions by market value, unpriced ones last
+     */
+    public List<Long> largest(long userId, int limit) {
+        return read(userId, book -> {
+            List<Long> ids = new ArrayList<>(Math.min(limit, book.byValue.size()));
+            for (Rank rank : book.byValue) {
+                if (ids.size() == limit) {
+                    break;
+                }
+                ids.add(rank.positionId());
+            }
+            return ids;
+        });
+    }
+
+    /**
+     * Position ids of a loaded user's positions whose return is strictly above {@code gain}, best first
+     */
+    public List<Long> gainAbove(long userId, double gain) {
+        return read(userId, book -> {
+            List<Long> ids = new ArrayList<>();
+            for (Rank rank : book.byReturn) {
+                if (!(rank.gain() > gain)) {
+                    break;
+                }
+                ids.add(rank.positionId());
+            }
+            return ids;
+        });
+    }
+
+    public int size() {
+        return books.size();
+    }
+
+    private List<Long> read(long userId, Function<Book, List<Long>> query) {
+        Book book = books.get(userId);
+        if (book == null) {
+            return List.of();
+        }
+        book.lastUsed = System.nanoTime();
+        synchronized (book) {
+            return query.apply(book);
+        }
+    }
+
+    // Drops the least recently read eighth in one pass, so the scan is paid rarely
+    private void evictIfFull() {
+        if (books.size() < maxUsers) {
+            return;
+        }
+        synchronized (evictionLock) {
+            if (books.size() < maxUsers) {
+                return;
+            }
+            List<long[]> ages = new ArrayList<>(books.size());
+            books.forEach((userId, book) -> ages.add(new long[]{book.lastUsed, userId}));
+            ages.sort(Comparator.comparingLong(age -> age[0]));
+            for (long[] age : ages.subList(0, Math.max(1, ages.size() / 8))) {
+                unload(age[1]);
+            }
+        }
+    }
+
+    /**
+     * One open position as read from the database
+     *
+     * @param price current price, or NaN if the stock has none
+     */
+    public record Holding(long positionId, long stockId, double quantity, double averageCost, double price) {
+    }
+
+    /**
+     * @param value market value, or negative infinity when unpriced so the position ranks last
+     * @param gain  price / average cost - 1, or NaN when it cannot be computed
+     */
+    private record Rank(long positionId, double value, double gain) {
+    }
+
+    private static final class Entry {
+        final long positionId;
+        final double quantity;
+        final double averageCost;
+        double price;
+        Rank rank;
+
+        Entry(Holding holding) {
+            this.positionId = holding.positionId();
+            this.quantity = holding.quantity();
+            this.averageCost = holding.averageCost();
+            this.price = holding.price();
+        }
+
+        Rank rank() {
+            boolean priced = !Double.isNaN(price);
+            double value = priced ? price * quantity : Double.NEGATIVE_INFINITY;
+            double gain = priced && averageCost > 0 ? price / averageCost - 1 : Double.NaN;
+            return new Rank(positionId, value, gain);
+        }
+    }
+
+    private final class Book {
+        final Map<Long, Entry> positions = new HashMap<>();
+        final NavigableSet<Rank> byValue = new TreeSet<>(BY_VALUE);
+        final NavigableSet<Rank> byReturn = new TreeSet<>(BY_RETURN);
+        volatile boolean loaded;
+        volatile long lastUsed;
+        // Set once the book has left the index; it must not register as a holder again
+        boolean dropped;
+
+        void put(Holding holding) {
+            Entry previous = positions.put(holding.stockId(), new Entry(holding));
+            if (previous != null) {
+                unrank(previous);
+            } else {
+                holders.computeIfAbsent(holding.stockId(), id -> ConcurrentHashMap.newKeySet()).add(this);
+            }
+            rank(positions.get(holding.stockId()));
+        }
+
+        void reprice(long stockId, double price) {
+            Entry entry = positions.get(stockId);
+            if (entry != null) {
+                unrank(entry);
+                entry.price = price;
+                rank(entry);
+            }
+        }
+
+        void remove(long stockId) {
+            Entry entry = positions.remove(stockId);
+            if (entry == null) {
+                return;
+            }
+            unrank(entry);
+            Set<Book> holding = holders.get(stockId);
+            if (holding != null) {
+                holding.remove(this);
+            }
+        }
+
+        private void rank(Entry entry) {
+            entry.rank = entry.rank();
+            byValue.add(entry.rank);
+            if (!Double.isNaN(entry.rank.gain())) {
+                byReturn.add(entry.rank);
+            }
+        }
+
+        private void unrank(Entry entry) {
+            byValue.remove(entry.rank);
+            byReturn.remove(entry.rank);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.investment_portfolio_tracker.service.position;
+
+import com.example.investment_portfolio_tracker.event.PositionsRewrittenEvent;
+import com.example.investment_portfolio_tracker.event.StockListingChangedEvent;
+import com.example.investment_portfolio_tracker.event.StockPriceUpdatedEvent;
+import com.example.investment_portfolio_tracker.event.TradeExecutedEvent;
+import com.example.investment_portfolio_tracker.service.market.PriceBoard;
+import com.example.investment_portfolio_tracker.util.FixedPoint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Keeps the {@link PositionIndex} in step with the database.
+ * <p>
+ * A user's open positions are read once, on their first ranking query, and priced from the
+ * {@link PriceBoard}. After that each committed trade re-reads the one position it touched and each
+ * price update re-ranks the positions in that stock, so ranking queries never reach the database.
+ * A tick that lands while a user is first being loaded can be missed until that stock next ticks.
+ */
+@Service
+public class PositionIndexService {
+
+    private static final String USER_SQL = "SELECT p.id, p.stock_id, p.quantity, p.average_cost, s.current_price " +
+            "FROM positions p JOIN stocks s ON s.id = p.stock_id WHERE p.user_id = ? AND p.quantity > 0";
+    private static final String POSITION_SQL = "SELECT p.id, p.stock_id, p.quantity, p.average_cost, s.current_price " +
+            "FROM positions p JOIN stocks s ON s.id = p.stock_id WHERE p.user_id = ? AND p.stock_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PriceBoard priceBoard;
+    private final PositionIndex index;
+
+    public PositionIndexService(JdbcTemplate jdbcTemplate, PriceBoard priceBoard,
+                                @Value("${position-index.max-users:100000}") int maxUsers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.priceBoard = priceBoard;
+        this.index = new PositionIndex(maxUsers);
+    }
+
+    /**
+     * Ids of the user's largest open positions by market value, largest first
+     */
+    public List<Long> getLargestPositionIds(long userId, int limit) {
+        ensureLoaded(userId);
+        return index.largest(userId, limit);
+    }
+
+    /**
+     * Ids of the user's open positions whose unrealized return is above {@code gain}, best first
+     *
+     * @param gain a fraction, 0.1 for 10%
+     */
+    public List<Long> getPositionIdsWithGainAbove(long userId, double gain) {
+        ensureLoaded(userId);
+        return index.gainAbove(userId, gain);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPriceUpdated(StockPriceUpdatedEvent event) {
+        if (event.price() != null) {
+            index.updatePrice(event.stockId(), event.price().doubleValue());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTradeExecuted(TradeExecutedEvent event) {
+        index.update(event.userId(), event.stockId(), () -> jdbcTemplate.query(POSITION_SQL,
+                (rs, rowNum) -> holding(rs), event.userId(), event.stockId()).stream().findFirst().orElse(null));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(StockListingChangedEvent event) {
+        if (event.removed()) {
+            index.removeStock(event.stockId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsRewritten(PositionsRewrittenEvent event) {
+        index.unload(event.userId());
+    }
+
+    private void ensureLoaded(long userId) {
+        if (!index.isLoaded(userId)) {
+            index.load(userId, () -> jdbcTemplate.query(USER_SQL, (rs, rowNum) -> holding(rs), userId));
+        }
+    }
+
+    private PositionIndex.Holding holding(ResultSet rs) throws SQLException {
+        long stockId = rs.getLong("stock_id");
+        long boardPrice = priceBoard.getFixed(stockId);
+        BigDecimal storedPrice = rs.getBigDecimal("current_price");
+        double price = boardPrice != Long.MIN_VALUE ? FixedPoint.toDouble(boardPrice)
+                : storedPrice != null ? storedPrice.doubleValue() : Double.NaN;
+        BigDecimal averageCost = rs.getBigDecimal("average_cost");
+        return new PositionIndex.Holding(rs.getLong("id"), stockId, rs.getBigDecimal("quantity").doubleValue(),
+                averageCost != null ? averageCost.doubleValue() : 0, price);
+    }
+}
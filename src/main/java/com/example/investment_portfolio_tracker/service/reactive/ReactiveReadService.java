@@ -0,0 +1,80 @@
+package com.example.investment_portfolio_tracker.service.reactive;
+
+import com.example.investment_portfolio_tracker.model.Stock;
+import com.example.investment_portfolio_tracker.service.market.PriceBoard;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only stock and portfolio value queries over R2DBC, priced from the {@link PriceBoard}
+ * like their blocking counterparts in {@code StockService} and {@code PortfolioService}.
+ */
+@Service
+@ConditionalOnProperty(name = "reactive.enabled", havingValue = "true")
+public class ReactiveReadService {
+
+    private static final String STOCK_SQL = """
+            SELECT id, ticker, name, exchange, sector, industry, currency, current_price, last_updated
+            FROM stocks WHERE ticker = :ticker
+            """;
+
+    // The user is resolved in the same round trip as the holdings
+    private static final String HOLDINGS_SQL = """
+            SELECT p.stock_id, p.quantity, s.current_price
+            FROM positions p
+            JOIN users u ON u.id = p.user_id
+            JOIN stocks s ON s.id = p.stock_id
+            WHERE u.email = :email AND p.quantity > 0
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final PriceBoard priceBoard;
+
+    public ReactiveReadService(DatabaseClient databaseClient, PriceBoard priceBoard) {
+        this.databaseClient = databaseClient;
+        this.priceBoard = priceBoard;
+    }
+
+    public Mono<Stock> findStockByTicker(String ticker) {
+        return databaseClient.sql(STOCK_SQL)
+                .bind("ticker", ticker.toUpperCase())
+                .map(this::toStock)
+                .one();
+    }
+
+    public Mono<BigDecimal> getPortfolioValue(String email) {
+        return databaseClient.sql(HOLDINGS_SQL)
+                .bind("email", email)
+                .map(row -> {
+                    BigDecimal price = priceBoard.getPrice(row.get("stock_id", Long.class));
+                    if (price == null) {
+                        price = row.get("current_price", BigDecimal.class);
+                    }
+                    return price != null ? price.multiply(row.get("quantity", BigDecimal.class)) : BigDecimal.ZERO;
+                })
+                .all()
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private Stock toStock(Readable row) {
+        Stock stock = new Stock();
+        stock.setId(row.get("id", Long.class));
+        stock.setTicker(row.get("ticker", String.class));
+        stock.setName(row.get("name", String.class));
+        stock.setExchange(row.get("exchange", String.class));
+        stock.setSector(row.get("sector", String.class));
+        stock.setIndustry(row.get("industry", String.class));
+        stock.setCurrency(row.get("currency", String.class));
+        stock.setCurrentPrice(row.get("current_price", BigDecimal.class));
+        stock.setCurrentPrice(priceBoard.currentPrice(stock));
+        LocalDateTime boardTime = priceBoard.getUpdatedAt(stock.getId());
+        stock.setLastUpdated(boardTime != null ? boardTime : row.get("last_updated", LocalDateTime.class));
+        return stock;
+    }
+}
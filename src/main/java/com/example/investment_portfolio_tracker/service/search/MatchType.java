@@ -0,0 +1,11 @@
+package com.example.investment_portfolio_tracker.service.search;
+
+/**
+ * How a search result matched the query, best first
+ */
+public enum MatchType {
+    EXACT_TICKER,
+    TICKER_PREFIX,
+    NAME_PREFIX,
+    FUZZY
+}
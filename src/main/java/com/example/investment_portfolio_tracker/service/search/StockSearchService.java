@@ -0,0 +1,158 @@
+package com.example.investment_portfolio_tracker.service.search;
+
+import com.example.investment_portfolio_tracker.event.StockListingChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ticker and company name search served from memory.
+ * <p>
+ * The stock list is loaded once at startup and kept current from {@link StockListingChangedEvent}s;
+ * each change schedules a rebuild of the {@link SymbolIndex} on a background thread, and changes
+ * that arrive while one is pending share it. Until the first build completes {@link #isReady()} is
+ * false and callers should fall back to the database.
+ */
+@Slf4j
+@Service
+public class StockSearchService {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SymbolUniverse symbolUniverse;
+    private final double minSimilarity;
+    private final Map<Long, SymbolEntry> symbols = new ConcurrentHashMap<>();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final AtomicLong generations = new AtomicLong();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "symbol-index-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile SymbolIndex index = SymbolIndex.EMPTY;
+    private volatile boolean ready;
+    // Guarded by this
+    private long publishedGeneration;
+
+    public StockSearchService(JdbcTemplate jdbcTemplate, SymbolUniverse symbolUniverse,
+                              @Value("${stock-search.fuzzy-min-similarity:0.5}") double minSimilarity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.symbolUniverse = symbolUniverse;
+        this.minSimilarity = minSimilarity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement("SELECT id, ticker, name, exchange FROM stocks");
+                    ps.setFetchSize(FETCH_SIZE);
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> {
+                    long id = rs.getLong("id");
+                    symbols.put(id, new SymbolEntry(id, rs.getString("ticker"), rs.getString("name"), rs.getString("exchange")));
+                });
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(StockListingChangedEvent event) {
+        if (event.removed()) {
+            symbols.remove(event.stockId());
+        } else {
+            symbols.put(event.stockId(), new SymbolEntry(event.stockId(), event.ticker(), event.name(), event.exchange()));
+        }
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildPending.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    /**
+     * Ranked matches among the stocks we track
+     */
+    public List<SymbolMatch> search(String query, int limit) {
+        return index.search(query, limit, minSimilarity);
+    }
+
+    /**
+     * Ranked matches among tracked stocks and the wider symbol universe, tracked stocks first
+     * within each match type. Universe-only matches have no id. Never calls upstream; a short
+     * answer only queues a background symbol search.
+     */
+    public List<SymbolMatch> autocomplete(String query, int limit) {
+        List<SymbolMatch> matches = new ArrayList<>(search(query, limit));
+        Set<String> tickers = new HashSet<>();
+        matches.forEach(match -> tickers.add(match.ticker().toUpperCase(Locale.ROOT)));
+        for (SymbolMatch match : symbolUniverse.search(query, limit)) {
+            if (tickers.add(match.ticker().toUpperCase(Locale.ROOT))) {
+                matches.add(match);
+            }
+        }
+        // Stable, so tracked stocks keep their place ahead of universe matches of the same type
+        matches.sort(Comparator.comparing(SymbolMatch::matchType));
+        if (matches.size() < limit) {
+            symbolUniverse.requestBackfill(query);
+        }
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    void rebuild() {
+        // Taken before reading the symbols, so a later generation has seen every earlier change
+        long generation = generations.incrementAndGet();
+        long started = System.nanoTime();
+        SymbolIndex built = SymbolIndex.build(symbols.values());
+        synchronized (this) {
+            // warmUp and the background rebuilder can overlap; never let the older one land last
+            if (generation < publishedGeneration) {
+                log.debug("Dropped symbol search index generation {}; {} is already published",
+                        generation, publishedGeneration);
+                return;
+            }
+            publishedGeneration = generation;
+            index = built;
+            ready = true;
+        }
+        log.info("Built symbol search index over {} stocks in {} ms",
+                built.size(), Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+}
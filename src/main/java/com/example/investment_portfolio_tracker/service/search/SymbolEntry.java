@@ -0,0 +1,12 @@
+package com.example.investment_portfolio_tracker.service.search;
+
+/**
+ * The searchable fields of one stock
+ */
+public record SymbolEntry(
+        Long id,
+        String ticker,
+        String name,
+        String exchange
+) {
+}
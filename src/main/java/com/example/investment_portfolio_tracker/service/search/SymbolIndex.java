@@ -0,0 +1,362 @@
+package com.example.investment_portfolio_tracker.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Immutable ticker and name index for search-as-you-type. Built once from the whole stock list and
+ * swapped in as a unit, so readers never lock.
+ * <p>
+ * Matches are ranked in tiers: exact ticker, ticker prefix, name prefix (the whole name before any
+ * later word of it), then fuzzy. The prefix tiers are binary searches over sorted keys; tickers come
+ * out in key order and names shortest first. The fuzzy tier scores every entry sharing a trigram with the query by the fraction
+ * of the query's trigrams it contains, and only runs when the earlier tiers leave room under the
+ * limit.
+ */
+public final class SymbolIndex {
+
+    public static final SymbolIndex EMPTY = build(List.of());
+
+    // Word keys are cut to this length and confirmed against the full name on a match
+    private static final int WORD_KEY_LENGTH = 16;
+    private static final int MIN_FUZZY_QUERY = 3;
+    private static final int NAME_CANDIDATES_PER_RESULT = 4;
+    // Trigram characters are folded into 6 bits: space, a-z, 0-9, and everything else
+    private static final int GRAM_BITS = 6;
+    private static final int OTHER = 37;
+
+    private final SymbolEntry[] entries;
+    private final String[] normalizedNames;
+    private final String[] tickerKeys;
+    private final int[] tickerOrder;
+    private final String[] wordKeys;
+    private final int[] wordOrder;
+    private final boolean[] firstWord;
+    private final int[][] postings;
+    private final int[] gramCounts;
+
+    private SymbolIndex(SymbolEntry[] entries, String[] normalizedNames, String[] tickerKeys, int[] tickerOrder,
+                        String[] wordKeys, int[] wordOrder, boolean[] firstWord, int[][] postings, int[] gramCounts) {
+        this.entries = entries;
+        this.normalizedNames = normalizedNames;
+        this.tickerKeys = tickerKeys;
+        this.tickerOrder = tickerOrder;
+        this.wordKeys = wordKeys;
+        this.wordOrder = wordOrder;
+        this.firstWord = firstWord;
+        this.postings = postings;
+        this.gramCounts = gramCounts;
+    }
+
+    public static SymbolIndex build(Collection<SymbolEntry> symbols) {
+        SymbolEntry[] entries = symbols.toArray(new SymbolEntry[0]);
+        int size = entries.length;
+        String[] names = new String[size];
+
+        Integer[] byTicker = new Integer[size];
+        List<WordRef> words = new ArrayList<>(size * 3);
+        for (int i = 0; i < size; i++) {
+            byTicker[i] = i;
+            names[i] = normalize(entries[i].name());
+            String name = names[i];
+            for (int start = 0; start < name.length(); start++) {
+                if (start == 0 || name.charAt(start - 1) == ' ') {
+                    words.add(new WordRef(truncate(name.substring(start)), i, start == 0));
+                }
+            }
+        }
+
+        String[] lowerTickers = new String[size];
+        for (int i = 0; i < size; i++) {
+            lowerTickers[i] = entries[i].ticker().toLowerCase(Locale.ROOT);
+        }
+        Arrays.sort(byTicker, Comparator.comparing((Integer i) -> lowerTickers[i]));
+        String[] tickerKeys = new String[size];
+        int[] tickerOrder = new int[size];
+        for (int i = 0; i < size; i++) {
+            tickerOrder[i] = byTicker[i];
+            tickerKeys[i] = lowerTickers[byTicker[i]];
+        }
+
+        words.sort(Comparator.comparing(WordRef::key).thenComparing(WordRef::first, Comparator.reverseOrder()));
+        String[] wordKeys = new String[words.size()];
+        int[] wordOrder = new int[words.size()];
+        boolean[] firstWord = new boolean[words.size()];
+        for (int i = 0; i < words.size(); i++) {
+            WordRef word = words.get(i);
+            wordKeys[i] = word.key();
+            wordOrder[i] = word.entry();
+            firstWord[i] = word.first();
+        }
+
+        // Count first so each posting list is allocated at its final size
+        int[][] entryGrams = new int[size][];
+        int[] gramCounts = new int[size];
+        int[] listSizes = new int[1 << (3 * GRAM_BITS)];
+        for (int i = 0; i < size; i++) {
+            entryGrams[i] = trigrams(lowerTickers[i] + " " + names[i]);
+            gramCounts[i] = entryGrams[i].length;
+            for (int gram : entryGrams[i]) {
+                listSizes[gram]++;
+            }
+        }
+        int[][] postings = new int[listSizes.length][];
+        int[] filled = new int[listSizes.length];
+        for (int i = 0; i < size; i++) {
+            for (int gram : entryGrams[i]) {
+                if (postings[gram] == null) {
+                    postings[gram] = new int[listSizes[gram]];
+                }
+                postings[gram][filled[gram]++] = i;
+            }
+        }
+
+        return new SymbolIndex(entries, names, tickerKeys, tickerOrder, wordKeys, wordOrder, firstWord,
+                postings, gramCounts);
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Best matches for a partial ticker or company name, at most {@code limit} of them
+     *
+     * @param minSimilarity fraction of the query's trigrams a fuzzy match must contain
+     */
+    public List<SymbolMatch> search(String query, int limit, double minSimilarity) {
+        String ticker = query.trim().toLowerCase(Locale.ROOT);
+        String name = normalize(query);
+        List<SymbolMatch> results = new ArrayList<>(Math.min(limit, 64));
+        if (ticker.isEmpty() || limit <= 0) {
+            return results;
+        }
+        Set<Integer> seen = new HashSet<>();
+
+        // Exact ticker, then every other ticker starting with the query
+        for (int i = lowerBound(tickerKeys, ticker); i < tickerKeys.length && results.size() < limit; i++) {
+            if (!tickerKeys[i].startsWith(ticker)) {
+                break;
+            }
+            int entry = tickerOrder[i];
+            MatchType type = tickerKeys[i].length() == ticker.length() ? MatchType.EXACT_TICKER : MatchType.TICKER_PREFIX;
+            add(results, seen, entry, type, 1.0);
+        }
+
+        if (results.size() < limit && !name.isEmpty()) {
+            addNamePrefixes(results, seen, name, limit);
+        }
+
+        if (results.size() < limit && name.length() >= MIN_FUZZY_QUERY) {
+            addFuzzy(results, seen, name, limit, minSimilarity);
+        }
+        return results;
+    }
+
+    private void addNamePrefixes(List<SymbolMatch> results, Set<Integer> seen, String name, int limit) {
+        String key = truncate(name);
+        // Gather a few times the room left so the shortest names can go first
+        int wanted = (limit - results.size()) * NAME_CANDIDATES_PER_RESULT;
+        List<Integer> wholeName = new ArrayList<>();
+        List<Integer> laterWords = new ArrayList<>();
+        for (int i = lowerBound(wordKeys, key); i < wordKeys.length && wholeName.size() < wanted; i++) {
+            if (!wordKeys[i].startsWith(key)) {
+                break;
+            }
+            int entry = wordOrder[i];
+            if (!normalizedNames[entry].contains(name)) {
+                continue;
+            }
+            if (firstWord[i] && normalizedNames[entry].startsWith(name)) {
+                wholeName.add(entry);
+            } else if (laterWords.size() < wanted) {
+                laterWords.add(entry);
+            }
+        }
+        Comparator<Integer> shortestFirst = Comparator.comparingInt(entry -> normalizedNames[entry].length());
+        wholeName.sort(shortestFirst);
+        laterWords.sort(shortestFirst);
+        for (int entry : wholeName) {
+            if (results.size() >= limit) {
+                return;
+            }
+            add(results, seen, entry, MatchType.NAME_PREFIX, 1.0);
+        }
+        for (int entry : laterWords) {
+            if (results.size() >= limit) {
+                return;
+            }
+            add(results, seen, entry, MatchType.NAME_PREFIX, 0.5);
+        }
+    }
+
+    /**
+     * Trigram overlap with prefix filtering: a match needs {@code required} of the query's
+     * {@code n} trigrams, so it must contain one of the {@code n - required + 1} rarest. Only those
+     * posting lists produce candidates; the common trigrams just add to candidates already found,
+     * by binary search when that is cheaper than walking the list.
+     */
+    private void addFuzzy(List<SymbolMatch> results, Set<Integer> seen, String text, int limit, double minSimilarity) {
+        int[] grams = trigrams(text);
+        if (grams.length == 0) {
+            return;
+        }
+        int[][] lists = new int[grams.length][];
+        for (int g = 0; g < grams.length; g++) {
+            lists[g] = postings[grams[g]] != null ? postings[grams[g]] : new int[0];
+        }
+        Arrays.sort(lists, Comparator.comparingInt((int[] list) -> list.length));
+        int required = Math.max(1, (int) Math.ceil(minSimilarity * grams.length));
+        int generating = grams.length - required + 1;
+
+        short[] shared = new short[entries.length];
+        int[] touched = new int[64];
+        int touchedCount = 0;
+        for (int g = 0; g < generating; g++) {
+            for (int entry : lists[g]) {
+                if (shared[entry]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = entry;
+                }
+            }
+        }
+        for (int g = generating; g < grams.length; g++) {
+            int[] list = lists[g];
+            if ((long) touchedCount * (32 - Integer.numberOfLeadingZeros(list.length)) < list.length) {
+                for (int i = 0; i < touchedCount; i++) {
+                    if (Arrays.binarySearch(list, touched[i]) >= 0) {
+                        shared[touched[i]]++;
+                    }
+                }
+            } else {
+                for (int entry : list) {
+                    if (shared[entry] > 0) {
+                        shared[entry]++;
+                    }
+                }
+            }
+        }
+
+        // Keep the best few in score order rather than sorting every candidate
+        int room = limit - results.size();
+        int[] best = new int[room];
+        double[] bestScores = new double[room];
+        int kept = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int entry = touched[i];
+            if (shared[entry] < required || seen.contains(entry)) {
+                continue;
+            }
+            // Ties go to the entry the shared trigrams cover best, usually the shorter name
+            double score = (double) shared[entry] / grams.length + (double) shared[entry] / gramCounts[entry] / 1000;
+            if (kept == room && score <= bestScores[kept - 1]) {
+                continue;
+            }
+            int at = kept < room ? kept++ : kept - 1;
+            while (at > 0 && bestScores[at - 1] < score) {
+                best[at] = best[at - 1];
+                bestScores[at] = bestScores[at - 1];
+                at--;
+            }
+            best[at] = entry;
+            bestScores[at] = score;
+        }
+        for (int i = 0; i < kept; i++) {
+            add(results, seen, best[i], MatchType.FUZZY, Math.min(1.0, bestScores[i]));
+        }
+    }
+
+    private void add(List<SymbolMatch> results, Set<Integer> seen, int entry, MatchType type, double score) {
+        if (seen.add(entry)) {
+            SymbolEntry symbol = entries[entry];
+            results.add(new SymbolMatch(symbol.id(), symbol.ticker(), symbol.name(), symbol.exchange(), type, score));
+        }
+    }
+
+    /**
+     * Lower-case, with every run of punctuation or whitespace folded to one space
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+                space = false;
+            } else if (!space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        int length = normalized.length();
+        return length > 0 && normalized.charAt(length - 1) == ' '
+                ? normalized.substring(0, length - 1) : normalized.toString();
+    }
+
+    /**
+     * Distinct trigram codes of the text padded with a space at each end
+     */
+    static int[] trigrams(String text) {
+        String padded = " " + text + " ";
+        if (padded.length() < 3) {
+            return new int[0];
+        }
+        int[] grams = new int[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (code(padded.charAt(i)) << (2 * GRAM_BITS))
+                    | (code(padded.charAt(i + 1)) << GRAM_BITS)
+                    | code(padded.charAt(i + 2));
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private static int code(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return 1 + c - 'a';
+        }
+        if (c >= '0' && c <= '9') {
+            return 27 + c - '0';
+        }
+        return Character.isLetterOrDigit(c) ? OTHER : 0;
+    }
+
+    private static String truncate(String key) {
+        return key.length() > WORD_KEY_LENGTH ? key.substring(0, WORD_KEY_LENGTH) : key;
+    }
+
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private record WordRef(String key, int entry, boolean first) {
+    }
+}
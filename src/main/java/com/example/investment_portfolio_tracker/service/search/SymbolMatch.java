@@ -0,0 +1,15 @@
+package com.example.investment_portfolio_tracker.service.search;
+
+/**
+ * One search result. Results are ordered by match type, then score within a type. The id is null
+ * for listed symbols that are not tracked yet.
+ */
+public record SymbolMatch(
+        Long id,
+        String ticker,
+        String name,
+        String exchange,
+        MatchType matchType,
+        double score
+) {
+}
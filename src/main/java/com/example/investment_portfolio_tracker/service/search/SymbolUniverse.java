@@ -0,0 +1,348 @@
+package com.example.investment_portfolio_tracker.service.search;
+
+import com.example.investment_portfolio_tracker.service.cluster.ClusterCoordinator;
+import com.example.investment_portfolio_tracker.service.external.AlphaVantageService;
+import com.example.investment_portfolio_tracker.service.market.MarketCalendar;
+import com.example.investment_portfolio_tracker.service.marketdata.AlphaVantageMarketDataProvider;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketDataException;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketDataRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every listed symbol we know of, tracked locally or not, so autocomplete can offer stocks that
+ * have never been added.
+ * <p>
+ * Seeded from an Alpha Vantage {@code LISTING_STATUS} CSV when one is configured and grown from
+ * SYMBOL_SEARCH responses. Searches never call upstream: when a query comes up short it is queued
+ * for a background SYMBOL_SEARCH, and the matches are there for the next keystroke. Backfill calls
+ * go through the market data router's Alpha Vantage quota and circuit like every other call on
+ * the key, and are capped per day by {@code symbol-universe.backfill.calls-per-day}, which
+ * {@link com.example.investment_portfolio_tracker.service.market.PriceRefreshService} leaves out
+ * of its own daily budget. The universe is saved to a tab-separated file after each change and
+ * reloaded at startup.
+ */
+@Slf4j
+@Service
+public class SymbolUniverse {
+
+    private static final int MIN_BACKFILL_QUERY = 2;
+    private static final int MAX_REMEMBERED_QUERIES = 10_000;
+    private static final Set<String> LISTED_TYPES = Set.of("equity", "stock", "etf");
+
+    private final AlphaVantageService alphaVantageService;
+    private final MarketDataRouter marketDataRouter;
+    private final MarketCalendar marketCalendar;
+    private final ClusterCoordinator clusterCoordinator;
+    private final Path file;
+    private final Path listingFile;
+    private final int backfillPerDay;
+    private final double minSimilarity;
+
+    private final Map<String, SymbolEntry> symbols = new ConcurrentHashMap<>();
+    private final Set<String> searchedQueries = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final AtomicLong backfillsToday = new AtomicLong();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "symbol-universe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile SymbolIndex index = SymbolIndex.EMPTY;
+    // Backfills are only run on the worker thread
+    private LocalDate backfillDate;
+
+    public SymbolUniverse(
+            AlphaVantageService alphaVantageService,
+            MarketDataRouter marketDataRouter,
+            MarketCalendar marketCalendar,
+            ClusterCoordinator clusterCoordinator,
+            @Value("${symbol-universe.file:${java.io.tmpdir}/portfolio-tracker/symbol-universe.tsv}") String file,
+            @Value("${symbol-universe.listing-file:}") String listingFile,
+            @Value("${symbol-universe.backfill.calls-per-day:5}") int backfillPerDay,
+            @Value("${stock-search.fuzzy-min-similarity:0.5}") double minSimilarity) {
+        this.alphaVantageService = alphaVantageService;
+        this.marketDataRouter = marketDataRouter;
+        this.marketCalendar = marketCalendar;
+        this.clusterCoordinator = clusterCoordinator;
+        this.file = Path.of(file);
+        this.listingFile = listingFile.isBlank() ? null : Path.of(listingFile);
+        this.backfillPerDay = backfillPerDay;
+        this.minSimilarity = minSimilarity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            if (Files.isRegularFile(file)) {
+                readSaved(file).forEach(this::put);
+            }
+            if (listingFile != null) {
+                readListing(listingFile).forEach(this::put);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to load symbol universe: {}", e.getMessage());
+        }
+        rebuild();
+    }
+
+    /**
+     * Ranked matches among all known listed symbols. Entries carry no stock id.
+     */
+    public List<SymbolMatch> search(String query, int limit) {
+        return index.search(query, limit, minSimilarity);
+    }
+
+    public void addAll(Collection<SymbolEntry> entries) {
+        int before = symbols.size();
+        entries.forEach(this::put);
+        if (symbols.size() != before) {
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * Ask upstream about a query that came up short, in the background and at most once per query
+     */
+    public void requestBackfill(String query) {
+        String keywords = query.trim().toLowerCase(Locale.ROOT);
+        if (backfillPerDay <= 0 || keywords.length() < MIN_BACKFILL_QUERY) {
+            return;
+        }
+        if (searchedQueries.size() >= MAX_REMEMBERED_QUERIES) {
+            searchedQueries.clear();
+        }
+        if (searchedQueries.add(keywords)) {
+            worker.execute(() -> backfill(keywords));
+        }
+    }
+
+    public int size() {
+        return symbols.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    void backfill(String keywords) {
+        if (!hasDailyBudget()) {
+            // Out of budget: forget the query so a later keystroke can try again
+            searchedQueries.remove(keywords);
+            return;
+        }
+        MarketDataRouter.ProviderCall call;
+        try {
+            call = marketDataRouter.acquire(AlphaVantageMarketDataProvider.NAME);
+        } catch (MarketDataException e) {
+            // No quota left this minute or the circuit is open
+            searchedQueries.remove(keywords);
+            return;
+        }
+        backfillsToday.incrementAndGet();
+        try {
+            Map<String, Object> response = alphaVantageService.searchStocks(keywords);
+            call.succeeded();
+            addAll(fromSymbolSearch(response));
+        } catch (RuntimeException e) {
+            call.failed();
+            searchedQueries.remove(keywords);
+            log.debug("Symbol search backfill for '{}' failed: {}", keywords, e.getMessage());
+        }
+    }
+
+    /**
+     * Build and save a fresh index. Runs at load and on the worker; one rebuild at a time, so two
+     * saves never race for the file.
+     */
+    synchronized void rebuild() {
+        index = SymbolIndex.build(symbols.values());
+        try {
+            save();
+        } catch (IOException e) {
+            log.warn("Failed to save symbol universe to {}: {}", file, e.getMessage());
+        }
+        log.debug("Symbol universe holds {} symbols", index.size());
+    }
+
+    /**
+     * Wait until the worker has finished backfills and rebuilds queued so far
+     */
+    void awaitWorker() throws InterruptedException {
+        try {
+            worker.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Listed symbols in a SYMBOL_SEARCH response, skipping funds and other instruments we cannot track
+     */
+    static List<SymbolEntry> fromSymbolSearch(Map<String, Object> response) {
+        List<SymbolEntry> entries = new ArrayList<>();
+        if (response == null || !(response.get("bestMatches") instanceof List<?> matches)) {
+            return entries;
+        }
+        for (Object match : matches) {
+            if (match instanceof Map<?, ?> fields
+                    && fields.get("1. symbol") instanceof String ticker
+                    && fields.get("2. name") instanceof String name
+                    && LISTED_TYPES.contains(String.valueOf(fields.get("3. type")).toLowerCase(Locale.ROOT))) {
+                // Symbol search reports a region, not an exchange
+                entries.add(new SymbolEntry(null, ticker, name, null));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Active rows of a LISTING_STATUS CSV: symbol,name,exchange,assetType,ipoDate,delistingDate,status
+     */
+    static List<SymbolEntry> readListing(Path path) throws IOException {
+        List<SymbolEntry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                return entries;
+            }
+            List<String> header = Arrays.asList(headerLine.toLowerCase(Locale.ROOT).split(","));
+            int symbol = header.indexOf("symbol");
+            int name = header.indexOf("name");
+            int exchange = header.indexOf("exchange");
+            int type = header.indexOf("assettype");
+            int status = header.indexOf("status");
+            if (symbol < 0 || name < 0) {
+                log.warn("Skipping listing file {}: header has no symbol or name column", path);
+                return entries;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> f = splitCsv(line);
+                if (f.size() <= Math.max(symbol, name) || f.get(symbol).isBlank()) {
+                    continue;
+                }
+                if (status >= 0 && status < f.size() && !f.get(status).equalsIgnoreCase("active")) {
+                    continue;
+                }
+                if (type >= 0 && type < f.size() && !LISTED_TYPES.contains(f.get(type).toLowerCase(Locale.ROOT))) {
+                    continue;
+                }
+                entries.add(new SymbolEntry(null, f.get(symbol), f.get(name),
+                        exchange >= 0 && exchange < f.size() ? f.get(exchange) : null));
+            }
+        }
+        return entries;
+    }
+
+    static List<SymbolEntry> readSaved(Path path) throws IOException {
+        List<SymbolEntry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] f = line.split("\t", -1);
+                if (f.length == 3) {
+                    entries.add(new SymbolEntry(null, f[0], f[1], f[2].isEmpty() ? null : f[2]));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private void save() throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+                for (SymbolEntry entry : symbols.values()) {
+                    writer.write(clean(entry.ticker()) + "\t" + clean(entry.name()) + "\t" + clean(entry.exchange()));
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Same day boundary as the refresh queue's cap, and split between live nodes the same way
+    private boolean hasDailyBudget() {
+        LocalDate today = LocalDate.now(marketCalendar.getZone());
+        if (!today.equals(backfillDate)) {
+            backfillDate = today;
+            backfillsToday.set(0);
+        }
+        return backfillsToday.get() < backfillPerDay / clusterCoordinator.getLiveNodeCount();
+    }
+
+    private void put(SymbolEntry entry) {
+        String ticker = entry.ticker().trim().toUpperCase(Locale.ROOT);
+        symbols.putIfAbsent(ticker, new SymbolEntry(null, ticker, entry.name(), entry.exchange()));
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            worker.execute(() -> {
+                rebuildPending.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    private static String clean(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    // Listing names may be quoted when they contain commas
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+}
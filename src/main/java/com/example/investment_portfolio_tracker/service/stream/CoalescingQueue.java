@@ -0,0 +1,74 @@
+package com.example.investment_portfolio_tracker.service.stream;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded per-connection outbox keyed by subject. A newer update for a subject that is still
+ * queued replaces the older one in place; when the queue is full the oldest subject is dropped.
+ */
+public class CoalescingQueue<K, V> {
+
+    private final int capacity;
+    private final LinkedHashMap<K, V> pending;
+    private long dropped;
+
+    public CoalescingQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.pending = new LinkedHashMap<>(Math.min(capacity, 16) * 2);
+    }
+
+    /**
+     * Queue an update, coalescing with any pending update for the same key
+     *
+     * @return true if the queue was empty before this call, i.e. the caller should schedule a drain
+     */
+    public synchronized boolean offer(K key, V value) {
+        boolean wasEmpty = pending.isEmpty();
+        if (pending.containsKey(key)) {
+            pending.put(key, value);
+            return wasEmpty;
+        }
+        if (pending.size() >= capacity) {
+            Iterator<K> oldest = pending.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+            dropped++;
+        }
+        pending.put(key, value);
+        return wasEmpty;
+    }
+
+    /**
+     * Take everything queued, oldest first
+     */
+    public synchronized List<Map.Entry<K, V>> drain() {
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+        List<Map.Entry<K, V>> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<K, V> entry : pending.entrySet()) {
+            batch.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+        pending.clear();
+        return batch;
+    }
+
+    public synchronized boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+}
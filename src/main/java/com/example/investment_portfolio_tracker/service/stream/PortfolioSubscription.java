@@ -0,0 +1,68 @@
+package com.example.investment_portfolio_tracker.service.stream;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holdings and running market value for one user with at least one portfolio stream open.
+ * The value is adjusted by quantity times the price change, so a tick costs no database work.
+ */
+public class PortfolioSubscription {
+
+    private final long userId;
+    private final Set<StreamConnection> connections = ConcurrentHashMap.newKeySet();
+    private final Map<Long, BigDecimal> quantities = new HashMap<>();
+    private final Map<Long, BigDecimal> prices = new HashMap<>();
+    private BigDecimal totalValue = BigDecimal.ZERO;
+
+    public PortfolioSubscription(long userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Replace the holdings, returning the stock ids held afterwards
+     */
+    public synchronized Set<Long> reload(Map<Long, BigDecimal> newQuantities, Map<Long, BigDecimal> newPrices) {
+        quantities.clear();
+        quantities.putAll(newQuantities);
+        prices.clear();
+        prices.putAll(newPrices);
+
+        totalValue = BigDecimal.ZERO;
+        quantities.forEach((stockId, quantity) -> {
+            BigDecimal price = prices.get(stockId);
+            if (price != null) {
+                totalValue = totalValue.add(quantity.multiply(price));
+            }
+        });
+        return Set.copyOf(quantities.keySet());
+    }
+
+    /**
+     * Apply a new price for a held stock and return the updated total value
+     */
+    public synchronized BigDecimal applyPrice(Long stockId, BigDecimal price) {
+        BigDecimal quantity = quantities.get(stockId);
+        if (quantity != null) {
+            BigDecimal previous = prices.put(stockId, price);
+            BigDecimal change = previous != null ? price.subtract(previous) : price;
+            totalValue = totalValue.add(quantity.multiply(change));
+        }
+        return totalValue;
+    }
+
+    public synchronized BigDecimal getTotalValue() {
+        return totalValue;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public Set<StreamConnection> getConnections() {
+        return connections;
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.investment_portfolio_tracker.service.stream;
+
+import com.example.investment_portfolio_tracker.dto.PortfolioValueDto;
+import com.example.investment_portfolio_tracker.dto.PriceUpdateDto;
+import com.example.investment_portfolio_tracker.event.PositionsRewrittenEvent;
+import com.example.investment_portfolio_tracker.event.StockPriceUpdatedEvent;
+import com.example.investment_portfolio_tracker.event.TradeExecutedEvent;
+import com.example.investment_portfolio_tracker.model.Stock;
+import com.example.investment_portfolio_tracker.repository.PositionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans committed price changes out to SSE subscribers.
+ * <p>
+ * Ticker subscribers are indexed by stock id. Portfolio subscribers are indexed by the stocks they
+ * hold, and each keeps its market value current from the ticks alone, reloading holdings from the
+ * database only when the user trades. Writes to clients happen on a small dispatcher pool through
+ * each connection's bounded queue, never on the thread that committed the price.
+ */
+@Slf4j
+@Service
+public class PriceStreamService {
+
+    private static final String PRICE_EVENT = "price";
+    private static final String PORTFOLIO_EVENT = "portfolio";
+    private static final String PORTFOLIO_KEY = "portfolio";
+    private static final String HEARTBEAT_KEY = "heartbeat";
+
+    private final PositionRepository positionRepository;
+    private final long timeoutMs;
+    private final int queueCapacity;
+    private final int maxTickers;
+    private final ExecutorService dispatcher;
+
+    private final Set<StreamConnection> connections = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<StreamConnection>> tickerSubscribers = new ConcurrentHashMap<>();
+    private final Map<Long, PortfolioSubscription> portfolios = new ConcurrentHashMap<>();
+    private final Map<Long, Set<PortfolioSubscription>> holders = new ConcurrentHashMap<>();
+
+    public PriceStreamService(
+            PositionRepository positionRepository,
+            @Value("${stream.timeout-ms:1800000}") long timeoutMs,
+            @Value("${stream.queue-capacity:64}") int queueCapacity,
+            @Value("${stream.max-tickers:50}") int maxTickers,
+            @Value("${stream.dispatch-threads:4}") int dispatchThreads) {
+        this.positionRepository = positionRepository;
+        this.timeoutMs = timeoutMs;
+        this.queueCapacity = queueCapacity;
+        this.maxTickers = maxTickers;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "stream-dispatch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open a stream for the given stocks and, optionally, the user's own portfolio value.
+     * Current values are sent straight away so clients need no initial poll.
+     */
+    public SseEmitter subscribe(Long userId, List<Stock> stocks, boolean portfolio) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Set<Long> stockIds = new HashSet<>();
+        stocks.forEach(stock -> stockIds.add(stock.getId()));
+        StreamConnection connection = new StreamConnection(userId, stockIds, portfolio, emitter, queueCapacity, dispatcher);
+
+        emitter.onCompletion(() -> unsubscribe(connection));
+        emitter.onTimeout(() -> unsubscribe(connection));
+        emitter.onError(error -> unsubscribe(connection));
+
+        connections.add(connection);
+        for (Long stockId : stockIds) {
+            tickerSubscribers.computeIfAbsent(stockId, id -> ConcurrentHashMap.newKeySet()).add(connection);
+        }
+        for (Stock stock : stocks) {
+            if (stock.getCurrentPrice() != null) {
+                connection.publish(priceKey(stock.getId()), new StreamConnection.StreamEvent(PRICE_EVENT,
+                        priceUpdate(stock.getId(), stock.getTicker(), stock.getCurrentPrice(), stock.getLastUpdated())));
+            }
+        }
+
+        if (portfolio) {
+            PortfolioSubscription subscription = attachPortfolio(userId, connection);
+            connection.publish(PORTFOLIO_KEY, portfolioEvent(subscription.getTotalValue()));
+        }
+
+        log.debug("Opened stream for user {}: {} tickers, portfolio={}, {} connections open",
+                userId, stockIds.size(), portfolio, connections.size());
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPriceUpdated(StockPriceUpdatedEvent event) {
+        Set<StreamConnection> subscribers = tickerSubscribers.get(event.stockId());
+        if (subscribers != null && !subscribers.isEmpty()) {
+            StreamConnection.StreamEvent update = new StreamConnection.StreamEvent(PRICE_EVENT,
+                    priceUpdate(event.stockId(), event.ticker(), event.price(), event.updatedAt()));
+            String key = priceKey(event.stockId());
+            for (StreamConnection connection : subscribers) {
+                connection.publish(key, update);
+            }
+        }
+
+        Set<PortfolioSubscription> subscriptions = holders.get(event.stockId());
+        if (subscriptions != null) {
+            for (PortfolioSubscription subscription : subscriptions) {
+                StreamConnection.StreamEvent update = portfolioEvent(subscription.applyPrice(event.stockId(), event.price()));
+                for (StreamConnection connection : subscription.getConnections()) {
+                    connection.publish(PORTFOLIO_KEY, update);
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTradeExecuted(TradeExecutedEvent event) {
+        refreshPortfolio(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsRewritten(PositionsRewrittenEvent event) {
+        refreshPortfolio(event.userId());
+    }
+
+    /**
+     * Keep idle connections alive through proxies and find the ones whose clients have gone
+     */
+    @Scheduled(fixedRateString = "${stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        StreamConnection.StreamEvent ping = new StreamConnection.StreamEvent(null, "ping");
+        for (StreamConnection connection : connections) {
+            connection.publish(HEARTBEAT_KEY, ping);
+        }
+    }
+
+    public int getMaxTickers() {
+        return maxTickers;
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connections.forEach(StreamConnection::close);
+        dispatcher.shutdownNow();
+    }
+
+    // Holdings changed, by a trade or a rewrite; reload them and send the new value
+    private void refreshPortfolio(Long userId) {
+        PortfolioSubscription subscription = portfolios.get(userId);
+        if (subscription != null) {
+            reloadHoldings(subscription);
+            StreamConnection.StreamEvent update = portfolioEvent(subscription.getTotalValue());
+            for (StreamConnection connection : subscription.getConnections()) {
+                connection.publish(PORTFOLIO_KEY, update);
+            }
+        }
+    }
+
+    /**
+     * Add the connection to the user's portfolio subscription, creating it if there is none. The
+     * connection is attached under the map's lock, so a concurrent unsubscribe cannot drop the
+     * subscription between lookup and attach.
+     */
+    private PortfolioSubscription attachPortfolio(Long userId, StreamConnection connection) {
+        PortfolioSubscription created = null;
+        PortfolioSubscription subscription = null;
+        while (subscription == null) {
+            if (created == null && !portfolios.containsKey(userId)) {
+                // Load outside the map; a mapping function would hold the bin lock through the query
+                created = new PortfolioSubscription(userId);
+                reloadHoldings(created);
+            }
+            PortfolioSubscription candidate = created;
+            // Null when the subscription seen above closed before we got here; go round and load one
+            subscription = portfolios.compute(userId, (id, existing) -> {
+                PortfolioSubscription attached = existing != null ? existing : candidate;
+                if (attached != null) {
+                    attached.getConnections().add(connection);
+                }
+                return attached;
+            });
+        }
+        if (created != null && created != subscription) {
+            PortfolioSubscription unused = created;
+            holders.values().forEach(subscriptions -> subscriptions.remove(unused));
+        }
+        return subscription;
+    }
+
+    private void reloadHoldings(PortfolioSubscription subscription) {
+        Map<Long, BigDecimal> quantities = new HashMap<>();
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        for (Map<String, Object> holding : positionRepository.findHoldingsByUserId(subscription.getUserId())) {
+            Long stockId = (Long) holding.get("stockId");
+            quantities.put(stockId, (BigDecimal) holding.get("quantity"));
+            if (holding.get("price") != null) {
+                prices.put(stockId, (BigDecimal) holding.get("price"));
+            }
+        }
+
+        Set<Long> held = subscription.reload(quantities, prices);
+        holders.forEach((stockId, subscriptions) -> {
+            if (!held.contains(stockId)) {
+                subscriptions.remove(subscription);
+            }
+        });
+        for (Long stockId : held) {
+            holders.computeIfAbsent(stockId, id -> ConcurrentHashMap.newKeySet()).add(subscription);
+        }
+    }
+
+    private void unsubscribe(StreamConnection connection) {
+        if (!connections.remove(connection)) {
+            return;
+        }
+        for (Long stockId : connection.getStockIds()) {
+            tickerSubscribers.computeIfPresent(stockId, (id, subscribers) -> {
+                subscribers.remove(connection);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+        if (connection.isPortfolio()) {
+            portfolios.computeIfPresent(connection.getUserId(), (userId, subscription) -> {
+                subscription.getConnections().remove(connection);
+                if (!subscription.getConnections().isEmpty()) {
+                    return subscription;
+                }
+                holders.values().forEach(subscriptions -> subscriptions.remove(subscription));
+                return null;
+            });
+        }
+        if (connection.getDropped() > 0) {
+            log.debug("Stream for user {} closed after dropping {} stale updates", connection.getUserId(), connection.getDropped());
+        }
+    }
+
+    private static String priceKey(Long stockId) {
+        return "price:" + stockId;
+    }
+
+    private static PriceUpdateDto priceUpdate(Long stockId, String ticker, BigDecimal price, LocalDateTime updatedAt) {
+        return PriceUpdateDto.builder()
+                .stockId(stockId)
+                .ticker(ticker)
+                .price(price)
+                .updatedAt(updatedAt)
+                .build();
+    }
+
+    private static StreamConnection.StreamEvent portfolioEvent(BigDecimal totalValue) {
+        return new StreamConnection.StreamEvent(PORTFOLIO_EVENT, PortfolioValueDto.builder()
+                .totalValue(totalValue)
+                .asOf(LocalDateTime.now())
+                .build());
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.investment_portfolio_tracker.service.stream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One open SSE connection. Publishers only touch the bounded queue; a single drain task at a time
+ * writes to the socket, so a slow client delays nobody but itself and at worst loses its oldest updates.
+ */
+@Slf4j
+public class StreamConnection {
+
+    private final long userId;
+    private final Set<Long> stockIds;
+    private final boolean portfolio;
+    private final SseEmitter emitter;
+    private final CoalescingQueue<String, StreamEvent> queue;
+    private final Executor dispatcher;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    public StreamConnection(long userId, Set<Long> stockIds, boolean portfolio, SseEmitter emitter,
+                            int queueCapacity, Executor dispatcher) {
+        this.userId = userId;
+        this.stockIds = Set.copyOf(stockIds);
+        this.portfolio = portfolio;
+        this.emitter = emitter;
+        this.queue = new CoalescingQueue<>(queueCapacity);
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Queue an event under a coalescing key and make sure a drain is scheduled
+     */
+    public void publish(String key, StreamEvent event) {
+        if (closed) {
+            return;
+        }
+        queue.offer(key, event);
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            List<Map.Entry<String, StreamEvent>> batch = queue.drain();
+            if (batch.isEmpty()) {
+                scheduled.set(false);
+                // A publisher may have queued after our drain but before the flag cleared
+                if (queue.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                for (Map.Entry<String, StreamEvent> entry : batch) {
+                    StreamEvent event = entry.getValue();
+                    if (event.name() == null) {
+                        emitter.send(SseEmitter.event().comment(String.valueOf(event.payload())));
+                    } else {
+                        emitter.send(SseEmitter.event().name(event.name()).data(event.payload(), MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Closing stream for user {}: {}", userId, e.getMessage());
+                close();
+                scheduled.set(false);
+                return;
+            }
+        }
+    }
+
+    public void close() {
+        if (!closed) {
+            closed = true;
+            emitter.complete();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public Set<Long> getStockIds() {
+        return stockIds;
+    }
+
+    public boolean isPortfolio() {
+        return portfolio;
+    }
+
+    public long getDropped() {
+        return queue.getDropped();
+    }
+
+    /**
+     * An SSE event; a null name sends the payload as a comment line
+     */
+    public record StreamEvent(String name, Object payload) {
+    }
+}
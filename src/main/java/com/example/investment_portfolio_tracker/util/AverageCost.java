@@ -0,0 +1,26 @@
+package com.example.investment_portfolio_tracker.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Average-cost position math shared by live trading and ledger replay, so both round identically.
+ */
+public final class AverageCost {
+
+    public static final int SCALE = 4;
+
+    private AverageCost() {
+    }
+
+    /**
+     * Average cost per share after buying {@code quantity} at {@code price} on top of an existing holding
+     */
+    public static BigDecimal afterBuy(BigDecimal heldQuantity, BigDecimal heldAverageCost,
+                                      BigDecimal quantity, BigDecimal price) {
+        BigDecimal totalShares = heldQuantity.add(quantity);
+        BigDecimal existingValue = heldQuantity.multiply(heldAverageCost);
+        BigDecimal newValue = quantity.multiply(price);
+        return existingValue.add(newValue).divide(totalShares, SCALE, RoundingMode.HALF_UP);
+    }
+}
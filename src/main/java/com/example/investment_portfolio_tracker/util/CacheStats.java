@@ -0,0 +1,28 @@
+package com.example.investment_portfolio_tracker.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit and miss counts of one cache, read by the metrics binder as {@code cache.gets}
+ */
+public class CacheStats {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.investment_portfolio_tracker.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between BigDecimal prices and fixed-point longs.
+ * The scale matches the DECIMAL(19,4) price columns, so conversions are lossless.
+ */
+public final class FixedPoint {
+
+    public static final int SCALE = 4;
+    public static final long ONE = 10_000L;
+
+    private FixedPoint() {
+    }
+
+    public static long toFixed(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long fixed) {
+        return BigDecimal.valueOf(fixed, SCALE);
+    }
+
+    public static double toDouble(long fixed) {
+        return fixed / (double) ONE;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.investment_portfolio_tracker.util;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket rate limiter: up to {@code capacity} calls in a burst, refilled continuously at
+ * {@code capacity} tokens per {@code periodNanos}.
+ */
+public class TokenBucket {
+
+    private final long capacity;
+    private final double tokensPerNano;
+    private final LongSupplier clock;
+
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(long capacity, long periodNanos) {
+        this(capacity, periodNanos, System::nanoTime);
+    }
+
+    public TokenBucket(long capacity, long periodNanos, LongSupplier clock) {
+        if (capacity < 1 || periodNanos < 1) {
+            throw new IllegalArgumentException("Capacity and period must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = capacity / (double) periodNanos;
+        this.clock = clock;
+        this.tokens = capacity;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    /**
+     * Take a token if one is available
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * Take {@code permits} tokens if that many are available; asking for more than the capacity
+     * takes a full bucket
+     */
+    public synchronized boolean tryAcquire(double permits) {
+        refill();
+        double cost = Math.min(permits, capacity);
+        if (tokens < cost) {
+            return false;
+        }
+        tokens -= cost;
+        return true;
+    }
+
+    public synchronized long available() {
+        refill();
+        return (long) tokens;
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,14 @@
+-- Daily closing prices per stock, one row per (stock, trading day).
+-- The row for the current day is overwritten on every price update, so it
+-- always holds the latest known price until the day rolls over.
+CREATE TABLE stock_price_history (
+    id BIGSERIAL PRIMARY KEY,
+    stock_id BIGINT NOT NULL REFERENCES stocks(id) ON DELETE CASCADE,
+    price_date DATE NOT NULL,
+    close_price DECIMAL(19,4) NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT unique_stock_price_date UNIQUE (stock_id, price_date)
+);
+
+CREATE INDEX idx_price_history_updated_at ON stock_price_history(updated_at);
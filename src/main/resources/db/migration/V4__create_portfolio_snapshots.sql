@@ -0,0 +1,26 @@
+-- End-of-day net asset value per user
+CREATE TABLE portfolio_snapshots (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    snapshot_date DATE NOT NULL,
+    market_value DECIMAL(19,4) NOT NULL,
+    cost_basis DECIMAL(19,4) NOT NULL,
+    -- Net money put in (buys incl. fees) minus money taken out (sells net of fees) during the day
+    cash_flow DECIMAL(19,4) NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT unique_user_snapshot_date UNIQUE (user_id, snapshot_date)
+);
+
+CREATE INDEX idx_snapshot_date ON portfolio_snapshots(snapshot_date);
+
+-- Progress of the end-of-day batch; a re-run for the same date skips chunks recorded here
+CREATE TABLE portfolio_snapshot_chunks (
+    snapshot_date DATE NOT NULL,
+    first_user_id BIGINT NOT NULL,
+    last_user_id BIGINT NOT NULL,
+    users_written INT NOT NULL,
+    completed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (snapshot_date, first_user_id)
+);
@@ -0,0 +1,50 @@
+-- Per-user lot relief method applied when a SELL does not name specific lots
+ALTER TABLE users ADD COLUMN cost_basis_method VARCHAR(20) NOT NULL DEFAULT 'FIFO'
+    CHECK (cost_basis_method IN ('FIFO', 'LIFO', 'HIFO', 'SPECIFIC_ID'));
+
+-- Running total of gains realized on the position, maintained on every SELL
+ALTER TABLE positions ADD COLUMN realized_gain DECIMAL(19,4) NOT NULL DEFAULT 0;
+
+-- One lot per BUY; remaining_quantity is drawn down as SELLs consume it
+CREATE TABLE tax_lots (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    stock_id BIGINT NOT NULL REFERENCES stocks(id),
+    -- NULL for lots seeded from pre-existing positions below
+    buy_transaction_id BIGINT REFERENCES transactions(id) ON DELETE CASCADE,
+    acquired_at TIMESTAMP NOT NULL,
+    original_quantity DECIMAL(19,6) NOT NULL,
+    remaining_quantity DECIMAL(19,6) NOT NULL,
+    -- Purchase price plus the BUY fee spread over the lot's shares
+    unit_cost DECIMAL(19,8) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT unique_lot_buy_transaction UNIQUE (buy_transaction_id)
+);
+
+CREATE INDEX idx_tax_lot_open ON tax_lots(user_id, stock_id) WHERE remaining_quantity > 0;
+
+-- One row per lot consumed by a SELL
+CREATE TABLE realized_gains (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    stock_id BIGINT NOT NULL REFERENCES stocks(id),
+    sell_transaction_id BIGINT NOT NULL REFERENCES transactions(id) ON DELETE CASCADE,
+    lot_id BIGINT NOT NULL REFERENCES tax_lots(id) ON DELETE CASCADE,
+    quantity DECIMAL(19,6) NOT NULL,
+    proceeds DECIMAL(19,4) NOT NULL,
+    cost_basis DECIMAL(19,4) NOT NULL,
+    gain DECIMAL(19,4) NOT NULL,
+    acquired_at TIMESTAMP NOT NULL,
+    sold_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_realized_gain_user ON realized_gains(user_id, sold_at);
+CREATE INDEX idx_realized_gain_lot ON realized_gains(lot_id);
+
+-- Seed one lot per open position at its average cost so existing holdings can be sold;
+-- the tax lot rebuild job replaces these with exact lots from the transaction ledger
+INSERT INTO tax_lots (user_id, stock_id, acquired_at, original_quantity, remaining_quantity, unit_cost)
+SELECT user_id, stock_id, first_purchased, quantity, quantity, average_cost
+FROM positions
+WHERE quantity > 0;
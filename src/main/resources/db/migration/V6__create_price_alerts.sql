@@ -0,0 +1,20 @@
+-- Price and position alerts; each fires once and then stays TRIGGERED until re-armed
+CREATE TABLE price_alerts (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    stock_id BIGINT NOT NULL REFERENCES stocks(id) ON DELETE CASCADE,
+    alert_type VARCHAR(20) NOT NULL
+        CHECK (alert_type IN ('PRICE_ABOVE', 'PRICE_BELOW', 'POSITION_LOSS', 'POSITION_GAIN')),
+    -- A price for PRICE_* alerts, a percentage of average cost for POSITION_* alerts
+    threshold DECIMAL(19,4) NOT NULL CHECK (threshold > 0),
+    status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE'
+        CHECK (status IN ('ACTIVE', 'TRIGGERED', 'DISABLED')),
+    note VARCHAR(255),
+    triggered_at TIMESTAMP,
+    triggered_price DECIMAL(19,4),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_price_alert_user ON price_alerts(user_id);
+CREATE INDEX idx_price_alert_active ON price_alerts(stock_id) WHERE status = 'ACTIVE';
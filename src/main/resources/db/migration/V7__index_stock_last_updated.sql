@@ -0,0 +1,2 @@
+-- Cluster price sync polls for stocks written since its last pass
+CREATE INDEX idx_stock_last_updated ON stocks(last_updated);
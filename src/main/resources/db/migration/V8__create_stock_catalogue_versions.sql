@@ -0,0 +1,56 @@
+-- Versions behind the stock catalogue's ETags. Bumped by triggers in the transaction that writes
+-- the stocks, so every node and any direct SQL writer moves them, and they commit with the rows.
+CREATE TABLE stock_catalogue_versions (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    listing_version BIGINT NOT NULL DEFAULT 0,
+    price_version BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO stock_catalogue_versions (id) VALUES (1);
+
+CREATE OR REPLACE FUNCTION bump_stock_listing_version()
+RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE stock_catalogue_versions SET listing_version = listing_version + 1 WHERE id = 1;
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+-- Once per statement; an update that matched no rows, or rewrote the same values, moves nothing
+CREATE OR REPLACE FUNCTION bump_stock_catalogue_versions_on_update()
+RETURNS TRIGGER AS $$
+DECLARE
+    listing_moved BOOLEAN;
+    price_moved BOOLEAN;
+BEGIN
+    SELECT bool_or((n.ticker, n.name, n.exchange, n.sector, n.industry, n.currency)
+                   IS DISTINCT FROM (o.ticker, o.name, o.exchange, o.sector, o.industry, o.currency)),
+           bool_or((n.current_price, n.last_updated) IS DISTINCT FROM (o.current_price, o.last_updated))
+    INTO listing_moved, price_moved
+    FROM old_stocks o JOIN new_stocks n ON n.id = o.id;
+
+    IF listing_moved OR price_moved THEN
+        UPDATE stock_catalogue_versions SET
+            listing_version = listing_version + CASE WHEN listing_moved THEN 1 ELSE 0 END,
+            price_version = price_version + CASE WHEN price_moved THEN 1 ELSE 0 END
+        WHERE id = 1;
+    END IF;
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER bump_stock_listing_version_on_insert
+    AFTER INSERT ON stocks
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_stock_listing_version();
+
+CREATE TRIGGER bump_stock_listing_version_on_delete
+    AFTER DELETE ON stocks
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_stock_listing_version();
+
+CREATE TRIGGER bump_stock_catalogue_versions_on_update
+    AFTER UPDATE ON stocks
+    REFERENCING OLD TABLE AS old_stocks NEW TABLE AS new_stocks
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_stock_catalogue_versions_on_update();
@@ -0,0 +1,2 @@
+-- Tick ingestion resolves feed tickers case-insensitively
+CREATE INDEX idx_stock_ticker_upper ON stocks(UPPER(ticker));
@@ -0,0 +1,80 @@
+package com.example.investment_portfolio_tracker.benchmark;
+
+import com.example.investment_portfolio_tracker.service.external.AlphaVantageService;
+import com.example.investment_portfolio_tracker.service.external.AlphaVantageStubServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quote refresh throughput against the replay stub, so it can be measured offline and in CI.
+ * Quotes are not cached, tickers are drawn from a synthetic universe, and latency and error
+ * injection come from the stub.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.investment_portfolio_tracker.benchmark.AlphaVantageRefreshBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(8)
+@Fork(1)
+public class AlphaVantageRefreshBenchmark {
+
+    @Param({"fixed:0", "lognormal:80:0.5"})
+    public String latency;
+
+    @Param({"0.0", "0.05"})
+    public double errorRate;
+
+    @Param({"500"})
+    public int tickers;
+
+    private Path directory;
+    private AlphaVantageStubServer stub;
+    private AlphaVantageService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("alphavantage-bench");
+        stub = new AlphaVantageStubServer(directory.resolve("fixtures"))
+                .latency(AlphaVantageStubServer.Latency.parse(latency))
+                .errorRate(errorRate)
+                .synthesizeMissing(true);
+        service = new AlphaVantageService(stub.start(0), "demo", new ObjectMapper(),
+                directory.resolve("cache").toString(), DataSize.ofMegabytes(16),
+                Duration.ZERO, Duration.ofDays(7), Duration.ofHours(12), "");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        service.close();
+        stub.close();
+    }
+
+    // Failed calls still count as operations; the refresh loop spends the same time on them
+    @Benchmark
+    public Object refreshQuote() {
+        try {
+            return service.getQuote("T" + ThreadLocalRandom.current().nextInt(tickers));
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(AlphaVantageRefreshBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.investment_portfolio_tracker.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.example.investment_portfolio_tracker.config.LogSamplingTurboFilter;
+import com.example.investment_portfolio_tracker.filter.JwtAuthenticationFilter;
+import com.example.investment_portfolio_tracker.service.PortfolioService;
+import com.example.investment_portfolio_tracker.service.StockService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the log calls a trade request makes, under the old and the new logging setup.
+ * {@code sync} is the previous configuration: application loggers at DEBUG, text pattern, and
+ * every caller writing through the appender lock. {@code async} mirrors {@code logback-spring.xml}:
+ * INFO, JSON, a non-blocking queue in front of the writer, and sampling of the marked hot-path lines.
+ * Both write to a temporary file so the terminal is not what gets measured.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.investment_portfolio_tracker.benchmark.LoggingThroughputBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(8)
+@Fork(1)
+public class LoggingThroughputBenchmark {
+
+    private static final Logger FILTER_LOG = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+    private static final Logger PORTFOLIO_LOG = LoggerFactory.getLogger(PortfolioService.class);
+    private static final Logger STOCK_LOG = LoggerFactory.getLogger(StockService.class);
+
+    @Param({"sync", "async"})
+    public String mode;
+
+    private Path directory;
+    private LoggerContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("logging-bench");
+        context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        boolean async = mode.equals("async");
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile(directory.resolve("app.log").toString());
+        file.setEncoder(async ? jsonEncoder() : textEncoder());
+        file.start();
+
+        Appender<ILoggingEvent> root = file;
+        if (async) {
+            AsyncAppender queue = new AsyncAppender();
+            queue.setContext(context);
+            queue.setQueueSize(8192);
+            queue.setNeverBlock(true);
+            queue.setIncludeCallerData(false);
+            queue.addAppender(file);
+            queue.start();
+            root = queue;
+
+            LogSamplingTurboFilter sampling = new LogSamplingTurboFilter();
+            sampling.setContext(context);
+            sampling.setCategories(PortfolioService.class.getName() + "=10," + StockService.class.getName() + "=10,"
+                    + JwtAuthenticationFilter.class.getName() + "=100");
+            sampling.start();
+            context.addTurboFilter(sampling);
+        }
+
+        ch.qos.logback.classic.Logger rootLogger = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        rootLogger.setLevel(ch.qos.logback.classic.Level.INFO);
+        rootLogger.addAppender(root);
+        context.getLogger("com.example.investment_portfolio_tracker").setLevel(async ? ch.qos.logback.classic.Level.INFO : ch.qos.logback.classic.Level.DEBUG);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.reset();
+    }
+
+    // The filter, position and transaction lines a BUY request produces, plus a price update
+    @Benchmark
+    public void tradeRequest() {
+        long userId = ThreadLocalRandom.current().nextLong(1, 10_000);
+        BigDecimal quantity = BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1, 500));
+        BigDecimal price = new BigDecimal("187.2345");
+        FILTER_LOG.debug(LogSamplingTurboFilter.SAMPLED, "Authenticated user: {}", "user" + userId + "@example.com");
+        PORTFOLIO_LOG.debug(LogSamplingTurboFilter.SAMPLED, "Updated position for user {} and stock {}: {} shares at avg cost {}",
+                userId, "AAPL", quantity, price);
+        PORTFOLIO_LOG.info("Created BUY transaction for user {} and stock {}: {} shares at {} for a total of {}",
+                userId, "AAPL", quantity, price, price.multiply(quantity));
+        STOCK_LOG.debug(LogSamplingTurboFilter.SAMPLED, "Updated price for {}: {}", "AAPL", price);
+    }
+
+    private Encoder<ILoggingEvent> textEncoder() {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p ${PID:- } --- [%15.15t] %-40.40logger{39} : %m%n");
+        encoder.start();
+        return encoder;
+    }
+
+    private Encoder<ILoggingEvent> jsonEncoder() {
+        // Boot's encoder looks up the Spring environment it would normally find in the logger context
+        context.putObject(Environment.class.getName(), new StandardEnvironment());
+        StructuredLogEncoder encoder = new StructuredLogEncoder();
+        encoder.setContext(context);
+        encoder.setFormat("logstash");
+        encoder.start();
+        return encoder;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(LoggingThroughputBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.investment_portfolio_tracker.benchmark;
+
+import com.example.investment_portfolio_tracker.service.marketdata.CircuitBreaker;
+import com.example.investment_portfolio_tracker.service.marketdata.FakeMarketDataProvider;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketDataException;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketDataProvider;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketDataRouter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-ticker quote latency through the router with two synthetic providers: plain failover
+ * order against racing both and taking the first valid answer.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.investment_portfolio_tracker.benchmark.MarketDataRouterBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class MarketDataRouterBenchmark {
+
+    @Param({"20"})
+    public double latencyMs;
+
+    @Param({"40"})
+    public double jitterMs;
+
+    @Param({"0.0", "0.1"})
+    public double errorRate;
+
+    private MarketDataRouter sequential;
+    private MarketDataRouter racing;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<MarketDataProvider> providers = List.of(
+                new FakeMarketDataProvider("first", latencyMs, jitterMs, errorRate),
+                new FakeMarketDataProvider("second", latencyMs, jitterMs, errorRate));
+        // Breaker effectively off so injected errors never take a provider out of the measurement
+        CircuitBreaker.Config breaker = new CircuitBreaker.Config(100, 100, 1.1, Duration.ofSeconds(1), 1);
+        sequential = new MarketDataRouter(providers, Map.of(), breaker, false, 5000, 0.0);
+        racing = new MarketDataRouter(providers, Map.of(), breaker, true, 5000, 0.0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sequential.shutdown();
+        racing.shutdown();
+    }
+
+    // With injected errors both providers occasionally fail; that is part of the measured latency
+    @Benchmark
+    public Object failoverInOrder() {
+        try {
+            return sequential.getQuote("AAPL");
+        } catch (MarketDataException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object raceTwoProviders() {
+        try {
+            return racing.getQuoteFastest("AAPL");
+        } catch (MarketDataException e) {
+            return e;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(MarketDataRouterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.investment_portfolio_tracker.benchmark;
+
+import com.example.investment_portfolio_tracker.service.analytics.PriceHistoryColumnStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Range-scan throughput of the memory-mapped price history store.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.investment_portfolio_tracker.benchmark.PriceHistoryScanBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceHistoryScanBenchmark {
+
+    @Param({"1000"})
+    public int stocks;
+
+    @Param({"2520"})
+    public int daysPerStock;
+
+    private PriceHistoryColumnStore store;
+    private Path directory;
+    private long firstDay;
+    private long[] dayBuffer;
+    private long[] priceBuffer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("price-history-bench");
+        store = new PriceHistoryColumnStore(directory);
+        firstDay = LocalDate.of(2015, 1, 1).toEpochDay();
+
+        long[] days = new long[daysPerStock];
+        long[] prices = new long[daysPerStock];
+        for (int i = 0; i < daysPerStock; i++) {
+            days[i] = firstDay + i;
+        }
+        for (long stockId = 1; stockId <= stocks; stockId++) {
+            long price = 1_000_000L;
+            for (int i = 0; i < daysPerStock; i++) {
+                price += (i * 31 + stockId) % 200 - 100;
+                prices[i] = price;
+            }
+            store.replace(stockId, days, prices, daysPerStock);
+        }
+
+        dayBuffer = new long[daysPerStock];
+        priceBuffer = new long[daysPerStock];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        store.close();
+        try (var files = Files.walk(directory)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Full-history scan of every stock into reused arrays, summing closes to keep the loop honest
+     */
+    @Benchmark
+    public void scanAllStocksFullHistory(Blackhole blackhole) {
+        long lastDay = firstDay + daysPerStock - 1;
+        for (long stockId = 1; stockId <= stocks; stockId++) {
+            int n = store.readInto(stockId, firstDay, lastDay, dayBuffer, priceBuffer);
+            long sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += priceBuffer[i];
+            }
+            blackhole.consume(sum);
+        }
+    }
+
+    /**
+     * One-year window per stock, allocating a fresh series each time as the REST path does
+     */
+    @Benchmark
+    public void readOneYearWindowPerStock(Blackhole blackhole) {
+        long to = firstDay + daysPerStock - 1;
+        long from = to - 365;
+        for (long stockId = 1; stockId <= stocks; stockId++) {
+            blackhole.consume(store.read(stockId, from, to));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(PriceHistoryScanBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.investment_portfolio_tracker.benchmark;
+
+import com.example.investment_portfolio_tracker.service.external.AlphaVantageService;
+import com.example.investment_portfolio_tracker.service.external.AlphaVantageStubServer;
+import com.example.investment_portfolio_tracker.service.external.ReactiveAlphaVantageClient;
+import com.example.investment_portfolio_tracker.service.ingest.LatencyHistogram;
+import com.example.investment_portfolio_tracker.service.market.PriceBoard;
+import com.example.investment_portfolio_tracker.service.marketdata.AlphaVantageMarketDataProvider;
+import com.example.investment_portfolio_tracker.service.marketdata.CircuitBreaker;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketDataRouter;
+import com.example.investment_portfolio_tracker.service.reactive.ReactiveReadService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.containers.PostgreSQLContainer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read throughput and latency with 10k requests in flight, blocking against reactive.
+ * {@code blocking} serves them from a Tomcat-sized pool of 200 threads; {@code reactive}
+ * subscribes to all of them at once.
+ * <ul>
+ *   <li>{@code quote}: {@link AlphaVantageService} against {@link ReactiveAlphaVantageClient}.
+ *   Quotes are not cached and the router has no quota here, so every request reaches the stub.</li>
+ *   <li>{@code positions-value}: the {@code /positions/value} read, JDBC through a 10-connection
+ *   Hikari pool against {@link ReactiveReadService} over a 20-connection R2DBC pool, both priced
+ *   from the {@link PriceBoard}. Runs against a Postgres container, so it needs Docker.</li>
+ * </ul>
+ * Per-request latency (queueing included) is printed as percentiles after each iteration.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.investment_portfolio_tracker.benchmark.ReactiveReadBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@OperationsPerInvocation(ReactiveReadBenchmark.CONCURRENCY)
+@Fork(1)
+public class ReactiveReadBenchmark {
+
+    static final int CONCURRENCY = 10_000;
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int USERS = 1_000;
+    private static final int STOCKS = 500;
+    private static final int POSITIONS_PER_USER = 20;
+
+    // Same query as ReactiveReadService, with a JDBC placeholder
+    private static final String HOLDINGS_SQL = """
+            SELECT p.stock_id, p.quantity, s.current_price
+            FROM positions p
+            JOIN users u ON u.id = p.user_id
+            JOIN stocks s ON s.id = p.stock_id
+            WHERE u.email = ? AND p.quantity > 0
+            """;
+
+    @Param({"blocking", "reactive"})
+    public String mode;
+
+    @Param({"quote", "positions-value"})
+    public String read;
+
+    @Param({"fixed:50"})
+    public String latency;
+
+    private Path directory;
+    private AlphaVantageStubServer stub;
+    private AlphaVantageService service;
+    private ReactiveAlphaVantageClient client;
+    private PostgreSQLContainer<?> postgres;
+    private HikariDataSource jdbcPool;
+    private JdbcTemplate jdbcTemplate;
+    private ConnectionPool r2dbcPool;
+    private PriceBoard priceBoard;
+    private ReactiveReadService readService;
+    private ExecutorService threads;
+    private LatencyHistogram latencies;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if (read.equals("quote")) {
+            setUpQuotes();
+        } else {
+            setUpPositions();
+        }
+        threads = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+    }
+
+    private void setUpQuotes() throws Exception {
+        // The JDK server closes keep-alive connections beyond 200 idle ones, which the reactive pool would trip over
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "1000");
+        directory = Files.createTempDirectory("reactive-read-bench");
+        stub = new AlphaVantageStubServer(directory.resolve("fixtures"))
+                .latency(AlphaVantageStubServer.Latency.parse(latency))
+                .synthesizeMissing(true);
+        service = new AlphaVantageService(stub.start(0), "demo", new ObjectMapper(),
+                directory.resolve("cache").toString(), DataSize.ofMegabytes(16),
+                Duration.ZERO, Duration.ofDays(7), Duration.ofHours(12), "");
+        MarketDataRouter router = new MarketDataRouter(List.of(new AlphaVantageMarketDataProvider(service)), Map.of(),
+                new CircuitBreaker.Config(20, 5, 0.5, Duration.ofMinutes(1), 1), false, 0, 0.5);
+        client = new ReactiveAlphaVantageClient(service, router, 500);
+    }
+
+    private void setUpPositions() {
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+        jdbcPool = new HikariDataSource();
+        jdbcPool.setJdbcUrl(postgres.getJdbcUrl());
+        jdbcPool.setUsername(postgres.getUsername());
+        jdbcPool.setPassword(postgres.getPassword());
+        jdbcPool.setMaximumPoolSize(10);
+        jdbcTemplate = new JdbcTemplate(jdbcPool);
+        seed();
+
+        priceBoard = new PriceBoard(jdbcTemplate, STOCKS * 2);
+        priceBoard.warmUp();
+        r2dbcPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(
+                        "r2dbc:postgresql://" + postgres.getUsername() + ":" + postgres.getPassword() + "@"
+                                + postgres.getHost() + ":" + postgres.getMappedPort(5432) + "/" + postgres.getDatabaseName()))
+                .maxSize(20)
+                .build());
+        readService = new ReactiveReadService(DatabaseClient.create(r2dbcPool), priceBoard);
+    }
+
+    private void seed() {
+        jdbcTemplate.execute("CREATE TABLE users (id BIGSERIAL PRIMARY KEY, email VARCHAR(255) NOT NULL UNIQUE)");
+        jdbcTemplate.execute("CREATE TABLE stocks (id BIGSERIAL PRIMARY KEY, current_price DECIMAL(19,4), " +
+                "last_updated TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE positions (user_id BIGINT NOT NULL REFERENCES users(id), " +
+                "stock_id BIGINT NOT NULL REFERENCES stocks(id), quantity DECIMAL(19,6) NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX idx_position_user ON positions(user_id)");
+        jdbcTemplate.update("INSERT INTO users (email) SELECT 'user' || i || '@bench' FROM generate_series(1, ?) i", USERS);
+        jdbcTemplate.update("INSERT INTO stocks (current_price) SELECT 10 + i FROM generate_series(1, ?) i", STOCKS);
+        jdbcTemplate.update("INSERT INTO positions (user_id, stock_id, quantity) " +
+                "SELECT u, 1 + (u * 31 + n) % ?, n FROM generate_series(1, ?) u, generate_series(1, ?) n",
+                STOCKS, USERS, POSITIONS_PER_USER);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    // Per iteration, so warmup numbers (JIT, connection setup) are reported apart from measured ones
+    @Setup(Level.Iteration)
+    public void resetLatencies() {
+        latencies = new LatencyHistogram();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printLatencies() {
+        System.out.println("\n" + mode + " " + read + " latency: " + latencies.summary());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        threads.shutdownNow();
+        if (client != null) {
+            client.close();
+            service.close();
+            stub.close();
+        }
+        if (postgres != null) {
+            r2dbcPool.dispose();
+            jdbcPool.close();
+            postgres.stop();
+        }
+    }
+
+    // Failed calls still count as requests served
+    @Benchmark
+    public long burst() throws Exception {
+        return mode.equals("reactive") ? reactiveBurst() : blockingBurst();
+    }
+
+    private long blockingBurst() throws Exception {
+        List<Future<?>> pending = new ArrayList<>(CONCURRENCY);
+        for (int i = 0; i < CONCURRENCY; i++) {
+            Callable<Object> request = blockingRequest(i);
+            long start = System.nanoTime();
+            pending.add(threads.submit(() -> {
+                try {
+                    return request.call();
+                } catch (RuntimeException e) {
+                    return e;
+                } finally {
+                    latencies.record(System.nanoTime() - start);
+                }
+            }));
+        }
+        for (Future<?> request : pending) {
+            request.get();
+        }
+        return pending.size();
+    }
+
+    private long reactiveBurst() {
+        return Flux.range(0, CONCURRENCY)
+                .flatMap(i -> {
+                    long start = System.nanoTime();
+                    return reactiveRequest(i)
+                            .onErrorResume(e -> Mono.just(e))
+                            .doFinally(signal -> latencies.record(System.nanoTime() - start));
+                }, CONCURRENCY)
+                .count()
+                .block();
+    }
+
+    private Callable<Object> blockingRequest(int i) {
+        if (read.equals("quote")) {
+            String ticker = "T" + i;
+            return () -> service.getQuote(ticker);
+        }
+        String email = email(i);
+        return () -> jdbcTemplate.query(HOLDINGS_SQL, rs -> {
+            BigDecimal total = BigDecimal.ZERO;
+            while (rs.next()) {
+                BigDecimal price = priceBoard.getPrice(rs.getLong("stock_id"));
+                if (price == null) {
+                    price = rs.getBigDecimal("current_price");
+                }
+                if (price != null) {
+                    total = total.add(price.multiply(rs.getBigDecimal("quantity")));
+                }
+            }
+            return total;
+        }, email);
+    }
+
+    private Mono<Object> reactiveRequest(int i) {
+        if (read.equals("quote")) {
+            return client.getQuote("T" + i).map(quote -> quote);
+        }
+        return readService.getPortfolioValue(email(i)).map(value -> value);
+    }
+
+    private static String email(int i) {
+        return "user" + (1 + i % USERS) + "@bench";
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ReactiveReadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.investment_portfolio_tracker.benchmark;
+
+import com.example.investment_portfolio_tracker.InvestmentPortfolioTrackerApplication;
+import com.example.investment_portfolio_tracker.service.external.AlphaVantageStubServer;
+import com.example.investment_portfolio_tracker.service.ingest.LatencyHistogram;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Request throughput with a slow upstream, comparing the two request execution modes end to end.
+ * Each trial boots the application against a Postgres container and the Alpha Vantage stub, with
+ * {@code spring.threads.virtual.enabled} off (Tomcat's pool of 200 platform threads) or on (a
+ * virtual thread per request, with the connection pool behind the {@code ConnectionGateDataSource}).
+ * Each invocation is a burst of concurrent authenticated HTTP requests to one endpoint:
+ * <ul>
+ *   <li>{@code refresh}: {@code PUT /api/v1/stocks/ticker/{ticker}/refresh}, one quote call per request.</li>
+ *   <li>{@code lookup}: {@code POST /api/v1/stocks/lookup/{ticker}} for a new ticker, a quote and an
+ *   overview call per request, and an insert.</li>
+ * </ul>
+ * The stub answers after {@code latency}. Upstream responses are not cached and the router has no
+ * quota here, so every request reaches the stub; both endpoints hold a database connection for the
+ * whole upstream call, so {@code poolSize} bounds either mode. Failed requests still count as
+ * served. Per-request latency (queueing included) is printed as percentiles after each iteration.
+ * Needs Docker for Postgres.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.investment_portfolio_tracker.benchmark.SlowUpstreamLoadBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@OperationsPerInvocation(SlowUpstreamLoadBenchmark.REQUESTS)
+@Fork(1)
+public class SlowUpstreamLoadBenchmark {
+
+    static final int REQUESTS = 500;
+    private static final int STOCKS = 1_000;
+    private static final String PASSWORD = "Bench#Pass1";
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"refresh", "lookup"})
+    public String endpoint;
+
+    @Param({"fixed:200"})
+    public String latency;
+
+    @Param({"10"})
+    public int poolSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private Path directory;
+    private PostgreSQLContainer<?> postgres;
+    private AlphaVantageStubServer stub;
+    private ConfigurableApplicationContext application;
+    private ExecutorService clientThreads;
+    private HttpClient client;
+    private String baseUrl;
+    private String token;
+    private LatencyHistogram latencies;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("slow-upstream-bench");
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+        stub = new AlphaVantageStubServer(directory.resolve("fixtures"))
+                .latency(AlphaVantageStubServer.Latency.parse(latency))
+                .synthesizeMissing(true);
+        String stubUrl = stub.start(0);
+
+        application = new SpringApplicationBuilder(InvestmentPortfolioTrackerApplication.class)
+                .properties(Map.ofEntries(
+                        Map.entry("server.port", "0"),
+                        Map.entry("spring.threads.virtual.enabled", String.valueOf(mode.equals("virtual"))),
+                        Map.entry("spring.datasource.url", postgres.getJdbcUrl()),
+                        Map.entry("spring.datasource.username", postgres.getUsername()),
+                        Map.entry("spring.datasource.password", postgres.getPassword()),
+                        Map.entry("spring.datasource.hikari.maximum-pool-size", String.valueOf(poolSize)),
+                        Map.entry("alphavantage.base-url", stubUrl),
+                        Map.entry("alphavantage.cache.dir", directory.resolve("alphavantage").toString()),
+                        Map.entry("alphavantage.cache.ttl.global-quote", "PT0S"),
+                        Map.entry("alphavantage.cache.ttl.overview", "PT0S"),
+                        Map.entry("market-data.providers", "alphavantage"),
+                        Map.entry("market-data.alphavantage.calls-per-minute", "0"),
+                        // Keep the background refresh queue and symbol backfill off the stub
+                        Map.entry("market-refresh.calls-per-day", "0"),
+                        Map.entry("symbol-universe.backfill.calls-per-day", "0"),
+                        Map.entry("symbol-universe.file", directory.resolve("symbol-universe.tsv").toString()),
+                        Map.entry("analytics.price-cache.dir", directory.resolve("price-cache").toString()),
+                        Map.entry("tracing.file.enabled", "false"),
+                        Map.entry("management.tracing.sampling.probability", "0"),
+                        Map.entry("logging.level.root", "WARN"),
+                        Map.entry("logging.level.com.example.investment_portfolio_tracker", "WARN")))
+                .run();
+        baseUrl = "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+
+        application.getBean(JdbcTemplate.class).update(
+                "INSERT INTO stocks (ticker, name, exchange, currency, current_price) " +
+                        "SELECT 'T' || i, 'Stock ' || i, 'NYSE', 'USD', 100 FROM generate_series(0, ? - 1) i", STOCKS);
+
+        clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder().executor(clientThreads).build();
+        token = register();
+    }
+
+    // Per iteration, so warmup numbers (JIT, connection setup) are reported apart from measured ones
+    @Setup(Level.Iteration)
+    public void resetLatencies() {
+        latencies = new LatencyHistogram();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printLatencies() {
+        System.out.println("\n" + mode + " " + endpoint + " latency: " + latencies.summary());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clientThreads.shutdownNow();
+        application.close();
+        stub.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public int burst() {
+        List<CompletableFuture<?>> pending = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            HttpRequest request = request(i);
+            long start = System.nanoTime();
+            pending.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        latencies.record(System.nanoTime() - start);
+                        return response;
+                    }));
+        }
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        return pending.size();
+    }
+
+    private HttpRequest request(int i) {
+        HttpRequest.Builder request = HttpRequest.newBuilder().header("Authorization", "Bearer " + token);
+        if (endpoint.equals("lookup")) {
+            // A ticker not looked up before, so every request reaches upstream and inserts
+            return request.uri(URI.create(baseUrl + "/api/v1/stocks/lookup/L" + lookups.incrementAndGet()))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+        }
+        return request.uri(URI.create(baseUrl + "/api/v1/stocks/ticker/T" + (i % STOCKS) + "/refresh"))
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    private String register() throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of(
+                "firstName", "Bench", "lastName", "User", "email", "bench@example.com", "password", PASSWORD));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                        .uri(URI.create(baseUrl + "/api/v1/auth/register"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Registration failed: " + response.statusCode() + " " + response.body());
+        }
+        return objectMapper.readTree(response.body()).get("token").asText();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(SlowUpstreamLoadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
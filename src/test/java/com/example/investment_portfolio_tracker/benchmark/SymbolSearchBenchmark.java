@@ -0,0 +1,73 @@
+package com.example.investment_portfolio_tracker.benchmark;
+
+import com.example.investment_portfolio_tracker.service.search.SymbolEntry;
+import com.example.investment_portfolio_tracker.service.search.SymbolIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autocomplete latency over a synthetic universe of symbols, for queries that stop at each
+ * ranking tier: ticker prefix, name prefix, and a misspelling that falls through to fuzzy.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.investment_portfolio_tracker.benchmark.SymbolSearchBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class SymbolSearchBenchmark {
+
+    private static final String[] WORDS = {"global", "american", "pacific", "energy", "capital", "systems",
+            "holdings", "technologies", "financial", "medical", "resources", "industries", "partners", "bio",
+            "digital", "networks", "semiconductor", "pharmaceuticals", "realty", "logistics"};
+    private static final String[] SUFFIXES = {"Inc", "Corp", "Ltd", "Group", "PLC", "Trust"};
+
+    @Param({"100000"})
+    public int symbols;
+
+    @Param({"ab", "global en", "semicondcutor"})
+    public String query;
+
+    private SymbolIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<SymbolEntry> entries = new ArrayList<>(symbols);
+        for (int i = 0; i < symbols; i++) {
+            StringBuilder ticker = new StringBuilder();
+            for (int c = 0; c < 2 + random.nextInt(3); c++) {
+                ticker.append((char) ('A' + random.nextInt(26)));
+            }
+            ticker.append(i);
+            String name = capitalize(WORDS[random.nextInt(WORDS.length)]) + " "
+                    + capitalize(WORDS[random.nextInt(WORDS.length)]) + " " + SUFFIXES[random.nextInt(SUFFIXES.length)];
+            entries.add(new SymbolEntry((long) i, ticker.toString(), name, "NYSE"));
+        }
+        index = SymbolIndex.build(entries);
+    }
+
+    @Benchmark
+    public Object autocomplete() {
+        return index.search(query, 10, 0.5);
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(SymbolSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.investment_portfolio_tracker.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.investment_portfolio_tracker.service.StockService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogSamplingTurboFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        LogSamplingTurboFilter filter = new LogSamplingTurboFilter();
+        filter.setContext(context);
+        filter.setCategories(StockService.class.getName() + "=10");
+        filter.start();
+        context.addTurboFilter(filter);
+
+        appender.setContext(context);
+        appender.start();
+        logger = context.getLogger(StockService.class);
+        logger.setLevel(Level.DEBUG);
+        logger.addAppender(appender);
+    }
+
+    @Test
+    void shouldKeepOneInNOfTheMarkedLines() {
+        // When
+        for (int i = 0; i < 100; i++) {
+            logger.debug(LogSamplingTurboFilter.SAMPLED, "Updated price for {}: {}", "AAPL", i);
+        }
+
+        // Then
+        assertThat(appender.list).hasSize(10);
+    }
+
+    @Test
+    void shouldNeverSampleUnmarkedAuditLinesFromTheSameLogger() {
+        // When
+        for (int i = 0; i < 100; i++) {
+            logger.debug(LogSamplingTurboFilter.SAMPLED, "Updated price for {}: {}", "AAPL", i);
+            logger.info("Created new stock: {}", "T" + i);
+        }
+        logger.info("Stock cache cleared");
+
+        // Then
+        assertThat(appender.list)
+                .filteredOn(event -> event.getLevel() == Level.INFO)
+                .hasSize(101);
+    }
+
+    @Test
+    void shouldKeepWarningsAndNotSpendSamplesOnLevelChecks() {
+        // When
+        for (int i = 0; i < 100; i++) {
+            logger.warn(LogSamplingTurboFilter.SAMPLED, "Price feed lagging for {}", "AAPL");
+            logger.isDebugEnabled(LogSamplingTurboFilter.SAMPLED);
+        }
+        logger.debug(LogSamplingTurboFilter.SAMPLED, "Updated price for {}: {}", "AAPL", 1);
+
+        // Then
+        assertThat(appender.list).filteredOn(event -> event.getLevel() == Level.WARN).hasSize(100);
+        assertThat(appender.list).filteredOn(event -> event.getLevel() == Level.DEBUG).hasSize(1);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.investment_portfolio_tracker.filter;
+
+import com.example.investment_portfolio_tracker.config.SqlCaptureDataSource;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SlowRequestSqlFilterTest {
+
+    @Mock
+    private DataSource target;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement preparedStatement;
+    @Mock
+    private Statement statement;
+
+    private SqlCaptureDataSource dataSource;
+    private SimpleMeterRegistry registry;
+    private SlowRequestSqlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SqlCaptureDataSource(target);
+        registry = new SimpleMeterRegistry();
+        filter = new SlowRequestSqlFilter(registry, Tracer.NOOP, Duration.ZERO, 1.0, 50);
+    }
+
+    @Test
+    void shouldCountPreparedAndPlainStatementsPerRequest() throws Exception {
+        // Given
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.createStatement()).thenReturn(statement);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/positions/value");
+        FilterChain chain = (req, res) -> {
+            try (Connection c = dataSource.getConnection()) {
+                c.prepareStatement("SELECT * FROM users WHERE email = ?");
+                c.prepareStatement("SELECT * FROM positions WHERE user_id = ?");
+                c.createStatement().executeQuery("SELECT 1");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/positions/value");
+        };
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Then
+        DistributionSummary statements = registry.get("http.server.requests.statements")
+                .tags("method", "GET", "uri", "/api/v1/positions/value")
+                .summary();
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldHandOutPlainConnectionsOutsideARequest() throws Exception {
+        // Given
+        when(target.getConnection()).thenReturn(connection);
+
+        // When / Then
+        assertThat(dataSource.getConnection()).isSameAs(connection);
+    }
+}
@@ -5,12 +5,16 @@ import com.example.investment_portfolio_tracker.repository.PositionRepository;
 import com.example.investment_portfolio_tracker.repository.StockRepository;
 import com.example.investment_portfolio_tracker.repository.TransactionRepository;
 import com.example.investment_portfolio_tracker.repository.UserRepository;
+import com.example.investment_portfolio_tracker.service.market.PriceBoard;
+import com.example.investment_portfolio_tracker.service.position.PositionIndexService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -40,15 +44,33 @@ class PortfolioServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private TaxLotService taxLotService;
+
+    @Mock
+    private PositionIndexService positionIndexService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private PriceBoard priceBoard;
     private PortfolioService portfolioService;
 
     @BeforeEach
     void setUp() {
+        priceBoard = new PriceBoard(jdbcTemplate, 16);
         portfolioService = new PortfolioService(
                 userRepository,
                 stockRepository,
                 positionRepository,
-                transactionRepository
+                transactionRepository,
+                taxLotService,
+                priceBoard,
+                positionIndexService,
+                eventPublisher
         );
     }
 
@@ -89,20 +111,24 @@ class PortfolioServiceTest {
 
     @Test
     void shouldGetPortfolioValue() {
-        // Given
-        when(positionRepository.getTotalPortfolioValue(1L)).thenReturn(5000.0);
+        // Given: stock 2 has a newer price on the board than in its row
+        when(positionRepository.findHoldingsByUserId(1L)).thenReturn(Arrays.asList(
+                Map.of("stockId", 1L, "quantity", new BigDecimal("10"), "price", new BigDecimal("300.00")),
+                Map.of("stockId", 2L, "quantity", new BigDecimal("20"), "price", new BigDecimal("90.00"))
+        ));
+        priceBoard.update(2L, new BigDecimal("100.00"), LocalDateTime.now());
 
         // When
         BigDecimal value = portfolioService.getPortfolioValue(1L);
 
         // Then
-        assertThat(value).isEqualTo(BigDecimal.valueOf(5000.0));
+        assertThat(value).isEqualByComparingTo(new BigDecimal("5000.00"));
     }
 
     @Test
     void shouldReturnZeroWhenNoPositions() {
         // Given
-        when(positionRepository.getTotalPortfolioValue(1L)).thenReturn(null);
+        when(positionRepository.findHoldingsByUserId(1L)).thenReturn(List.of());
 
         // When
         BigDecimal value = portfolioService.getPortfolioValue(1L);
@@ -302,6 +328,10 @@ class PortfolioServiceTest {
         when(positionRepository.findByUserAndStock(user, stock)).thenReturn(Optional.of(existingPosition));
         when(positionRepository.save(any(Position.class))).thenReturn(existingPosition);
 
+        TaxLotService.SalePlan salePlan = new TaxLotService.SalePlan(List.of(), new BigDecimal("95.00"));
+        when(taxLotService.planSale(user, stock, new BigDecimal("5"), new BigDecimal("160.00"), new BigDecimal("5.00"), List.of()))
+                .thenReturn(salePlan);
+
         // Updated mock to return the actual transaction object being saved
         when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
             Transaction savedTransaction = invocation.getArgument(0);
@@ -327,6 +357,9 @@ class PortfolioServiceTest {
         assertThat(existingPosition.getLastTransaction()).isEqualTo(transactionDate);
         // Average cost should remain the same
         assertThat(existingPosition.getAverageCost()).isEqualTo(new BigDecimal("140.00"));
+        // Realized gain comes from the lots the sale consumed
+        assertThat(existingPosition.getRealizedGain()).isEqualByComparingTo(new BigDecimal("95.00"));
+        verify(taxLotService).applySale(eq(salePlan), any(Transaction.class));
 
         verify(positionRepository).save(existingPosition);
 
@@ -385,6 +418,9 @@ class PortfolioServiceTest {
         Position position2 = createPositionWithPerformance(
                 2L, new BigDecimal("5"), new BigDecimal("200.00"), new BigDecimal("180.00"));
 
+        position1.setRealizedGain(new BigDecimal("50.00"));
+        position2.setRealizedGain(new BigDecimal("-20.00"));
+
         when(positionRepository.findByUserId(1L)).thenReturn(Arrays.asList(position1, position2));
         when(transactionRepository.getTotalInvestmentAmount(1L)).thenReturn(new BigDecimal("2500.00"));
         when(transactionRepository.getTotalSellAmount(1L)).thenReturn(new BigDecimal("1000.00"));
@@ -412,15 +448,18 @@ class PortfolioServiceTest {
         assertThat(metrics.get("percentageReturn")).isEqualByComparingTo(new BigDecimal("0.00"));
         assertThat(metrics.get("totalInvestment")).isEqualByComparingTo(new BigDecimal("2500.00"));
         assertThat(metrics.get("totalSales")).isEqualByComparingTo(new BigDecimal("1000.00"));
+        // Realized gain is the sum of the positions' incrementally maintained gains
+        assertThat(metrics.get("realizedGain")).isEqualByComparingTo(new BigDecimal("30.00"));
     }
 
     @Test
     void shouldGetSectorAllocation() {
         // Given
-        when(positionRepository.getSectorAllocation(1L)).thenReturn(Arrays.asList(
-                Map.of("sector", "Technology", "value", 5000.0),
-                Map.of("sector", "Finance", "value", 3000.0),
-                Map.of("sector", "Healthcare", "value", 2000.0)
+        when(positionRepository.findOpenPositionsWithStock(1L)).thenReturn(Arrays.asList(
+                createSectorPosition(1L, "Technology", "10", "300.00"),
+                createSectorPosition(2L, "Technology", "20", "100.00"),
+                createSectorPosition(3L, "Finance", "30", "100.00"),
+                createSectorPosition(4L, "Healthcare", "10", "200.00")
         ));
 
         // When
@@ -433,6 +472,34 @@ class PortfolioServiceTest {
         assertThat(allocation.get("Healthcare")).isEqualByComparingTo(new BigDecimal("20.00"));
     }
 
+    @Test
+    void shouldReturnLargestPositionsInIndexOrder() {
+        // Given: the index ranks stock 2 above stock 1; the rows come back in id order
+        Position first = createSectorPosition(1L, "Technology", "10", "300.00");
+        Position second = createSectorPosition(2L, "Finance", "10", "100.00");
+        when(positionIndexService.getLargestPositionIds(1L, 2)).thenReturn(List.of(2L, 1L));
+        when(positionRepository.findAllWithStockByIdIn(List.of(2L, 1L))).thenReturn(Arrays.asList(first, second));
+
+        // When
+        List<Position> largest = portfolioService.getLargestPositions(1L, 2);
+
+        // Then
+        assertThat(largest).containsExactly(second, first);
+    }
+
+    private Position createSectorPosition(Long stockId, String sector, String quantity, String currentPrice) {
+        Stock stock = new Stock();
+        stock.setId(stockId);
+        stock.setSector(sector);
+        stock.setCurrentPrice(new BigDecimal(currentPrice));
+
+        Position position = new Position();
+        position.setId(stockId);
+        position.setStock(stock);
+        position.setQuantity(new BigDecimal(quantity));
+        return position;
+    }
+
     private Position createPositionWithPerformance(Long id, BigDecimal quantity, BigDecimal cost, BigDecimal currentPrice) {
         Position position = new Position();
         position.setId(id);
@@ -0,0 +1,131 @@
+package com.example.investment_portfolio_tracker.service;
+
+import com.example.investment_portfolio_tracker.repository.PortfolioSnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PortfolioSnapshotServiceTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 15);
+    private static final Date SQL_DATE = Date.valueOf(DATE);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private PortfolioSnapshotRepository snapshotRepository;
+
+    private PortfolioSnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        snapshotService = new PortfolioSnapshotService(jdbcTemplate, transactionManager, snapshotRepository, 1000, 2);
+    }
+
+    @Test
+    void shouldValueFixedIdRangesAndRecordTheHighestUserCovered() {
+        // Given: ids 1001-2000 were all deleted, so only the first and third ranges are populated
+        givenUsers(chunk(0, 950, 900), chunk(2, 2500, 10));
+        givenCompleted();
+
+        // When
+        PortfolioSnapshotService.BatchResult result = snapshotService.runEndOfDayBatch(DATE);
+
+        // Then
+        verify(jdbcTemplate).query(contains("FROM positions"), any(RowCallbackHandler.class), eq(1L), eq(1000L));
+        verify(jdbcTemplate).query(contains("FROM positions"), any(RowCallbackHandler.class), eq(2001L), eq(3000L));
+        verify(jdbcTemplate).update(contains("portfolio_snapshot_chunks"), eq(SQL_DATE), eq(1L), eq(950L), eq(0));
+        verify(jdbcTemplate).update(contains("portfolio_snapshot_chunks"), eq(SQL_DATE), eq(2001L), eq(2500L), eq(0));
+        assertThat(result.users()).isEqualTo(910);
+        assertThat(result.chunksProcessed()).isEqualTo(2);
+        assertThat(result.chunksSkipped()).isZero();
+    }
+
+    @Test
+    void shouldResumeOnlyChunksWithUsersBeyondWhatWasRecorded() {
+        // Given: the first range finished last run; the second gained users 2401-2500 since
+        givenUsers(chunk(0, 950, 900), chunk(2, 2500, 10));
+        givenCompleted(Map.of("first_user_id", 1L, "last_user_id", 950L),
+                Map.of("first_user_id", 2001L, "last_user_id", 2400L));
+
+        // When
+        PortfolioSnapshotService.BatchResult result = snapshotService.runEndOfDayBatch(DATE);
+
+        // Then
+        verify(jdbcTemplate, never()).query(contains("FROM positions"), any(RowCallbackHandler.class), eq(1L), eq(1000L));
+        verify(jdbcTemplate).query(contains("FROM positions"), any(RowCallbackHandler.class), eq(2001L), eq(3000L));
+        verify(jdbcTemplate).update(contains("DO UPDATE"), eq(SQL_DATE), eq(2001L), eq(2500L), eq(0));
+        assertThat(result.chunksProcessed()).isEqualTo(1);
+        assertThat(result.chunksSkipped()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldWriteNothingWhenRerunForACompletedDate() {
+        // Given
+        givenUsers(chunk(0, 950, 900), chunk(2, 2500, 10));
+        givenCompleted(Map.of("first_user_id", 1L, "last_user_id", 950L),
+                Map.of("first_user_id", 2001L, "last_user_id", 2500L));
+
+        // When
+        PortfolioSnapshotService.BatchResult result = snapshotService.runEndOfDayBatch(DATE);
+
+        // Then
+        verify(jdbcTemplate, never()).batchUpdate(any(String.class), anyList());
+        verify(jdbcTemplate, never()).update(any(String.class), any(), anyLong(), anyLong(), any());
+        assertThat(result.chunksProcessed()).isZero();
+        assertThat(result.chunksSkipped()).isEqualTo(2);
+        assertThat(result.snapshotsWritten()).isZero();
+    }
+
+    @Test
+    void shouldUpsertSnapshotsSoARedoneChunkReplacesItsRows() {
+        // Given
+        givenUsers(chunk(0, 3, 3));
+        givenCompleted();
+
+        // When
+        snapshotService.runEndOfDayBatch(DATE);
+        snapshotService.runEndOfDayBatch(DATE);
+
+        // Then
+        verify(jdbcTemplate, times(2)).batchUpdate(contains("ON CONFLICT (user_id, snapshot_date) DO UPDATE"), anyList());
+    }
+
+    @SafeVarargs
+    private void givenUsers(Map<String, Object>... chunks) {
+        when(jdbcTemplate.queryForList(contains("FROM users"), eq(1000))).thenReturn(List.of(chunks));
+    }
+
+    @SafeVarargs
+    private void givenCompleted(Map<String, Object>... chunks) {
+        when(jdbcTemplate.queryForList(contains("portfolio_snapshot_chunks"), eq(SQL_DATE))).thenReturn(List.of(chunks));
+    }
+
+    private static Map<String, Object> chunk(long chunk, long lastUserId, long users) {
+        return Map.of("chunk", chunk, "last_user_id", lastUserId, "users", users);
+    }
+}
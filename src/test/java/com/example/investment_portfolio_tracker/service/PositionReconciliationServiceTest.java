@@ -0,0 +1,180 @@
+package com.example.investment_portfolio_tracker.service;
+
+import com.example.investment_portfolio_tracker.event.PositionsRewrittenEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PositionReconciliationServiceTest {
+
+    @TempDir
+    Path reportDirectory;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PositionReconciliationService reconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        reconciliationService = new PositionReconciliationService(jdbcTemplate, transactionManager, objectMapper,
+                eventPublisher, reportDirectory.toString(), 2, 500, 1);
+
+        when(jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class)).thenReturn(List.of(1L, 2L));
+        givenPositions(
+                position(1, 10, "10", "100"),    // ledger says 20 @ 105
+                position(1, 20, "5", "50"),      // ledger only sells
+                position(2, 10, "3", "20"),      // matches
+                position(2, 30, "1", "1"),       // ledger says 2 @ 5
+                position(2, 40, "7", "9"));      // no trades at all
+        givenLedger(
+                trade(1, 10, "BUY", "10", "100"),
+                trade(1, 10, "BUY", "10", "110"),
+                trade(1, 20, "SELL", "5", "60"),
+                trade(2, 10, "BUY", "3", "20"),
+                trade(2, 30, "BUY", "2", "5"),
+                trade(2, 50, "BUY", "4", "8"));  // no position row
+    }
+
+    @Test
+    void shouldReportEveryKindOfDifferenceWithoutWritingInDryRun() throws Exception {
+        // When
+        PositionReconciliationService.ReconciliationReport report = reconciliationService.reconcile(false);
+
+        // Then
+        assertThat(report.transactionsReplayed()).isEqualTo(6);
+        assertThat(report.positionsChecked()).isEqualTo(5);
+        assertThat(report.differences()).isEqualTo(5);
+        assertThat(report.repaired()).isZero();
+        verify(jdbcTemplate, never()).batchUpdate(any(String.class), anyList());
+        verify(eventPublisher, never()).publishEvent(any());
+
+        List<JsonNode> lines = readReport(report);
+        assertThat(lines).extracting(line -> line.get("kind").asText() + ":" + line.get("userId") + "/" + line.get("stockId"))
+                .containsExactlyInAnyOrder("MISMATCH:1/10", "MISMATCH:1/20", "MISMATCH:2/30",
+                        "MISSING_POSITION:2/50", "ORPHAN_POSITION:2/40");
+        assertThat(lines).allMatch(line -> !line.get("repaired").asBoolean());
+        JsonNode mismatch = lines.stream().filter(line -> line.get("stockId").asLong() == 10).findFirst().orElseThrow();
+        assertThat(mismatch.get("expectedQuantity").decimalValue()).isEqualByComparingTo("20");
+        assertThat(mismatch.get("expectedAverageCost").decimalValue()).isEqualByComparingTo("105");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRepairMismatchesInBatchesAndSkipSellsWithoutBuys() throws Exception {
+        // Given: a trade lands on user 2's position between the read and the repair
+        when(jdbcTemplate.batchUpdate(contains("UPDATE positions"), anyList()))
+                .thenReturn(new int[]{1})
+                .thenReturn(new int[]{0});
+
+        // When
+        PositionReconciliationService.ReconciliationReport report = reconciliationService.reconcile(true);
+
+        // Then: one repair per batch of one, compare-and-set on the values read
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(contains("UPDATE positions"), batches.capture());
+        assertThat(batches.getAllValues()).allMatch(batch -> batch.size() == 1);
+        Object[] first = batches.getAllValues().get(0).get(0);
+        assertThat((BigDecimal) first[0]).isEqualByComparingTo("20");
+        assertThat((BigDecimal) first[1]).isEqualByComparingTo("105");
+        assertThat(first[2]).isEqualTo(1L);
+        assertThat(first[3]).isEqualTo(10L);
+        assertThat((BigDecimal) first[4]).isEqualByComparingTo("10");
+        assertThat((BigDecimal) first[5]).isEqualByComparingTo("100");
+
+        assertThat(report.repaired()).isEqualTo(1);
+        // The sell-only position and the concurrently traded one
+        assertThat(report.skippedConcurrentlyModified()).isEqualTo(2);
+        verify(eventPublisher).publishEvent(new PositionsRewrittenEvent(1L));
+
+        List<JsonNode> lines = readReport(report);
+        assertThat(lines).hasSize(5);
+        assertThat(lines).filteredOn(line -> line.get("repaired").asBoolean())
+                .extracting(line -> line.get("stockId").asLong()).containsExactly(10L);
+    }
+
+    @SafeVarargs
+    private void givenPositions(Map<String, Object>... rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map<String, Object> row : rows) {
+                handler.processRow(resultSet(row));
+            }
+            return null;
+        }).when(jdbcTemplate).query(contains("FROM positions"), any(RowCallbackHandler.class), eq(1L), eq(2L));
+    }
+
+    @SafeVarargs
+    private void givenLedger(Map<String, Object>... rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map<String, Object> row : rows) {
+                handler.processRow(resultSet(row));
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private List<JsonNode> readReport(PositionReconciliationService.ReconciliationReport report) throws Exception {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(Path.of(report.reportFile()))) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private static Map<String, Object> position(long userId, long stockId, String quantity, String averageCost) {
+        return Map.of("user_id", userId, "stock_id", stockId,
+                "quantity", new BigDecimal(quantity), "average_cost", new BigDecimal(averageCost));
+    }
+
+    private static Map<String, Object> trade(long userId, long stockId, String type, String quantity, String price) {
+        return Map.of("user_id", userId, "stock_id", stockId, "transaction_type", type,
+                "quantity", new BigDecimal(quantity), "price", new BigDecimal(price));
+    }
+
+    // A one-row result set answering getLong/getBigDecimal/getString by column name
+    private static ResultSet resultSet(Map<String, Object> row) {
+        return mock(ResultSet.class, invocation -> {
+            Object value = row.get((String) invocation.getArgument(0));
+            return invocation.getMethod().getName().equals("getLong") ? ((Number) value).longValue() : value;
+        });
+    }
+}
@@ -1,22 +1,35 @@
 package com.example.investment_portfolio_tracker.service;
 
+import com.example.investment_portfolio_tracker.event.QuoteRevalidationRequestedEvent;
 import com.example.investment_portfolio_tracker.model.Stock;
 import com.example.investment_portfolio_tracker.repository.StockRepository;
-import com.example.investment_portfolio_tracker.service.external.AlphaVantageService;
+import com.example.investment_portfolio_tracker.service.analytics.SectorStatisticsService;
+import com.example.investment_portfolio_tracker.service.market.PriceBoard;
+import com.example.investment_portfolio_tracker.service.marketdata.CircuitOpenException;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketDataProvider;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketQuote;
+import com.example.investment_portfolio_tracker.service.search.StockSearchService;
+import com.example.investment_portfolio_tracker.service.search.SymbolUniverse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -30,13 +43,27 @@ class StockServiceTest {
     @Mock
     private StockRepository stockRepository;
     @Mock
-    private AlphaVantageService alphaVantageService;  // Add this line
+    private MarketDataProvider marketDataProvider;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private SymbolUniverse symbolUniverse;
+    @Mock
+    private SectorStatisticsService sectorStatisticsService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
+    private PriceBoard priceBoard;
     private StockService stockService;
 
     @BeforeEach
     void setUp() {
-        stockService = new StockService(stockRepository, alphaVantageService);
+        priceBoard = new PriceBoard(jdbcTemplate, 16);
+        stockService = new StockService(stockRepository, marketDataProvider, priceBoard,
+                new StockSearchService(jdbcTemplate, symbolUniverse, 0.5), sectorStatisticsService, eventPublisher,
+                new TransactionTemplate(transactionManager));
     }
 
     @Test
@@ -130,10 +157,11 @@ class StockServiceTest {
         stock2.setTicker("AMZN");
         stock2.setName("Amazon.com Inc.");
 
-        when(stockRepository.searchByTickerOrName("A")).thenReturn(Arrays.asList(stock1, stock2));
+        // Index not loaded yet, so the database answers
+        when(stockRepository.searchByTickerOrName(eq("A"), any(Pageable.class))).thenReturn(Arrays.asList(stock1, stock2));
 
         // When
-        List<Stock> results = stockService.searchStocks("A");
+        List<Stock> results = stockService.searchStocks("A", 20);
 
         // Then
         assertThat(results).hasSize(2);
@@ -164,6 +192,30 @@ class StockServiceTest {
         assertThat(results.get(1).getTicker()).isEqualTo("GOOGL");
     }
 
+    @Test
+    void shouldRankTopStocksFromPriceBoard() {
+        // Given
+        Stock stock1 = new Stock();
+        stock1.setId(1L);
+        stock1.setTicker("GOOGL");
+        Stock stock2 = new Stock();
+        stock2.setId(2L);
+        stock2.setTicker("AMZN");
+
+        LocalDateTime now = LocalDateTime.now();
+        priceBoard.update(1L, new BigDecimal("2500.00"), now);
+        priceBoard.update(2L, new BigDecimal("3500.00"), now);
+        priceBoard.update(3L, new BigDecimal("100.00"), now);
+        when(stockRepository.findAllById(List.of(2L, 1L))).thenReturn(Arrays.asList(stock1, stock2));
+
+        // When
+        List<Stock> results = stockService.getTopStocksByPrice(2);
+
+        // Then
+        assertThat(results).extracting(Stock::getTicker).containsExactly("AMZN", "GOOGL");
+        verify(stockRepository, never()).findTopByPrice(any());
+    }
+
     @Test
     void shouldGetStocksNeedingUpdate() {
         // Given
@@ -292,6 +344,54 @@ class StockServiceTest {
         assertThat(existingStock.getLastUpdated()).isAfter(LocalDateTime.now().minusMinutes(1));
     }
 
+    @Test
+    void shouldServeStalePriceWhileCircuitsAreOpen() {
+        // Given
+        Stock stock = new Stock();
+        stock.setId(1L);
+        stock.setTicker("AAPL");
+        stock.setCurrentPrice(new BigDecimal("150.00"));
+
+        when(stockRepository.findByTickerIgnoreCase("AAPL")).thenReturn(Optional.of(stock));
+        when(marketDataProvider.getQuote("AAPL")).thenThrow(new CircuitOpenException("open", 30_000));
+
+        // When
+        Stock result = stockService.refreshStockPrice("AAPL");
+
+        // Then
+        assertThat(result.isStale()).isTrue();
+        assertThat(result.getCurrentPrice()).isEqualByComparingTo(new BigDecimal("150.00"));
+        verify(stockRepository, never()).save(any(Stock.class));
+        verify(eventPublisher).publishEvent(new QuoteRevalidationRequestedEvent("AAPL", 30_000, false));
+    }
+
+    @Test
+    void shouldCommitEachRefreshedPriceAndRejectOverlappingRefreshAll() {
+        // Given
+        Stock stock = new Stock();
+        stock.setId(1L);
+        stock.setTicker("AAPL");
+        List<CompletableFuture<List<Stock>>> overlapping = new ArrayList<>();
+
+        when(stockRepository.findAll()).thenReturn(List.of(stock));
+        when(stockRepository.save(any(Stock.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(marketDataProvider.getQuote("AAPL")).thenAnswer(invocation -> {
+            // A second request arrives while the first run is still going
+            overlapping.add(stockService.refreshAllStockPrices());
+            return new MarketQuote("AAPL", new BigDecimal("190.00"), null, 0, LocalDateTime.now(), "test");
+        });
+
+        // When
+        List<Stock> refreshed = stockService.refreshAllStockPrices().join();
+
+        // Then
+        assertThat(refreshed).containsExactly(stock);
+        assertThat(overlapping).singleElement().satisfies(run -> assertThat(run).isCompletedExceptionally());
+        assertThat(stockService.isRefreshAllRunning()).isFalse();
+        verify(transactionManager).commit(any());
+        verify(stockRepository, times(1)).findAll();
+    }
+
     @Test
     void shouldClearCache() {
         // Given
@@ -0,0 +1,203 @@
+package com.example.investment_portfolio_tracker.service;
+
+import com.example.investment_portfolio_tracker.model.*;
+import com.example.investment_portfolio_tracker.repository.RealizedGainRepository;
+import com.example.investment_portfolio_tracker.repository.TaxLotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaxLotServiceTest {
+
+    @Mock
+    private TaxLotRepository taxLotRepository;
+
+    @Mock
+    private RealizedGainRepository realizedGainRepository;
+
+    private TaxLotService taxLotService;
+
+    private User user;
+    private Stock stock;
+    private TaxLot oldCheapLot;
+    private TaxLot middleExpensiveLot;
+    private TaxLot newLot;
+
+    @BeforeEach
+    void setUp() {
+        taxLotService = new TaxLotService(taxLotRepository, realizedGainRepository);
+
+        user = new User();
+        user.setId(1L);
+        stock = new Stock();
+        stock.setId(2L);
+        stock.setTicker("AAPL");
+
+        LocalDateTime now = LocalDateTime.now();
+        oldCheapLot = createLot(10L, "10", "100.00", now.minusDays(300));
+        middleExpensiveLot = createLot(11L, "10", "180.00", now.minusDays(200));
+        newLot = createLot(12L, "10", "150.00", now.minusDays(100));
+    }
+
+    @Test
+    void shouldOpenLotWithFeeInUnitCost() {
+        // Given
+        Transaction buy = new Transaction();
+        buy.setId(7L);
+        buy.setUser(user);
+        buy.setStock(stock);
+        buy.setQuantity(new BigDecimal("10"));
+        buy.setPrice(new BigDecimal("150.00"));
+        buy.setFee(new BigDecimal("5.00"));
+        buy.setTransactionDate(LocalDateTime.now());
+        when(taxLotRepository.save(any(TaxLot.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        TaxLot lot = taxLotService.openLot(buy);
+
+        // Then
+        assertThat(lot.getBuyTransactionId()).isEqualTo(7L);
+        assertThat(lot.getRemainingQuantity()).isEqualByComparingTo("10");
+        assertThat(lot.getUnitCost()).isEqualByComparingTo("150.50");
+    }
+
+    @Test
+    void shouldConsumeOldestLotsFirstUnderFifo() {
+        // Given
+        user.setCostBasisMethod(CostBasisMethod.FIFO);
+        when(taxLotRepository.findOpenLots(1L, 2L)).thenReturn(List.of(oldCheapLot, middleExpensiveLot, newLot));
+
+        // When
+        TaxLotService.SalePlan plan = taxLotService.planSale(
+                user, stock, new BigDecimal("15"), new BigDecimal("200.00"), BigDecimal.ZERO, List.of());
+
+        // Then: 10 @ 100 and 5 @ 180 sold at 200
+        assertThat(plan.lots()).extracting(TaxLotService.LotSale::lot).containsExactly(oldCheapLot, middleExpensiveLot);
+        assertThat(plan.lots().get(1).quantity()).isEqualByComparingTo("5");
+        assertThat(plan.realizedGain()).isEqualByComparingTo("1100.00");
+    }
+
+    @Test
+    void shouldConsumeNewestLotsFirstUnderLifo() {
+        // Given
+        user.setCostBasisMethod(CostBasisMethod.LIFO);
+        when(taxLotRepository.findOpenLots(1L, 2L)).thenReturn(List.of(oldCheapLot, middleExpensiveLot, newLot));
+
+        // When
+        TaxLotService.SalePlan plan = taxLotService.planSale(
+                user, stock, new BigDecimal("10"), new BigDecimal("200.00"), BigDecimal.ZERO, List.of());
+
+        // Then
+        assertThat(plan.lots()).extracting(TaxLotService.LotSale::lot).containsExactly(newLot);
+        assertThat(plan.realizedGain()).isEqualByComparingTo("500.00");
+    }
+
+    @Test
+    void shouldConsumeHighestCostLotsFirstUnderHifo() {
+        // Given
+        user.setCostBasisMethod(CostBasisMethod.HIFO);
+        when(taxLotRepository.findOpenLots(1L, 2L)).thenReturn(List.of(oldCheapLot, middleExpensiveLot, newLot));
+
+        // When
+        TaxLotService.SalePlan plan = taxLotService.planSale(
+                user, stock, new BigDecimal("12"), new BigDecimal("200.00"), BigDecimal.ZERO, List.of());
+
+        // Then
+        assertThat(plan.lots()).extracting(TaxLotService.LotSale::lot).containsExactly(middleExpensiveLot, newLot);
+        assertThat(plan.realizedGain()).isEqualByComparingTo("300.00");
+    }
+
+    @Test
+    void shouldUseNamedLotsInGivenOrderAndSplitFee() {
+        // Given
+        when(taxLotRepository.findOpenLots(1L, 2L)).thenReturn(List.of(oldCheapLot, middleExpensiveLot, newLot));
+
+        // When
+        TaxLotService.SalePlan plan = taxLotService.planSale(
+                user, stock, new BigDecimal("15"), new BigDecimal("200.00"), new BigDecimal("3.00"), List.of(12L, 10L));
+
+        // Then: fee split 2.00 / 1.00 by quantity
+        assertThat(plan.lots()).extracting(TaxLotService.LotSale::lot).containsExactly(newLot, oldCheapLot);
+        assertThat(plan.lots().get(0).proceeds()).isEqualByComparingTo("1998.00");
+        assertThat(plan.lots().get(1).proceeds()).isEqualByComparingTo("999.00");
+        assertThat(plan.realizedGain()).isEqualByComparingTo("997.00");
+    }
+
+    @Test
+    void shouldRequireLotIdsForSpecificIdentification() {
+        // Given
+        user.setCostBasisMethod(CostBasisMethod.SPECIFIC_ID);
+        when(taxLotRepository.findOpenLots(1L, 2L)).thenReturn(List.of(oldCheapLot));
+
+        // When/Then
+        assertThatThrownBy(() -> taxLotService.planSale(
+                user, stock, new BigDecimal("5"), new BigDecimal("200.00"), BigDecimal.ZERO, List.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Lot ids are required");
+    }
+
+    @Test
+    void shouldRejectSaleLargerThanOpenLots() {
+        // Given
+        when(taxLotRepository.findOpenLots(1L, 2L)).thenReturn(List.of(oldCheapLot));
+
+        // When/Then
+        assertThatThrownBy(() -> taxLotService.planSale(
+                user, stock, new BigDecimal("11"), new BigDecimal("200.00"), BigDecimal.ZERO, List.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Insufficient open lots");
+    }
+
+    @Test
+    void shouldDrawDownLotsAndRecordGainsOnApply() {
+        // Given
+        when(taxLotRepository.findOpenLots(1L, 2L)).thenReturn(List.of(oldCheapLot, middleExpensiveLot));
+        TaxLotService.SalePlan plan = taxLotService.planSale(
+                user, stock, new BigDecimal("15"), new BigDecimal("200.00"), BigDecimal.ZERO, List.of());
+
+        Transaction sell = new Transaction();
+        sell.setId(20L);
+        sell.setUser(user);
+        sell.setStock(stock);
+        sell.setTransactionDate(LocalDateTime.now());
+
+        // When
+        taxLotService.applySale(plan, sell);
+
+        // Then
+        assertThat(oldCheapLot.getRemainingQuantity()).isEqualByComparingTo("0");
+        assertThat(middleExpensiveLot.getRemainingQuantity()).isEqualByComparingTo("5");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<RealizedGain>> gainsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(realizedGainRepository).saveAll(gainsCaptor.capture());
+        assertThat(gainsCaptor.getValue()).hasSize(2);
+        assertThat(gainsCaptor.getValue().get(0).getSellTransactionId()).isEqualTo(20L);
+        assertThat(gainsCaptor.getValue().get(0).getGain()).isEqualByComparingTo("1000.00");
+    }
+
+    private TaxLot createLot(Long id, String quantity, String unitCost, LocalDateTime acquiredAt) {
+        TaxLot lot = new TaxLot();
+        lot.setId(id);
+        lot.setUser(user);
+        lot.setStock(stock);
+        lot.setAcquiredAt(acquiredAt);
+        lot.setOriginalQuantity(new BigDecimal(quantity));
+        lot.setRemainingQuantity(new BigDecimal(quantity));
+        lot.setUnitCost(new BigDecimal(unitCost));
+        return lot;
+    }
+}
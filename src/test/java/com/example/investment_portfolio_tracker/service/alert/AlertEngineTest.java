@@ -0,0 +1,171 @@
+package com.example.investment_portfolio_tracker.service.alert;
+
+import com.example.investment_portfolio_tracker.event.PositionsRewrittenEvent;
+import com.example.investment_portfolio_tracker.event.StockPriceUpdatedEvent;
+import com.example.investment_portfolio_tracker.model.*;
+import com.example.investment_portfolio_tracker.repository.PositionRepository;
+import com.example.investment_portfolio_tracker.repository.PriceAlertRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertEngineTest {
+
+    @Mock
+    private PriceAlertRepository alertRepository;
+
+    @Mock
+    private PositionRepository positionRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private AlertNotifier notifier;
+
+    private AlertEngine alertEngine;
+
+    private User user;
+    private Stock stock;
+
+    @BeforeEach
+    void setUp() {
+        alertEngine = new AlertEngine(alertRepository, positionRepository, jdbcTemplate, transactionManager, List.of(notifier));
+
+        user = new User();
+        user.setId(1L);
+        stock = new Stock();
+        stock.setId(2L);
+        stock.setTicker("AAPL");
+    }
+
+    @Test
+    void shouldNotifyOnceWhenPriceCrossesThreshold() {
+        // Given
+        alertEngine.arm(createAlert(10L, AlertType.PRICE_ABOVE, "200.00"));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+
+        // When
+        alertEngine.onPriceUpdated(priceEvent("199.99"));
+        alertEngine.onPriceUpdated(priceEvent("201.50"));
+        alertEngine.onPriceUpdated(priceEvent("205.00"));
+
+        // Then
+        ArgumentCaptor<AlertNotification> captor = ArgumentCaptor.forClass(AlertNotification.class);
+        verify(notifier, times(1)).notify(captor.capture());
+        assertThat(captor.getValue().alertId()).isEqualTo(10L);
+        assertThat(captor.getValue().price()).isEqualByComparingTo("201.50");
+        assertThat(alertEngine.isArmed(10L)).isFalse();
+    }
+
+    @Test
+    void shouldNotNotifyWhenAlertWasAlreadyFiredOrDeleted() {
+        // Given
+        alertEngine.arm(createAlert(11L, AlertType.PRICE_BELOW, "150.00"));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{0});
+
+        // When
+        alertEngine.onPriceUpdated(priceEvent("149.00"));
+
+        // Then
+        verifyNoInteractions(notifier);
+    }
+
+    @Test
+    void shouldPricePositionLossAlertFromAverageCost() {
+        // Given: 10% below an average cost of 180
+        Position position = new Position();
+        position.setQuantity(new BigDecimal("5"));
+        position.setAverageCost(new BigDecimal("180.00"));
+        when(positionRepository.findByUserIdAndStockId(1L, 2L)).thenReturn(Optional.of(position));
+        alertEngine.arm(createAlert(12L, AlertType.POSITION_LOSS, "10"));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+
+        // When
+        alertEngine.onPriceUpdated(priceEvent("162.01"));
+        alertEngine.onPriceUpdated(priceEvent("162.00"));
+
+        // Then
+        ArgumentCaptor<AlertNotification> captor = ArgumentCaptor.forClass(AlertNotification.class);
+        verify(notifier).notify(captor.capture());
+        assertThat(captor.getValue().triggerPrice()).isEqualByComparingTo("162.00");
+    }
+
+    @Test
+    void shouldLeavePositionAlertDormantWithoutOpenPosition() {
+        // Given
+        when(positionRepository.findByUserIdAndStockId(1L, 2L)).thenReturn(Optional.empty());
+
+        // When
+        alertEngine.arm(createAlert(13L, AlertType.POSITION_GAIN, "20"));
+
+        // Then
+        assertThat(alertEngine.isArmed(13L)).isFalse();
+    }
+
+    @Test
+    void shouldRepricePositionAlertsWhenPositionsAreRewritten() {
+        // Given: reconciliation corrects the average cost from 180 to 200
+        Position position = new Position();
+        position.setQuantity(new BigDecimal("5"));
+        position.setAverageCost(new BigDecimal("180.00"));
+        Position corrected = new Position();
+        corrected.setQuantity(new BigDecimal("5"));
+        corrected.setAverageCost(new BigDecimal("200.00"));
+        when(positionRepository.findByUserIdAndStockId(1L, 2L))
+                .thenReturn(Optional.of(position), Optional.of(corrected));
+        PriceAlert alert = createAlert(14L, AlertType.POSITION_LOSS, "10");
+        alertEngine.arm(alert);
+        when(alertRepository.findActivePositionAlertsByUserId(1L)).thenReturn(List.of(alert));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+
+        // When
+        alertEngine.onPositionsRewritten(new PositionsRewrittenEvent(1L));
+        alertEngine.onPriceUpdated(priceEvent("179.99"));
+
+        // Then
+        ArgumentCaptor<AlertNotification> captor = ArgumentCaptor.forClass(AlertNotification.class);
+        verify(notifier).notify(captor.capture());
+        assertThat(captor.getValue().triggerPrice()).isEqualByComparingTo("180.00");
+    }
+
+    private PriceAlert createAlert(Long id, AlertType type, String threshold) {
+        PriceAlert alert = new PriceAlert();
+        alert.setId(id);
+        alert.setUser(user);
+        alert.setStock(stock);
+        alert.setType(type);
+        alert.setThreshold(new BigDecimal(threshold));
+        alert.setStatus(AlertStatus.ACTIVE);
+        return alert;
+    }
+
+    private StockPriceUpdatedEvent priceEvent(String price) {
+        return new StockPriceUpdatedEvent(2L, "AAPL", new BigDecimal(price), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.investment_portfolio_tracker.service.alert;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AlertIndexTest {
+
+    private static final long STOCK = 1L;
+
+    @Test
+    void shouldFireOnlyCrossedUpwardThresholds() {
+        // Given
+        AlertIndex index = new AlertIndex();
+        index.add(STOCK, 10L, 1L, 200_0000L, true);
+        index.add(STOCK, 11L, 1L, 210_0000L, true);
+        index.add(STOCK, 12L, 2L, 190_0000L, true);
+
+        // When
+        List<AlertIndex.Threshold> fired = index.crossed(STOCK, 200_0000L);
+
+        // Then: thresholds at or below the price fire, lowest first, and only once
+        assertThat(fired).extracting(AlertIndex.Threshold::alertId).containsExactly(12L, 10L);
+        assertThat(index.crossed(STOCK, 205_0000L)).isEmpty();
+        assertThat(index.contains(11L)).isTrue();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFireOnlyCrossedDownwardThresholds() {
+        // Given
+        AlertIndex index = new AlertIndex();
+        index.add(STOCK, 20L, 1L, 150_0000L, false);
+        index.add(STOCK, 21L, 1L, 140_0000L, false);
+        index.add(STOCK, 22L, 1L, 160_0000L, true);
+
+        // When
+        List<AlertIndex.Threshold> fired = index.crossed(STOCK, 145_0000L);
+
+        // Then
+        assertThat(fired).extracting(AlertIndex.Threshold::alertId).containsExactly(20L);
+        assertThat(index.crossed(2L, 145_0000L)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReplaceThresholdWhenReArmedAndForgetRemoved() {
+        // Given
+        AlertIndex index = new AlertIndex();
+        index.add(STOCK, 30L, 1L, 100_0000L, false);
+        index.add(STOCK, 30L, 1L, 80_0000L, false);
+        index.add(STOCK, 31L, 1L, 90_0000L, false);
+        index.remove(31L);
+
+        // When/Then: the old 100 threshold is gone and the removed alert never fires
+        assertThat(index.crossed(STOCK, 95_0000L)).isEmpty();
+        assertThat(index.crossed(STOCK, 80_0000L)).extracting(AlertIndex.Threshold::alertId).containsExactly(30L);
+        assertThat(index.size()).isZero();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.investment_portfolio_tracker.service.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceHistoryColumnStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadRangeInclusive() throws Exception {
+        // Given
+        PriceHistoryColumnStore store = new PriceHistoryColumnStore(directory);
+        long start = LocalDate.of(2024, 1, 1).toEpochDay();
+        for (int i = 0; i < 10; i++) {
+            store.upsert(1L, start + i, 1_000_000L + i);
+        }
+
+        // When
+        PriceSeries series = store.read(1L, start + 3, start + 6);
+
+        // Then
+        assertThat(series.size()).isEqualTo(4);
+        assertThat(series.epochDays()).containsExactly(start + 3, start + 4, start + 5, start + 6);
+        assertThat(series.prices()).containsExactly(1_000_003L, 1_000_004L, 1_000_005L, 1_000_006L);
+        assertThat(series.dateAt(0)).isEqualTo(LocalDate.of(2024, 1, 4));
+    }
+
+    @Test
+    void shouldOverwriteExistingDayAndRejectGaps() throws Exception {
+        // Given
+        PriceHistoryColumnStore store = new PriceHistoryColumnStore(directory);
+        store.upsert(1L, 100, 10);
+        store.upsert(1L, 102, 12);
+
+        // When / Then
+        assertThat(store.upsert(1L, 102, 13)).isTrue();
+        assertThat(store.upsert(1L, 100, 11)).isTrue();
+        assertThat(store.upsert(1L, 101, 99)).isFalse();
+        assertThat(store.read(1L, 0, Long.MAX_VALUE).prices()).containsExactly(11L, 13L);
+    }
+
+    @Test
+    void shouldGrowBeyondInitialCapacityAndSurviveReopen() throws Exception {
+        // Given
+        PriceHistoryColumnStore store = new PriceHistoryColumnStore(directory);
+        for (int day = 0; day < 5_000; day++) {
+            store.upsert(7L, day, day * 10L);
+        }
+        store.close();
+
+        // When
+        PriceHistoryColumnStore reopened = new PriceHistoryColumnStore(directory);
+        long[] days = new long[100];
+        long[] prices = new long[100];
+        int copied = reopened.readInto(7L, 4_950, 10_000, days, prices);
+
+        // Then
+        assertThat(reopened.size(7L)).isEqualTo(5_000);
+        assertThat(copied).isEqualTo(50);
+        assertThat(days[0]).isEqualTo(4_950);
+        assertThat(prices[49]).isEqualTo(49_990L);
+    }
+
+    @Test
+    void shouldReplaceFullHistory() throws Exception {
+        // Given
+        PriceHistoryColumnStore store = new PriceHistoryColumnStore(directory);
+        store.upsert(3L, 10, 1);
+        store.upsert(3L, 20, 2);
+
+        // When
+        store.replace(3L, new long[]{10, 15, 20}, new long[]{1, 5, 2}, 3);
+
+        // Then
+        assertThat(store.read(3L, 0, 100).prices()).containsExactly(1L, 5L, 2L);
+        assertThat(store.read(99L, 0, 100).isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldNotShrinkTheColumnWhenReplacingWithAShorterHistory() throws Exception {
+        // Given
+        PriceHistoryColumnStore store = new PriceHistoryColumnStore(directory);
+        for (int day = 0; day < 5_000; day++) {
+            store.upsert(5L, day, day * 10L);
+        }
+        Path file = directory.resolve("5.col");
+        long grownSize = Files.size(file);
+
+        // When: lock-free readers may still hold the old count while the views are swapped
+        store.replace(5L, new long[]{1, 2, 3}, new long[]{10, 20, 30}, 3);
+
+        // Then
+        assertThat(Files.size(file)).isEqualTo(grownSize);
+        assertThat(store.read(5L, 0, Long.MAX_VALUE).prices()).containsExactly(10L, 20L, 30L);
+    }
+}
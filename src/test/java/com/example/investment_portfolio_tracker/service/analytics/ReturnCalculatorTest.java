@@ -0,0 +1,80 @@
+package com.example.investment_portfolio_tracker.service.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ReturnCalculatorTest {
+
+    @Test
+    void shouldChainLinkSubPeriodsExcludingCashFlows() {
+        // Given: +10% on each day, with 100 deposited at the end of day 2
+        double[] values = {100, 110, 221};
+        double[] cashFlows = {0, 0, 100};
+
+        // When
+        double twr = ReturnCalculator.timeWeightedReturn(values, cashFlows);
+
+        // Then
+        assertThat(twr).isCloseTo(0.21, within(1e-12));
+    }
+
+    @Test
+    void shouldSkipPeriodsWithoutStartingCapital() {
+        // Given: an empty portfolio funded with 100 that then grows to 120
+        double[] values = {0, 100, 120};
+        double[] cashFlows = {0, 100, 0};
+
+        // When
+        double twr = ReturnCalculator.timeWeightedReturn(values, cashFlows);
+
+        // Then
+        assertThat(twr).isCloseTo(0.20, within(1e-12));
+    }
+
+    @Test
+    void shouldMatchSpreadsheetXirr() {
+        // Given: the reference example from the spreadsheet XIRR documentation
+        LocalDate first = LocalDate.of(2008, 1, 1);
+        LocalDate[] dates = {first, LocalDate.of(2008, 3, 1), LocalDate.of(2008, 10, 30),
+                LocalDate.of(2009, 2, 15), LocalDate.of(2009, 4, 1)};
+        double[] amounts = {-10000, 2750, 4250, 3250, 2750};
+        double[] years = new double[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            years[i] = ChronoUnit.DAYS.between(first, dates[i]) / 365.0;
+        }
+
+        // When
+        double rate = ReturnCalculator.xirr(amounts, years);
+
+        // Then
+        assertThat(rate).isCloseTo(0.373362535, within(1e-6));
+        assertThat(ReturnCalculator.npv(amounts, years, rate)).isCloseTo(0.0, within(1e-6));
+    }
+
+    @Test
+    void shouldFindNegativeXirr() {
+        // Given: 1000 invested, 500 back after one year
+        double[] amounts = {-1000, 500};
+        double[] years = {0, 1};
+
+        // When
+        double rate = ReturnCalculator.xirr(amounts, years);
+
+        // Then
+        assertThat(rate).isCloseTo(-0.5, within(1e-8));
+    }
+
+    @Test
+    void shouldReturnNaNWhenCashFlowsDoNotChangeSign() {
+        // When
+        double rate = ReturnCalculator.xirr(new double[]{-100, -50}, new double[]{0, 1});
+
+        // Then
+        assertThat(rate).isNaN();
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.investment_portfolio_tracker.service.analytics;
+
+import com.example.investment_portfolio_tracker.event.PositionsRewrittenEvent;
+import com.example.investment_portfolio_tracker.event.StockListingChangedEvent;
+import com.example.investment_portfolio_tracker.event.StockPriceUpdatedEvent;
+import com.example.investment_portfolio_tracker.event.TradeExecutedEvent;
+import com.example.investment_portfolio_tracker.model.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SectorStatisticsServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SectorStatisticsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SectorStatisticsService(jdbcTemplate);
+    }
+
+    @Test
+    void shouldKeepStatisticsCurrentAsPricesListingsAndHoldingsChange() throws Exception {
+        // Given
+        givenRows();
+        service.rebuild();
+        service.onListingChanged(listing(1L, "Technology", "Software"));
+        service.onListingChanged(listing(2L, "Technology", "Semiconductors"));
+        service.onListingChanged(listing(3L, "Energy", "Oil & Gas"));
+        service.onPriceUpdated(price(1L, "100"));
+        service.onPriceUpdated(price(2L, "50"));
+        service.onPriceUpdated(price(3L, "80"));
+        givenHoldings(1L, 2, "10");
+        service.onTradeExecuted(trade(1L));
+
+        // When
+        service.onPriceUpdated(price(1L, "120"));
+        service.onListingChanged(new StockListingChangedEvent(2L, "T2", "Two", "NYSE", null, null, true));
+
+        // Then
+        SectorStatistics technology = service.getSectorStatistics().get(1);
+        assertThat(technology.name()).isEqualTo("Technology");
+        assertThat(technology.stocks()).isEqualTo(1);
+        assertThat(technology.minPrice()).isEqualByComparingTo("120");
+        assertThat(technology.maxPrice()).isEqualByComparingTo("120");
+        assertThat(technology.positions()).isEqualTo(2);
+        assertThat(technology.heldValue()).isEqualByComparingTo("1200");
+        assertThat(technology.valueWeight()).isEqualByComparingTo("1");
+        assertThat(technology.valueWeightedPrice()).isEqualByComparingTo("120");
+        assertThat(service.getIndustryStatistics()).extracting(SectorStatistics::name)
+                .containsExactly("Oil & Gas", "Software");
+        assertThat(service.getAveragePriceBySector())
+                .containsEntry("Energy", new BigDecimal("80.0000"))
+                .containsEntry("Technology", new BigDecimal("120.0000"));
+    }
+
+    @Test
+    void shouldReplayUpdatesThatArriveWhileRebuilding() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row(1L, "Technology", "10", 0, "0"));
+            // Lands after its stock has been read
+            service.onPriceUpdated(price(1L, "30"));
+            handler.processRow(row(2L, "Technology", "20", 1, "5"));
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        // When
+        service.rebuild();
+
+        // Then
+        SectorStatistics technology = service.getSectorStatistics().get(0);
+        assertThat(service.isReady()).isTrue();
+        assertThat(technology.stocks()).isEqualTo(2);
+        assertThat(technology.priceSum()).isEqualByComparingTo("50");
+        assertThat(technology.minPrice()).isEqualByComparingTo("20");
+        assertThat(technology.maxPrice()).isEqualByComparingTo("30");
+        assertThat(technology.heldValue()).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void shouldReloadHoldingsOfEveryStockInARewrittenPortfolio() throws Exception {
+        // Given
+        givenRows();
+        service.rebuild();
+        service.onListingChanged(listing(1L, "Technology", "Software"));
+        service.onListingChanged(listing(2L, "Technology", "Hardware"));
+        service.onPriceUpdated(price(1L, "100"));
+        service.onPriceUpdated(price(2L, "50"));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(7L))).thenReturn(List.of(1L, 2L));
+        givenHoldings(1L, 1, "3");
+        givenHoldings(2L, 0, "0");
+
+        // When
+        service.onPositionsRewritten(new PositionsRewrittenEvent(7L));
+
+        // Then
+        SectorStatistics technology = service.getSectorStatistics().get(0);
+        assertThat(technology.positions()).isEqualTo(1);
+        assertThat(technology.heldValue()).isEqualByComparingTo("300");
+    }
+
+    private void givenRows() {
+        doNothing().when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenHoldings(long stockId, long positions, String held) {
+        when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class), eq(stockId))).thenAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("positions")).thenReturn(positions);
+            when(rs.getBigDecimal("held")).thenReturn(new BigDecimal(held));
+            return ((RowMapper<?>) invocation.getArgument(1)).mapRow(rs, 0);
+        });
+    }
+
+    private static ResultSet row(long id, String sector, String price, long positions, String held) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(id);
+        when(rs.getString("sector")).thenReturn(sector);
+        when(rs.getString("industry")).thenReturn(null);
+        when(rs.getBigDecimal("current_price")).thenReturn(new BigDecimal(price));
+        when(rs.getLong("positions")).thenReturn(positions);
+        when(rs.getBigDecimal("held")).thenReturn(new BigDecimal(held));
+        return rs;
+    }
+
+    private static StockListingChangedEvent listing(Long id, String sector, String industry) {
+        return new StockListingChangedEvent(id, "T" + id, "Stock " + id, "NYSE", sector, industry, false);
+    }
+
+    private static StockPriceUpdatedEvent price(Long id, String price) {
+        return new StockPriceUpdatedEvent(id, "T" + id, new BigDecimal(price), LocalDateTime.now());
+    }
+
+    private static TradeExecutedEvent trade(Long stockId) {
+        return new TradeExecutedEvent(7L, stockId, "T" + stockId, TransactionType.BUY,
+                BigDecimal.TEN, new BigDecimal("100"), BigDecimal.ZERO, LocalDateTime.now());
+    }
+}
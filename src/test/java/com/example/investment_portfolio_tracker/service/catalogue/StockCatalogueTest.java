@@ -0,0 +1,102 @@
+package com.example.investment_portfolio_tracker.service.catalogue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockCatalogueTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private StockCatalogue catalogue;
+
+    @BeforeEach
+    void setUp() {
+        catalogue = new StockCatalogue(jdbcTemplate, new ObjectMapper(), DataSize.ofMegabytes(1));
+        givenVersions(0, 0);
+    }
+
+    @Test
+    void shouldServeCachedPagesUntilTheirVersionMoves() throws Exception {
+        // Given
+        givenRows(1, 2);
+        List<String> names = StockCatalogue.parseFields("ticker,name");
+        List<String> all = StockCatalogue.parseFields(null);
+        CataloguePage first = catalogue.getPage(null, null, names);
+        String allEtag = catalogue.getPage(null, null, all).etag();
+
+        // When a price is written, here or on another node
+        givenVersions(0, 1);
+
+        // Then
+        assertThat(catalogue.getPage(null, null, names)).isSameAs(first);
+        assertThat(catalogue.currentETag(names)).isEqualTo(first.etag());
+        assertThat(catalogue.currentETag(all)).isNotEqualTo(allEtag);
+        assertThat(catalogue.getPage(null, null, all).etag()).isEqualTo(catalogue.currentETag(all));
+        verify(jdbcTemplate, times(3)).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        givenVersions(1, 1);
+        assertThat(catalogue.currentETag(names)).isNotEqualTo(first.etag());
+    }
+
+    @Test
+    void shouldPageByKeysetAndWriteOnlySelectedFields() throws Exception {
+        // Given
+        givenRows(1, 2, 3);
+
+        // When
+        CataloguePage page = catalogue.getPage(null, 2, StockCatalogue.parseFields("name, ticker"));
+
+        // Then
+        assertThat(page.nextCursor()).isEqualTo(2L);
+        assertThat(new String(page.body(), StandardCharsets.UTF_8))
+                .isEqualTo("[{\"ticker\":\"T1\",\"name\":\"Stock 1\"},{\"ticker\":\"T2\",\"name\":\"Stock 2\"}]");
+        verify(jdbcTemplate).query(contains("LIMIT"), any(RowCallbackHandler.class), eq(0L), eq(3));
+    }
+
+    @Test
+    void shouldRejectUnknownFields() {
+        // When / Then
+        assertThatThrownBy(() -> StockCatalogue.parseFields("ticker,positions"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("positions");
+    }
+
+    private void givenVersions(long listing, long prices) {
+        lenient().when(jdbcTemplate.queryForMap(contains("stock_catalogue_versions")))
+                .thenReturn(Map.of("listing_version", listing, "price_version", prices));
+    }
+
+    private void givenRows(long... ids) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (long id : ids) {
+                ResultSet rs = mock(ResultSet.class);
+                lenient().when(rs.getLong("id")).thenReturn(id);
+                lenient().when(rs.getString("ticker")).thenReturn("T" + id);
+                lenient().when(rs.getString("name")).thenReturn("Stock " + id);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.investment_portfolio_tracker.service.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs several application contexts, each acting as one node, against a single Postgres.
+ * Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ClusterCoordinatorPostgresTest {
+
+    private static final int SHARDS = 64;
+    private static final List<String> TICKERS = IntStream.range(0, 500).mapToObj(i -> "T" + i).toList();
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private final List<AnnotationConfigApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(AnnotationConfigApplicationContext::close);
+    }
+
+    @Test
+    void shouldSplitTickersAcrossLiveNodes() {
+        // Given
+        List<ClusterCoordinator> coordinators = List.of(startNode(), startNode(), startNode());
+
+        // When
+        settle(coordinators);
+
+        // Then
+        assertThat(coordinators).allSatisfy(c -> assertThat(c.getLiveNodeCount()).isEqualTo(3));
+        assertEachTickerOwnedOnce(coordinators);
+    }
+
+    @Test
+    void shouldTakeOverShardsOfACrashedNode() {
+        // Given
+        ClusterCoordinator first = startNode();
+        ClusterCoordinator second = startNode();
+        ClusterCoordinator third = startNode();
+        settle(List.of(first, second, third));
+
+        // When the third node's session is killed from under it
+        new JdbcTemplate(dataSource()).queryForList(
+                "SELECT pg_terminate_backend(pid) FROM pg_locks WHERE locktype = 'advisory' " +
+                        "AND classid = ?::oid AND objid = ?::oid AND objsubid = 2",
+                ClusterCoordinator.MEMBER_LOCKS, third.getStatus().get("slot"));
+        third.rebalance();
+        settle(List.of(first, second));
+
+        // Then
+        assertThat(third.getStatus().get("ownedShards")).isEqualTo(0);
+        assertThat(first.getLiveNodeCount()).isEqualTo(2);
+        assertEachTickerOwnedOnce(List.of(first, second));
+    }
+
+    @Test
+    void shouldElectOneLeaderAndFailOver() {
+        // Given
+        ClusterCoordinator first = startNode();
+        ClusterCoordinator second = startNode();
+        settle(List.of(first, second));
+
+        // When
+        boolean firstLeads = first.isLeader("portfolio-snapshots");
+        boolean secondLeads = second.isLeader("portfolio-snapshots");
+        nodes.get(0).close();
+
+        // Then
+        assertThat(firstLeads).isTrue();
+        assertThat(secondLeads).isFalse();
+        assertThat(second.isLeader("portfolio-snapshots")).isTrue();
+    }
+
+    private ClusterCoordinator startNode() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean(ClusterCoordinator.class,
+                () -> new ClusterCoordinator(dataSource(), context, true, SHARDS, 8));
+        context.refresh();
+        nodes.add(context);
+        ClusterCoordinator coordinator = context.getBean(ClusterCoordinator.class);
+        coordinator.join();
+        return coordinator;
+    }
+
+    // A few passes: the first claims shards, later ones pick up shards other nodes released
+    private void settle(List<ClusterCoordinator> coordinators) {
+        for (int pass = 0; pass < 3; pass++) {
+            coordinators.forEach(ClusterCoordinator::rebalance);
+        }
+    }
+
+    private void assertEachTickerOwnedOnce(List<ClusterCoordinator> coordinators) {
+        for (String ticker : TICKERS) {
+            long owners = coordinators.stream().filter(c -> c.ownsTicker(ticker)).count();
+            assertThat(owners).as("owners of %s", ticker).isEqualTo(1);
+        }
+    }
+
+    private static DataSource dataSource() {
+        return new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+    }
+}
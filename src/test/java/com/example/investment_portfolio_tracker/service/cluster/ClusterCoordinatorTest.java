@@ -0,0 +1,58 @@
+package com.example.investment_portfolio_tracker.service.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClusterCoordinatorTest {
+
+    private static final int SHARDS = 256;
+
+    @Test
+    void shouldAssignEveryShardToExactlyOneNode() {
+        // Given
+        List<Integer> live = List.of(0, 1, 2);
+
+        // When
+        Set<Integer> first = ClusterCoordinator.assignedShards(0, live, SHARDS);
+        Set<Integer> second = ClusterCoordinator.assignedShards(1, live, SHARDS);
+        Set<Integer> third = ClusterCoordinator.assignedShards(2, live, SHARDS);
+
+        // Then
+        assertThat(first.size() + second.size() + third.size()).isEqualTo(SHARDS);
+        Set<Integer> all = new HashSet<>(first);
+        all.addAll(second);
+        all.addAll(third);
+        assertThat(all).hasSize(SHARDS);
+        // Roughly even split
+        assertThat(first.size()).isBetween(SHARDS / 6, SHARDS / 2);
+        assertThat(second.size()).isBetween(SHARDS / 6, SHARDS / 2);
+    }
+
+    @Test
+    void shouldOnlyMoveTheDeadNodesShards() {
+        // Given
+        Set<Integer> before = ClusterCoordinator.assignedShards(0, List.of(0, 1, 2), SHARDS);
+        Set<Integer> dead = ClusterCoordinator.assignedShards(2, List.of(0, 1, 2), SHARDS);
+
+        // When
+        Set<Integer> after = ClusterCoordinator.assignedShards(0, List.of(0, 1), SHARDS);
+
+        // Then
+        assertThat(after).containsAll(before);
+        Set<Integer> gained = new HashSet<>(after);
+        gained.removeAll(before);
+        assertThat(dead).containsAll(gained);
+    }
+
+    @Test
+    void shouldShardTickersCaseInsensitively() {
+        assertThat(ClusterCoordinator.shardOf("aapl", SHARDS)).isEqualTo(ClusterCoordinator.shardOf("AAPL", SHARDS));
+        assertThat(ClusterCoordinator.shardOf("MSFT", SHARDS)).isBetween(0, SHARDS - 1);
+        assertThat(ClusterCoordinator.assignedShards(5, List.of(0, 1), SHARDS)).isEmpty();
+    }
+}
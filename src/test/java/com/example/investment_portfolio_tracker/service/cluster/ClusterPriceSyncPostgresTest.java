@@ -0,0 +1,97 @@
+package com.example.investment_portfolio_tracker.service.cluster;
+
+import com.example.investment_portfolio_tracker.event.StockPriceUpdatedEvent;
+import com.example.investment_portfolio_tracker.service.StockService;
+import com.example.investment_portfolio_tracker.service.market.PriceBoard;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Two application contexts, each acting as one node, sharing a Postgres.
+ * Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ClusterPriceSyncPostgresTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private final List<AnnotationConfigApplicationContext> nodes = new ArrayList<>();
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword()));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS stocks");
+        jdbcTemplate.execute("CREATE TABLE stocks (id BIGSERIAL PRIMARY KEY, ticker VARCHAR(20) NOT NULL UNIQUE, " +
+                "current_price DECIMAL(19,4), last_updated TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO stocks (ticker, current_price, last_updated) VALUES ('AAPL', 100, ?)",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(AnnotationConfigApplicationContext::close);
+    }
+
+    @Test
+    void shouldSeeARefreshDoneByAnotherNode() {
+        // Given
+        Node a = startNode();
+        Node b = startNode();
+        long stockId = jdbcTemplate.queryForObject("SELECT id FROM stocks WHERE ticker = 'AAPL'", Long.class);
+
+        // When node B refreshes a ticker it owns, the way StockService does
+        LocalDateTime refreshedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        jdbcTemplate.update("UPDATE stocks SET current_price = 123.45, last_updated = ? WHERE id = ?",
+                Timestamp.valueOf(refreshedAt), stockId);
+        b.context().publishEvent(new StockPriceUpdatedEvent(stockId, "AAPL", new BigDecimal("123.45"), refreshedAt));
+
+        // Then node A relays it once, node B already has it
+        assertThat(a.sync().sync()).isEqualTo(1);
+        assertThat(a.board().getPrice(stockId)).isEqualByComparingTo("123.45");
+        assertThat(a.events()).singleElement().satisfies(event -> {
+            assertThat(event.ticker()).isEqualTo("AAPL");
+            assertThat(event.historyRecorded()).isTrue();
+        });
+        assertThat(b.sync().sync()).isZero();
+        assertThat(a.sync().sync()).isZero();
+    }
+
+    private Node startNode() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        List<StockPriceUpdatedEvent> events = new ArrayList<>();
+        context.registerBean(JdbcTemplate.class, () -> jdbcTemplate);
+        context.registerBean(PriceBoard.class, () -> new PriceBoard(jdbcTemplate, 16));
+        context.registerBean(ClusterPriceSync.class, () -> new ClusterPriceSync(jdbcTemplate,
+                context.getBean(PriceBoard.class), mock(StockService.class), context, true, 5000));
+        context.addApplicationListener(ApplicationListener.<StockPriceUpdatedEvent>forPayload(events::add));
+        context.refresh();
+        nodes.add(context);
+        context.getBean(PriceBoard.class).warmUp();
+        return new Node(context, context.getBean(PriceBoard.class), context.getBean(ClusterPriceSync.class), events);
+    }
+
+    private record Node(AnnotationConfigApplicationContext context, PriceBoard board, ClusterPriceSync sync,
+                        List<StockPriceUpdatedEvent> events) {
+    }
+}
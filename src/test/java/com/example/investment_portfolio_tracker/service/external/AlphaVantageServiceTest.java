@@ -0,0 +1,123 @@
+package com.example.investment_portfolio_tracker.service.external;
+
+import com.example.investment_portfolio_tracker.dto.external.AlphaVantageQuote;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AlphaVantageServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private AlphaVantageStubServer stub;
+    private AlphaVantageService service;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (service != null) {
+            service.close();
+        }
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    @Test
+    void shouldReplayRecordedResponsesAndCacheOverviews() throws Exception {
+        // Given
+        stub = new AlphaVantageStubServer(fixtures());
+        service = service(stub.start(0), "");
+
+        // When
+        AlphaVantageQuote quote = service.getQuote("aapl");
+        Map<String, Object> first = service.getCompanyOverview("AAPL");
+        Map<String, Object> second = service.getCompanyOverview("AAPL");
+
+        // Then
+        assertThat(quote.getSymbol()).isEqualTo("AAPL");
+        assertThat(quote.getPrice()).isEqualByComparingTo(new BigDecimal("212.49"));
+        assertThat(quote.getChangePercent()).isEqualByComparingTo(new BigDecimal("-0.8168"));
+        assertThat(first).containsEntry("Sector", "TECHNOLOGY").isEqualTo(second);
+        assertThat(stub.getRequests()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldFailOnRateLimitNotesAndInjectedErrors() throws Exception {
+        // Given
+        stub = new AlphaVantageStubServer(fixtures()).rateLimit(1, 0);
+        service = service(stub.start(0), "");
+        service.getQuote("AAPL");
+
+        // When / Then
+        assertThatThrownBy(() -> service.getQuote("MSFT")).isInstanceOf(RuntimeException.class);
+        assertThat(stub.getThrottled()).isEqualTo(1);
+
+        stub.errorRate(1.0);
+        assertThatThrownBy(() -> service.getCompanyOverview("AAPL")).isInstanceOf(RuntimeException.class);
+        assertThat(stub.getInjectedErrors()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRecordResponsesThatReplayIdentically() throws Exception {
+        // Given
+        Path recorded = directory.resolve("recorded");
+        stub = new AlphaVantageStubServer(fixtures());
+        service = service(stub.start(0), recorded.toString());
+        Map<String, Object> live = service.searchStocks(" Apple ");
+
+        // When
+        AlphaVantageStubServer replay = new AlphaVantageStubServer(recorded);
+        AlphaVantageService offline = new AlphaVantageService(replay.start(0), "demo", new ObjectMapper(),
+                directory.resolve("offline-cache").toString(), DataSize.ofMegabytes(1),
+                Duration.ZERO, Duration.ZERO, Duration.ZERO, "");
+        try {
+            // Then
+            assertThat(Files.exists(AlphaVantageFixtures.path(recorded, "SYMBOL_SEARCH", "apple"))).isTrue();
+            assertThat(offline.searchStocks("apple")).isEqualTo(live);
+            assertThat(replay.getReplayed()).isEqualTo(1);
+        } finally {
+            offline.close();
+            replay.close();
+        }
+    }
+
+    @Test
+    void shouldReuseAnInstanceDirectoryLeftByAnEarlierInstance() throws Exception {
+        // Given the shared directory is owned, and a second instance ran in a directory of its own
+        stub = new AlphaVantageStubServer(fixtures());
+        String baseUrl = stub.start(0);
+        service = service(baseUrl, "");
+        service(baseUrl, "").close();
+
+        // When a third starts after it
+        AlphaVantageService restarted = service(baseUrl, "");
+        try (var instances = Files.list(directory.resolve("cache"))) {
+            // Then it takes over that directory rather than making another
+            assertThat(instances.filter(path -> path.getFileName().toString().startsWith("instance-"))).hasSize(1);
+        } finally {
+            restarted.close();
+        }
+    }
+
+    private AlphaVantageService service(String baseUrl, String recordDirectory) throws Exception {
+        // Quotes uncached so every call reaches the stub
+        return new AlphaVantageService(baseUrl, "demo", new ObjectMapper(), directory.resolve("cache").toString(),
+                DataSize.ofMegabytes(1), Duration.ZERO, Duration.ofDays(7), Duration.ofHours(12), recordDirectory);
+    }
+
+    private static Path fixtures() throws Exception {
+        return Path.of(AlphaVantageServiceTest.class.getResource("/alphavantage").toURI());
+    }
+}
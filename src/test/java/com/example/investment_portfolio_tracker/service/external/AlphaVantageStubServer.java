@@ -0,0 +1,301 @@
+package com.example.investment_portfolio_tracker.service.external;
+
+import com.example.investment_portfolio_tracker.util.TokenBucket;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the Alpha Vantage {@code /query} endpoint that replays recorded fixtures
+ * (see {@link AlphaVantageFixtures}), so refresh and lookup paths can be exercised and measured
+ * without the live API or a key.
+ * <p>
+ * Behaves like the real service where it matters to the client: unknown symbols get the same
+ * empty bodies, and going over the per-minute or per-day limit returns HTTP 200 with a
+ * {@code Note} or {@code Information} message instead of data. On top of that it can add latency
+ * drawn from a distribution, fail a fraction of requests with a 503, and invent quotes for
+ * tickers that have no fixture so load tests can use any number of symbols.
+ * <p>
+ * Run standalone with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.investment_portfolio_tracker.service.external.AlphaVantageStubServer
+ * -Dstub.fixtures=<dir> -Dstub.port=8089 -Dstub.latency=lognormal:120:0.5 -Dstub.calls-per-minute=5
+ * -Dstub.error-rate=0.02} and set {@code alphavantage.base-url=http://localhost:8089}.
+ */
+@Slf4j
+public class AlphaVantageStubServer implements Closeable {
+
+    static final String MINUTE_LIMIT_NOTE = "Thank you for using Alpha Vantage! Our standard API call frequency is "
+            + "5 calls per minute and 25 calls per day. Please visit https://www.alphavantage.co/premium/ "
+            + "if you would like to target a higher API call frequency.";
+    static final String DAILY_LIMIT_NOTE = "Thank you for using Alpha Vantage! Our standard API rate limit is "
+            + "25 requests per day. Please subscribe to any of the premium plans at "
+            + "https://www.alphavantage.co/premium/ to instantly remove all daily rate limits.";
+
+    private static final int BACKLOG = 4096;
+
+    private final Path fixtures;
+    private volatile Latency latency = Latency.none();
+    private volatile TokenBucket perMinute;
+    private volatile long dailyLimit = Long.MAX_VALUE;
+    private volatile double errorRate;
+    private volatile boolean synthesizeMissing;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public AlphaVantageStubServer(Path fixtures) {
+        this.fixtures = fixtures;
+    }
+
+    public AlphaVantageStubServer latency(Latency latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Answer with Alpha Vantage's rate-limit messages past these limits (0 for no limit)
+     */
+    public AlphaVantageStubServer rateLimit(int callsPerMinute, long callsPerDay) {
+        this.perMinute = callsPerMinute > 0 ? new TokenBucket(callsPerMinute, TimeUnit.MINUTES.toNanos(1)) : null;
+        this.dailyLimit = callsPerDay > 0 ? callsPerDay : Long.MAX_VALUE;
+        return this;
+    }
+
+    /**
+     * Fail this fraction of requests with a 503 before any other handling
+     */
+    public AlphaVantageStubServer errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Make up a plausible quote for tickers with no recorded GLOBAL_QUOTE
+     */
+    public AlphaVantageStubServer synthesizeMissing(boolean synthesizeMissing) {
+        this.synthesizeMissing = synthesizeMissing;
+        return this;
+    }
+
+    /**
+     * Start listening on the given port (0 for any free port) and return the base URL
+     */
+    public String start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), BACKLOG);
+        // Injected latency sleeps on the handler thread, so each exchange gets its own virtual thread,
+        // and the deep backlog keeps bursts of load-test callers from being refused
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/query", this::handle);
+        server.start();
+        return getBaseUrl();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getReplayed() {
+        return replayed.get();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.get();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long count = requests.incrementAndGet();
+        try (exchange) {
+            sleep(latency.sampleMillis());
+
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedErrors.incrementAndGet();
+                send(exchange, 503, "Service Temporarily Unavailable");
+                return;
+            }
+
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String apiKey = query.get("apikey");
+            if (apiKey == null || apiKey.isBlank()) {
+                send(exchange, 200, json("Error Message", "the parameter apikey is invalid or missing."));
+                return;
+            }
+            if (count > dailyLimit) {
+                throttled.incrementAndGet();
+                send(exchange, 200, json("Information", DAILY_LIMIT_NOTE));
+                return;
+            }
+            if (perMinute != null && !perMinute.tryAcquire()) {
+                throttled.incrementAndGet();
+                send(exchange, 200, json("Note", MINUTE_LIMIT_NOTE));
+                return;
+            }
+
+            send(exchange, 200, respond(query));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String respond(Map<String, String> query) throws IOException {
+        String function = query.getOrDefault("function", "");
+        String parameter = function.equals("SYMBOL_SEARCH") ? query.get("keywords") : query.get("symbol");
+        if (parameter == null) {
+            return json("Error Message", "Invalid API call. Please retry or visit the documentation.");
+        }
+
+        byte[] recorded = AlphaVantageFixtures.read(fixtures, function, parameter);
+        if (recorded != null) {
+            replayed.incrementAndGet();
+            return new String(recorded, StandardCharsets.UTF_8);
+        }
+        return switch (function) {
+            case "GLOBAL_QUOTE" -> synthesizeMissing ? syntheticQuote(parameter) : "{\"Global Quote\":{}}";
+            case "OVERVIEW" -> "{}";
+            case "SYMBOL_SEARCH" -> "{\"bestMatches\":[]}";
+            default -> json("Error Message", "Invalid API call. Please retry or visit the documentation.");
+        };
+    }
+
+    /**
+     * A quote seeded by the ticker so each symbol keeps a stable price level, jittered per call
+     */
+    private static String syntheticQuote(String ticker) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double previousClose = 10 + Math.floorMod(ticker.hashCode(), 49_000) / 100.0;
+        double price = previousClose * (1 + random.nextGaussian() * 0.01);
+        double change = price - previousClose;
+        return String.format(Locale.ROOT, "{\"Global Quote\":{\"01. symbol\":\"%s\",\"02. open\":\"%.4f\","
+                        + "\"03. high\":\"%.4f\",\"04. low\":\"%.4f\",\"05. price\":\"%.4f\",\"06. volume\":\"%d\","
+                        + "\"07. latest trading day\":\"2024-06-14\",\"08. previous close\":\"%.4f\","
+                        + "\"09. change\":\"%.4f\",\"10. change percent\":\"%.4f%%\"}}",
+                ticker, previousClose, Math.max(price, previousClose), Math.min(price, previousClose), price,
+                random.nextLong(100_000, 50_000_000), previousClose, change, change / previousClose * 100);
+    }
+
+    private static String json(String field, String message) {
+        return "{\"" + field + "\":\"" + message + "\"}";
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", status == 200 ? "application/json" : "text/plain");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    /**
+     * Per-request latency in milliseconds
+     */
+    @FunctionalInterface
+    public interface Latency {
+
+        long sampleMillis();
+
+        static Latency none() {
+            return () -> 0;
+        }
+
+        static Latency fixed(long millis) {
+            return () -> millis;
+        }
+
+        static Latency uniform(long minMillis, long maxMillis) {
+            return () -> ThreadLocalRandom.current().nextLong(minMillis, maxMillis + 1);
+        }
+
+        /**
+         * Right-skewed like real network latency: most calls near the median, a long slow tail
+         */
+        static Latency logNormal(double medianMillis, double sigma) {
+            return () -> Math.round(medianMillis * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+        }
+
+        /**
+         * Parse {@code none}, {@code fixed:<ms>}, {@code uniform:<min>:<max>} or
+         * {@code lognormal:<median>:<sigma>}
+         */
+        static Latency parse(String spec) {
+            String[] parts = spec.trim().toLowerCase(Locale.ROOT).split(":");
+            return switch (parts[0]) {
+                case "none" -> none();
+                case "fixed" -> fixed(Long.parseLong(parts[1]));
+                case "uniform" -> uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                case "lognormal" -> logNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            };
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        AlphaVantageStubServer stub = new AlphaVantageStubServer(Path.of(System.getProperty("stub.fixtures", "fixtures")))
+                .latency(Latency.parse(System.getProperty("stub.latency", "none")))
+                .rateLimit(Integer.getInteger("stub.calls-per-minute", 0), Long.getLong("stub.calls-per-day", 0L))
+                .errorRate(Double.parseDouble(System.getProperty("stub.error-rate", "0")))
+                .synthesizeMissing(Boolean.parseBoolean(System.getProperty("stub.synthesize", "true")));
+        String baseUrl = stub.start(Integer.getInteger("stub.port", 8089));
+        log.info("Alpha Vantage stub listening on {}", baseUrl);
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::close));
+        Thread.currentThread().join();
+    }
+}
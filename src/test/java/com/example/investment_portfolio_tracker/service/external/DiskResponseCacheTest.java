@@ -0,0 +1,101 @@
+package com.example.investment_portfolio_tracker.service.external;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DiskResponseCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    @Test
+    void shouldSurviveReopenAndHonourTtl() throws Exception {
+        // Given
+        DiskResponseCache cache = new DiskResponseCache(directory, 1 << 20, now::get);
+        cache.put("OVERVIEW:AAPL", bytes("{\"Sector\":\"TECHNOLOGY\"}"), Duration.ofDays(7));
+        cache.put("GLOBAL_QUOTE:AAPL", bytes("{\"05. price\":\"190.00\"}"), Duration.ofSeconds(30));
+        cache.put("OVERVIEW:AAPL", bytes("{\"Sector\":\"TECH\"}"), Duration.ofDays(7));
+        cache.close();
+
+        // When
+        now.addAndGet(Duration.ofMinutes(1).toMillis());
+        DiskResponseCache reopened = new DiskResponseCache(directory, 1 << 20, now::get);
+
+        // Then
+        assertThat(reopened.get("OVERVIEW:AAPL")).isEqualTo(bytes("{\"Sector\":\"TECH\"}"));
+        assertThat(reopened.get("GLOBAL_QUOTE:AAPL")).isNull();
+        assertThat(reopened.get("OVERVIEW:MSFT")).isNull();
+    }
+
+    @Test
+    void shouldTruncateTornTailOnOpen() throws Exception {
+        // Given
+        DiskResponseCache cache = new DiskResponseCache(directory, 1 << 20, now::get);
+        cache.put("OVERVIEW:AAPL", bytes("{}"), Duration.ofDays(1));
+        long goodSize = cache.fileSize();
+        cache.close();
+        Files.write(directory.resolve("responses.log"), new byte[]{0x41, 0x56, 0x52, 0x43, 1, 2, 3},
+                StandardOpenOption.APPEND);
+
+        // When
+        DiskResponseCache reopened = new DiskResponseCache(directory, 1 << 20, now::get);
+        reopened.put("OVERVIEW:MSFT", bytes("{}"), Duration.ofDays(1));
+        reopened.close();
+        DiskResponseCache again = new DiskResponseCache(directory, 1 << 20, now::get);
+
+        // Then
+        assertThat(again.size()).isEqualTo(2);
+        assertThat(again.fileSize()).isEqualTo(goodSize * 2);
+    }
+
+    @Test
+    void shouldCompactToStayWithinSizeLimit() throws Exception {
+        // Given
+        int maxBytes = 4096;
+        DiskResponseCache cache = new DiskResponseCache(directory, maxBytes, now::get);
+        byte[] value = new byte[100];
+
+        // When
+        for (int i = 0; i < 200; i++) {
+            now.incrementAndGet();
+            cache.put("OVERVIEW:T" + i, value, Duration.ofDays(1));
+        }
+
+        // Then
+        assertThat(cache.fileSize()).isLessThanOrEqualTo(maxBytes);
+        assertThat(Files.size(directory.resolve("responses.log"))).isEqualTo(cache.fileSize());
+        assertThat(cache.get("OVERVIEW:T199")).isEqualTo(value);
+        assertThat(cache.get("OVERVIEW:T0")).isNull();
+    }
+
+    @Test
+    void shouldLetOnlyOneCacheOwnADirectory() throws Exception {
+        // Given
+        DiskResponseCache cache = new DiskResponseCache(directory, 1 << 20, now::get);
+        cache.put("OVERVIEW:AAPL", bytes("{}"), Duration.ofDays(1));
+
+        // When / Then
+        assertThatThrownBy(() -> new DiskResponseCache(directory, 1 << 20, now::get))
+                .isInstanceOf(DiskResponseCache.LockedException.class);
+        cache.close();
+        DiskResponseCache next = new DiskResponseCache(directory, 1 << 20, now::get);
+        assertThat(next.get("OVERVIEW:AAPL")).isEqualTo(bytes("{}"));
+        next.close();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
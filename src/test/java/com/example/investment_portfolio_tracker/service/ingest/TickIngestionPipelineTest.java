@@ -0,0 +1,163 @@
+package com.example.investment_portfolio_tracker.service.ingest;
+
+import com.example.investment_portfolio_tracker.event.StockListingChangedEvent;
+import com.example.investment_portfolio_tracker.event.StockPriceUpdatedEvent;
+import com.example.investment_portfolio_tracker.service.StockService;
+import com.example.investment_portfolio_tracker.service.market.PriceBoard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TickIngestionPipelineTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private PriceBoard priceBoard;
+    @Mock
+    private StockService stockService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private TickIngestionPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new TickIngestionPipeline(jdbcTemplate, transactionManager, priceBoard, stockService,
+                eventPublisher, 64, 1000, 10, 5000, 60_000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRecordAndAnnounceOnlyRowsTheUpdateApplied() {
+        // Given: MSFT's stored price is newer than its tick, so the guarded UPDATE skips it
+        Map<Long, TickIngestionPipeline.PendingTick> ticks = new LinkedHashMap<>();
+        ticks.put(1L, pending(1L, "AAPL", 1_892_500L));
+        ticks.put(2L, pending(2L, "MSFT", 4_100_000L));
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE stocks"), anyList())).thenReturn(new int[]{1, 0});
+
+        // When
+        pipeline.persist(ticks);
+
+        // Then
+        ArgumentCaptor<List<Object[]>> history = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("stock_price_history"), history.capture());
+        assertThat(history.getValue()).hasSize(1);
+        assertThat(history.getValue().get(0)[0]).isEqualTo(1L);
+
+        ArgumentCaptor<StockPriceUpdatedEvent> event = ArgumentCaptor.forClass(StockPriceUpdatedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().ticker()).isEqualTo("AAPL");
+        assertThat(event.getValue().price()).isEqualByComparingTo(new BigDecimal("189.25"));
+        assertThat(event.getValue().historyRecorded()).isTrue();
+        verify(stockService).evictCached("AAPL");
+        verify(stockService, never()).evictCached("MSFT");
+        assertThat(pipeline.getStats()).containsEntry("persisted", 1L);
+    }
+
+    @Test
+    void shouldSkipHistoryWhenNoRowWasApplied() {
+        // Given
+        Map<Long, TickIngestionPipeline.PendingTick> ticks = new LinkedHashMap<>();
+        ticks.put(1L, pending(1L, "AAPL", 1_892_500L));
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE stocks"), anyList())).thenReturn(new int[]{0});
+
+        // When
+        pipeline.persist(ticks);
+
+        // Then
+        verify(jdbcTemplate, never()).batchUpdate(contains("stock_price_history"), anyList());
+        verify(eventPublisher, never()).publishEvent(any());
+        verify(stockService, never()).evictCached(any());
+    }
+
+    @Test
+    void shouldRetryTicksFromAFailedFlush() throws InterruptedException {
+        // Given: the first flush fails, the retry succeeds
+        when(jdbcTemplate.queryForList(any(String.class), eq(Long.class), eq("AAPL"))).thenReturn(List.of(1L));
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE stocks"), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection reset"))
+                .thenReturn(new int[]{1});
+        pipeline.start();
+
+        try {
+            // When
+            assertThat(pipeline.publish("AAPL,189.25," + NOW)).isTrue();
+
+            // Then
+            verify(eventPublisher, timeout(5_000)).publishEvent(any(StockPriceUpdatedEvent.class));
+            assertThat(pipeline.getStats())
+                    .containsEntry("persistFailures", 1L)
+                    .containsEntry("persisted", 1L);
+        } finally {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void shouldRememberUnknownTickersUntilTheyAreListed() {
+        // Given
+        when(jdbcTemplate.queryForList(any(String.class), eq(Long.class), eq("NVDA"))).thenReturn(List.of());
+
+        // When
+        Long first = pipeline.resolve("NVDA");
+        Long second = pipeline.resolve("NVDA");
+        pipeline.onListingChanged(new StockListingChangedEvent(7L, "nvda", "NVIDIA Corp", "NASDAQ",
+                "Technology", "Semiconductors", false));
+        Long listed = pipeline.resolve("NVDA");
+
+        // Then
+        assertThat(first).isNull();
+        assertThat(second).isNull();
+        assertThat(listed).isEqualTo(7L);
+        verify(jdbcTemplate, times(1)).queryForList(any(String.class), eq(Long.class), eq("NVDA"));
+    }
+
+    @Test
+    void shouldForgetTheIdOfARemovedStock() {
+        // Given
+        pipeline.onListingChanged(new StockListingChangedEvent(7L, "NVDA", "NVIDIA Corp", "NASDAQ",
+                "Technology", "Semiconductors", false));
+        when(jdbcTemplate.queryForList(any(String.class), eq(Long.class), eq("NVDA"))).thenReturn(List.of());
+
+        // When
+        pipeline.onListingChanged(new StockListingChangedEvent(7L, "NVDA", "NVIDIA Corp", "NASDAQ",
+                "Technology", "Semiconductors", true));
+
+        // Then
+        assertThat(pipeline.resolve("NVDA")).isNull();
+    }
+
+    private static TickIngestionPipeline.PendingTick pending(Long stockId, String ticker, long price) {
+        return new TickIngestionPipeline.PendingTick(stockId, new TickParser.Tick(ticker, price, NOW), 0L);
+    }
+}
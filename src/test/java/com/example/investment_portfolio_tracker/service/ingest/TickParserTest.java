@@ -0,0 +1,43 @@
+package com.example.investment_portfolio_tracker.service.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TickParserTest {
+
+    @Test
+    void shouldParseTickerPriceAndTimestamp() {
+        // When
+        TickParser.Tick tick = TickParser.parse("aapl,189.25,1700000000000\r\n", 0L);
+
+        // Then
+        assertThat(tick).isNotNull();
+        assertThat(tick.ticker()).isEqualTo("AAPL");
+        assertThat(tick.price()).isEqualTo(1_892_500L);
+        assertThat(tick.epochMillis()).isEqualTo(1_700_000_000_000L);
+    }
+
+    @Test
+    void shouldUseDefaultTimestampWhenMissing() {
+        // When
+        TickParser.Tick tick = TickParser.parse("MSFT,410", 42L);
+
+        // Then
+        assertThat(tick).isNotNull();
+        assertThat(tick.price()).isEqualTo(4_100_000L);
+        assertThat(tick.epochMillis()).isEqualTo(42L);
+    }
+
+    @Test
+    void shouldRejectMalformedLines() {
+        assertThat(TickParser.parse("", 0L)).isNull();
+        assertThat(TickParser.parse("AAPL", 0L)).isNull();
+        assertThat(TickParser.parse(",100", 0L)).isNull();
+        assertThat(TickParser.parse("AAPL,-1", 0L)).isNull();
+        assertThat(TickParser.parse("AAPL,1.2.3", 0L)).isNull();
+        assertThat(TickParser.parse("AAPL,1.23456", 0L)).isNull();
+        assertThat(TickParser.parse("AAPL,1e3", 0L)).isNull();
+        assertThat(TickParser.parse("AAPL,100,yesterday", 0L)).isNull();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.investment_portfolio_tracker.service.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TickRingBufferTest {
+
+    @Test
+    void shouldDeliverPublishedLinesInOrder() {
+        // Given
+        TickRingBuffer ring = new TickRingBuffer(8);
+        ring.tryPublish("AAPL,1", 1L);
+        ring.tryPublish("AAPL,2", 2L);
+        ring.tryPublish("MSFT,3", 3L);
+
+        // When
+        List<String> lines = new ArrayList<>();
+        int drained = ring.drain((line, receivedNanos) -> lines.add(line), 10);
+
+        // Then
+        assertThat(drained).isEqualTo(3);
+        assertThat(lines).containsExactly("AAPL,1", "AAPL,2", "MSFT,3");
+        assertThat(ring.size()).isZero();
+    }
+
+    @Test
+    void shouldRejectWhenFullAndReuseSlotsAfterDrain() {
+        // Given
+        TickRingBuffer ring = new TickRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(ring.tryPublish("T," + i, i)).isTrue();
+        }
+
+        // When/Then
+        assertThat(ring.tryPublish("T,4", 4L)).isFalse();
+        assertThat(ring.drain((line, receivedNanos) -> { }, 2)).isEqualTo(2);
+        assertThat(ring.tryPublish("T,4", 4L)).isTrue();
+        assertThat(ring.tryPublish("T,5", 5L)).isTrue();
+        assertThat(ring.size()).isEqualTo(4);
+        assertThatThrownBy(() -> new TickRingBuffer(6)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldNotLoseLinesWithConcurrentProducers() throws InterruptedException {
+        // Given
+        TickRingBuffer ring = new TickRingBuffer(64);
+        int producers = 4;
+        int perProducer = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            String prefix = "P" + p + ",";
+            executor.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    ring.publish(prefix + i, System.nanoTime(), () -> true);
+                }
+                done.countDown();
+            });
+        }
+
+        // When
+        long[] lastSeen = {-1, -1, -1, -1};
+        boolean[] ordered = {true};
+        int[] consumed = {0};
+        while (consumed[0] < producers * perProducer) {
+            consumed[0] += ring.drain((line, receivedNanos) -> {
+                int producer = line.charAt(1) - '0';
+                long sequence = Long.parseLong(line.substring(line.indexOf(',') + 1));
+                ordered[0] &= sequence == lastSeen[producer] + 1;
+                lastSeen[producer] = sequence;
+            }, 128);
+        }
+
+        // Then: everything arrives, and each producer's lines stay in order
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        assertThat(consumed[0]).isEqualTo(producers * perProducer);
+        assertThat(ordered[0]).isTrue();
+        assertThat(ring.size()).isZero();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.investment_portfolio_tracker.service.market;
+
+import com.example.investment_portfolio_tracker.model.Stock;
+import com.example.investment_portfolio_tracker.repository.PositionRepository;
+import com.example.investment_portfolio_tracker.repository.StockRepository;
+import com.example.investment_portfolio_tracker.service.StockService;
+import com.example.investment_portfolio_tracker.service.cluster.ClusterCoordinator;
+import com.example.investment_portfolio_tracker.util.TokenBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceRefreshServiceTest {
+
+    // Tuesday 11:00 in New York
+    private static final Instant MARKET_OPEN = Instant.parse("2026-10-13T15:00:00Z");
+    // Saturday
+    private static final Instant WEEKEND = Instant.parse("2026-10-17T15:00:00Z");
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private PositionRepository positionRepository;
+
+    @Mock
+    private StockService stockService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private MarketCalendar marketCalendar;
+
+    @BeforeEach
+    void setUp() {
+        marketCalendar = new MarketCalendar("America/New_York", "09:30", "16:00", 15,
+                List.of("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"), List.of());
+    }
+
+    @Test
+    void shouldRefreshHeldStocksBeforeStalerUnheldOnes() {
+        // Given
+        Stock held = createStock(1L, "HELD", MARKET_OPEN.minus(Duration.ofMinutes(10)));
+        Stock idle = createStock(2L, "IDLE", MARKET_OPEN.minus(Duration.ofMinutes(60)));
+        when(stockRepository.findAll()).thenReturn(List.of(idle, held));
+        when(positionRepository.getHoldingsByStock()).thenReturn(List.of(
+                Map.of("stockId", 1L, "holders", 3L, "quantity", new BigDecimal("50"))));
+        when(stockService.refreshStockPrice("HELD")).thenReturn(held);
+        PriceRefreshService service = createService(MARKET_OPEN, 1);
+
+        // When
+        service.reprioritize();
+        int refreshed = service.drain();
+
+        // Then
+        assertThat(refreshed).isEqualTo(1);
+        verify(stockService).refreshStockPrice("HELD");
+        verify(stockService, never()).refreshStockPrice("IDLE");
+        assertThat(service.getStatus().getQueueDepth()).isEqualTo(1);
+        assertThat(service.getStatus().getHeldStalenessSeconds()).containsEntry("max", 600L);
+        assertThat(service.getStatus().getStalenessSeconds()).containsEntry("max", 3600L);
+    }
+
+    @Test
+    void shouldNotRefreshWhileMarketIsClosed() {
+        // Given
+        Stock stock = createStock(1L, "AAPL", WEEKEND.minus(Duration.ofDays(1)));
+        when(stockRepository.findAll()).thenReturn(List.of(stock));
+        when(positionRepository.getHoldingsByStock()).thenReturn(List.of());
+        PriceRefreshService service = createService(WEEKEND, 5);
+
+        // When
+        service.reprioritize();
+        int refreshed = service.drain();
+
+        // Then
+        assertThat(refreshed).isZero();
+        assertThat(service.getStatus().isMarketOpen()).isFalse();
+        assertThat(service.getStatus().getQueueDepth()).isEqualTo(1);
+        verifyNoInteractions(stockService);
+    }
+
+    @Test
+    void shouldComputeStalenessPercentiles() {
+        // Given
+        List<Long> ages = List.of(5L, 1L, 4L, 2L, 3L, 10L, 6L, 8L, 7L, 9L);
+
+        // When
+        Map<String, Long> percentiles = PriceRefreshService.percentiles(ages);
+
+        // Then
+        assertThat(percentiles).containsEntry("p50", 5L)
+                .containsEntry("p90", 9L)
+                .containsEntry("p99", 10L)
+                .containsEntry("max", 10L);
+    }
+
+    private PriceRefreshService createService(Instant now, int callsPerMinute) {
+        return new PriceRefreshService(stockRepository, positionRepository, stockService,
+                new PriceBoard(jdbcTemplate, 16), marketCalendar,
+                new ClusterCoordinator(dataSource, eventPublisher, false, 256, 64),
+                new TokenBucket(callsPerMinute, TimeUnit.MINUTES.toNanos(1), () -> 0L),
+                25, 0.05, Clock.fixed(now, ZoneOffset.UTC), new SimpleMeterRegistry());
+    }
+
+    private Stock createStock(Long id, String ticker, Instant lastUpdated) {
+        Stock stock = new Stock();
+        stock.setId(id);
+        stock.setTicker(ticker);
+        stock.setCurrentPrice(new BigDecimal("100.00"));
+        stock.setLastUpdated(LocalDateTime.ofInstant(lastUpdated, ZoneId.systemDefault()));
+        return stock;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.investment_portfolio_tracker.service.market;
+
+import com.example.investment_portfolio_tracker.event.QuoteRevalidationRequestedEvent;
+import com.example.investment_portfolio_tracker.service.StockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class QuoteRevalidatorTest {
+
+    @Mock
+    private StockService stockService;
+
+    private QuoteRevalidator revalidator;
+
+    @BeforeEach
+    void setUp() {
+        revalidator = new QuoteRevalidator(stockService, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        revalidator.shutdown();
+    }
+
+    @Test
+    void shouldCountOnlyStalePricesReturnedToUsers() {
+        // When: a user's refresh, then a scheduled refresh of another ticker, both stale
+        revalidator.onRevalidationRequested(new QuoteRevalidationRequestedEvent("AAPL", 30_000, true));
+        revalidator.onRevalidationRequested(new QuoteRevalidationRequestedEvent("MSFT", 30_000, false));
+
+        // Then both are retried, one was served
+        assertThat(revalidator.getStaleServed()).isEqualTo(1);
+        assertThat(revalidator.getStats()).containsEntry("pending", 2);
+    }
+}
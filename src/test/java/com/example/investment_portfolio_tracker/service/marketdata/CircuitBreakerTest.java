@@ -0,0 +1,80 @@
+package com.example.investment_portfolio_tracker.service.marketdata;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker("test",
+            new CircuitBreaker.Config(4, 4, 0.5, Duration.ofSeconds(10), 1), now::get);
+
+    @Test
+    void shouldOpenOnceFailureRateReachesThreshold() {
+        // Given
+        succeed();
+        succeed();
+        fail();
+
+        // When
+        fail();
+
+        // Then
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.millisUntilRetry()).isEqualTo(10_000);
+        assertThat(breaker.stats()).containsEntry("timesOpened", 1L).containsEntry("rejected", 1L);
+    }
+
+    @Test
+    void shouldAllowOneProbeWhenHalfOpenAndCloseOnSuccess() {
+        // Given
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        // When
+        boolean probe = breaker.tryAcquire();
+        boolean second = breaker.tryAcquire();
+        breaker.onSuccess();
+
+        // Then
+        assertThat(probe).isTrue();
+        assertThat(second).isFalse();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.stats()).containsEntry("timesClosed", 1L).containsEntry("failureRate", 0.0);
+    }
+
+    @Test
+    void shouldReopenWhenProbeFails() {
+        // Given
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        // When
+        breaker.tryAcquire();
+        breaker.onFailure();
+
+        // Then
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.millisUntilRetry()).isEqualTo(10_000);
+        assertThat(breaker.stats()).containsEntry("timesOpened", 2L);
+    }
+
+    private void succeed() {
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess();
+    }
+
+    private void fail() {
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.investment_portfolio_tracker.service.marketdata;
+
+import com.example.investment_portfolio_tracker.util.TokenBucket;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MarketDataRouterTest {
+
+    private static final CircuitBreaker.Config BREAKER = new CircuitBreaker.Config(10, 2, 0.5, Duration.ofMinutes(1), 1);
+
+    @Mock
+    private MarketDataProvider primary;
+
+    @Mock
+    private MarketDataProvider secondary;
+
+    @Test
+    void shouldFailOverWhenPrimaryFails() {
+        // Given
+        when(primary.getName()).thenReturn("primary");
+        when(secondary.getName()).thenReturn("secondary");
+        when(primary.getQuote("AAPL")).thenThrow(new MarketDataException("upstream down"));
+        when(secondary.getQuote("AAPL")).thenReturn(quote("AAPL", "190.00", "secondary"));
+        MarketDataRouter router = new MarketDataRouter(List.of(primary, secondary), Map.of(), BREAKER, false, 1000, 0.5);
+
+        // When
+        MarketQuote quote = router.getQuote("AAPL");
+
+        // Then
+        assertThat(quote.provider()).isEqualTo("secondary");
+        assertThat(router.getStats().get(0)).containsEntry("failures", 1L);
+        assertThat(router.getStats().get(1)).containsEntry("failures", 0L);
+    }
+
+    @Test
+    void shouldSkipProviderWithoutQuota() {
+        // Given
+        when(primary.getName()).thenReturn("primary");
+        when(secondary.getName()).thenReturn("secondary");
+        when(primary.getQuote(anyString())).thenReturn(quote("AAPL", "190.00", "primary"));
+        when(secondary.getQuote(anyString())).thenReturn(quote("AAPL", "190.01", "secondary"));
+        TokenBucket oneCall = new TokenBucket(1, TimeUnit.MINUTES.toNanos(1), () -> 0L);
+        MarketDataRouter router = new MarketDataRouter(List.of(primary, secondary),
+                Map.of("primary", oneCall), BREAKER, false, 1000, 0.5);
+
+        // When
+        MarketQuote first = router.getQuote("AAPL");
+        MarketQuote second = router.getQuote("AAPL");
+
+        // Then
+        assertThat(first.provider()).isEqualTo("primary");
+        assertThat(second.provider()).isEqualTo("secondary");
+        assertThat(router.getStats().get(0)).containsEntry("throttled", 1L);
+    }
+
+    @Test
+    void shouldChargeOutsideCallsToTheSameQuotaAndCircuit() {
+        // Given
+        when(primary.getName()).thenReturn("primary");
+        TokenBucket twoCalls = new TokenBucket(2, TimeUnit.MINUTES.toNanos(1), () -> 0L);
+        MarketDataRouter router = new MarketDataRouter(List.of(primary), Map.of("primary", twoCalls),
+                new CircuitBreaker.Config(10, 1, 0.5, Duration.ofMinutes(1), 1), false, 1000, 0.5);
+
+        // When
+        router.acquire("primary").failed();
+
+        // Then: the failure opened the circuit, so the token left is not spent
+        assertThatThrownBy(() -> router.acquire("primary")).isInstanceOf(CircuitOpenException.class);
+        assertThat(router.getStats().get(0)).containsEntry("failures", 1L).containsEntry("tokensAvailable", 1L);
+        assertThatThrownBy(() -> router.acquire("other")).isInstanceOf(MarketDataException.class);
+        verify(primary, never()).getQuote(anyString());
+    }
+
+    @Test
+    void shouldReturnFirstValidQuoteWhenRacing() {
+        // Given
+        MarketDataProvider slow = new FakeMarketDataProvider("slow", 500, 0, 0.0);
+        MarketDataProvider fast = new FakeMarketDataProvider("fast", 0, 0, 0.0);
+        MarketDataRouter router = new MarketDataRouter(List.of(slow, fast), Map.of(), BREAKER, true, 5000, 0.5);
+
+        // When
+        long started = System.nanoTime();
+        MarketQuote quote = router.getQuoteFastest("AAPL");
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        router.shutdown();
+
+        // Then
+        assertThat(quote.provider()).isEqualTo("fast");
+        assertThat(elapsedMs).isLessThan(500);
+    }
+
+    private static MarketQuote quote(String ticker, String price, String provider) {
+        return new MarketQuote(ticker, new BigDecimal(price), null, 0, LocalDateTime.now(), provider);
+    }
+}
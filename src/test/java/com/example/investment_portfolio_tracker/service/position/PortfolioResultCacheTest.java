@@ -0,0 +1,91 @@
+package com.example.investment_portfolio_tracker.service.position;
+
+import com.example.investment_portfolio_tracker.event.PositionsRewrittenEvent;
+import com.example.investment_portfolio_tracker.event.StockPriceUpdatedEvent;
+import com.example.investment_portfolio_tracker.event.TradeExecutedEvent;
+import com.example.investment_portfolio_tracker.model.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PortfolioResultCacheTest {
+
+    private static final long USER = 1L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private PortfolioVersionService versions;
+    private PortfolioResultCache cache;
+    private final AtomicInteger computed = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        versions = new PortfolioVersionService(jdbcTemplate, 16);
+        cache = new PortfolioResultCache(versions, 2);
+    }
+
+    @Test
+    void shouldRecomputeOnlyWhenAHeldStockOrTheUsersPositionsChange() {
+        // Given: the user holds stocks 1 and 2
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(USER))).thenReturn(List.of(1L, 2L));
+        summary();
+        summary();
+
+        // When / Then: a tick in a stock the user does not hold changes nothing
+        versions.onPriceUpdated(tick(3L));
+        assertThat(summary()).isEqualTo(1);
+
+        versions.onPriceUpdated(tick(2L));
+        assertThat(summary()).isEqualTo(2);
+
+        versions.onTradeExecuted(new TradeExecutedEvent(USER, 1L, "T1", TransactionType.SELL,
+                BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ZERO, LocalDateTime.now()));
+        assertThat(summary()).isEqualTo(3);
+
+        versions.onPositionsRewritten(new PositionsRewrittenEvent(USER));
+        assertThat(summary()).isEqualTo(4);
+        assertThat(summary()).isEqualTo(4);
+        verify(jdbcTemplate, times(3)).queryForList(anyString(), eq(Long.class), eq(USER));
+    }
+
+    @Test
+    void shouldKeepResultsPerEndpointAndDropTheLeastRecentlyRead() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(USER))).thenReturn(List.of(1L));
+        cache.get(USER, "summary", computed::incrementAndGet);
+        cache.get(USER, "performance", computed::incrementAndGet);
+        cache.get(USER, "summary", computed::incrementAndGet);
+
+        // When
+        cache.get(USER, "allocation", computed::incrementAndGet);
+
+        // Then: summary survived as the most recently read; performance was dropped
+        assertThat(cache.get(USER, "summary", computed::incrementAndGet)).isEqualTo(1);
+        assertThat(cache.get(USER, "performance", computed::incrementAndGet)).isEqualTo(4);
+    }
+
+    private int summary() {
+        return cache.get(USER, "summary", computed::incrementAndGet);
+    }
+
+    private static StockPriceUpdatedEvent tick(Long stockId) {
+        return new StockPriceUpdatedEvent(stockId, "T" + stockId, BigDecimal.TEN, LocalDateTime.now());
+    }
+}
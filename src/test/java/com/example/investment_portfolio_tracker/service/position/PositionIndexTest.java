@@ -0,0 +1,71 @@
+package com.example.investment_portfolio_tracker.service.position;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PositionIndexTest {
+
+    private static final long USER = 1L;
+
+    @Test
+    void shouldReRankPositionsAsPricesAndTradesMove() {
+        // Given: position ids 10, 11, 12 in stocks 1, 2, 3
+        PositionIndex index = new PositionIndex(16);
+        index.load(USER, () -> List.of(
+                new PositionIndex.Holding(10L, 1L, 10, 100, 300),
+                new PositionIndex.Holding(11L, 2L, 10, 100, 100),
+                new PositionIndex.Holding(12L, 3L, 10, 100, Double.NaN)));
+
+        // When
+        index.updatePrice(2L, 400);
+        index.update(USER, 1L, () -> new PositionIndex.Holding(10L, 1L, 20, 100, 300));
+
+        // Then: unpriced positions rank last and never count as gains
+        assertThat(index.largest(USER, 3)).containsExactly(10L, 11L, 12L);
+        assertThat(index.largest(USER, 1)).containsExactly(10L);
+        assertThat(index.gainAbove(USER, 0.1)).containsExactly(11L, 10L);
+        assertThat(index.gainAbove(USER, 2.0)).containsExactly(11L);
+    }
+
+    @Test
+    void shouldDropSoldAndDelistedPositions() {
+        // Given
+        PositionIndex index = new PositionIndex(16);
+        index.load(USER, () -> List.of(
+                new PositionIndex.Holding(10L, 1L, 10, 100, 150),
+                new PositionIndex.Holding(11L, 2L, 10, 100, 120)));
+        index.load(2L, () -> List.of(new PositionIndex.Holding(20L, 2L, 5, 100, 120)));
+
+        // When
+        index.update(USER, 1L, () -> null);
+        index.removeStock(2L);
+        index.updatePrice(2L, 500);
+
+        // Then
+        assertThat(index.largest(USER, 5)).isEmpty();
+        assertThat(index.largest(2L, 5)).isEmpty();
+        assertThat(index.gainAbove(USER, 0)).isEmpty();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyReadUsersAndReloadThemOnDemand() {
+        // Given
+        PositionIndex index = new PositionIndex(2);
+        index.load(1L, () -> List.of(new PositionIndex.Holding(10L, 1L, 1, 1, 1)));
+        index.load(2L, () -> List.of(new PositionIndex.Holding(20L, 1L, 1, 1, 1)));
+        index.largest(1L, 1);
+
+        // When
+        index.load(3L, () -> List.of(new PositionIndex.Holding(30L, 1L, 1, 1, 1)));
+
+        // Then
+        assertThat(index.isLoaded(2L)).isFalse();
+        assertThat(index.isLoaded(1L)).isTrue();
+        assertThat(index.size()).isEqualTo(2);
+        index.load(2L, () -> List.of(new PositionIndex.Holding(21L, 1L, 1, 1, 1)));
+        assertThat(index.largest(2L, 1)).containsExactly(21L);
+    }
+}
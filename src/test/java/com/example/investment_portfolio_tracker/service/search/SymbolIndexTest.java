@@ -0,0 +1,56 @@
+package com.example.investment_portfolio_tracker.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SymbolIndexTest {
+
+    private final SymbolIndex index = SymbolIndex.build(List.of(
+            new SymbolEntry(1L, "AAPL", "Apple Inc.", "NASDAQ"),
+            new SymbolEntry(2L, "APLE", "Apple Hospitality REIT Inc", "NYSE"),
+            new SymbolEntry(3L, "AAP", "Advance Auto Parts Inc", "NYSE"),
+            new SymbolEntry(4L, "MSFT", "Microsoft Corporation", "NASDAQ"),
+            new SymbolEntry(5L, "PNAP", "Pineapple Energy Inc", "NASDAQ"),
+            new SymbolEntry(6L, "BRK.B", "Berkshire Hathaway Inc. Class B", "NYSE")));
+
+    @Test
+    void shouldRankExactTickerThenPrefixThenName() {
+        // When
+        List<SymbolMatch> matches = index.search("aap", 10, 0.5);
+
+        // Then
+        assertThat(matches).extracting(SymbolMatch::ticker).startsWith("AAP", "AAPL");
+        assertThat(matches).extracting(SymbolMatch::matchType)
+                .startsWith(MatchType.EXACT_TICKER, MatchType.TICKER_PREFIX);
+
+        List<SymbolMatch> byName = index.search("Apple", 10, 0.5);
+        assertThat(byName).extracting(SymbolMatch::ticker).containsSequence("AAPL", "APLE");
+        assertThat(byName.get(0).matchType()).isEqualTo(MatchType.NAME_PREFIX);
+        assertThat(index.search("brk.b", 10, 0.5).get(0).matchType()).isEqualTo(MatchType.EXACT_TICKER);
+    }
+
+    @Test
+    void shouldFindMisspellingsAndLaterWords() {
+        // When
+        List<SymbolMatch> typo = index.search("microsfot", 5, 0.5);
+        List<SymbolMatch> laterWord = index.search("hathaway", 5, 0.5);
+
+        // Then
+        assertThat(typo).extracting(SymbolMatch::ticker).first().isEqualTo("MSFT");
+        assertThat(typo.get(0).matchType()).isEqualTo(MatchType.FUZZY);
+        assertThat(laterWord).extracting(SymbolMatch::ticker).first().isEqualTo("BRK.B");
+        assertThat(laterWord.get(0).matchType()).isEqualTo(MatchType.NAME_PREFIX);
+    }
+
+    @Test
+    void shouldCapResultsAtLimit() {
+        // When / Then
+        assertThat(index.search("a", 2, 0.5)).hasSize(2);
+        assertThat(index.search("inc", 3, 0.5)).hasSize(3).doesNotHaveDuplicates();
+        assertThat(index.search("  ", 10, 0.5)).isEmpty();
+        assertThat(SymbolIndex.EMPTY.search("aapl", 10, 0.5)).isEmpty();
+    }
+}
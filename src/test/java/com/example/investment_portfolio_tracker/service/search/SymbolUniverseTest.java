@@ -0,0 +1,139 @@
+package com.example.investment_portfolio_tracker.service.search;
+
+import com.example.investment_portfolio_tracker.service.cluster.ClusterCoordinator;
+import com.example.investment_portfolio_tracker.service.external.AlphaVantageService;
+import com.example.investment_portfolio_tracker.service.market.MarketCalendar;
+import com.example.investment_portfolio_tracker.service.marketdata.AlphaVantageMarketDataProvider;
+import com.example.investment_portfolio_tracker.service.marketdata.CircuitBreaker;
+import com.example.investment_portfolio_tracker.service.marketdata.MarketDataRouter;
+import com.example.investment_portfolio_tracker.util.TokenBucket;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SymbolUniverseTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private AlphaVantageService alphaVantageService;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void shouldLoadActiveListingsAndReloadThemFromDisk() throws Exception {
+        // Given
+        Path listing = directory.resolve("listing_status.csv");
+        Files.writeString(listing, """
+                symbol,name,exchange,assetType,ipoDate,delistingDate,status
+                AAPL,Apple Inc,NASDAQ,Stock,1980-12-12,null,Active
+                BRK-B,"Berkshire Hathaway Inc, Class B",NYSE,Stock,1996-05-09,null,Active
+                TWTR,Twitter Inc,NYSE,Stock,2013-11-07,2022-10-27,Delisted
+                """);
+        Path saved = directory.resolve("universe.tsv");
+        SymbolUniverse universe = createUniverse(saved, listing.toString(), 100, 0);
+
+        // When
+        universe.load();
+        SymbolUniverse reloaded = createUniverse(saved, "", 100, 0);
+        reloaded.load();
+
+        // Then
+        assertThat(universe.size()).isEqualTo(2);
+        assertThat(universe.search("berkshire", 5)).extracting(SymbolMatch::ticker).containsExactly("BRK-B");
+        assertThat(universe.search("twitter", 5)).isEmpty();
+        assertThat(reloaded.search("appl", 5)).extracting(SymbolMatch::name).containsExactly("Apple Inc");
+        assertThat(reloaded.search("appl", 5).get(0).id()).isNull();
+    }
+
+    @Test
+    void shouldSkipAListingWithoutSymbolOrNameColumns() throws Exception {
+        // Given
+        Path listing = directory.resolve("listing_status.csv");
+        Files.writeString(listing, """
+                ticker,exchange,status
+                AAPL,NASDAQ,Active
+                """);
+        SymbolUniverse universe = createUniverse(directory.resolve("universe.tsv"), listing.toString(), 100, 0);
+
+        // When
+        universe.load();
+
+        // Then
+        assertThat(SymbolUniverse.readListing(listing)).isEmpty();
+        assertThat(universe.size()).isZero();
+    }
+
+    @Test
+    void shouldBackfillListedSymbolsFromSymbolSearchWithinTheSharedQuota() throws Exception {
+        // Given one Alpha Vantage call left this minute, and plenty left today
+        SymbolUniverse universe = createUniverse(directory.resolve("universe.tsv"), "", 1, 5);
+        when(alphaVantageService.searchStocks("tesla")).thenReturn(Map.of("bestMatches", List.of(
+                Map.of("1. symbol", "TSLA", "2. name", "Tesla Inc", "3. type", "Equity"),
+                Map.of("1. symbol", "TSLAX", "2. name", "Tesla Growth Fund", "3. type", "Mutual Fund"))));
+
+        // When
+        universe.backfill("tesla");
+        universe.backfill("ford");
+        universe.awaitWorker();
+
+        // Then
+        assertThat(universe.search("tes", 5)).extracting(SymbolMatch::ticker).containsExactly("TSLA");
+        verify(alphaVantageService, never()).searchStocks("ford");
+        assertThat(SymbolUniverse.readSaved(directory.resolve("universe.tsv")))
+                .extracting(SymbolEntry::ticker).containsExactly("TSLA");
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).extracting(path -> path.getFileName().toString()).containsExactly("universe.tsv");
+        }
+    }
+
+    @Test
+    void shouldStopBackfillingOnceTheDailyBudgetIsSpent() {
+        // Given
+        SymbolUniverse universe = createUniverse(directory.resolve("universe.tsv"), "", 100, 1);
+        when(alphaVantageService.searchStocks("tesla")).thenReturn(Map.of("bestMatches", List.of()));
+
+        // When
+        universe.backfill("tesla");
+        universe.backfill("ford");
+
+        // Then
+        verify(alphaVantageService, never()).searchStocks("ford");
+    }
+
+    private SymbolUniverse createUniverse(Path saved, String listing, long callsPerMinute, int backfillPerDay) {
+        MarketDataRouter router = new MarketDataRouter(
+                List.of(new AlphaVantageMarketDataProvider(alphaVantageService)),
+                Map.of(AlphaVantageMarketDataProvider.NAME,
+                        new TokenBucket(callsPerMinute, TimeUnit.MINUTES.toNanos(1), () -> 0L)),
+                new CircuitBreaker.Config(10, 2, 0.5, Duration.ofMinutes(1), 1), false, 1000, 0.5);
+        MarketCalendar calendar = new MarketCalendar("America/New_York", "09:30", "16:00", 15,
+                List.of("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"), List.of());
+        return new SymbolUniverse(alphaVantageService, router, calendar,
+                new ClusterCoordinator(dataSource, eventPublisher, false, 256, 64),
+                saved.toString(), listing, backfillPerDay, 0.5);
+    }
+}
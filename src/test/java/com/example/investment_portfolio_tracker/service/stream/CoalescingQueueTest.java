@@ -0,0 +1,55 @@
+package com.example.investment_portfolio_tracker.service.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoalescingQueueTest {
+
+    @Test
+    void shouldReplacePendingUpdateForSameKeyInPlace() {
+        // Given
+        CoalescingQueue<String, Integer> queue = new CoalescingQueue<>(4);
+        queue.offer("AAPL", 1);
+        queue.offer("MSFT", 2);
+
+        // When
+        queue.offer("AAPL", 3);
+
+        // Then
+        List<Map.Entry<String, Integer>> batch = queue.drain();
+        assertThat(batch).containsExactly(Map.entry("AAPL", 3), Map.entry("MSFT", 2));
+        assertThat(queue.getDropped()).isZero();
+    }
+
+    @Test
+    void shouldDropOldestKeyWhenFull() {
+        // Given
+        CoalescingQueue<String, Integer> queue = new CoalescingQueue<>(2);
+        queue.offer("AAPL", 1);
+        queue.offer("MSFT", 2);
+
+        // When
+        queue.offer("GOOG", 3);
+
+        // Then
+        assertThat(queue.drain()).containsExactly(Map.entry("MSFT", 2), Map.entry("GOOG", 3));
+        assertThat(queue.getDropped()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSignalOnlyWhenQueueWasEmpty() {
+        // Given
+        CoalescingQueue<String, Integer> queue = new CoalescingQueue<>(4);
+
+        // When/Then
+        assertThat(queue.offer("AAPL", 1)).isTrue();
+        assertThat(queue.offer("MSFT", 2)).isFalse();
+        queue.drain();
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(queue.offer("AAPL", 3)).isTrue();
+    }
+}